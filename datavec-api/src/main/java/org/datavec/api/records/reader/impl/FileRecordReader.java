@@ -19,6 +19,7 @@ package org.datavec.api.records.reader.impl;
 import org.apache.commons.io.FileUtils;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
+import org.datavec.api.records.SequenceRecord;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.metadata.RecordMetaDataURI;
 import org.datavec.api.records.reader.BaseRecordReader;
@@ -26,6 +27,7 @@ import org.datavec.api.split.InputSplit;
 import org.datavec.api.writable.IntWritable;
 import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.primitives.Pair;
 
 import java.io.*;
 import java.net.URI;
@@ -36,11 +38,30 @@ import java.util.List;
 
 /**
  * File reader/writer
+ * <p>
+ * Optionally (see {@link #setParallelLoading(int, int, boolean)}), files are loaded in parallel, ahead of their use,
+ * by a {@link ParallelFileLoader}. This applies to this reader and to the subclasses that load files via
+ * {@link #nextLoaded()} or {@link #nextLoadedSequence()}
+ * ({@link org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader},
+ * {@link org.datavec.api.records.reader.impl.regex.RegexSequenceRecordReader}); other subclasses ignore it.
  *
  * @author Adam Gibson
  */
 public class FileRecordReader extends BaseRecordReader {
 
+    /**
+     * Number of threads for loading files in parallel. 0 (default): load files sequentially, on the calling thread
+     */
+    public static final String LOADER_THREADS = NAME_SPACE + ".loaderthreads";
+    /**
+     * Maximum number of files loaded ahead, when loading files in parallel. Default: 2 * number of threads
+     */
+    public static final String LOADER_PREFETCH = NAME_SPACE + ".loaderprefetch";
+    /**
+     * Whether files loaded in parallel are returned in the order of the input split (default: true)
+     */
+    public static final String LOADER_ORDERED = NAME_SPACE + ".loaderordered";
+
     protected Iterator<File> iter;
     protected Iterator<String> locationsIterator;
     protected Configuration conf;
@@ -48,9 +69,34 @@ public class FileRecordReader extends BaseRecordReader {
     protected List<String> labels;
     protected boolean appendLabel = false;
     protected InputSplit inputSplit;
+    protected int loaderThreads = 0;
+    protected int loaderPrefetch = 0;
+    protected boolean loaderOrdered = true;
+    private transient ParallelFileLoader<Record> parallelLoader;
+    private transient ParallelFileLoader<SequenceRecord> parallelSequenceLoader;
 
     public FileRecordReader() {}
 
+    /**
+     * Load files in parallel, ahead of their use: up to {@code prefetch} files are opened, read and parsed
+     * concurrently by {@code numThreads} threads. Must be set before initialization.
+     *
+     * @param numThreads Number of loader threads. 0: load files sequentially, on the calling thread
+     * @param prefetch   Maximum number of files loaded ahead (>= numThreads)
+     * @param ordered    If true: return records in the order of the input split. If false: in the order the files
+     *                   are loaded (faster when load times vary)
+     */
+    public void setParallelLoading(int numThreads, int prefetch, boolean ordered) {
+        if (numThreads < 0 || (numThreads > 0 && prefetch < numThreads)) {
+            throw new IllegalArgumentException("Invalid parallel loading configuration: number of threads must be "
+                            + ">= 0, and prefetch >= number of threads. Got numThreads=" + numThreads + ", prefetch="
+                            + prefetch);
+        }
+        this.loaderThreads = numThreads;
+        this.loaderPrefetch = prefetch;
+        this.loaderOrdered = ordered;
+    }
+
     @Override
     public void initialize(InputSplit split) throws IOException, InterruptedException {
         doInitialize(split);
@@ -59,6 +105,8 @@ public class FileRecordReader extends BaseRecordReader {
 
 
     protected void doInitialize(InputSplit split) {
+        closeParallelLoader();
+        iter = null;
 
         if (labels == null && appendLabel) {
             URI[] locations = split.locations();
@@ -79,6 +127,9 @@ public class FileRecordReader extends BaseRecordReader {
     @Override
     public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
         appendLabel = conf.getBoolean(APPEND_LABEL, true);
+        loaderThreads = conf.getInt(LOADER_THREADS, loaderThreads);
+        loaderPrefetch = conf.getInt(LOADER_PREFETCH, loaderPrefetch > 0 ? loaderPrefetch : 2 * loaderThreads);
+        loaderOrdered = conf.getBoolean(LOADER_ORDERED, loaderOrdered);
         doInitialize(split);
         this.inputSplit = split;
         this.conf = conf;
@@ -89,6 +140,113 @@ public class FileRecordReader extends BaseRecordReader {
         return nextRecord().getRecord();
     }
 
+    /**
+     * Load the record of the given file, with its metadata.
+     * When loading files in parallel, this is called concurrently from the loader threads: implementations must
+     * not modify the state of the record reader.
+     *
+     * @param file File to load
+     * @return The loaded record
+     */
+    protected Record load(File file) throws IOException {
+        return new org.datavec.api.records.impl.Record(loadFromFile(file),
+                        new RecordMetaDataURI(file.toURI(), FileRecordReader.class));
+    }
+
+    /**
+     * Load the sequence of the given file, with its metadata. Must be overridden by the sequence record readers that
+     * use {@link #nextLoadedSequence()}.
+     * When loading files in parallel, this is called concurrently from the loader threads: implementations must
+     * not modify the state of the record reader.
+     *
+     * @param file File to load
+     * @return The loaded sequence record
+     */
+    protected SequenceRecord loadSequence(File file) throws IOException {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " does not load sequences");
+    }
+
+    /**
+     * Load the next file with {@link #load(File)}: sequentially, or from the parallel loader if parallel loading is
+     * enabled. Sets the current file and invokes the listeners.
+     */
+    protected Record nextLoaded() {
+        ParallelFileLoader.Loader<Record> loader = new ParallelFileLoader.Loader<Record>() {
+            @Override
+            public Record load(File file) throws IOException {
+                return FileRecordReader.this.load(file);
+            }
+        };
+        if (loaderThreads > 0 && parallelLoader == null) {
+            parallelLoader = newParallelLoader(loader);
+        }
+        return nextLoaded(parallelLoader, loader);
+    }
+
+    /**
+     * Load the next file with {@link #loadSequence(File)}: sequentially, or from the parallel loader if parallel
+     * loading is enabled. Sets the current file and invokes the listeners.
+     */
+    protected SequenceRecord nextLoadedSequence() {
+        ParallelFileLoader.Loader<SequenceRecord> loader = new ParallelFileLoader.Loader<SequenceRecord>() {
+            @Override
+            public SequenceRecord load(File file) throws IOException {
+                return FileRecordReader.this.loadSequence(file);
+            }
+        };
+        if (loaderThreads > 0 && parallelSequenceLoader == null) {
+            parallelSequenceLoader = newParallelLoader(loader);
+        }
+        return nextLoaded(parallelSequenceLoader, loader);
+    }
+
+    private <T> ParallelFileLoader<T> newParallelLoader(ParallelFileLoader.Loader<T> loader) {
+        return new ParallelFileLoader<>(new Iterator<File>() {
+            @Override
+            public boolean hasNext() {
+                return hasNextFile();
+            }
+
+            @Override
+            public File next() {
+                return nextFile();
+            }
+
+            @Override
+            public void remove() {
+                throw new UnsupportedOperationException();
+            }
+        }, loader, loaderThreads, Math.max(loaderPrefetch, loaderThreads), loaderOrdered);
+    }
+
+    private <T> T nextLoaded(ParallelFileLoader<T> parallel, ParallelFileLoader.Loader<T> loader) {
+        if (parallel != null) {
+            Pair<File, T> next = parallel.next();
+            this.currentFile = next.getFirst();
+            invokeListeners(next.getFirst());
+            return next.getSecond();
+        }
+
+        File next = nextFile();
+        invokeListeners(next);
+        try {
+            return loader.load(next);
+        } catch (IOException e) {
+            throw new RuntimeException("Error loading file " + next, e);
+        }
+    }
+
+    private void closeParallelLoader() {
+        if (parallelLoader != null) {
+            parallelLoader.close();
+            parallelLoader = null;
+        }
+        if (parallelSequenceLoader != null) {
+            parallelSequenceLoader.close();
+            parallelSequenceLoader = null;
+        }
+    }
+
     private List<Writable> loadFromFile(File next) {
         List<Writable> ret = new ArrayList<>();
         try {
@@ -121,6 +279,19 @@ public class FileRecordReader extends BaseRecordReader {
 
     @Override
     public boolean hasNext() {
+        if (parallelLoader != null) {
+            return parallelLoader.hasNext();
+        }
+        if (parallelSequenceLoader != null) {
+            return parallelSequenceLoader.hasNext();
+        }
+        return hasNextFile();
+    }
+
+    /**
+     * @return True if there are more files (ignoring files already taken by the parallel loader)
+     */
+    protected boolean hasNextFile() {
         if (iter != null && iter.hasNext()) {
             return true;
         }
@@ -134,7 +305,7 @@ public class FileRecordReader extends BaseRecordReader {
 
     @Override
     public void close() throws IOException {
-
+        closeParallelLoader();
     }
 
     @Override
@@ -191,16 +362,7 @@ public class FileRecordReader extends BaseRecordReader {
 
     @Override
     public Record nextRecord() {
-        if (iter == null || !iter.hasNext()) {
-            this.advanceToNextLocation();
-        }
-        File next = iter.next();
-        this.currentFile = next;
-        invokeListeners(next);
-        List<Writable> ret = loadFromFile(next);
-
-        return new org.datavec.api.records.impl.Record(ret,
-                new RecordMetaDataURI(next.toURI(), FileRecordReader.class));
+        return nextLoaded();
     }
 
     protected File nextFile() {
@@ -0,0 +1,446 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.IOUtils;
+import org.datavec.api.split.FileSplit;
+
+import java.io.*;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A sparse index of the byte offsets of the lines of a text file: the offset of every {@code interval}th line is
+ * recorded, so that any line can be read by seeking to the nearest indexed line before it, and reading at most
+ * {@code interval - 1} lines from there.<br>
+ * Lines are delimited as for {@link BufferedReader#readLine()} ("\n", "\r" or "\r\n"). Offsets are in bytes, hence
+ * the file must use an encoding where these are single byte characters that do not occur within other characters
+ * (UTF-8, ISO-8859-1, ASCII, etc).
+ * <p>
+ * The index is built with a single pass over the bytes of the file, and is saved next to the file (see
+ * {@link #indexFile(File)}) by {@link #getOrCreate(File, int)}, so that it is only built once. A saved index is
+ * rebuilt if the file has been modified since (different length or modification time) or if it was built with a
+ * different interval.
+ */
+@Slf4j
+public class LineOffsetIndex implements Serializable {
+
+    /**
+     * Extension of the index files, saved next to the indexed file
+     */
+    public static final String INDEX_FILE_EXTENSION = FileSplit.LINE_INDEX_EXTENSION;
+    public static final int DEFAULT_INTERVAL = 1000;
+
+    private static final int MAGIC = 0x4C494458; //"LIDX"
+    private static final int VERSION = 1;
+
+    private final int interval;
+    private final long fileLength;
+    private final long lastModified;
+    private final int numLines;
+    private final long[] offsets;
+
+    private LineOffsetIndex(int interval, long fileLength, long lastModified, int numLines, long[] offsets) {
+        this.interval = interval;
+        this.fileLength = fileLength;
+        this.lastModified = lastModified;
+        this.numLines = numLines;
+        this.offsets = offsets;
+    }
+
+    /**
+     * @return Number of lines between two indexed lines
+     */
+    public int getInterval() {
+        return interval;
+    }
+
+    /**
+     * @return Number of lines in the file
+     */
+    public int numLines() {
+        return numLines;
+    }
+
+    /**
+     * @return Number of indexed lines (lines 0, interval, 2*interval, ...)
+     */
+    public int numBlocks() {
+        return offsets.length;
+    }
+
+    /**
+     * @param line Line number
+     * @return Byte offset of the nearest indexed line at or before the given line
+     */
+    public long offsetBefore(int line) {
+        checkLine(line);
+        return offsets[line / interval];
+    }
+
+    /**
+     * @param line Line number
+     * @return Nearest indexed line at or before the given line
+     */
+    public int indexedLineBefore(int line) {
+        checkLine(line);
+        return (line / interval) * interval;
+    }
+
+    private void checkLine(int line) {
+        if (line < 0 || line >= numLines) {
+            throw new IndexOutOfBoundsException("Invalid line " + line + ": file has " + numLines + " lines");
+        }
+    }
+
+    /**
+     * Open a reader positioned at the start of the given line: the next call to {@link BufferedReader#readLine()}
+     * returns that line
+     *
+     * @param file File this index was built for
+     * @param line Line number
+     */
+    public BufferedReader openAt(File file, int line) throws IOException {
+        checkLine(line);
+        FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.READ);
+        BufferedReader reader;
+        try {
+            channel.position(offsetBefore(line));
+            reader = new BufferedReader(new InputStreamReader(Channels.newInputStream(channel)));
+        } catch (IOException e) {
+            IOUtils.closeQuietly(channel);
+            throw e;
+        }
+        for (int i = indexedLineBefore(line); i < line; i++) {
+            if (reader.readLine() == null) {
+                IOUtils.closeQuietly(reader);
+                throw new IllegalStateException("Could not get line " + line + " from file " + file + ": file has "
+                                + i + " lines. Index is out of date?");
+            }
+        }
+        return reader;
+    }
+
+    /**
+     * Returns the lines of the file in random order, without loading the whole file: the blocks of lines between
+     * two indexed lines are read in random order, and the lines of each block are returned in random order.
+     * The first {@code numHeaderLines} lines are returned first, in order.<br>
+     * The iterator must be closed if it is not exhausted.
+     *
+     * @param file           File this index was built for
+     * @param numHeaderLines Number of lines at the start of the file to return first, in order
+     * @param rng            Random number generator
+     */
+    public ShuffledLineIterator shuffledIterator(File file, int numHeaderLines, Random rng) {
+        return new ShuffledLineIterator(file, Math.min(Math.max(numHeaderLines, 0), numLines), rng);
+    }
+
+    /**
+     * @param file File
+     * @return Index file for the given file: file name + {@link #INDEX_FILE_EXTENSION}, in the same directory
+     */
+    public static File indexFile(File file) {
+        return new File(file.getAbsolutePath() + INDEX_FILE_EXTENSION);
+    }
+
+    /**
+     * @param file File
+     * @return True if the file is a saved line index (these are excluded from {@link FileSplit})
+     */
+    public static boolean isIndexFile(File file) {
+        return FileSplit.isLineIndexFile(file);
+    }
+
+    /**
+     * Load the saved index for the given file if it is up to date, or build the index and save it otherwise.
+     * If the index cannot be saved (for example, read only directory), it is built again next time.
+     *
+     * @param file     File to index
+     * @param interval Number of lines between two indexed lines
+     */
+    public static LineOffsetIndex getOrCreate(File file, int interval) throws IOException {
+        File indexFile = indexFile(file);
+        if (indexFile.exists()) {
+            LineOffsetIndex index = load(indexFile);
+            if (index != null && index.interval == interval && index.isValidFor(file)) {
+                return index;
+            }
+        }
+
+        LineOffsetIndex index = build(file, interval);
+        try {
+            index.save(indexFile);
+        } catch (IOException e) {
+            log.warn("Could not save line index for file {} to {}", file, indexFile, e);
+        }
+        return index;
+    }
+
+    /**
+     * @param file File
+     * @return True if the file has not been modified since this index was built
+     */
+    public boolean isValidFor(File file) {
+        return file.length() == fileLength && file.lastModified() == lastModified;
+    }
+
+    /**
+     * Build the index for the given file
+     *
+     * @param file     File to index
+     * @param interval Number of lines between two indexed lines
+     */
+    public static LineOffsetIndex build(File file, int interval) throws IOException {
+        if (interval <= 0) {
+            throw new IllegalArgumentException("Interval must be positive: got " + interval);
+        }
+        long lastModified = file.lastModified();
+        long fileLength = file.length();
+
+        long[] offsets = new long[16];
+        int numOffsets = 0;
+        int numLines = 0;
+        long position = 0;
+        boolean lineStart = true; //Next byte starts a new line
+        boolean afterCR = false; //Previous byte was '\r': a following '\n' is part of the same line terminator
+        byte[] buffer = new byte[1 << 16];
+        try (InputStream is = new FileInputStream(file)) {
+            int n;
+            while ((n = is.read(buffer)) != -1) {
+                for (int i = 0; i < n; i++, position++) {
+                    byte b = buffer[i];
+                    if (afterCR) {
+                        afterCR = false;
+                        if (b == '\n') {
+                            continue;
+                        }
+                    }
+                    if (lineStart) {
+                        if (numLines % interval == 0) {
+                            if (numOffsets == offsets.length) {
+                                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+                            }
+                            offsets[numOffsets++] = position;
+                        }
+                        numLines++;
+                        lineStart = false;
+                    }
+                    if (b == '\n') {
+                        lineStart = true;
+                    } else if (b == '\r') {
+                        lineStart = true;
+                        afterCR = true;
+                    }
+                }
+            }
+        }
+        return new LineOffsetIndex(interval, fileLength, lastModified, numLines, Arrays.copyOf(offsets, numOffsets));
+    }
+
+    /**
+     * Save this index to the given file
+     */
+    public void save(File indexFile) throws IOException {
+        //Write to a temporary file first, so that concurrent readers never see a partial index
+        File tmp = new File(indexFile.getAbsolutePath() + "." + UUID.randomUUID() + ".tmp");
+        try {
+            try (DataOutputStream dos = new DataOutputStream(
+                            new BufferedOutputStream(new FileOutputStream(tmp)))) {
+                dos.writeInt(MAGIC);
+                dos.writeInt(VERSION);
+                dos.writeInt(interval);
+                dos.writeLong(fileLength);
+                dos.writeLong(lastModified);
+                dos.writeInt(numLines);
+                dos.writeInt(offsets.length);
+                for (long l : offsets) {
+                    dos.writeLong(l);
+                }
+            }
+            Files.move(tmp.toPath(), indexFile.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } finally {
+            if (tmp.exists()) {
+                tmp.delete();
+            }
+        }
+    }
+
+    /**
+     * Load an index saved with {@link #save(File)}
+     *
+     * @return The index, or null if the file is not a valid index file
+     */
+    public static LineOffsetIndex load(File indexFile) {
+        try (DataInputStream dis = new DataInputStream(new BufferedInputStream(new FileInputStream(indexFile)))) {
+            if (dis.readInt() != MAGIC || dis.readInt() != VERSION) {
+                return null;
+            }
+            int interval = dis.readInt();
+            long fileLength = dis.readLong();
+            long lastModified = dis.readLong();
+            int numLines = dis.readInt();
+            int numOffsets = dis.readInt();
+            if (interval <= 0 || numOffsets < 0 || numOffsets != (numLines + interval - 1) / interval) {
+                return null;
+            }
+            long[] offsets = new long[numOffsets];
+            for (int i = 0; i < numOffsets; i++) {
+                offsets[i] = dis.readLong();
+            }
+            return new LineOffsetIndex(interval, fileLength, lastModified, numLines, offsets);
+        } catch (IOException e) {
+            log.warn("Could not read line index {}", indexFile, e);
+            return null;
+        }
+    }
+
+    /**
+     * Iterator over the lines of a file in random order: see {@link #shuffledIterator(File, int, Random)}
+     */
+    public class ShuffledLineIterator implements Iterator<String>, Closeable {
+        private final File file;
+        private final int numHeaderLines;
+        private final Random rng;
+        private final int[] blockOrder;
+        private int nextBlock;
+        private BufferedReader reader; //Only used for the header lines
+        private int nextHeaderLine;
+        private String[] lines;
+        private int[] lineNumbers;
+        private int position;
+        private int lastLineNumber = -1;
+
+        private ShuffledLineIterator(File file, int numHeaderLines, Random rng) {
+            this.file = file;
+            this.numHeaderLines = numHeaderLines;
+            this.rng = rng;
+            this.blockOrder = new int[offsets.length];
+            for (int i = 0; i < blockOrder.length; i++) {
+                blockOrder[i] = i;
+            }
+            //Fisher-Yates shuffle
+            for (int i = blockOrder.length - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                int temp = blockOrder[i];
+                blockOrder[i] = blockOrder[j];
+                blockOrder[j] = temp;
+            }
+        }
+
+        /**
+         * @return Line number of the last line returned by {@link #next()}, or -1 if none
+         */
+        public int lastLineNumber() {
+            return lastLineNumber;
+        }
+
+        @Override
+        public boolean hasNext() {
+            if (nextHeaderLine < numHeaderLines) {
+                return true;
+            }
+            while ((lines == null || position >= lines.length) && nextBlock < blockOrder.length) {
+                readBlock(blockOrder[nextBlock++]);
+            }
+            return lines != null && position < lines.length;
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            if (nextHeaderLine < numHeaderLines) {
+                try {
+                    if (reader == null) {
+                        reader = openAt(file, 0);
+                    }
+                    String line = reader.readLine();
+                    if (line == null) {
+                        throw new IllegalStateException("Could not get line " + nextHeaderLine + " from file "
+                                        + file + ". Index is out of date?");
+                    }
+                    lastLineNumber = nextHeaderLine++;
+                    if (nextHeaderLine == numHeaderLines) {
+                        IOUtils.closeQuietly(reader);
+                        reader = null;
+                    }
+                    return line;
+                } catch (IOException e) {
+                    throw new RuntimeException("Error reading file " + file, e);
+                }
+            }
+            lastLineNumber = lineNumbers[position];
+            String line = lines[position];
+            lines[position++] = null;
+            return line;
+        }
+
+        private void readBlock(int block) {
+            int first = Math.max(block * interval, numHeaderLines);
+            int end = Math.min((block + 1) * interval, numLines);
+            int n = Math.max(end - first, 0);
+            lines = new String[n];
+            lineNumbers = new int[n];
+            position = 0;
+            if (n == 0) {
+                return;
+            }
+            try (BufferedReader br = openAt(file, first)) {
+                for (int i = 0; i < n; i++) {
+                    String line = br.readLine();
+                    if (line == null) {
+                        throw new IllegalStateException("Could not get line " + (first + i) + " from file " + file
+                                        + ". Index is out of date?");
+                    }
+                    lines[i] = line;
+                    lineNumbers[i] = first + i;
+                }
+            } catch (IOException e) {
+                throw new RuntimeException("Error reading file " + file, e);
+            }
+            for (int i = n - 1; i > 0; i--) {
+                int j = rng.nextInt(i + 1);
+                String tempLine = lines[i];
+                lines[i] = lines[j];
+                lines[j] = tempLine;
+                int tempNum = lineNumbers[i];
+                lineNumbers[i] = lineNumbers[j];
+                lineNumbers[j] = tempNum;
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+
+        @Override
+        public void close() {
+            IOUtils.closeQuietly(reader);
+            reader = null;
+            lines = null;
+            nextHeaderLine = numHeaderLines;
+            nextBlock = blockOrder.length;
+        }
+    }
+}
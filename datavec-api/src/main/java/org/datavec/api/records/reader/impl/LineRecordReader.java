@@ -40,11 +40,24 @@ import java.util.*;
 
 /**
  * Reads files line by line
+ * <p>
+ * Optionally (see {@link #setLineIndexInterval(int)}), a {@link LineOffsetIndex} is built for each local file and
+ * saved next to it, so that {@link #loadFromMetaData(List)} can seek directly to the requested lines, instead of
+ * reading each file from the start. The index also enables iterating over the lines of each file in random order
+ * (see {@link #setShuffle(Random)}), without loading the whole file.
  *
  * @author Adam Gibson
  */
 public class LineRecordReader extends BaseRecordReader {
 
+    /**
+     * Number of lines between two indexed lines of the line offset index. 0 (default): no index
+     */
+    public static final String LINE_INDEX_INTERVAL = NAME_SPACE + ".lineindexinterval";
+    /**
+     * Seed for iterating over the lines of each file in random order. Not set (default): no shuffling
+     */
+    public static final String SHUFFLE_SEED = NAME_SPACE + ".shuffleseed";
 
     private Iterator<String> iter;
     protected URI[] locations;
@@ -52,6 +65,9 @@ public class LineRecordReader extends BaseRecordReader {
     protected int lineIndex = 0; //Line index within the current split
     protected Configuration conf;
     protected InputSplit inputSplit;
+    protected int lineIndexInterval = 0;
+    protected Random shuffleRng;
+    private transient Map<URI, LineOffsetIndex> lineIndexes;
 
     @Override
     public void initialize(InputSplit split) throws IOException, InterruptedException {
@@ -62,9 +78,87 @@ public class LineRecordReader extends BaseRecordReader {
     @Override
     public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
         this.conf = conf;
+        this.lineIndexInterval = conf.getInt(LINE_INDEX_INTERVAL, lineIndexInterval);
+        if (conf.get(SHUFFLE_SEED) != null) {
+            this.shuffleRng = new Random(conf.getLong(SHUFFLE_SEED, 0));
+        }
         initialize(split);
     }
 
+    /**
+     * Use a {@link LineOffsetIndex} for local files, with the given number of lines between indexed lines. The index
+     * of each file is built on first use, and saved next to the file. Must be set before initialization.
+     *
+     * @param lineIndexInterval Number of lines between two indexed lines. 0: no index
+     */
+    public void setLineIndexInterval(int lineIndexInterval) {
+        if (lineIndexInterval < 0) {
+            throw new IllegalArgumentException("Line index interval must be >= 0: got " + lineIndexInterval);
+        }
+        this.lineIndexInterval = lineIndexInterval;
+    }
+
+    /**
+     * Iterate over the lines of each local file in random order: blocks of lines (see
+     * {@link #setLineIndexInterval(int)}, {@link LineOffsetIndex#DEFAULT_INTERVAL} lines if not set) are read in
+     * random order, and the lines of each block are shuffled. Files are still read one after the other, in the order
+     * of the input split. Must be set before initialization.
+     *
+     * @param rng Random number generator. Null: no shuffling
+     */
+    public void setShuffle(Random rng) {
+        this.shuffleRng = rng;
+    }
+
+    /**
+     * @return Number of lines at the start of each file that are not records (returned first when shuffling)
+     */
+    protected int numHeaderLines() {
+        return 0;
+    }
+
+    /**
+     * @return The line offset index for the given location, or null if the location is not a local file or no index
+     * is used
+     */
+    protected LineOffsetIndex getLineIndex(URI uri) throws IOException {
+        if ((lineIndexInterval <= 0 && shuffleRng == null) || uri == null || !"file".equals(uri.getScheme())) {
+            return null;
+        }
+        int interval = lineIndexInterval > 0 ? lineIndexInterval : LineOffsetIndex.DEFAULT_INTERVAL;
+        File file = new File(uri);
+        if (lineIndexes == null) {
+            lineIndexes = new HashMap<>();
+        }
+        LineOffsetIndex index = lineIndexes.get(uri);
+        if (index == null || index.getInterval() != interval || !index.isValidFor(file)) {
+            index = LineOffsetIndex.getOrCreate(file, interval);
+            lineIndexes.put(uri, index);
+        }
+        return index;
+    }
+
+    /**
+     * Open an iterator over the lines of the given location: shuffled if required
+     */
+    protected Iterator<String> openLocation(URI uri) throws IOException {
+        if (shuffleRng != null) {
+            LineOffsetIndex index = getLineIndex(uri);
+            if (index != null) {
+                return index.shuffledIterator(new File(uri), numHeaderLines(), shuffleRng);
+            }
+        }
+        return IOUtils.lineIterator(new InputStreamReader(uri.toURL().openStream()));
+    }
+
+    private void advanceLineIndex() {
+        if (iter instanceof LineOffsetIndex.ShuffledLineIterator) {
+            lineIndex = ((LineOffsetIndex.ShuffledLineIterator) iter).lastLineNumber() + 1;
+        } else {
+            lineIndex++;
+        }
+    }
+
     @Override
     public List<Writable> next() {
         List<Writable> ret = new ArrayList<>();
@@ -73,7 +167,7 @@ public class LineRecordReader extends BaseRecordReader {
             String record = iter.next();
             invokeListeners(record);
             ret.add(new Text(record));
-            lineIndex++;
+            advanceLineIndex();
             return ret;
         } else {
             if (!(inputSplit instanceof StringSplit) && splitIndex < locations.length - 1) {
@@ -81,7 +175,7 @@ public class LineRecordReader extends BaseRecordReader {
                 lineIndex = 0; //New split opened -> reset line index
                 try {
                     close();
-                    iter = IOUtils.lineIterator(new InputStreamReader(locations[splitIndex].toURL().openStream()));
+                    iter = openLocation(locations[splitIndex]);
                     onLocationOpen(locations[splitIndex]);
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -91,7 +185,7 @@ public class LineRecordReader extends BaseRecordReader {
                     String record = iter.next();
                     invokeListeners(record);
                     ret.add(new Text(record));
-                    lineIndex++;
+                    advanceLineIndex();
                     return ret;
                 }
             }
@@ -110,7 +204,7 @@ public class LineRecordReader extends BaseRecordReader {
                 lineIndex = 0; //New split -> reset line count
                 try {
                     close();
-                    iter = IOUtils.lineIterator(new InputStreamReader(locations[splitIndex].toURL().openStream()));
+                    iter = openLocation(locations[splitIndex]);
                     onLocationOpen(locations[splitIndex]);
                 } catch (IOException e) {
                     e.printStackTrace();
@@ -130,10 +224,7 @@ public class LineRecordReader extends BaseRecordReader {
     @Override
     public void close() throws IOException {
         if (iter != null) {
-            if (iter instanceof LineIterator) {
-                LineIterator iter2 = (LineIterator) iter;
-                iter2.close();
-            }
+            closeIfRequired(iter);
         }
     }
 
@@ -196,13 +287,11 @@ public class LineRecordReader extends BaseRecordReader {
         } else {
             this.locations = inputSplit.locations();
             if (locations != null && locations.length > 0) {
-                InputStream inputStream;
                 try {
-                    inputStream = locations[location].toURL().openStream();
+                    iterator = openLocation(locations[location]);
                 } catch (IOException e) {
                     throw new RuntimeException(e);
                 }
-                iterator = IOUtils.lineIterator(new InputStreamReader(inputStream));
             }
         }
         if (iterator == null)
@@ -214,6 +303,8 @@ public class LineRecordReader extends BaseRecordReader {
         if (iterator instanceof LineIterator) {
             LineIterator iter = (LineIterator) iterator;
             iter.close();
+        } else if (iterator instanceof LineOffsetIndex.ShuffledLineIterator) {
+            ((LineOffsetIndex.ShuffledLineIterator) iterator).close();
         }
     }
 
@@ -227,7 +318,7 @@ public class LineRecordReader extends BaseRecordReader {
 
     @Override
     public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
-        return null;
+        return loadFromMetaData(Collections.singletonList(recordMetaData)).get(0);
     }
 
     @Override
@@ -247,11 +338,6 @@ public class LineRecordReader extends BaseRecordReader {
             if (rmd.getURI() != null)
                 uris.add(rmd.getURI());
         }
-        List<URI> sortedURIs = null;
-        if (uris.size() > 0) {
-            sortedURIs = new ArrayList<>(uris);
-            Collections.sort(sortedURIs);
-        }
 
         //Sort by URI first (if possible - don't always have URIs though, for String split etc), then sort by line number:
         Collections.sort(list, new Comparator<Triple<Integer, RecordMetaDataLine, List<Writable>>>() {
@@ -267,50 +353,23 @@ public class LineRecordReader extends BaseRecordReader {
             }
         });
 
-        if (uris.size() > 0 && sortedURIs != null) {
-            //URIs case - possibly with multiple URIs
-            Iterator<Triple<Integer, RecordMetaDataLine, List<Writable>>> metaIter = list.iterator(); //Currently sorted by URI, then line number
-
-            URI currentURI = sortedURIs.get(0);
-            Iterator<String> currentUriIter =
-                            IOUtils.lineIterator(new InputStreamReader(currentURI.toURL().openStream()));
-            int currentURIIdx = 0; //Index of URI
-            int currentLineIdx = 0; //Index of the line for the current URI
-            String line = currentUriIter.next();
-            while (metaIter.hasNext()) {
-                Triple<Integer, RecordMetaDataLine, List<Writable>> t = metaIter.next();
-                URI thisURI = t.getSecond().getURI();
-                int nextLineIdx = t.getSecond().getLineNumber();
-
-                //First: find the right URI for this record...
-                while (!currentURI.equals(thisURI)) {
-                    //Iterate to the next URI
-                    currentURIIdx++;
-                    if (currentURIIdx >= sortedURIs.size()) {
-                        //Should never happen
-                        throw new IllegalStateException(
-                                        "Count not find URI " + thisURI + " in URIs list: " + sortedURIs);
-                    }
-                    currentURI = sortedURIs.get(currentURIIdx);
-                    currentLineIdx = 0;
-                    if (currentURI.equals(thisURI)) {
-                        //Found the correct URI for this MetaData instance
-                        closeIfRequired(currentUriIter);
-                        currentUriIter = IOUtils.lineIterator(new InputStreamReader(currentURI.toURL().openStream()));
-                        line = currentUriIter.next();
-                    }
-                }
-
-                //Have the correct URI/iter open -> scan to the required line
-                while (currentLineIdx < nextLineIdx && currentUriIter.hasNext()) {
-                    line = currentUriIter.next();
-                    currentLineIdx++;
+        if (uris.size() > 0) {
+            //URIs case - possibly with multiple URIs. List is currently sorted by URI, then line number
+            int from = 0;
+            while (from < list.size()) {
+                URI uri = list.get(from).getSecond().getURI();
+                int to = from + 1;
+                while (to < list.size() && uri.equals(list.get(to).getSecond().getURI())) {
+                    to++;
                 }
-                if (currentLineIdx < nextLineIdx && !currentUriIter.hasNext()) {
-                    throw new IllegalStateException("Could not get line " + nextLineIdx + " from URI " + currentURI
-                                    + ": has only " + currentLineIdx + " lines");
+                List<Triple<Integer, RecordMetaDataLine, List<Writable>>> forURI = list.subList(from, to);
+                LineOffsetIndex index = getLineIndex(uri);
+                if (index != null) {
+                    loadLinesIndexed(uri, index, forURI);
+                } else {
+                    loadLines(uri, forURI);
                 }
-                t.setThird(Collections.<Writable>singletonList(new Text(line)));
+                from = to;
             }
         } else {
             //Not URI based: String split, etc
@@ -347,4 +406,70 @@ public class LineRecordReader extends BaseRecordReader {
         }
         return out;
     }
+
+    /**
+     * Load the requested lines (sorted by line number) of one URI, by reading the URI from the start
+     */
+    private void loadLines(URI uri, List<Triple<Integer, RecordMetaDataLine, List<Writable>>> lines)
+                    throws IOException {
+        Iterator<String> uriIter = IOUtils.lineIterator(new InputStreamReader(uri.toURL().openStream()));
+        try {
+            int currentLineIdx = 0; //Index of the line for the current URI
+            String line = uriIter.hasNext() ? uriIter.next() : null;
+            for (Triple<Integer, RecordMetaDataLine, List<Writable>> t : lines) {
+                int nextLineIdx = t.getSecond().getLineNumber();
+                //Scan to the required line
+                while (currentLineIdx < nextLineIdx && uriIter.hasNext()) {
+                    line = uriIter.next();
+                    currentLineIdx++;
+                }
+                if (line == null || currentLineIdx < nextLineIdx) {
+                    throw new IllegalStateException("Could not get line " + nextLineIdx + " from URI " + uri
+                                    + ": has only " + (line == null ? 0 : currentLineIdx + 1) + " lines");
+                }
+                t.setThird(Collections.<Writable>singletonList(new Text(line)));
+            }
+        } finally {
+            closeIfRequired(uriIter);
+        }
+    }
+
+    /**
+     * Load the requested lines (sorted by line number) of one local file, seeking to the nearest indexed line
+     * whenever that is closer than the current position
+     */
+    private void loadLinesIndexed(URI uri, LineOffsetIndex index,
+                    List<Triple<Integer, RecordMetaDataLine, List<Writable>>> lines) throws IOException {
+        File file = new File(uri);
+        BufferedReader reader = null;
+        int currentLineIdx = 0; //Index of the next line returned by the reader
+        String line = null;
+        try {
+            for (Triple<Integer, RecordMetaDataLine, List<Writable>> t : lines) {
+                int nextLineIdx = t.getSecond().getLineNumber();
+                if (nextLineIdx >= index.numLines()) {
+                    throw new IllegalStateException("Could not get line " + nextLineIdx + " from URI " + uri
+                                    + ": has only " + index.numLines() + " lines");
+                }
+                if (line == null || nextLineIdx != currentLineIdx - 1) {
+                    if (reader == null || index.indexedLineBefore(nextLineIdx) > currentLineIdx) {
+                        IOUtils.closeQuietly(reader);
+                        reader = index.openAt(file, nextLineIdx);
+                        currentLineIdx = nextLineIdx;
+                    }
+                    while (currentLineIdx <= nextLineIdx) {
+                        line = reader.readLine();
+                        if (line == null) {
+                            throw new IllegalStateException("Could not get line " + nextLineIdx + " from URI " + uri
+                                            + ": has only " + currentLineIdx + " lines");
+                        }
+                        currentLineIdx++;
+                    }
+                }
+                t.setThird(Collections.<Writable>singletonList(new Text(line)));
+            }
+        } finally {
+            IOUtils.closeQuietly(reader);
+        }
+    }
 }
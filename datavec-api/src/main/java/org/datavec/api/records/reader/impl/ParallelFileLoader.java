@@ -0,0 +1,157 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl;
+
+import org.datavec.api.util.concurrent.ConcurrencyUtils;
+import org.datavec.api.util.concurrent.DaemonThreadFactory;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.Deque;
+import java.util.Iterator;
+import java.util.NoSuchElementException;
+import java.util.concurrent.*;
+
+/**
+ * Loads (opens, reads and parses) files in parallel, ahead of their use: up to {@code prefetch} files are loaded
+ * concurrently by a pool of {@code numThreads} threads, while the results of the previous files are consumed.<br>
+ * Results are returned either in the order of the files ({@code ordered = true}), or in the order they are loaded,
+ * which avoids waiting for a slow file while others are ready.
+ * <p>
+ * Files are taken from the file iterator on the calling thread only; the loader function is called concurrently from
+ * the loader threads, and hence must be thread safe. Used by {@link FileRecordReader} and its subclasses
+ * (see {@link FileRecordReader#setParallelLoading(int, int, boolean)}).
+ *
+ * @param <T> Type of the loaded values (record, sequence, etc)
+ */
+public class ParallelFileLoader<T> implements Iterator<Pair<File, T>>, Closeable {
+
+    /**
+     * Loads the value of one file
+     */
+    public interface Loader<T> {
+        T load(File file) throws IOException;
+    }
+
+    private final Iterator<File> files;
+    private final Loader<T> loader;
+    private final boolean ordered;
+    private final ExecutorService executor;
+    private final CompletionService<Pair<File, T>> completionService;
+    private final Deque<Future<Pair<File, T>>> pending = new ArrayDeque<>();
+    private int numPending;
+
+    /**
+     * @param files      Files to load
+     * @param loader     Loads one file. Called concurrently from the loader threads
+     * @param numThreads Number of loader threads
+     * @param prefetch   Maximum number of files being loaded, or loaded and not yet returned (>= numThreads)
+     * @param ordered    If true: return the values in the order of the files. If false: in the order they are loaded
+     */
+    public ParallelFileLoader(Iterator<File> files, Loader<T> loader, int numThreads, int prefetch, boolean ordered) {
+        ConcurrencyUtils.checkPrefetchConfiguration(numThreads, prefetch);
+        this.files = files;
+        this.loader = loader;
+        this.ordered = ordered;
+        this.executor = Executors.newFixedThreadPool(numThreads, new DaemonThreadFactory("DataVec-file-loader"));
+        this.completionService = ordered ? null : new ExecutorCompletionService<Pair<File, T>>(executor);
+        for (int i = 0; i < prefetch && submitNext(); i++) {
+            //Fill the prefetch queue
+        }
+    }
+
+    private boolean submitNext() {
+        if (!files.hasNext()) {
+            return false;
+        }
+        final File file = files.next();
+        Callable<Pair<File, T>> task = new Callable<Pair<File, T>>() {
+            @Override
+            public Pair<File, T> call() throws Exception {
+                return new Pair<>(file, loader.load(file));
+            }
+        };
+        if (ordered) {
+            pending.add(executor.submit(task));
+        } else {
+            completionService.submit(task);
+        }
+        numPending++;
+        return true;
+    }
+
+    @Override
+    public boolean hasNext() {
+        return numPending > 0;
+    }
+
+    /**
+     * @return The next file, and its loaded value
+     */
+    @Override
+    public Pair<File, T> next() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        Future<Pair<File, T>> future;
+        try {
+            future = ordered ? pending.poll() : completionService.take();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for file to be loaded", e);
+        }
+        numPending--;
+        //Keep the loader threads busy while the caller processes this value
+        submitNext();
+        if (numPending == 0) {
+            //Last file: threads exit once it is loaded
+            executor.shutdown();
+        }
+
+        try {
+            return future.get();
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while waiting for file to be loaded", e);
+        } catch (ExecutionException e) {
+            close();
+            Throwable cause = e.getCause();
+            if (cause instanceof RuntimeException) {
+                throw (RuntimeException) cause;
+            }
+            throw new RuntimeException("Error loading file", cause);
+        }
+    }
+
+    @Override
+    public void remove() {
+        throw new UnsupportedOperationException();
+    }
+
+    /**
+     * Stop loading files: files being loaded are discarded
+     */
+    @Override
+    public void close() {
+        executor.shutdownNow();
+        pending.clear();
+        numPending = 0;
+    }
+}
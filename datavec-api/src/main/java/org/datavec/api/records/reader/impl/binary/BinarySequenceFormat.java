@@ -0,0 +1,263 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl.binary;
+
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+
+import java.io.*;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * The binary sequence file format, written by {@link org.datavec.api.records.writer.impl.binary.BinarySequenceRecordWriter}
+ * and read by {@link BinarySequenceRecordReader}. Many sequences are stored in a single file:
+ * <pre>
+ * header:    magic (int), version (int), schema JSON length (int), schema JSON (UTF-8)
+ * sequences: for each sequence: number of time steps (int), then the values of each column, packed
+ * index:     offset (long) of each sequence
+ * trailer:   offset of the index (long), number of sequences (int), magic (int)
+ * </pre>
+ * Values of each column are stored by column type: {@link ColumnType#Double} as 8 byte doubles,
+ * {@link ColumnType#Float} and {@link ColumnType#Integer} as 4 bytes, {@link ColumnType#Long} and
+ * {@link ColumnType#Time} as 8 bytes, {@link ColumnType#Boolean} as 1 byte, and {@link ColumnType#String},
+ * {@link ColumnType#Categorical}, {@link ColumnType#Bytes} and {@link ColumnType#NDArray} as a length (int) followed
+ * by the UTF-8/raw/serialized bytes. All values are big-endian.
+ */
+public class BinarySequenceFormat {
+
+    public static final int MAGIC = 0x44565351; //"DVSQ"
+    public static final int VERSION = 1;
+    /**
+     * Size of the trailer, at the end of the file
+     */
+    public static final int TRAILER_SIZE = 8 + 4 + 4;
+
+    private BinarySequenceFormat() {}
+
+    /**
+     * Write the file header
+     */
+    public static void writeHeader(DataOutput out, Schema schema) throws IOException {
+        byte[] json = schema.toJson().getBytes(StandardCharsets.UTF_8);
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeInt(json.length);
+        out.write(json);
+    }
+
+    /**
+     * Read the file header
+     *
+     * @return The schema of the file
+     */
+    public static Schema readHeader(DataInput in) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IllegalStateException("Not a binary sequence file: invalid header");
+        }
+        int version = in.readInt();
+        if (version != VERSION) {
+            throw new IllegalStateException("Unsupported binary sequence file version: " + version);
+        }
+        byte[] json = new byte[in.readInt()];
+        in.readFully(json);
+        return Schema.fromJson(new String(json, StandardCharsets.UTF_8));
+    }
+
+    /**
+     * Write the values of one sequence, column by column
+     *
+     * @param sequence Sequence: one list of values per time step
+     * @param types    Type of each column
+     * @param out      Output
+     */
+    public static void writeSequence(List<List<Writable>> sequence, ColumnType[] types, DataOutputStream out)
+                    throws IOException {
+        int numSteps = sequence.size();
+        for (int t = 0; t < numSteps; t++) {
+            if (sequence.get(t).size() != types.length) {
+                throw new IllegalArgumentException("Invalid sequence: expected " + types.length
+                                + " values per time step (schema columns), got " + sequence.get(t).size()
+                                + " values at time step " + t);
+            }
+        }
+
+        out.writeInt(numSteps);
+        for (int c = 0; c < types.length; c++) {
+            switch (types[c]) {
+                case Double:
+                    for (int t = 0; t < numSteps; t++) {
+                        out.writeDouble(sequence.get(t).get(c).toDouble());
+                    }
+                    break;
+                case Float:
+                    for (int t = 0; t < numSteps; t++) {
+                        out.writeFloat(sequence.get(t).get(c).toFloat());
+                    }
+                    break;
+                case Integer:
+                    for (int t = 0; t < numSteps; t++) {
+                        out.writeInt(sequence.get(t).get(c).toInt());
+                    }
+                    break;
+                case Long:
+                case Time:
+                    for (int t = 0; t < numSteps; t++) {
+                        out.writeLong(sequence.get(t).get(c).toLong());
+                    }
+                    break;
+                case Boolean:
+                    for (int t = 0; t < numSteps; t++) {
+                        out.writeBoolean(toBoolean(sequence.get(t).get(c)));
+                    }
+                    break;
+                case String:
+                case Categorical:
+                    for (int t = 0; t < numSteps; t++) {
+                        Writable w = sequence.get(t).get(c);
+                        if (w instanceof Text) {
+                            Text text = (Text) w;
+                            out.writeInt(text.getLength());
+                            out.write(text.getBytes(), 0, text.getLength());
+                        } else {
+                            byte[] bytes = w.toString().getBytes(StandardCharsets.UTF_8);
+                            out.writeInt(bytes.length);
+                            out.write(bytes);
+                        }
+                    }
+                    break;
+                case Bytes:
+                    for (int t = 0; t < numSteps; t++) {
+                        Writable w = sequence.get(t).get(c);
+                        if (!(w instanceof BytesWritable)) {
+                            throw new IllegalArgumentException("Expected BytesWritable for column " + c + ", got " + w);
+                        }
+                        byte[] content = ((BytesWritable) w).getContent();
+                        out.writeInt(content.length);
+                        out.write(content);
+                    }
+                    break;
+                case NDArray:
+                    ByteArrayOutputStream baos = new ByteArrayOutputStream();
+                    DataOutputStream dos = new DataOutputStream(baos);
+                    for (int t = 0; t < numSteps; t++) {
+                        Writable w = sequence.get(t).get(c);
+                        if (!(w instanceof NDArrayWritable)) {
+                            throw new IllegalArgumentException("Expected NDArrayWritable for column " + c + ", got " + w);
+                        }
+                        baos.reset();
+                        w.write(dos);
+                        dos.flush();
+                        out.writeInt(baos.size());
+                        baos.writeTo(out);
+                    }
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported column type: " + types[c]);
+            }
+        }
+    }
+
+    private static boolean toBoolean(Writable w) {
+        if (w instanceof BooleanWritable) {
+            return ((BooleanWritable) w).get();
+        } else if (w instanceof Text) {
+            return Boolean.parseBoolean(w.toString());
+        }
+        return w.toDouble() != 0.0;
+    }
+
+    /**
+     * Read the values of one sequence, written by {@link #writeSequence(List, ColumnType[], DataOutputStream)}
+     *
+     * @param buffer Buffer, positioned at the start of the sequence. Must be backed by an array
+     * @param types  Type of each column
+     * @return Sequence: one list of values per time step
+     */
+    public static List<List<Writable>> readSequence(ByteBuffer buffer, ColumnType[] types) throws IOException {
+        int numSteps = buffer.getInt();
+        List<List<Writable>> sequence = new ArrayList<>(numSteps);
+        for (int t = 0; t < numSteps; t++) {
+            sequence.add(new ArrayList<Writable>(types.length));
+        }
+
+        byte[] array = buffer.array();
+        for (ColumnType type : types) {
+            switch (type) {
+                case Double:
+                    for (int t = 0; t < numSteps; t++) {
+                        sequence.get(t).add(new DoubleWritable(buffer.getDouble()));
+                    }
+                    break;
+                case Float:
+                    for (int t = 0; t < numSteps; t++) {
+                        sequence.get(t).add(new FloatWritable(buffer.getFloat()));
+                    }
+                    break;
+                case Integer:
+                    for (int t = 0; t < numSteps; t++) {
+                        sequence.get(t).add(new IntWritable(buffer.getInt()));
+                    }
+                    break;
+                case Long:
+                case Time:
+                    for (int t = 0; t < numSteps; t++) {
+                        sequence.get(t).add(new LongWritable(buffer.getLong()));
+                    }
+                    break;
+                case Boolean:
+                    for (int t = 0; t < numSteps; t++) {
+                        sequence.get(t).add(new BooleanWritable(buffer.get() != 0));
+                    }
+                    break;
+                case String:
+                case Categorical:
+                    for (int t = 0; t < numSteps; t++) {
+                        int length = buffer.getInt();
+                        Text text = new Text();
+                        text.set(array, buffer.arrayOffset() + buffer.position(), length);
+                        buffer.position(buffer.position() + length);
+                        sequence.get(t).add(text);
+                    }
+                    break;
+                case Bytes:
+                    for (int t = 0; t < numSteps; t++) {
+                        byte[] content = new byte[buffer.getInt()];
+                        buffer.get(content);
+                        sequence.get(t).add(new BytesWritable(content));
+                    }
+                    break;
+                case NDArray:
+                    for (int t = 0; t < numSteps; t++) {
+                        int length = buffer.getInt();
+                        NDArrayWritable w = new NDArrayWritable();
+                        w.readFields(new DataInputStream(new ByteArrayInputStream(array,
+                                        buffer.arrayOffset() + buffer.position(), length)));
+                        buffer.position(buffer.position() + length);
+                        sequence.get(t).add(w);
+                    }
+                    break;
+                default:
+                    throw new UnsupportedOperationException("Unsupported column type: " + type);
+            }
+        }
+        return sequence;
+    }
+}
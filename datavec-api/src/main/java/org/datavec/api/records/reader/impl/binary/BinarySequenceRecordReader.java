@@ -0,0 +1,371 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl.binary;
+
+import lombok.NonNull;
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.SequenceRecord;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataIndex;
+import org.datavec.api.records.reader.BaseRecordReader;
+import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.util.MathUtils;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Paths;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * A {@link SequenceRecordReader} for files in the binary sequence format of {@link BinarySequenceFormat}, as written
+ * by {@link org.datavec.api.records.writer.impl.binary.BinarySequenceRecordWriter}. Each file contains many
+ * sequences, with an index of the offset of each sequence: sequences are read directly (with a single read per
+ * sequence, and no text parsing), in any order. For example:
+ * <pre>
+ *  {@code
+ *  SequenceRecordReader csv = new CSVSequenceRecordReader(1, ",");
+ *  csv.initialize(new NumberedFileInputSplit("/path/to/csv/seq_%d.csv", 0, 999999));
+ *  RecordReaderConverter.convert(csv, new BinarySequenceRecordWriter(new File("/path/to/sequences.bin"), schema));
+ *
+ *  SequenceRecordReader rr = new BinarySequenceRecordReader(new Random(12345));
+ *  rr.initialize(new FileSplit(new File("/path/to/sequences.bin")));
+ *  //Pass to DataSetIterator or similar
+ *  }
+ * </pre>
+ * The input split may contain multiple files, with the same column types. Sequences are returned file by file, or
+ * in random order across all files if a random number generator is provided (reshuffled on each {@link #reset()}).
+ * Metadata is a {@link RecordMetaDataIndex}: the index of the sequence within the file given by the URI.
+ */
+public class BinarySequenceRecordReader extends BaseRecordReader implements SequenceRecordReader {
+
+    private final Random rng;
+    private Configuration conf;
+    private Schema schema;
+    private ColumnType[] types;
+    private List<SequenceFile> files = new ArrayList<>();
+    private long[] cumulativeCounts; //Number of sequences in all files before each file
+    private int numSequences;
+    private int position;
+    private int[] order;
+
+    /**
+     * Create a BinarySequenceRecordReader with no randomisation
+     */
+    public BinarySequenceRecordReader() {
+        this(null);
+    }
+
+    /**
+     * @param rng If non-null, will be used to randomize the order of sequences
+     */
+    public BinarySequenceRecordReader(Random rng) {
+        this.rng = rng;
+    }
+
+    @Override
+    public void initialize(InputSplit split) throws IOException, InterruptedException {
+        initialize(null, split);
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        this.conf = conf;
+        close();
+
+        URI[] uris = split.locations();
+        if (uris == null || uris.length == 0) {
+            throw new IllegalStateException("Cannot initialize BinarySequenceRecordReader: no files in input split");
+        }
+        files = new ArrayList<>(uris.length);
+        cumulativeCounts = new long[uris.length];
+        long count = 0;
+        for (int i = 0; i < uris.length; i++) {
+            SequenceFile f = new SequenceFile(uris[i]);
+            files.add(f);
+            if (schema == null) {
+                schema = f.schema;
+                types = schema.getColumnTypes().toArray(new ColumnType[schema.numColumns()]);
+            } else if (!schema.sameTypes(f.schema)) {
+                close();
+                throw new IllegalStateException("Cannot initialize BinarySequenceRecordReader: file " + uris[i]
+                                + " has different column types than file " + uris[0] + ": " + f.schema.getColumnTypes()
+                                + " vs. " + schema.getColumnTypes());
+            }
+            cumulativeCounts[i] = count;
+            count += f.offsets.length;
+        }
+        if (count > Integer.MAX_VALUE) {
+            close();
+            throw new IllegalStateException("Cannot initialize BinarySequenceRecordReader: too many sequences (" + count
+                            + ")");
+        }
+        numSequences = (int) count;
+        position = 0;
+
+        if (rng != null) {
+            order = new int[numSequences];
+            for (int i = 0; i < order.length; i++) {
+                order[i] = i;
+            }
+            MathUtils.shuffleArray(order, rng);
+        }
+    }
+
+    /**
+     * @return The schema of the sequences, as stored in the (first) file
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * @return Total number of sequences, in all files
+     */
+    public int numSequences() {
+        return numSequences;
+    }
+
+    /**
+     * Read the sequence with the given index, over all files (in the order of the input split)
+     *
+     * @param index Index of the sequence, between 0 and {@link #numSequences()} - 1
+     */
+    public SequenceRecord getSequence(int index) throws IOException {
+        if (index < 0 || index >= numSequences) {
+            throw new IndexOutOfBoundsException("Invalid index " + index + ": have " + numSequences + " sequences");
+        }
+        int fileIdx = Arrays.binarySearch(cumulativeCounts, index);
+        if (fileIdx < 0) {
+            fileIdx = -fileIdx - 2;
+        } else {
+            //Skip files with no sequences
+            while (fileIdx + 1 < cumulativeCounts.length && cumulativeCounts[fileIdx + 1] == index) {
+                fileIdx++;
+            }
+        }
+        SequenceFile f = files.get(fileIdx);
+        int idx = (int) (index - cumulativeCounts[fileIdx]);
+        return new org.datavec.api.records.impl.SequenceRecord(f.read(idx, types),
+                        new RecordMetaDataIndex(idx, f.uri, BinarySequenceRecordReader.class));
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+
+    @Override
+    public List<List<Writable>> sequenceRecord() {
+        return nextSequence().getSequenceRecord();
+    }
+
+    @Override
+    public List<List<Writable>> sequenceRecord(URI uri, DataInputStream dataInputStream) throws IOException {
+        throw new UnsupportedOperationException(
+                        "BinarySequenceRecordReader: does not support reading from streams (files only)");
+    }
+
+    @Override
+    public SequenceRecord nextSequence() {
+        if (!hasNext()) {
+            throw new NoSuchElementException();
+        }
+        int idx = order != null ? order[position++] : position++;
+        SequenceRecord next;
+        try {
+            next = getSequence(idx);
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+        invokeListeners(next);
+        return next;
+    }
+
+    @Override
+    public SequenceRecord loadSequenceFromMetaData(@NonNull RecordMetaData recordMetaData) throws IOException {
+        if (!(recordMetaData instanceof RecordMetaDataIndex)) {
+            throw new IllegalArgumentException(
+                            "Invalid metadata; expected RecordMetaDataIndex instance; got: " + recordMetaData);
+        }
+        long idx = ((RecordMetaDataIndex) recordMetaData).getIndex();
+        URI uri = recordMetaData.getURI();
+        SequenceFile f = null;
+        for (SequenceFile sf : files) {
+            if (sf.uri.equals(uri)) {
+                f = sf;
+                break;
+            }
+        }
+        if (f == null) {
+            throw new IllegalStateException("Cannot load sequence " + idx + " from " + uri
+                            + ": file is not part of the input split of this record reader");
+        }
+        if (idx < 0 || idx >= f.offsets.length) {
+            throw new IllegalStateException("Cannot load sequence " + idx + " from " + uri + ": file has "
+                            + f.offsets.length + " sequences");
+        }
+        return new org.datavec.api.records.impl.SequenceRecord(f.read((int) idx, types), recordMetaData);
+    }
+
+    @Override
+    public List<SequenceRecord> loadSequenceFromMetaData(@NonNull List<RecordMetaData> recordMetaDatas)
+                    throws IOException {
+        List<SequenceRecord> out = new ArrayList<>(recordMetaDatas.size());
+        for (RecordMetaData r : recordMetaDatas) {
+            out.add(loadSequenceFromMetaData(r));
+        }
+        return out;
+    }
+
+    @Override
+    public List<Writable> next() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public boolean hasNext() {
+        return position < numSequences;
+    }
+
+    @Override
+    public List<String> getLabels() {
+        return null;
+    }
+
+    @Override
+    public void reset() {
+        position = 0;
+        if (order != null) {
+            MathUtils.shuffleArray(order, rng);
+        }
+    }
+
+    @Override
+    public boolean resetSupported() {
+        return true;
+    }
+
+    @Override
+    public List<Writable> record(URI uri, DataInputStream dataInputStream) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Record nextRecord() {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        throw new UnsupportedOperationException();
+    }
+
+    @Override
+    public void close() throws IOException {
+        for (SequenceFile f : files) {
+            f.channel.close();
+        }
+        files = new ArrayList<>();
+        schema = null;
+        types = null;
+        numSequences = 0;
+        position = 0;
+        order = null;
+    }
+
+    /**
+     * One open binary sequence file: schema, and offset of each sequence
+     */
+    private static class SequenceFile {
+        private final URI uri;
+        private final FileChannel channel;
+        private final Schema schema;
+        private final long[] offsets;
+        private final long indexOffset;
+
+        private SequenceFile(URI uri) throws IOException {
+            this.uri = uri;
+            this.channel = FileChannel.open(Paths.get(uri), StandardOpenOption.READ);
+            try {
+                long size = channel.size();
+                if (size < BinarySequenceFormat.TRAILER_SIZE) {
+                    throw new IllegalStateException("Not a binary sequence file: " + uri + " (file too small)");
+                }
+                ByteBuffer trailer = readFully(size - BinarySequenceFormat.TRAILER_SIZE, BinarySequenceFormat.TRAILER_SIZE);
+                indexOffset = trailer.getLong();
+                int count = trailer.getInt();
+                if (trailer.getInt() != BinarySequenceFormat.MAGIC
+                                || indexOffset + 8L * count != size - BinarySequenceFormat.TRAILER_SIZE) {
+                    throw new IllegalStateException("Not a binary sequence file, or file is incomplete (writer "
+                                    + "was not closed): " + uri);
+                }
+
+                //Header: read the schema
+                int jsonLength = indexOffset < 12 ? -1 : readFully(8, 4).getInt();
+                if (jsonLength < 0 || 12L + jsonLength > indexOffset) {
+                    throw new IllegalStateException("Not a binary sequence file: " + uri + " (invalid header)");
+                }
+                ByteBuffer headerAndSchema = readFully(0, 12 + jsonLength);
+                schema = BinarySequenceFormat.readHeader(new DataInputStream(
+                                new ByteArrayInputStream(headerAndSchema.array())));
+
+                offsets = new long[count];
+                ByteBuffer index = readFully(indexOffset, 8 * count);
+                index.asLongBuffer().get(offsets);
+            } catch (IOException | RuntimeException e) {
+                channel.close();
+                throw e;
+            }
+        }
+
+        private ByteBuffer readFully(long position, int length) throws IOException {
+            ByteBuffer buffer = ByteBuffer.allocate(length);
+            while (buffer.hasRemaining()) {
+                int n = channel.read(buffer, position + buffer.position());
+                if (n < 0) {
+                    throw new EOFException("Unexpected end of file " + uri + " at position " + position);
+                }
+            }
+            buffer.flip();
+            return buffer;
+        }
+
+        private List<List<Writable>> read(int idx, ColumnType[] types) throws IOException {
+            long start = offsets[idx];
+            long end = idx + 1 < offsets.length ? offsets[idx + 1] : indexOffset;
+            return BinarySequenceFormat.readSequence(readFully(start, (int) (end - start)), types);
+        }
+    }
+}
@@ -22,12 +22,15 @@ import org.datavec.api.records.SequenceRecord;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.metadata.RecordMetaDataLineInterval;
 import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.records.reader.impl.LineOffsetIndex;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.nd4j.linalg.primitives.Triple;
 
+import java.io.BufferedReader;
 import java.io.DataInputStream;
+import java.io.File;
 import java.io.IOException;
 import java.net.URI;
 import java.util.*;
@@ -77,10 +80,20 @@ public class CSVNLinesSequenceRecordReader extends CSVRecordReader implements Se
 
     @Override
     public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        if (conf.get(SHUFFLE_SEED) != null) {
+            throw new UnsupportedOperationException("Shuffling lines is not supported: sequences are consecutive lines");
+        }
         super.initialize(conf, split);
         this.nLinesPerSequence = conf.getInt(LINES_PER_SEQUENCE, nLinesPerSequence);
     }
 
+    @Override
+    public void setShuffle(Random rng) {
+        if (rng != null) {
+            throw new UnsupportedOperationException("Shuffling lines is not supported: sequences are consecutive lines");
+        }
+    }
+
     @Override
     public List<List<Writable>> sequenceRecord() {
         if (!super.hasNext()) {
@@ -142,34 +155,30 @@ public class CSVNLinesSequenceRecordReader extends CSVRecordReader implements Se
             }
         });
 
-        Iterator<String> lineIter = getIterator(0); //TODO handle multi file case...
-        int currentLineIdx = 0;
-        String line = lineIter.next();
-        while (currentLineIdx < skipNumLines) {
-            line = lineIter.next();
-            currentLineIdx++;
-        }
+        //Local files with a line index: read each sequence directly. Others: scan the first location
+        List<Triple<Integer, RecordMetaDataLineInterval, List<List<Writable>>>> toScan = new ArrayList<>();
         for (Triple<Integer, RecordMetaDataLineInterval, List<List<Writable>>> next : list) {
-            int nextStartLine = next.getSecond().getLineNumberStart();
-            int nextEndLine = next.getSecond().getLineNumberEnd();
-            while (currentLineIdx < nextStartLine && lineIter.hasNext()) {
-                line = lineIter.next();
-                currentLineIdx++;
+            URI uri = next.getSecond().getURI();
+            LineOffsetIndex index = getLineIndex(uri);
+            if (index == null) {
+                toScan.add(next);
+                continue;
             }
-            while (currentLineIdx <= nextEndLine && (lineIter.hasNext() || currentLineIdx == nextEndLine)) {
-                String[] split = line.split(this.delimiter, -1);
-                List<Writable> writables = new ArrayList<>();
-                for (String s : split) {
-                    writables.add(new Text(s));
-                }
-                next.getThird().add(writables);
-                currentLineIdx++;
-                if (lineIter.hasNext()) {
-                    line = lineIter.next();
+            int start = next.getSecond().getLineNumberStart();
+            int end = next.getSecond().getLineNumberEnd();
+            if (end >= index.numLines()) {
+                throw new IllegalStateException("Could not get lines " + start + " to " + end + " from URI " + uri
+                                + ": has only " + index.numLines() + " lines");
+            }
+            try (BufferedReader reader = index.openAt(new File(uri), start)) {
+                for (int i = start; i <= end; i++) {
+                    next.getThird().add(parseSequenceLine(reader.readLine()));
                 }
             }
         }
-        closeIfRequired(lineIter);
+        if (!toScan.isEmpty()) {
+            scan(toScan);
+        }
 
         //Now, sort by the original order:
         Collections.sort(list, new Comparator<Triple<Integer, RecordMetaDataLineInterval, List<List<Writable>>>>() {
@@ -189,6 +198,41 @@ public class CSVNLinesSequenceRecordReader extends CSVRecordReader implements Se
         return out;
     }
 
+    private List<Writable> parseSequenceLine(String line) {
+        String[] split = line.split(this.delimiter, -1);
+        List<Writable> writables = new ArrayList<>();
+        for (String s : split) {
+            writables.add(new Text(s));
+        }
+        return writables;
+    }
+
+    private void scan(List<Triple<Integer, RecordMetaDataLineInterval, List<List<Writable>>>> list) {
+        Iterator<String> lineIter = getIterator(0); //TODO handle multi file case...
+        int currentLineIdx = 0;
+        String line = lineIter.next();
+        while (currentLineIdx < skipNumLines) {
+            line = lineIter.next();
+            currentLineIdx++;
+        }
+        for (Triple<Integer, RecordMetaDataLineInterval, List<List<Writable>>> next : list) {
+            int nextStartLine = next.getSecond().getLineNumberStart();
+            int nextEndLine = next.getSecond().getLineNumberEnd();
+            while (currentLineIdx < nextStartLine && lineIter.hasNext()) {
+                line = lineIter.next();
+                currentLineIdx++;
+            }
+            while (currentLineIdx <= nextEndLine && (lineIter.hasNext() || currentLineIdx == nextEndLine)) {
+                next.getThird().add(parseSequenceLine(line));
+                currentLineIdx++;
+                if (lineIter.hasNext()) {
+                    line = lineIter.next();
+                }
+            }
+        }
+        closeIfRequired(lineIter);
+    }
+
     @Override
     public Record loadFromMetaData(RecordMetaData recordMetaData) {
         throw new UnsupportedOperationException("Not supported");
@@ -125,9 +125,15 @@ public class CSVRecordReader extends LineRecordReader {
 
     @Override
     public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
-        super.initialize(conf, split);
+        //Set before initializing the split: the number of lines to skip is needed when opening the first location
         this.skipNumLines = conf.getInt(SKIP_NUM_LINES, this.skipNumLines);
         this.csvParser = new SerializableCSVParser(conf.getChar(DELIMITER, DEFAULT_DELIMITER), conf.getChar(QUOTE, DEFAULT_QUOTE));
+        super.initialize(conf, split);
+    }
+
+    @Override
+    protected int numHeaderLines() {
+        return skipNumLines;
     }
 
     private boolean skipLines() {
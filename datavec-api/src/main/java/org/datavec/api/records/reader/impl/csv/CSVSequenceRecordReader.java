@@ -34,7 +34,8 @@ import java.util.*;
  * CSV Sequence Record Reader
  * This reader is intended to read sequences of data in CSV format, where
  * each sequence is defined in its own file (and there are multiple files)
- * Each line in the file represents one time step
+ * Each line in the file represents one time step<br>
+ * Files can be loaded and parsed in parallel, in the background: see {@link #setParallelLoading(int, int, boolean)}
  * @author Alex Black
  */
 public class CSVSequenceRecordReader extends FileRecordReader implements SequenceRecordReader {
@@ -72,17 +73,13 @@ public class CSVSequenceRecordReader extends FileRecordReader implements Sequenc
         if(!hasNext()){
             throw new NoSuchElementException("No next element");
         }
-        File next = iter.next();
-        invokeListeners(next);
-
-        List<List<Writable>> out;
-        try {
-            out = loadAndClose(new FileInputStream(next));
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
+        return nextLoadedSequence();
+    }
 
-        return new org.datavec.api.records.impl.SequenceRecord(out, new RecordMetaDataURI(next.toURI()));
+    @Override
+    protected SequenceRecord loadSequence(File file) throws IOException {
+        List<List<Writable>> out = loadAndClose(new FileInputStream(file));
+        return new org.datavec.api.records.impl.SequenceRecord(out, new RecordMetaDataURI(file.toURI()));
     }
 
     private List<List<Writable>> loadAndClose(InputStream inputStream) {
@@ -52,6 +52,8 @@ import java.util.regex.Pattern;
  * lines that don't match the provided regex can result in an exception (FailOnInvalid), can be skipped silently (SkipInvalid),
  * or skip invalid but log a warning (SkipInvalidWithWarning)
  *
+ * Files can be loaded and parsed in parallel, in the background: see {@link #setParallelLoading(int, int, boolean)}
+ *
  * @author Alex Black
  */
 public class RegexSequenceRecordReader extends FileRecordReader implements SequenceRecordReader {
@@ -156,17 +158,15 @@ public class RegexSequenceRecordReader extends FileRecordReader implements Seque
 
     @Override
     public SequenceRecord nextSequence() {
-        File next = this.nextFile();
+        return nextLoadedSequence();
+    }
 
-        String fileContents;
-        try {
-            fileContents = FileUtils.readFileToString(next, charset.name());
-        } catch (IOException e) {
-            throw new RuntimeException(e);
-        }
-        List<List<Writable>> sequence = loadSequence(fileContents, next.toURI());
+    @Override
+    protected SequenceRecord loadSequence(File file) throws IOException {
+        String fileContents = FileUtils.readFileToString(file, charset.name());
+        List<List<Writable>> sequence = loadSequence(fileContents, file.toURI());
         return new org.datavec.api.records.impl.SequenceRecord(sequence,
-                        new RecordMetaDataURI(next.toURI(), RegexSequenceRecordReader.class));
+                        new RecordMetaDataURI(file.toURI(), RegexSequenceRecordReader.class));
     }
 
     @Override
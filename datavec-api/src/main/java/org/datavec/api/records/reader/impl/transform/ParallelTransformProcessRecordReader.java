@@ -0,0 +1,235 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl.transform;
+
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.util.concurrent.ConcurrencyUtils;
+import org.datavec.api.util.concurrent.DaemonThreadFactory;
+import org.datavec.api.writable.Writable;
+
+import java.io.IOException;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A {@link TransformProcessRecordReader} that executes the {@link TransformProcess} on multiple threads.<br>
+ * Records are read ahead from the wrapped {@link RecordReader} (on the calling thread) in micro-batches of
+ * {@code batchSize} records; up to {@code prefetchBatches} micro-batches are transformed concurrently by a pool of
+ * {@code numThreads} threads. Records are returned in the order of the wrapped record reader, and records removed by
+ * filters are skipped.
+ * <p>
+ * The transforms and filters of the TransformProcess are executed concurrently, and hence must be thread safe (as the
+ * built-in transforms and filters are).<br>
+ * Unlike {@link TransformProcessRecordReader}, records loaded with {@link #loadFromMetaData(RecordMetaData)} are
+ * transformed: they are the same as the records returned by {@link #nextRecord()}.
+ */
+public class ParallelTransformProcessRecordReader extends TransformProcessRecordReader {
+
+    public static final int DEFAULT_BATCH_SIZE = 32;
+
+    private final int numThreads;
+    private final int batchSize;
+    private final int prefetchBatches;
+    private transient ExecutorService executor;
+    //Not serialized: created on first use
+    private transient Deque<Future<List<Record>>> pending;
+    private transient Iterator<Record> current;
+
+    /**
+     * Create a reader with the default micro-batch size, one thread per processor and 2 micro-batches prefetched per
+     * thread
+     */
+    public ParallelTransformProcessRecordReader(RecordReader recordReader, TransformProcess transformProcess) {
+        this(recordReader, transformProcess, Runtime.getRuntime().availableProcessors(), DEFAULT_BATCH_SIZE,
+                        2 * Runtime.getRuntime().availableProcessors());
+    }
+
+    /**
+     * @param recordReader     Record reader to wrap
+     * @param transformProcess Transform process to execute on each record
+     * @param numThreads       Number of threads executing the transform process
+     * @param batchSize        Number of records per micro-batch, transformed by one thread
+     * @param prefetchBatches  Maximum number of micro-batches read ahead (>= numThreads)
+     */
+    public ParallelTransformProcessRecordReader(RecordReader recordReader, TransformProcess transformProcess,
+                    int numThreads, int batchSize, int prefetchBatches) {
+        super(recordReader, transformProcess);
+        ConcurrencyUtils.checkPrefetchConfiguration(numThreads, prefetchBatches);
+        if (batchSize <= 0) {
+            throw new IllegalArgumentException("Invalid configuration: batch size must be positive. Got batchSize="
+                            + batchSize);
+        }
+        this.numThreads = numThreads;
+        this.batchSize = batchSize;
+        this.prefetchBatches = prefetchBatches;
+    }
+
+    /**
+     * Read micro-batches from the wrapped record reader, and submit them for transformation, until
+     * {@code prefetchBatches} micro-batches are pending or the wrapped record reader is exhausted
+     */
+    private void fill() {
+        if (pending == null) {
+            pending = new ArrayDeque<>();
+        }
+        while (pending.size() < prefetchBatches && recordReader.hasNext()) {
+            final List<Record> batch = new ArrayList<>(batchSize);
+            for (int i = 0; i < batchSize && recordReader.hasNext(); i++) {
+                batch.add(recordReader.nextRecord());
+            }
+            if (executor == null) {
+                ThreadPoolExecutor tpe = new ThreadPoolExecutor(numThreads, numThreads, 60, TimeUnit.SECONDS,
+                                new LinkedBlockingQueue<Runnable>(), new DaemonThreadFactory("DataVec-transform"));
+                tpe.allowCoreThreadTimeOut(true);
+                executor = tpe;
+            }
+            pending.add(executor.submit(new Callable<List<Record>>() {
+                @Override
+                public List<Record> call() {
+                    return transform(batch);
+                }
+            }));
+        }
+    }
+
+    private List<Record> transform(List<Record> batch) {
+        List<Record> out = new ArrayList<>(batch.size());
+        for (Record r : batch) {
+            List<Writable> temp = transformProcess.execute(r.getRecord());
+            if (temp != null) {
+                out.add(new org.datavec.api.records.impl.Record(temp, r.getMetaData()));
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public boolean hasNext() {
+        fill();
+        while (current == null || !current.hasNext()) {
+            Future<List<Record>> f = pending.poll();
+            if (f == null) {
+                return false;
+            }
+            try {
+                current = f.get().iterator();
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException("Interrupted while waiting for records to be transformed", e);
+            } catch (ExecutionException e) {
+                Throwable cause = e.getCause();
+                if (cause instanceof RuntimeException) {
+                    throw (RuntimeException) cause;
+                }
+                throw new RuntimeException("Error executing transform process", cause);
+            }
+            fill();
+        }
+        return true;
+    }
+
+    @Override
+    public List<Writable> next() {
+        return nextRecord().getRecord();
+    }
+
+    @Override
+    public Record nextRecord() {
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
+        }
+        return current.next();
+    }
+
+    @Override
+    public List<List<Writable>> next(int num) {
+        if (!hasNext())
+            throw new NoSuchElementException("No next element");
+
+        List<List<Writable>> out = new ArrayList<>(num);
+        while (out.size() < num && hasNext()) {
+            //Take the rest of the current micro-batch, without going through hasNext() for each record
+            while (out.size() < num && current.hasNext()) {
+                out.add(current.next().getRecord());
+            }
+        }
+        return out;
+    }
+
+    @Override
+    public void initialize(InputSplit split) throws IOException, InterruptedException {
+        discardPending();
+        super.initialize(split);
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        discardPending();
+        super.initialize(conf, split);
+    }
+
+    @Override
+    public void reset() {
+        discardPending();
+        super.reset();
+    }
+
+    private void discardPending() {
+        if (pending != null) {
+            for (Future<List<Record>> f : pending) {
+                f.cancel(true);
+            }
+            pending.clear();
+        }
+        current = null;
+    }
+
+    /**
+     * Load and transform the record of the given metadata
+     *
+     * @return The transformed record, or null if the record is removed by the filters of the transform process
+     */
+    @Override
+    public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        List<Record> out = loadFromMetaData(Collections.singletonList(recordMetaData));
+        return out.isEmpty() ? null : out.get(0);
+    }
+
+    /**
+     * Load and transform the records of the given metadata. Records removed by the filters of the transform process
+     * (which are never returned by this reader) are not included in the returned list
+     */
+    @Override
+    public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        return transform(recordReader.loadFromMetaData(recordMetaDatas));
+    }
+
+    @Override
+    public void close() throws IOException {
+        discardPending();
+        if (executor != null) {
+            executor.shutdownNow();
+            executor = null;
+        }
+        super.close();
+    }
+}
@@ -37,12 +37,22 @@ import java.util.List;
  *
  * This is the path used to write to
  *
+ * Output is buffered ({@link #WRITE_BUFFER_SIZE}): batches are flushed at the end of
+ * {@link #writeBatch(List)}, and single records at the end of {@link #write(List)} unless
+ * {@link #FLUSH_EVERY_RECORD} is false, in which case they are flushed when the partitioner moves
+ * to a new partition, and on {@link #close()}. The output stream of each partition is closed when the
+ * partitioner moves to the next partition.
  *
  * @author Adam Gibson
  */
 public class FileRecordWriter implements RecordWriter {
 
     public static final Charset DEFAULT_CHARSET = Charset.forName("UTF-8");
+    /** Size, in bytes, of the write buffer. 0: write directly to the output stream of the partitioner */
+    public static final String WRITE_BUFFER_SIZE = "org.datavec.api.records.writer.buffersize";
+    public static final int DEFAULT_WRITE_BUFFER_SIZE = 64 * 1024;
+    /** Whether to flush the output after each record written with {@link #write(List)} (default: true) */
+    public static final String FLUSH_EVERY_RECORD = "org.datavec.api.records.writer.flusheveryrecord";
 
     protected DataOutputStream out;
     public final static String NEW_LINE = "\n";
@@ -53,6 +63,10 @@ public class FileRecordWriter implements RecordWriter {
 
     protected Configuration conf;
 
+    //Output stream of the current partition, wrapped by out
+    protected OutputStream partitionStream;
+    private boolean flushEveryRecord = true;
+
     public FileRecordWriter() {}
 
 
@@ -64,8 +78,8 @@ public class FileRecordWriter implements RecordWriter {
     @Override
     public void initialize(InputSplit inputSplit, Partitioner partitioner) throws Exception {
         partitioner.init(inputSplit);
-        out = new DataOutputStream(partitioner.currentOutputStream());
         this.partitioner = partitioner;
+        openPartition();
 
     }
 
@@ -76,18 +90,63 @@ public class FileRecordWriter implements RecordWriter {
         initialize(split, partitioner);
     }
 
+    private void openPartition() {
+        partitionStream = partitioner.currentOutputStream();
+        int bufferSize = conf == null ? DEFAULT_WRITE_BUFFER_SIZE
+                        : conf.getInt(WRITE_BUFFER_SIZE, DEFAULT_WRITE_BUFFER_SIZE);
+        out = new DataOutputStream(
+                        bufferSize > 0 ? new BufferedOutputStream(partitionStream, bufferSize) : partitionStream);
+        flushEveryRecord = conf == null || conf.getBoolean(FLUSH_EVERY_RECORD, true);
+    }
+
+    /**
+     * Switch to the current output stream of the partitioner, if it has moved to a new partition since
+     * the last write. The output of the previous partition is flushed and closed first: for compressed
+     * partitions, closing writes the end of the compressed data.
+     *
+     * @return true if the output was switched to a new partition
+     */
+    protected boolean checkPartition() throws IOException {
+        if (partitioner == null || partitioner.currentOutputStream() == partitionStream) {
+            return false;
+        }
+        out.close();
+        openPartition();
+        return true;
+    }
+
+    /**
+     * To be called at the end of each record written with {@link #write(List)}: flushes the output,
+     * unless {@link #FLUSH_EVERY_RECORD} is false
+     */
+    protected void endRecord() throws IOException {
+        if (flushEveryRecord) {
+            endBatch();
+        }
+    }
+
+    /**
+     * To be called at the end of each batch written with {@link #writeBatch(List)}: flushes the output
+     */
+    protected void endBatch() throws IOException {
+        out.flush();
+    }
+
     @Override
     public PartitionMetaData write(List<Writable> record) throws IOException {
+        checkPartition();
         if (!record.isEmpty()) {
             Text t = (Text) record.iterator().next();
             t.write(out);
         }
+        endRecord();
 
         return PartitionMetaData.builder().numRecordsUpdated(1).build();
     }
 
     @Override
     public PartitionMetaData writeBatch(List<List<Writable>> batch) throws IOException {
+        checkPartition();
         for(List<Writable> record : batch) {
             Text t = (Text) record.iterator().next();
             try {
@@ -96,6 +155,7 @@ public class FileRecordWriter implements RecordWriter {
                 throw new IllegalStateException(e);
             }
         }
+        endBatch();
         return PartitionMetaData.builder().numRecordsUpdated(1).build();
 
     }
@@ -106,6 +166,10 @@ public class FileRecordWriter implements RecordWriter {
             try {
                 out.flush();
                 out.close();
+                //The partitioner may have opened the stream of a next partition, never written to
+                if (partitioner != null && partitioner.currentOutputStream() != partitionStream) {
+                    partitioner.currentOutputStream().close();
+                }
             } catch (IOException e) {
                 throw new IllegalStateException(e);
             }
@@ -34,11 +34,13 @@ public class LineRecordWriter extends FileRecordWriter {
 
     @Override
     public PartitionMetaData write(List<Writable> record) throws IOException {
+        checkPartition();
         if (!record.isEmpty()) {
             Text t = (Text) record.iterator().next();
             t.write(out);
             out.write(NEW_LINE.getBytes());
         }
+        endRecord();
 
 
         return PartitionMetaData.builder().numRecordsUpdated(1).build();
@@ -0,0 +1,157 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.writer.impl.binary;
+
+import lombok.NonNull;
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.reader.impl.binary.BinarySequenceFormat;
+import org.datavec.api.records.writer.SequenceRecordWriter;
+import org.datavec.api.split.partition.PartitionMetaData;
+import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.Writable;
+
+import java.io.*;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * BinarySequenceRecordWriter writes many sequences to a single file, in the binary format of
+ * {@link BinarySequenceFormat}: the values of each sequence are stored column by column, typed according to the
+ * schema, and the file ends with the offset of each sequence. The file can be read with
+ * {@link org.datavec.api.records.reader.impl.binary.BinarySequenceRecordReader}.<br>
+ * Values are converted to the column types of the schema: for example, {@link org.datavec.api.writable.Text} values
+ * (as read by CSV record readers) are stored as doubles for a {@link ColumnType#Double} column.
+ * <p>
+ * To convert the sequences of any {@link org.datavec.api.records.reader.SequenceRecordReader}, use
+ * {@link org.datavec.api.records.converter.RecordReaderConverter#convert(org.datavec.api.records.reader.SequenceRecordReader, SequenceRecordWriter)}.
+ * The file is only valid once the writer has been closed.
+ *
+ * @see org.datavec.api.records.reader.impl.binary.BinarySequenceRecordReader
+ */
+public class BinarySequenceRecordWriter implements SequenceRecordWriter {
+
+    private final File outputFile;
+    private final Schema schema;
+    private final ColumnType[] types;
+    private final OutputStream out;
+    private final ByteArrayOutputStream sequenceBuffer = new ByteArrayOutputStream();
+    private final DataOutputStream sequenceOut = new DataOutputStream(sequenceBuffer);
+    private Configuration conf;
+    private long position;
+    private long[] offsets = new long[1024];
+    private int numSequences;
+    private boolean closed;
+
+    /**
+     * @param outputFile File to write (overwritten if it exists)
+     * @param schema     Schema of the sequences: values are stored according to the column types of the schema
+     */
+    public BinarySequenceRecordWriter(@NonNull File outputFile, @NonNull Schema schema) throws IOException {
+        this.outputFile = outputFile;
+        this.schema = schema;
+        this.types = schema.getColumnTypes().toArray(new ColumnType[schema.numColumns()]);
+        for (ColumnType type : types) {
+            if (type == null) {
+                throw new IllegalArgumentException("Schema has a column with no type: " + schema);
+            }
+        }
+
+        this.out = new BufferedOutputStream(new FileOutputStream(outputFile), 1 << 16);
+        DataOutputStream header = new DataOutputStream(sequenceBuffer);
+        BinarySequenceFormat.writeHeader(header, schema);
+        header.flush();
+        flushBuffer();
+    }
+
+    private void flushBuffer() throws IOException {
+        sequenceBuffer.writeTo(out);
+        position += sequenceBuffer.size();
+        sequenceBuffer.reset();
+    }
+
+    @Override
+    public PartitionMetaData write(List<List<Writable>> sequence) throws IOException {
+        if (closed) {
+            throw new IllegalStateException("Cannot write to BinarySequenceRecordWriter: writer has already been closed");
+        }
+        //Encode the sequence first: a sequence that cannot be encoded is not written at all
+        sequenceBuffer.reset();
+        BinarySequenceFormat.writeSequence(sequence, types, sequenceOut);
+        sequenceOut.flush();
+
+        if (numSequences == offsets.length) {
+            offsets = Arrays.copyOf(offsets, offsets.length * 2);
+        }
+        offsets[numSequences++] = position;
+        flushBuffer();
+        return PartitionMetaData.builder().numRecordsUpdated(1).build();
+    }
+
+    /**
+     * @return Number of sequences written so far
+     */
+    public int numSequences() {
+        return numSequences;
+    }
+
+    /**
+     * @return The schema of the sequences
+     */
+    public Schema getSchema() {
+        return schema;
+    }
+
+    /**
+     * Write the index of the sequences, and close the file
+     */
+    @Override
+    public void close() {
+        if (closed) {
+            return;
+        }
+        closed = true;
+        try {
+            long indexOffset = position;
+            sequenceBuffer.reset();
+            for (int i = 0; i < numSequences; i++) {
+                sequenceOut.writeLong(offsets[i]);
+                if (sequenceBuffer.size() >= 1 << 16) {
+                    flushBuffer();
+                }
+            }
+            sequenceOut.writeLong(indexOffset);
+            sequenceOut.writeInt(numSequences);
+            sequenceOut.writeInt(BinarySequenceFormat.MAGIC);
+            sequenceOut.flush();
+            flushBuffer();
+            out.close();
+        } catch (IOException e) {
+            throw new RuntimeException("Error closing BinarySequenceRecordWriter for file " + outputFile, e);
+        }
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        this.conf = conf;
+    }
+
+    @Override
+    public Configuration getConf() {
+        return conf;
+    }
+}
@@ -19,21 +19,31 @@ package org.datavec.api.records.writer.impl.csv;
 
 import org.datavec.api.records.writer.impl.FileRecordWriter;
 import org.datavec.api.split.partition.PartitionMetaData;
-import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.*;
 
 import java.io.IOException;
+import java.nio.charset.StandardCharsets;
 import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.Collectors;
+import java.util.stream.IntStream;
 
 /**
  * Csv record writer
  *
+ * Records are encoded to bytes directly: numeric values without intermediate strings, and
+ * (for UTF-8 output) text values as their UTF-8 bytes. Large batches are encoded in parallel.
+ *
  * @author Adam Gibson
  */
 public class CSVRecordWriter extends FileRecordWriter {
     public static final String DEFAULT_DELIMITER = ",";
+    //Minimum number of records per thread, when encoding a batch in parallel
+    private static final int MIN_RECORDS_PER_THREAD = 1024;
 
     private final byte[] delimBytes;
     private boolean firstLine = true;
+    private RecordEncoder encoder;
 
     public CSVRecordWriter() {
         delimBytes = DEFAULT_DELIMITER.getBytes(encoding);
@@ -47,51 +57,167 @@ public class CSVRecordWriter extends FileRecordWriter {
 
     @Override
     public PartitionMetaData writeBatch(List<List<Writable>> batch) throws IOException {
-        for(List<Writable> record : batch) {
-            if (!record.isEmpty()) {
-                //Add new line before appending lines rather than after (avoids newline after last line)
-                if (!firstLine) {
-                    out.write(NEW_LINE.getBytes());
-                } else {
-                    firstLine = false;
-                }
+        if (checkPartition()) {
+            firstLine = true;
+        }
 
-                int count = 0;
-                int last = record.size() - 1;
-                for (Writable w : record) {
-                    out.write(w.toString().getBytes(encoding));
-                    if (count++ != last)
-                        out.write(delimBytes);
+        int nThreads = Math.min(ForkJoinPool.getCommonPoolParallelism(), batch.size() / MIN_RECORDS_PER_THREAD);
+        if (nThreads > 1) {
+            int chunkSize = (batch.size() + nThreads - 1) / nThreads;
+            List<RecordEncoder> chunks = IntStream.range(0, nThreads).parallel().mapToObj(i -> {
+                RecordEncoder e = new RecordEncoder();
+                int end = Math.min(batch.size(), (i + 1) * chunkSize);
+                for (int j = i * chunkSize; j < end; j++) {
+                    e.append(batch.get(j));
+                }
+                return e;
+            }).collect(Collectors.toList());
+            for (RecordEncoder e : chunks) {
+                writeEncoded(e);
+            }
+        } else {
+            RecordEncoder e = encoder();
+            for (List<Writable> record : batch) {
+                e.append(record);
+                if (e.size > DEFAULT_WRITE_BUFFER_SIZE) {
+                    writeEncoded(e);
                 }
-
-                out.flush();
             }
+            writeEncoded(e);
         }
+        endBatch();
 
         return PartitionMetaData.builder().numRecordsUpdated(batch.size()).build();
     }
 
     @Override
     public PartitionMetaData write(List<Writable> record) throws IOException {
-        if (!record.isEmpty()) {
-            //Add new line before appending lines rather than after (avoids newline after last line)
-            if (!firstLine) {
-                out.write(NEW_LINE.getBytes());
-            } else {
-                firstLine = false;
-            }
+        if (checkPartition()) {
+            firstLine = true;
+        }
+
+        RecordEncoder e = encoder();
+        e.append(record);
+        writeEncoded(e);
+        endRecord();
 
+        return PartitionMetaData.builder().numRecordsUpdated(1).build();
+    }
+
+    private RecordEncoder encoder() {
+        if (encoder == null) {
+            encoder = new RecordEncoder();
+        }
+        return encoder;
+    }
+
+    /**
+     * Write and clear the encoded records. Each record is encoded with a new line before it rather than
+     * after it (avoids a new line after the last line): the new line of the first record of the output is skipped
+     */
+    private void writeEncoded(RecordEncoder e) throws IOException {
+        int start = 0;
+        if (firstLine && e.size > 0) {
+            start = 1;
+            firstLine = false;
+        }
+        out.write(e.buffer, start, e.size - start);
+        e.size = 0;
+    }
+
+    /**
+     * Encodes records as lines of delimited values, in a growable byte array
+     */
+    private class RecordEncoder {
+        private byte[] buffer = new byte[1024];
+        private int size;
+        private final boolean utf8 = StandardCharsets.UTF_8.equals(encoding);
+        private final StringBuilder sb = new StringBuilder(32);
+
+        private void append(List<Writable> record) {
+            if (record.isEmpty()) {
+                return;
+            }
+            append((byte) '\n');
             int count = 0;
             int last = record.size() - 1;
             for (Writable w : record) {
-                out.write(w.toString().getBytes(encoding));
+                append(w);
                 if (count++ != last)
-                    out.write(delimBytes);
+                    append(delimBytes, 0, delimBytes.length);
             }
+        }
 
-            out.flush();
+        private void append(Writable w) {
+            if (w instanceof IntWritable) {
+                appendLong(((IntWritable) w).get());
+            } else if (w instanceof LongWritable) {
+                appendLong(((LongWritable) w).get());
+            } else if (w instanceof DoubleWritable) {
+                sb.setLength(0);
+                sb.append(((DoubleWritable) w).get());
+                appendAscii(sb);
+            } else if (w instanceof FloatWritable) {
+                sb.setLength(0);
+                sb.append(((FloatWritable) w).get());
+                appendAscii(sb);
+            } else if (w instanceof Text && utf8) {
+                Text t = (Text) w;
+                append(t.getBytes(), 0, t.getLength());
+            } else {
+                byte[] bytes = w.toString().getBytes(encoding);
+                append(bytes, 0, bytes.length);
+            }
         }
 
-        return PartitionMetaData.builder().numRecordsUpdated(1).build();
+        private void appendLong(long value) {
+            ensureCapacity(20);
+            if (value == 0) {
+                buffer[size++] = '0';
+                return;
+            }
+            //Digits are written from the end; accumulate negatively to handle Long.MIN_VALUE
+            long v = value < 0 ? value : -value;
+            int digits = 0;
+            for (long t = v; t != 0; t /= 10) {
+                digits++;
+            }
+            if (value < 0) {
+                buffer[size++] = '-';
+            }
+            int pos = size + digits;
+            size = pos;
+            while (v != 0) {
+                buffer[--pos] = (byte) ('0' - (v % 10));
+                v /= 10;
+            }
+        }
+
+        private void appendAscii(CharSequence chars) {
+            int n = chars.length();
+            ensureCapacity(n);
+            for (int i = 0; i < n; i++) {
+                buffer[size++] = (byte) chars.charAt(i);
+            }
+        }
+
+        private void append(byte b) {
+            ensureCapacity(1);
+            buffer[size++] = b;
+        }
+
+        private void append(byte[] bytes, int offset, int length) {
+            ensureCapacity(length);
+            System.arraycopy(bytes, offset, buffer, size, length);
+            size += length;
+        }
+
+        private void ensureCapacity(int n) {
+            if (size + n > buffer.length) {
+                byte[] newBuffer = new byte[Math.max(buffer.length * 2, size + n)];
+                System.arraycopy(buffer, 0, newBuffer, 0, size);
+                buffer = newBuffer;
+            }
+        }
     }
 }
@@ -35,6 +35,7 @@ public class MatlabRecordWriter extends FileRecordWriter {
 
     @Override
     public PartitionMetaData write(List<Writable> record) throws IOException {
+        checkPartition();
         StringBuilder result = new StringBuilder();
 
         int count = 0;
@@ -51,6 +52,7 @@ public class MatlabRecordWriter extends FileRecordWriter {
 
         out.write(result.toString().getBytes());
         out.write(NEW_LINE.getBytes());
+        endRecord();
 
         return PartitionMetaData.builder().numRecordsUpdated(1).build();
 
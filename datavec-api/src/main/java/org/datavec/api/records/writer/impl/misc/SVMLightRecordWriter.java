@@ -113,6 +113,7 @@ public class SVMLightRecordWriter extends FileRecordWriter {
      */
     @Override
     public PartitionMetaData write(List<Writable> record) throws IOException {
+        checkPartition();
         if (!record.isEmpty()) {
             List<Writable> recordList = record instanceof List ? (List<Writable>) record : new ArrayList<>(record);
 
@@ -223,6 +224,7 @@ public class SVMLightRecordWriter extends FileRecordWriter {
             out.write(NEW_LINE.getBytes());
 
         }
+        endRecord();
 
         return PartitionMetaData.builder().numRecordsUpdated(1).build();
     }
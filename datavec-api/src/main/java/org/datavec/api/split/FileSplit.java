@@ -32,12 +32,20 @@ import java.nio.file.Path;
 import java.util.*;
 
 /**
- * File input split. Splits up a root directory in to files.
+ * File input split. Splits up a root directory in to files.<br>
+ * Line index files (files ending in {@link #LINE_INDEX_EXTENSION}, saved next to the data files by
+ * {@code LineOffsetIndex} for line-indexed record readers) are not data, and are never included in the split,
+ * even when no allowed formats are specified.
  *
  * @author Adam Gibson
  */
 public class FileSplit extends BaseInputSplit {
 
+    /**
+     * Extension of the line index files, which are excluded from file splits
+     */
+    public static final String LINE_INDEX_EXTENSION = ".lineidx";
+
     protected File rootDir;
     // Use for Collections, pass in list of file type strings
     protected String[] allowFormat = null;
@@ -226,6 +234,14 @@ public class FileSplit extends BaseInputSplit {
         return rootDir;
     }
 
+    /**
+     * @param file File
+     * @return True if the file is a line index file (ending in {@link #LINE_INDEX_EXTENSION}), excluded from splits
+     */
+    public static boolean isLineIndexFile(File file) {
+        return file.getName().endsWith(LINE_INDEX_EXTENSION);
+    }
+
     private Collection<File> listFiles(Collection<File> fileNames, Path dir, String[] allowedFormats,
                                        boolean recursive) {
         IOFileFilter filter;
@@ -239,6 +255,9 @@ public class FileSplit extends BaseInputSplit {
             for (Path path : stream) {
                 if (Files.isDirectory(path) && recursive) {
                     listFiles(fileNames, path, allowedFormats, recursive);
+                } else if (isLineIndexFile(path.toFile())) {
+                    //Line index saved by a record reader, not data
+                    continue;
                 } else {
                     if (allowedFormats == null) {
                         fileNames.add(path.toFile());
@@ -0,0 +1,441 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.split;
+
+import lombok.extern.slf4j.Slf4j;
+import org.apache.commons.io.filefilter.IOFileFilter;
+import org.apache.commons.io.filefilter.SuffixFileFilter;
+import org.datavec.api.util.files.URIUtil;
+import org.nd4j.linalg.collection.CompactHeapStringList;
+import org.nd4j.linalg.util.MathUtils;
+
+import java.io.*;
+import java.net.URI;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.util.*;
+import java.util.concurrent.CountedCompleter;
+import java.util.concurrent.ForkJoinPool;
+
+/**
+ * A {@link FileSplit} for very large directory trees.<br>
+ * Directories are listed in parallel, in the background, and locations are available from
+ * {@link #locationsIterator()} and {@link #locationsPathIterator()} as soon as they are found: record readers
+ * that only iterate over the locations can start reading before the listing is complete. Methods that need
+ * all of the locations ({@link #locations()}, {@link #length()}, and hence {@link #sample(org.datavec.api.io.filters.PathFilter, double...)}
+ * with a {@link org.datavec.api.io.filters.BalancedPathFilter}) wait for the listing to complete.
+ * <p>
+ * Randomization: while the listing is in progress, locations are shuffled with a buffer of
+ * {@link #DEFAULT_SHUFFLE_BUFFER_SIZE} locations (a random location of the buffer is returned, and replaced by the
+ * next location found). Once the listing is complete, all locations are shuffled, as for {@link FileSplit}.<br>
+ * As for {@link FileSplit}, line index files ({@link FileSplit#LINE_INDEX_EXTENSION}) are excluded.
+ * <p>
+ * Optionally, the listing can be saved to a manifest file (one location per line) once complete: if the manifest
+ * already exists for the same root directory and settings, the locations are read from it instead of listing the
+ * directories again.
+ */
+@Slf4j
+public class StreamingFileSplit extends FileSplit {
+
+    public static final int DEFAULT_NUM_THREADS = Math.max(4, Runtime.getRuntime().availableProcessors());
+    public static final int DEFAULT_SHUFFLE_BUFFER_SIZE = 10000;
+
+    private final File manifest;
+    private final int numThreads;
+    private final int shuffleBufferSize;
+    private final Object lock = new Object();
+    private boolean complete;
+    private Throwable failure;
+
+    public StreamingFileSplit(File rootDir) {
+        this(rootDir, null, true, null, null);
+    }
+
+    public StreamingFileSplit(File rootDir, String[] allowFormat) {
+        this(rootDir, allowFormat, true, null, null);
+    }
+
+    public StreamingFileSplit(File rootDir, String[] allowFormat, Random rng) {
+        this(rootDir, allowFormat, true, rng, null);
+    }
+
+    /**
+     * @param rootDir     Root directory
+     * @param allowFormat File extensions to include (null: all files)
+     * @param recursive   Whether to include the files of the subdirectories
+     * @param rng         Random number generator for randomizing the iteration order (null: no randomization)
+     * @param manifest    Manifest file, to read the locations from if it exists, or to save them to once the listing
+     *                    is complete (null: no manifest)
+     */
+    public StreamingFileSplit(File rootDir, String[] allowFormat, boolean recursive, Random rng, File manifest) {
+        this(rootDir, allowFormat, recursive, rng, manifest, DEFAULT_NUM_THREADS, DEFAULT_SHUFFLE_BUFFER_SIZE);
+    }
+
+    /**
+     * @param rootDir           Root directory
+     * @param allowFormat       File extensions to include (null: all files)
+     * @param recursive         Whether to include the files of the subdirectories
+     * @param rng               Random number generator for randomizing the iteration order (null: no randomization)
+     * @param manifest          Manifest file, to read the locations from if it exists, or to save them to once the
+     *                          listing is complete (null: no manifest)
+     * @param numThreads        Number of threads for listing directories
+     * @param shuffleBufferSize Number of locations to shuffle together, when randomizing during the listing
+     */
+    public StreamingFileSplit(File rootDir, String[] allowFormat, boolean recursive, Random rng, File manifest,
+                    int numThreads, int shuffleBufferSize) {
+        super(rootDir, allowFormat, recursive, rng, false);
+        if (numThreads <= 0 || shuffleBufferSize <= 0) {
+            throw new IllegalArgumentException("Number of threads and shuffle buffer size must be positive: got "
+                            + numThreads + " and " + shuffleBufferSize);
+        }
+        this.manifest = manifest;
+        this.numThreads = numThreads;
+        this.shuffleBufferSize = shuffleBufferSize;
+        initialize();
+    }
+
+    @Override
+    protected void initialize() {
+        if (rootDir == null || !rootDir.isDirectory()) {
+            //Single file, or a file to write to
+            synchronized (lock) {
+                complete = true;
+                failure = null;
+            }
+            super.initialize();
+            return;
+        }
+
+        List<String> list = manifest != null && manifest.exists() ? readManifest() : null;
+        boolean fromManifest = list != null;
+        if (!fromManifest) {
+            list = new CompactHeapStringList();
+        }
+        synchronized (lock) {
+            uriStrings = list;
+            iterationOrder = null;
+            length = list.size();
+            complete = false;
+            failure = null;
+        }
+
+        if (fromManifest) {
+            finishListing(list, null, false);
+            return;
+        }
+
+        IOFileFilter filter = allowFormat == null ? null : new SuffixFileFilter(allowFormat);
+        ForkJoinPool pool = new ForkJoinPool(numThreads);
+        pool.execute(new ListDirectory(null, rootDir.toPath(), filter, list, pool));
+    }
+
+    /**
+     * @return True if all of the locations have been found
+     */
+    public boolean isListingComplete() {
+        synchronized (lock) {
+            return complete;
+        }
+    }
+
+    /**
+     * Wait until all of the locations have been found
+     */
+    public void waitForListing() {
+        synchronized (lock) {
+            while (!complete) {
+                try {
+                    lock.wait();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    throw new IllegalStateException("Interrupted while listing " + rootDir, e);
+                }
+            }
+            if (failure != null) {
+                throw new IllegalStateException("Error listing " + rootDir, failure);
+            }
+        }
+    }
+
+    @Override
+    public URI[] locations() {
+        waitForListing();
+        return super.locations();
+    }
+
+    @Override
+    public long length() {
+        waitForListing();
+        return super.length();
+    }
+
+    @Override
+    public Iterator<String> locationsPathIterator() {
+        synchronized (lock) {
+            if (complete) {
+                waitForListing();
+                return super.locationsPathIterator();
+            }
+            Iterator<String> iter = new DiscoveredLocationsIterator(uriStrings);
+            return randomize ? new ShuffleBufferIterator(iter) : iter;
+        }
+    }
+
+    @Override
+    public void reset() {
+        synchronized (lock) {
+            if (randomize && iterationOrder != null) {
+                MathUtils.shuffleArray(iterationOrder, random);
+            }
+        }
+    }
+
+    private void addLocations(List<String> list, List<String> found) {
+        if (found.isEmpty()) {
+            return;
+        }
+        synchronized (lock) {
+            if (list != uriStrings) {
+                //Split was re-initialized: results of the previous listing are discarded
+                return;
+            }
+            for (String s : found) {
+                list.add(s);
+            }
+            length += found.size();
+            lock.notifyAll();
+        }
+    }
+
+    private void finishListing(List<String> list, Throwable t, boolean saveManifest) {
+        synchronized (lock) {
+            if (list != uriStrings) {
+                return;
+            }
+            if (t == null && randomize) {
+                iterationOrder = new int[list.size()];
+                for (int i = 0; i < iterationOrder.length; i++) {
+                    iterationOrder[i] = i;
+                }
+                MathUtils.shuffleArray(iterationOrder, random);
+            }
+            complete = true;
+            failure = t;
+            lock.notifyAll();
+        }
+
+        if (t == null && saveManifest && manifest != null) {
+            writeManifest(list);
+        }
+    }
+
+    private String manifestHeader() {
+        return "#" + URIUtil.fileToURI(rootDir) + "\t" + recursive + "\t"
+                        + (allowFormat == null ? "" : Arrays.toString(allowFormat));
+    }
+
+    private List<String> readManifest() {
+        try (BufferedReader reader = new BufferedReader(
+                        new InputStreamReader(new FileInputStream(manifest), StandardCharsets.UTF_8))) {
+            if (!manifestHeader().equals(reader.readLine())) {
+                log.info("Manifest {} was created for a different directory or settings: listing {}", manifest,
+                                rootDir);
+                return null;
+            }
+            List<String> list = new CompactHeapStringList();
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (!line.isEmpty()) {
+                    list.add(line);
+                }
+            }
+            return list;
+        } catch (IOException e) {
+            log.warn("Error reading manifest {}: listing {}", manifest, rootDir, e);
+            return null;
+        }
+    }
+
+    private void writeManifest(List<String> list) {
+        //Write to a temporary file first, so that an interrupted write does not leave a partial manifest
+        File tmp = new File(manifest.getAbsolutePath() + ".tmp");
+        try {
+            try (BufferedWriter writer = new BufferedWriter(
+                            new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8))) {
+                writer.write(manifestHeader());
+                writer.newLine();
+                for (String s : list) {
+                    writer.write(s);
+                    writer.newLine();
+                }
+            }
+            Files.move(tmp.toPath(), manifest.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        } catch (IOException e) {
+            log.warn("Error writing manifest {}", manifest, e);
+        }
+    }
+
+    /**
+     * Lists one directory, and (in parallel) its subdirectories. The root task completes when all of the
+     * subdirectories have been listed.
+     */
+    private class ListDirectory extends CountedCompleter<Void> {
+        private final Path dir;
+        private final IOFileFilter filter;
+        private final List<String> list;
+        private final ForkJoinPool pool;
+
+        private ListDirectory(ListDirectory parent, Path dir, IOFileFilter filter, List<String> list,
+                        ForkJoinPool pool) {
+            super(parent);
+            this.dir = dir;
+            this.filter = filter;
+            this.list = list;
+            this.pool = pool;
+        }
+
+        @Override
+        public void compute() {
+            List<String> found = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(dir)) {
+                for (Path path : stream) {
+                    if (recursive && Files.isDirectory(path)) {
+                        addToPendingCount(1);
+                        new ListDirectory(this, path, filter, list, pool).fork();
+                    } else if ((filter == null || filter.accept(path.toFile()))
+                                    && !FileSplit.isLineIndexFile(path.toFile())) {
+                        found.add(URIUtil.fileToURI(path.toFile()).toString());
+                    }
+                }
+            } catch (IOException e) {
+                log.warn("Error listing directory {}", dir, e);
+            }
+            addLocations(list, found);
+            tryComplete();
+        }
+
+        @Override
+        public void onCompletion(CountedCompleter<?> caller) {
+            if (getCompleter() == null) {
+                finishListing(list, null, true);
+                pool.shutdown();
+            }
+        }
+
+        @Override
+        public boolean onExceptionalCompletion(Throwable ex, CountedCompleter<?> caller) {
+            if (getCompleter() == null) {
+                finishListing(list, ex, false);
+                pool.shutdown();
+            }
+            return true;
+        }
+    }
+
+    /**
+     * Iterates over the locations in the order they are found, waiting for the listing if necessary
+     */
+    private class DiscoveredLocationsIterator implements Iterator<String> {
+        private final List<String> list;
+        private int position;
+
+        private DiscoveredLocationsIterator(List<String> list) {
+            this.list = list;
+        }
+
+        @Override
+        public boolean hasNext() {
+            synchronized (lock) {
+                while (position >= list.size() && !complete && list == uriStrings) {
+                    try {
+                        lock.wait();
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                        throw new IllegalStateException("Interrupted while listing " + rootDir, e);
+                    }
+                }
+                if (failure != null && list == uriStrings) {
+                    throw new IllegalStateException("Error listing " + rootDir, failure);
+                }
+                return position < list.size();
+            }
+        }
+
+        @Override
+        public String next() {
+            if (!hasNext()) {
+                throw new NoSuchElementException();
+            }
+            synchronized (lock) {
+                return list.get(position++);
+            }
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+
+    /**
+     * Returns the locations of the underlying iterator in random order, by picking a random location out of a
+     * buffer of the next locations
+     */
+    private class ShuffleBufferIterator implements Iterator<String> {
+        private final Iterator<String> source;
+        private final String[] buffer;
+        private int size;
+
+        private ShuffleBufferIterator(Iterator<String> source) {
+            this.source = source;
+            this.buffer = new String[shuffleBufferSize];
+        }
+
+        private void fill() {
+            while (size < buffer.length && source.hasNext()) {
+                buffer[size++] = source.next();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            fill();
+            return size > 0;
+        }
+
+        @Override
+        public String next() {
+            fill();
+            if (size == 0) {
+                throw new NoSuchElementException();
+            }
+            int idx = random.nextInt(size);
+            String ret = buffer[idx];
+            buffer[idx] = buffer[--size];
+            buffer[size] = null;
+            return ret;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException();
+        }
+    }
+}
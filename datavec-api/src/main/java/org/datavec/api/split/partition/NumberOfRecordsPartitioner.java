@@ -1,8 +1,12 @@
 package org.datavec.api.split.partition;
 
+import org.apache.commons.compress.compressors.CompressorException;
+import org.apache.commons.compress.compressors.CompressorStreamFactory;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.split.InputSplit;
 
+import java.io.FilterOutputStream;
+import java.io.IOException;
 import java.io.OutputStream;
 import java.net.URI;
 
@@ -23,6 +27,12 @@ public class NumberOfRecordsPartitioner implements Partitioner {
     public final static int DEFAULT_RECORDS_PER_FILE = -1;
 
     public final static String RECORDS_PER_FILE_CONFIG = "org.datavec.api.split.partition.numrecordsperfile";
+    /**
+     * Compression of the output files: the name of a commons-compress compressor, for example "gz",
+     * "lz4-framed", "zstd" (requires zstd-jni) or "bzip2". Not set: no compression
+     */
+    public final static String COMPRESSION_CONFIG = "org.datavec.api.split.partition.compression";
+    private String compression;
     private int numRecordsSoFar = 0;
     private int currLocation;
     private InputSplit inputSplit;
@@ -69,6 +79,7 @@ public class NumberOfRecordsPartitioner implements Partitioner {
     public void init(Configuration configuration, InputSplit split) {
         init(split);
         this.recordsPerFile = configuration.getInt(RECORDS_PER_FILE_CONFIG,DEFAULT_RECORDS_PER_FILE);
+        this.compression = configuration.get(COMPRESSION_CONFIG);
     }
 
     @Override
@@ -101,7 +112,7 @@ public class NumberOfRecordsPartitioner implements Partitioner {
 
             String newInput = inputSplit.addNewLocation();
             try {
-                OutputStream ret =  inputSplit.openOutputStreamFor(newInput);
+                OutputStream ret =  compress(inputSplit.openOutputStreamFor(newInput));
                 this.current = ret;
                 return ret;
             } catch (Exception e) {
@@ -111,7 +122,7 @@ public class NumberOfRecordsPartitioner implements Partitioner {
 
         else {
             try {
-                OutputStream ret =  inputSplit.openOutputStreamFor(locations[currLocation].toString());
+                OutputStream ret =  compress(inputSplit.openOutputStreamFor(locations[currLocation].toString()));
                 currLocation++;
                 this.current = ret;
                 return ret;
@@ -122,6 +133,37 @@ public class NumberOfRecordsPartitioner implements Partitioner {
 
     }
 
+    private OutputStream compress(OutputStream outputStream) throws CompressorException {
+        if (compression == null || compression.isEmpty()) {
+            return outputStream;
+        }
+        //Closing the returned stream finishes the compressed data, and closes the file. It may be closed both by
+        //the record writer and by the caller of openNewStream(): only the first close has an effect
+        return new CloseOnceOutputStream(
+                        new CompressorStreamFactory().createCompressorOutputStream(compression, outputStream));
+    }
+
+    private static class CloseOnceOutputStream extends FilterOutputStream {
+        private boolean closed;
+
+        private CloseOnceOutputStream(OutputStream out) {
+            super(out);
+        }
+
+        @Override
+        public void write(byte[] b, int off, int len) throws IOException {
+            out.write(b, off, len);
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                out.close();
+            }
+        }
+    }
+
     @Override
     public OutputStream currentOutputStream() {
         if(current == null) {
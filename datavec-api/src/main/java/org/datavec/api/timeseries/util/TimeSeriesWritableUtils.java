@@ -5,10 +5,9 @@ import lombok.Builder;
 import lombok.Getter;
 import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.INDArrayIndex;
-import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.util.Iterator;
@@ -126,6 +125,9 @@ public class TimeSeriesWritableUtils {
 
 
 
+        //Values are written directly in to the (f order) buffer: element [i, j, k] is at i + n * (j + size * k)
+        DataBuffer buffer = arr.data();
+        long n = details.getMinValues();
         for (int i = 0; i < details.getMinValues(); i++) {
             List<List<Writable>> sequence = list.get(i);
             int t = 0;
@@ -141,12 +143,21 @@ public class TimeSeriesWritableUtils {
 
                     if (w instanceof NDArrayWritable) {
                         INDArray row = ((NDArrayWritable) w).get();
-
-                        arr.put(new INDArrayIndex[] {NDArrayIndex.point(i),
-                                NDArrayIndex.interval(j, j + row.length()), NDArrayIndex.point(k)}, row);
-                        j += row.length();
+                        int length = (int) row.length();
+                        if (j + length > size) {
+                            throw new IllegalStateException("Time step " + k + " of sequence " + i + " has more "
+                                    + "values than the first time step of the first sequence (" + size + ")");
+                        }
+                        for (int m = 0; m < length; m++) {
+                            buffer.put(i + n * (j + m + (long) size * k), row.getDouble(m));
+                        }
+                        j += length;
                     } else {
-                        arr.putScalar(i, j, k, w.toDouble());
+                        if (j >= size) {
+                            throw new IllegalStateException("Time step " + k + " of sequence " + i + " has more "
+                                    + "values than the first time step of the first sequence (" + size + ")");
+                        }
+                        buffer.put(i + n * (j + (long) size * k), w.toDouble());
                         j++;
                     }
                 }
@@ -828,6 +828,21 @@ public class TransformProcess implements Serializable {
             return this;
         }
 
+        /**
+         * Convert the specified column(s) from a categorical representation to a sparse (index-encoded) one-hot
+         * representation: each column is replaced by a single integer column holding the index of the category
+         * (see {@link org.datavec.api.transform.metadata.OneHotIndexMetaData}), that is expanded to a one-hot vector
+         * only when converted to an array with the schema (RecordConverter). Suitable for high-cardinality columns.
+         *
+         * @param columnNames Names of the categorical column(s) to convert to a sparse one-hot representation
+         */
+        public Builder categoricalToSparseOneHot(String... columnNames) {
+            for (String s : columnNames) {
+                transform(new CategoricalToOneHotTransform(s, true));
+            }
+            return this;
+        }
+
         /**
          * Convert the specified column(s) from a categorical representation to an integer representation.
          * This will replace the specified categorical column(s) with an integer repreesentation, where
@@ -875,6 +890,19 @@ public class TransformProcess implements Serializable {
             return transform(new IntegerToOneHotTransform(columnName, minValue, maxValue));
         }
 
+        /**
+         * Convert an integer column to a sparse (index-encoded) one-hot column: as per
+         * {@link #integerToOneHot(String, int, int)}, but with a single column holding the index (value - minValue)
+         * instead of one column per value. See {@link #categoricalToSparseOneHot(String...)}
+         *
+         * @param columnName Name of the integer column
+         * @param minValue   Minimum value possible for the integer column (inclusive)
+         * @param maxValue   Maximum value possible for the integer column (inclusive)
+         */
+        public Builder integerToSparseOneHot(String columnName, int minValue, int maxValue) {
+            return transform(new IntegerToOneHotTransform(columnName, minValue, maxValue, true));
+        }
+
         /**
          * Add a new column, where all values in the column are identical and as specified.
          *
@@ -1036,6 +1064,20 @@ public class TransformProcess implements Serializable {
             return this;
         }
 
+        /**
+         * As per {@link #convertToSequence(List, SequenceComparator)}, but with a maximum sequence length: groups with
+         * more than maxSequenceLength values are split into consecutive sequences of at most maxSequenceLength steps.
+         *
+         * @param keyColumns        Column to use as a key (values with the same key will be combined into sequences)
+         * @param comparator        A SequenceComparator to order the values within each sequence
+         * @param maxSequenceLength Maximum number of steps per sequence
+         */
+        public Builder convertToSequence(List<String> keyColumns, SequenceComparator comparator,
+                        int maxSequenceLength) {
+            actionList.add(new DataAction(new ConvertToSequence(keyColumns, comparator, maxSequenceLength)));
+            return this;
+        }
+
 
         /**
          * Convert a sequence to a set of individual values (by treating each value in each sequence as a separate example)
@@ -48,11 +48,33 @@ public class Join implements Serializable {
         Inner, LeftOuter, RightOuter, FullOuter
     };
 
+    /**
+     * Strategy used to execute the join<br>
+     * Auto: use a hash (broadcast) join if the data on the side that can be hashed has at most
+     * {@link #getBroadcastThreshold()} examples, otherwise a shuffle (cogroup) join<br>
+     * Shuffle: always group both sides by key (cogroup), then join the values for each key<br>
+     * Broadcast: always build a hash table from one side and stream the other side through it; the hashed side must
+     * fit in memory. The hashed side is the right side for LeftOuter and FullOuter joins, and the left side for
+     * RightOuter joins. For Inner joins either side can be hashed: the local executor hashes the smaller side, and the
+     * Spark executor hashes the right side (or, with Auto, the left side if the right side exceeds the threshold).
+     * Note that executors that cannot hash a given join type (for example, FullOuter joins on Spark) fall back
+     * to a shuffle join.
+     */
+    public enum JoinStrategy {
+        Auto, Shuffle, Broadcast
+    }
+
+    /** Default maximum number of examples for automatically using a broadcast join */
+    public static final long DEFAULT_BROADCAST_THRESHOLD = 100000;
+
     private JoinType joinType;
     private Schema leftSchema;
     private Schema rightSchema;
     private String[] joinColumnsLeft;
     private String[] joinColumnsRight;
+    private JoinStrategy joinStrategy;
+    private long broadcastThreshold;
+    private int skewSaltFactor;
 
 
     private Join(Builder builder) {
@@ -61,6 +83,9 @@ public class Join implements Serializable {
         this.rightSchema = builder.rightSchema;
         this.joinColumnsLeft = builder.joinColumnsLeft;
         this.joinColumnsRight = builder.joinColumnsRight;
+        this.joinStrategy = builder.joinStrategy;
+        this.broadcastThreshold = builder.broadcastThreshold;
+        this.skewSaltFactor = builder.skewSaltFactor;
 
         //Perform validation: ensure columns are correct, etc
         if (joinType == null)
@@ -77,6 +102,10 @@ public class Join implements Serializable {
             throw new IllegalArgumentException("Invalid right join columns: "
                             + (joinColumnsRight == null ? null : Arrays.toString(joinColumnsRight)));
         }
+        if (joinStrategy == null)
+            throw new IllegalArgumentException("Join strategy cannot be null");
+        if (skewSaltFactor < 1)
+            throw new IllegalArgumentException("Invalid skew salt factor: " + skewSaltFactor + " (must be >= 1)");
 
         //Check that the join columns actually appear in the schemas:
         for (String leftCol : joinColumnsLeft) {
@@ -102,6 +131,9 @@ public class Join implements Serializable {
         private Schema rightSchema;
         private String[] joinColumnsLeft;
         private String[] joinColumnsRight;
+        private JoinStrategy joinStrategy = JoinStrategy.Auto;
+        private long broadcastThreshold = DEFAULT_BROADCAST_THRESHOLD;
+        private int skewSaltFactor = 1;
 
         public Builder(JoinType type) {
             this.joinType = type;
@@ -169,6 +201,41 @@ public class Join implements Serializable {
             return this;
         }
 
+        /**
+         * Set the strategy used to execute the join. Default: {@link JoinStrategy#Auto}
+         *
+         * @param joinStrategy Join strategy
+         */
+        public Builder setJoinStrategy(JoinStrategy joinStrategy) {
+            this.joinStrategy = joinStrategy;
+            return this;
+        }
+
+        /**
+         * Maximum number of examples on the hashed side for {@link JoinStrategy#Auto} to use a broadcast join.
+         * Default: {@link #DEFAULT_BROADCAST_THRESHOLD}
+         *
+         * @param broadcastThreshold Maximum number of examples to broadcast
+         */
+        public Builder setBroadcastThreshold(long broadcastThreshold) {
+            this.broadcastThreshold = broadcastThreshold;
+            return this;
+        }
+
+        /**
+         * Salting for skewed keys, for shuffle joins on Spark. With a salt factor of N > 1, the examples of each key on
+         * the larger side (left for Inner and LeftOuter joins, right for RightOuter joins) are spread over N sub-keys,
+         * and the examples on the other side are replicated N times. This spreads the work for frequent ("hot") keys
+         * over N tasks, at the cost of replicating the other side. Not applicable to FullOuter joins. Default: 1 (no
+         * salting)
+         *
+         * @param skewSaltFactor Number of sub-keys per key
+         */
+        public Builder setSkewSaltFactor(int skewSaltFactor) {
+            this.skewSaltFactor = skewSaltFactor;
+            return this;
+        }
+
         public Join build() {
             if (leftSchema == null || rightSchema == null)
                 throw new IllegalStateException("Cannot build Join: left and/or right schemas are null");
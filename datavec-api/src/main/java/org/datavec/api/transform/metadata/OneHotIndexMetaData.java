@@ -0,0 +1,60 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.transform.metadata;
+
+import lombok.Data;
+import lombok.EqualsAndHashCode;
+import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
+import org.nd4j.shade.jackson.annotation.JsonProperty;
+
+/**
+ * Metadata for a sparse (index encoded) one-hot column: an integer column with values 0 to numStates-1, holding the
+ * index of the "hot" entry of a one-hot vector of length numStates.<br>
+ * Unlike a set of one-hot columns (one column per state), this costs a single value per example, regardless of the
+ * number of states. Converters that are given the schema (such as RecordConverter.toArray(record, schema) and
+ * RecordConverter.toMatrix(records, schema)) expand the column to numStates values in the output arrays.
+ *
+ * @author Alex Black
+ */
+@Data
+@EqualsAndHashCode(callSuper = true)
+@JsonIgnoreProperties({"minAllowedValue", "maxAllowedValue"})
+public class OneHotIndexMetaData extends IntegerMetaData {
+
+    private final int numStates;
+
+    /**
+     * @param name      Name of the column
+     * @param numStates Number of states: i.e., the length of the (expanded) one-hot vector
+     */
+    public OneHotIndexMetaData(@JsonProperty("name") String name, @JsonProperty("numStates") int numStates) {
+        super(name, 0, numStates - 1);
+        if (numStates <= 0)
+            throw new IllegalArgumentException("Number of states must be positive: got " + numStates);
+        this.numStates = numStates;
+    }
+
+    @Override
+    public OneHotIndexMetaData clone() {
+        return new OneHotIndexMetaData(name, numStates);
+    }
+
+    @Override
+    public String toString() {
+        return "OneHotIndexMetaData(name=\"" + name + "\",numStates=" + numStates + ")";
+    }
+}
@@ -0,0 +1,500 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.transform.ops;
+
+import lombok.Getter;
+import org.datavec.api.transform.ReduceOp;
+import org.datavec.api.writable.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.EnumSet;
+import java.util.List;
+import java.util.Set;
+
+/**
+ * Column reductions specialised for primitive (int, long, float and double) columns.<br>
+ * Unlike the combination of {@link AggregatorImpls} operations in an {@link AggregableMultiOp}, each of these
+ * computes all the reductions for a column in a single accumulator holding primitive state: no boxed values are
+ * created per element, and each element is read from its {@link Writable} only once.
+ * <p>
+ * Results are the same (values and writable types) as those of the equivalent {@link AggregatorImpls} operations:
+ * Sum, Prod, Min, Max, Range, TakeFirst and TakeLast return a writable of the column type, Count a LongWritable,
+ * and Mean, Stdev, UncorrectedStdDev, Variance and PopulationVariance a DoubleWritable.
+ * CountUnique is not supported; see {@link #supports(List)}.
+ */
+public class PrimitiveAggregatorImpls {
+
+    private static final Set<ReduceOp> SUPPORTED_OPS = EnumSet.of(ReduceOp.Min, ReduceOp.Max, ReduceOp.Range,
+                    ReduceOp.Sum, ReduceOp.Prod, ReduceOp.Mean, ReduceOp.Stdev, ReduceOp.UncorrectedStdDev,
+                    ReduceOp.Variance, ReduceOp.PopulationVariance, ReduceOp.Count, ReduceOp.TakeFirst,
+                    ReduceOp.TakeLast);
+
+    private PrimitiveAggregatorImpls() {}
+
+    /**
+     * @param ops Reduction operations for a column
+     * @return True if all of the operations can be executed by a primitive column aggregator
+     */
+    public static boolean supports(List<ReduceOp> ops) {
+        for (ReduceOp op : ops) {
+            if (!SUPPORTED_OPS.contains(op))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Base class for the primitive column aggregators: holds the element count, and the mean and sum of squared
+     * differences to the mean (computed with Welford's method, as for {@link AggregatorImpls.AggregableStdDev}) if any
+     * of the requested operations need them.
+     */
+    public static abstract class PrimitiveColumnAggregator
+                    implements IAggregableReduceOp<Writable, List<Writable>> {
+
+        @Getter
+        protected final ReduceOp[] ops;
+        protected final boolean moments;
+        @Getter
+        protected long count = 0;
+        @Getter
+        protected double mean = 0;
+        @Getter
+        protected double variation = 0;
+
+        protected PrimitiveColumnAggregator(List<ReduceOp> ops) {
+            boolean moments = false;
+            for (ReduceOp op : ops) {
+                if (!SUPPORTED_OPS.contains(op))
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+                switch (op) {
+                    case Mean:
+                    case Stdev:
+                    case UncorrectedStdDev:
+                    case Variance:
+                    case PopulationVariance:
+                        moments = true;
+                        break;
+                    default:
+                        break;
+                }
+            }
+            this.ops = ops.toArray(new ReduceOp[ops.size()]);
+            this.moments = moments;
+        }
+
+        /**
+         * Update the running mean and variation with a new element. Must be called after count has been incremented.
+         */
+        protected final void acceptMoments(double x) {
+            if (count == 1) {
+                mean = x;
+                variation = 0;
+            } else {
+                double newMean = mean + (x - mean) / count;
+                variation += (x - mean) * (x - newMean);
+                mean = newMean;
+            }
+        }
+
+        /**
+         * Merge the count, mean and variation of another aggregator into this one (Chan et al.'s pairwise update)
+         */
+        protected final void combineMoments(PrimitiveColumnAggregator other) {
+            if (!Arrays.equals(ops, other.ops))
+                throw new IllegalArgumentException("Tried to combine() incompatible " + this.getClass().getName()
+                                + " operators: received " + Arrays.toString(other.ops) + " operations, expected "
+                                + Arrays.toString(ops));
+            if (other.count == 0)
+                return;
+            if (count == 0) {
+                mean = other.mean;
+                variation = other.variation;
+            } else {
+                long totalCount = count + other.count;
+                double delta = other.mean - mean;
+                mean += delta * other.count / totalCount;
+                variation += other.variation + delta * delta * ((double) count * other.count / totalCount);
+            }
+            count += other.count;
+        }
+
+        protected UnsupportedOperationException incompatible(Object accu) {
+            return new UnsupportedOperationException("Tried to combine() incompatible " + accu.getClass().getName()
+                            + " operator where " + this.getClass().getName() + " expected");
+        }
+
+        /**
+         * @return The result of an operation whose output has the column type (Sum, Prod, Min, Max, Range,
+         *         TakeFirst or TakeLast), for count > 0
+         */
+        protected abstract Writable typedResult(ReduceOp op);
+
+        @Override
+        public List<Writable> get() {
+            List<Writable> res = new ArrayList<>(ops.length);
+            for (ReduceOp op : ops) {
+                switch (op) {
+                    case Count:
+                        res.add(new LongWritable(count));
+                        break;
+                    case Mean:
+                        res.add(new DoubleWritable(mean));
+                        break;
+                    case Stdev:
+                        res.add(new DoubleWritable(Math.sqrt(variation / (count - 1))));
+                        break;
+                    case UncorrectedStdDev:
+                        res.add(new DoubleWritable(Math.sqrt(variation / count)));
+                        break;
+                    case Variance:
+                        res.add(new DoubleWritable(variation / (count - 1)));
+                        break;
+                    case PopulationVariance:
+                        res.add(new DoubleWritable(variation / count));
+                        break;
+                    default:
+                        //As for the boxed operations, which have no value to return before an element is seen
+                        res.add(count == 0 ? NullWritable.INSTANCE : typedResult(op));
+                }
+            }
+            return res;
+        }
+    }
+
+    public static class IntColumnAggregator extends PrimitiveColumnAggregator {
+
+        private int sum;
+        private int prod;
+        private int min;
+        private int max;
+        private int first;
+        private int last;
+
+        public IntColumnAggregator(List<ReduceOp> ops) {
+            super(ops);
+        }
+
+        @Override
+        public void accept(Writable writable) {
+            int v = writable.toInt();
+            count++;
+            if (count == 1) {
+                sum = prod = min = max = first = v;
+            } else {
+                sum += v;
+                prod *= v;
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+            last = v;
+            if (moments)
+                acceptMoments(v);
+        }
+
+        @Override
+        public <W extends IAggregableReduceOp<Writable, List<Writable>>> void combine(W accu) {
+            if (!(accu instanceof IntColumnAggregator))
+                throw incompatible(accu);
+            IntColumnAggregator other = (IntColumnAggregator) accu;
+            if (other.count > 0) {
+                if (count == 0) {
+                    sum = other.sum;
+                    prod = other.prod;
+                    min = other.min;
+                    max = other.max;
+                    first = other.first;
+                } else {
+                    sum += other.sum;
+                    prod *= other.prod;
+                    min = Math.min(min, other.min);
+                    max = Math.max(max, other.max);
+                }
+                last = other.last;
+            }
+            combineMoments(other);
+        }
+
+        @Override
+        protected Writable typedResult(ReduceOp op) {
+            switch (op) {
+                case Sum:
+                    return new IntWritable(sum);
+                case Prod:
+                    return new IntWritable(prod);
+                case Min:
+                    return new IntWritable(min);
+                case Max:
+                    return new IntWritable(max);
+                case Range:
+                    return new IntWritable(max - min);
+                case TakeFirst:
+                    return new IntWritable(first);
+                case TakeLast:
+                    return new IntWritable(last);
+                default:
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+            }
+        }
+    }
+
+    public static class LongColumnAggregator extends PrimitiveColumnAggregator {
+
+        private long sum;
+        private long prod;
+        private long min;
+        private long max;
+        private long first;
+        private long last;
+
+        public LongColumnAggregator(List<ReduceOp> ops) {
+            super(ops);
+        }
+
+        @Override
+        public void accept(Writable writable) {
+            long v = writable.toLong();
+            count++;
+            if (count == 1) {
+                sum = prod = min = max = first = v;
+            } else {
+                sum += v;
+                prod *= v;
+                if (v < min)
+                    min = v;
+                if (v > max)
+                    max = v;
+            }
+            last = v;
+            if (moments)
+                acceptMoments(v);
+        }
+
+        @Override
+        public <W extends IAggregableReduceOp<Writable, List<Writable>>> void combine(W accu) {
+            if (!(accu instanceof LongColumnAggregator))
+                throw incompatible(accu);
+            LongColumnAggregator other = (LongColumnAggregator) accu;
+            if (other.count > 0) {
+                if (count == 0) {
+                    sum = other.sum;
+                    prod = other.prod;
+                    min = other.min;
+                    max = other.max;
+                    first = other.first;
+                } else {
+                    sum += other.sum;
+                    prod *= other.prod;
+                    min = Math.min(min, other.min);
+                    max = Math.max(max, other.max);
+                }
+                last = other.last;
+            }
+            combineMoments(other);
+        }
+
+        @Override
+        protected Writable typedResult(ReduceOp op) {
+            switch (op) {
+                case Sum:
+                    return new LongWritable(sum);
+                case Prod:
+                    return new LongWritable(prod);
+                case Min:
+                    return new LongWritable(min);
+                case Max:
+                    return new LongWritable(max);
+                case Range:
+                    return new LongWritable(max - min);
+                case TakeFirst:
+                    return new LongWritable(first);
+                case TakeLast:
+                    return new LongWritable(last);
+                default:
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+            }
+        }
+    }
+
+    /**
+     * Float column aggregator. Min and max follow {@link Float#compare(float, float)}, as the boxed operations do
+     */
+    public static class FloatColumnAggregator extends PrimitiveColumnAggregator {
+
+        private float sum;
+        private float prod;
+        private float min;
+        private float max;
+        private float first;
+        private float last;
+
+        public FloatColumnAggregator(List<ReduceOp> ops) {
+            super(ops);
+        }
+
+        @Override
+        public void accept(Writable writable) {
+            float v = writable.toFloat();
+            count++;
+            if (count == 1) {
+                sum = prod = min = max = first = v;
+            } else {
+                sum += v;
+                prod *= v;
+                if (Float.compare(v, min) < 0)
+                    min = v;
+                if (Float.compare(v, max) > 0)
+                    max = v;
+            }
+            last = v;
+            if (moments)
+                acceptMoments(v);
+        }
+
+        @Override
+        public <W extends IAggregableReduceOp<Writable, List<Writable>>> void combine(W accu) {
+            if (!(accu instanceof FloatColumnAggregator))
+                throw incompatible(accu);
+            FloatColumnAggregator other = (FloatColumnAggregator) accu;
+            if (other.count > 0) {
+                if (count == 0) {
+                    sum = other.sum;
+                    prod = other.prod;
+                    min = other.min;
+                    max = other.max;
+                    first = other.first;
+                } else {
+                    sum += other.sum;
+                    prod *= other.prod;
+                    if (Float.compare(other.min, min) < 0)
+                        min = other.min;
+                    if (Float.compare(other.max, max) > 0)
+                        max = other.max;
+                }
+                last = other.last;
+            }
+            combineMoments(other);
+        }
+
+        @Override
+        protected Writable typedResult(ReduceOp op) {
+            switch (op) {
+                case Sum:
+                    return new FloatWritable(sum);
+                case Prod:
+                    return new FloatWritable(prod);
+                case Min:
+                    return new FloatWritable(min);
+                case Max:
+                    return new FloatWritable(max);
+                case Range:
+                    return new FloatWritable(max - min);
+                case TakeFirst:
+                    return new FloatWritable(first);
+                case TakeLast:
+                    return new FloatWritable(last);
+                default:
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+            }
+        }
+    }
+
+    /**
+     * Double column aggregator. Min and max follow {@link Double#compare(double, double)}, as the boxed operations do
+     */
+    public static class DoubleColumnAggregator extends PrimitiveColumnAggregator {
+
+        private double sum;
+        private double prod;
+        private double min;
+        private double max;
+        private double first;
+        private double last;
+
+        public DoubleColumnAggregator(List<ReduceOp> ops) {
+            super(ops);
+        }
+
+        @Override
+        public void accept(Writable writable) {
+            double v = writable.toDouble();
+            count++;
+            if (count == 1) {
+                sum = prod = min = max = first = v;
+            } else {
+                sum += v;
+                prod *= v;
+                if (Double.compare(v, min) < 0)
+                    min = v;
+                if (Double.compare(v, max) > 0)
+                    max = v;
+            }
+            last = v;
+            if (moments)
+                acceptMoments(v);
+        }
+
+        @Override
+        public <W extends IAggregableReduceOp<Writable, List<Writable>>> void combine(W accu) {
+            if (!(accu instanceof DoubleColumnAggregator))
+                throw incompatible(accu);
+            DoubleColumnAggregator other = (DoubleColumnAggregator) accu;
+            if (other.count > 0) {
+                if (count == 0) {
+                    sum = other.sum;
+                    prod = other.prod;
+                    min = other.min;
+                    max = other.max;
+                    first = other.first;
+                } else {
+                    sum += other.sum;
+                    prod *= other.prod;
+                    if (Double.compare(other.min, min) < 0)
+                        min = other.min;
+                    if (Double.compare(other.max, max) > 0)
+                        max = other.max;
+                }
+                last = other.last;
+            }
+            combineMoments(other);
+        }
+
+        @Override
+        protected Writable typedResult(ReduceOp op) {
+            switch (op) {
+                case Sum:
+                    return new DoubleWritable(sum);
+                case Prod:
+                    return new DoubleWritable(prod);
+                case Min:
+                    return new DoubleWritable(min);
+                case Max:
+                    return new DoubleWritable(max);
+                case Range:
+                    return new DoubleWritable(max - min);
+                case TakeFirst:
+                    return new DoubleWritable(first);
+                case TakeLast:
+                    return new DoubleWritable(last);
+                default:
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+            }
+        }
+    }
+}
@@ -23,7 +23,9 @@ import org.datavec.api.transform.ops.*;
 import org.datavec.api.writable.Writable;
 
 import java.util.ArrayList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * Various utilities for performing reductions
@@ -32,9 +34,25 @@ import java.util.List;
  */
 public class AggregableReductionUtils {
 
+    //Ops supported on time columns, other than CountUnique
+    private static final Set<ReduceOp> TIME_OPS = EnumSet.of(ReduceOp.Min, ReduceOp.Max, ReduceOp.Range,
+                    ReduceOp.Mean, ReduceOp.Stdev, ReduceOp.Count, ReduceOp.TakeFirst, ReduceOp.TakeLast);
+
     private AggregableReductionUtils() {}
 
+    private static IAggregableReduceOp<Writable, List<Writable>> checked(
+                    IAggregableReduceOp<Writable, List<Writable>> op, boolean ignoreInvalid, ColumnMetaData metaData) {
+        if (ignoreInvalid)
+            return new AggregableCheckingOp<>(op, metaData);
+        else
+            return op;
+    }
 
+    /**
+     * Get the reduction operation for a column. Integer, long, float, double and time columns are reduced by a single
+     * primitive accumulator ({@link PrimitiveAggregatorImpls}) unless one of the ops (CountUnique) requires the
+     * boxed operations.
+     */
     public static IAggregableReduceOp<Writable, List<Writable>> reduceColumn(List<ReduceOp> op, ColumnType type,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
         switch (type) {
@@ -61,6 +79,9 @@ public class AggregableReductionUtils {
     public static IAggregableReduceOp<Writable, List<Writable>> reduceIntColumn(List<ReduceOp> lop,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
 
+        if (PrimitiveAggregatorImpls.supports(lop))
+            return checked(new PrimitiveAggregatorImpls.IntColumnAggregator(lop), ignoreInvalid, metaData);
+
         List<IAggregableReduceOp<Integer, Writable>> res = new ArrayList<>(lop.size());
         for (int i = 0; i < lop.size(); i++) {
             switch (lop.get(i)) {
@@ -120,6 +141,9 @@ public class AggregableReductionUtils {
     public static IAggregableReduceOp<Writable, List<Writable>> reduceLongColumn(List<ReduceOp> lop,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
 
+        if (PrimitiveAggregatorImpls.supports(lop))
+            return checked(new PrimitiveAggregatorImpls.LongColumnAggregator(lop), ignoreInvalid, metaData);
+
         List<IAggregableReduceOp<Long, Writable>> res = new ArrayList<>(lop.size());
         for (int i = 0; i < lop.size(); i++) {
             switch (lop.get(i)) {
@@ -179,6 +203,9 @@ public class AggregableReductionUtils {
     public static IAggregableReduceOp<Writable, List<Writable>> reduceFloatColumn(List<ReduceOp> lop,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
 
+        if (PrimitiveAggregatorImpls.supports(lop))
+            return checked(new PrimitiveAggregatorImpls.FloatColumnAggregator(lop), ignoreInvalid, metaData);
+
         List<IAggregableReduceOp<Float, Writable>> res = new ArrayList<>(lop.size());
         for (int i = 0; i < lop.size(); i++) {
             switch (lop.get(i)) {
@@ -238,6 +265,9 @@ public class AggregableReductionUtils {
     public static IAggregableReduceOp<Writable, List<Writable>> reduceDoubleColumn(List<ReduceOp> lop,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
 
+        if (PrimitiveAggregatorImpls.supports(lop))
+            return checked(new PrimitiveAggregatorImpls.DoubleColumnAggregator(lop), ignoreInvalid, metaData);
+
         List<IAggregableReduceOp<Double, Writable>> res = new ArrayList<>(lop.size());
         for (int i = 0; i < lop.size(); i++) {
             switch (lop.get(i)) {
@@ -335,6 +365,9 @@ public class AggregableReductionUtils {
     public static IAggregableReduceOp<Writable, List<Writable>> reduceTimeColumn(List<ReduceOp> lop,
                     boolean ignoreInvalid, ColumnMetaData metaData) {
 
+        if (PrimitiveAggregatorImpls.supports(lop) && TIME_OPS.containsAll(lop))
+            return checked(new PrimitiveAggregatorImpls.LongColumnAggregator(lop), ignoreInvalid, metaData);
+
         List<IAggregableReduceOp<Long, Writable>> res = new ArrayList<>(lop.size());
         for (int i = 0; i < lop.size(); i++) {
             switch (lop.get(i)) {
@@ -0,0 +1,245 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.transform.reduce;
+
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.LongWritable;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Text;
+import org.datavec.api.writable.Writable;
+
+import java.io.Externalizable;
+import java.io.IOException;
+import java.io.ObjectInput;
+import java.io.ObjectOutput;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * A typed, composite key made of the values of one or more columns, for grouping examples (reductions, conversion
+ * to sequences).<br>
+ * Integer values (int, long, byte) and floating point values (float, double) are held as primitives, and all other
+ * values as their string representation. Equality is per column: unlike a key built by concatenating the string
+ * representations of the values, there can be no collisions between different combinations of values (such as
+ * ("a_b", "c") and ("a", "b_c")).
+ * Note that an integer value and a floating point value are never equal, i.e., 1 and 1.0 are different keys.
+ * <p>
+ * Keys are serialized compactly (one byte per column for the value type, then 8 bytes per primitive value or the
+ * UTF-8 encoded string), and are ordered column by column; see {@link #compareTo(CompositeKey)}.
+ */
+public class CompositeKey implements Externalizable, Comparable<CompositeKey> {
+
+    /** Key with no columns, for global (not grouped) operations */
+    public static final CompositeKey EMPTY = new CompositeKey(new byte[0], new long[0], null);
+
+    private static final byte NULL = 0;
+    private static final byte INTEGER = 1;
+    private static final byte FLOATING_POINT = 2;
+    private static final byte STRING = 3;
+
+    private byte[] types;
+    private long[] values;
+    private String[] strings;
+    private int hash;
+
+    /**
+     * Public no-arg constructor, for deserialization only
+     */
+    public CompositeKey() {}
+
+    private CompositeKey(byte[] types, long[] values, String[] strings) {
+        this.types = types;
+        this.values = values;
+        this.strings = strings;
+        this.hash = computeHash();
+    }
+
+    /**
+     * Create a key from the given columns of an example
+     *
+     * @param writables  Example
+     * @param keyColumns Indices of the key columns in the example
+     */
+    public static CompositeKey of(List<Writable> writables, int[] keyColumns) {
+        byte[] types = new byte[keyColumns.length];
+        long[] values = new long[keyColumns.length];
+        String[] strings = null;
+        for (int i = 0; i < keyColumns.length; i++) {
+            Writable w = writables.get(keyColumns[i]);
+            switch (w.getType()) {
+                case Null:
+                    types[i] = NULL;
+                    break;
+                case Int:
+                case Long:
+                case Byte:
+                    types[i] = INTEGER;
+                    values[i] = w.toLong();
+                    break;
+                case Float:
+                case Double:
+                    types[i] = FLOATING_POINT;
+                    values[i] = Double.doubleToLongBits(w.toDouble());
+                    break;
+                default:
+                    if (strings == null)
+                        strings = new String[keyColumns.length];
+                    types[i] = STRING;
+                    strings[i] = w.toString();
+            }
+        }
+        return new CompositeKey(types, values, strings);
+    }
+
+    /**
+     * @return Number of columns in the key
+     */
+    public int size() {
+        return types.length;
+    }
+
+    /**
+     * Get the value of one column of the key. Integer values are returned as a LongWritable, floating point values as a
+     * DoubleWritable, and other values as Text.
+     *
+     * @param column Index of the column in the key
+     */
+    public Writable get(int column) {
+        switch (types[column]) {
+            case NULL:
+                return NullWritable.INSTANCE;
+            case INTEGER:
+                return new LongWritable(values[column]);
+            case FLOATING_POINT:
+                return new DoubleWritable(Double.longBitsToDouble(values[column]));
+            default:
+                return new Text(strings[column]);
+        }
+    }
+
+    private int computeHash() {
+        int h = 1;
+        for (int i = 0; i < types.length; i++) {
+            long v = values[i];
+            int colHash = types[i] == STRING ? strings[i].hashCode() : (int) (v ^ (v >>> 32));
+            h = 31 * (31 * h + types[i]) + colHash;
+        }
+        return h;
+    }
+
+    @Override
+    public int hashCode() {
+        return hash;
+    }
+
+    @Override
+    public boolean equals(Object o) {
+        if (this == o)
+            return true;
+        if (!(o instanceof CompositeKey))
+            return false;
+        CompositeKey other = (CompositeKey) o;
+        if (hash != other.hash || !Arrays.equals(types, other.types) || !Arrays.equals(values, other.values))
+            return false;
+        for (int i = 0; i < types.length; i++) {
+            if (types[i] == STRING && !strings[i].equals(other.strings[i]))
+                return false;
+        }
+        return true;
+    }
+
+    /**
+     * Keys are compared column by column: by value type first (null, integer, floating point, then string values),
+     * then by value. Keys with fewer columns are ordered before longer keys with the same leading values.
+     */
+    @Override
+    public int compareTo(CompositeKey other) {
+        int n = Math.min(types.length, other.types.length);
+        for (int i = 0; i < n; i++) {
+            int c;
+            if (types[i] != other.types[i]) {
+                c = types[i] < other.types[i] ? -1 : 1;
+            } else {
+                switch (types[i]) {
+                    case INTEGER:
+                        c = Long.compare(values[i], other.values[i]);
+                        break;
+                    case FLOATING_POINT:
+                        c = Double.compare(Double.longBitsToDouble(values[i]),
+                                        Double.longBitsToDouble(other.values[i]));
+                        break;
+                    case STRING:
+                        c = strings[i].compareTo(other.strings[i]);
+                        break;
+                    default:
+                        c = 0;
+                }
+            }
+            if (c != 0)
+                return c;
+        }
+        return Integer.compare(types.length, other.types.length);
+    }
+
+    @Override
+    public void writeExternal(ObjectOutput out) throws IOException {
+        out.writeInt(types.length);
+        for (int i = 0; i < types.length; i++) {
+            out.writeByte(types[i]);
+            if (types[i] == STRING) {
+                byte[] bytes = strings[i].getBytes(StandardCharsets.UTF_8);
+                out.writeInt(bytes.length);
+                out.write(bytes);
+            } else if (types[i] != NULL) {
+                out.writeLong(values[i]);
+            }
+        }
+    }
+
+    @Override
+    public void readExternal(ObjectInput in) throws IOException {
+        int n = in.readInt();
+        types = new byte[n];
+        values = new long[n];
+        strings = null;
+        for (int i = 0; i < n; i++) {
+            types[i] = in.readByte();
+            if (types[i] == STRING) {
+                if (strings == null)
+                    strings = new String[n];
+                byte[] bytes = new byte[in.readInt()];
+                in.readFully(bytes);
+                strings[i] = new String(bytes, StandardCharsets.UTF_8);
+            } else if (types[i] != NULL) {
+                values[i] = in.readLong();
+            }
+        }
+        hash = computeHash();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("CompositeKey(");
+        for (int i = 0; i < types.length; i++) {
+            if (i > 0)
+                sb.append(",");
+            sb.append(get(i));
+        }
+        return sb.append(")").toString();
+    }
+}
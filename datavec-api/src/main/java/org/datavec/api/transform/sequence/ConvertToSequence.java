@@ -32,6 +32,8 @@ import java.util.Collection;
  * (a) if "singleStepsequenceMode" is true - convert each record independently, to a "sequence" of length 1<br>
  * (b) otherwise - performa  "group and sort" operations. For example, group by one or more columns, and then
  *     sort each value within the group by some mechanism. For example, group by customer, sort by time.
+ *     Optionally, a maximum sequence length may be set: groups longer than this are split into consecutive
+ *     sequences of at most that many steps.
  *
  * @author Alex Black
  */
@@ -43,6 +45,7 @@ public class ConvertToSequence {
     private boolean singleStepSequencesMode;
     private final String[] keyColumns;
     private final SequenceComparator comparator; //For sorting values within collected (unsorted) sequence
+    private final int maxSequenceLength;    //<= 0: no limit
     private Schema inputSchema;
 
     /**
@@ -70,12 +73,30 @@ public class ConvertToSequence {
      *                   examples belong to what sequence
      * @param comparator The comparator to use when deciding the order of each possible time step in the sequence
      */
+    public ConvertToSequence(boolean singleStepSequencesMode, String[] keyColumns, SequenceComparator comparator) {
+        this(singleStepSequencesMode, keyColumns, comparator, -1);
+    }
+
+    /**
+     *
+     * @param keyColumns        The value or values to use as the key (multiple values: compound key)  for inferring which
+     *                          examples belong to what sequence
+     * @param comparator        The comparator to use when deciding the order of each possible time step in the sequence
+     * @param maxSequenceLength Maximum length of the output sequences: longer groups are split into consecutive
+     *                          sequences of at most this length. <= 0 for no limit
+     */
+    public ConvertToSequence(Collection<String> keyColumns, SequenceComparator comparator, int maxSequenceLength) {
+        this(false, keyColumns.toArray(new String[keyColumns.size()]), comparator, maxSequenceLength);
+    }
+
     public ConvertToSequence(@JsonProperty("singleStepSequencesMode") boolean singleStepSequencesMode,
                              @JsonProperty("keyColumn") String[] keyColumns,
-                             @JsonProperty("comparator") SequenceComparator comparator) {
+                             @JsonProperty("comparator") SequenceComparator comparator,
+                             @JsonProperty("maxSequenceLength") int maxSequenceLength) {
         this.singleStepSequencesMode = singleStepSequencesMode;
         this.keyColumns = keyColumns;
         this.comparator = comparator;
+        this.maxSequenceLength = maxSequenceLength;
     }
 
     public SequenceSchema transform(Schema schema) {
@@ -94,9 +115,11 @@ public class ConvertToSequence {
         if(singleStepSequencesMode) {
             return "ConvertToSequence()";
         } else if(keyColumns.length == 1){
-            return "ConvertToSequence(keyColumn=\"" + keyColumns[0] + "\",comparator=" + comparator + ")";
+            return "ConvertToSequence(keyColumn=\"" + keyColumns[0] + "\",comparator=" + comparator
+                    + (maxSequenceLength > 0 ? ",maxSequenceLength=" + maxSequenceLength : "") + ")";
         } else {
-            return "ConvertToSequence(keyColumns=\"" + Arrays.toString(keyColumns) + "\",comparator=" + comparator + ")";
+            return "ConvertToSequence(keyColumns=\"" + Arrays.toString(keyColumns) + "\",comparator=" + comparator
+                    + (maxSequenceLength > 0 ? ",maxSequenceLength=" + maxSequenceLength : "") + ")";
         }
     }
 
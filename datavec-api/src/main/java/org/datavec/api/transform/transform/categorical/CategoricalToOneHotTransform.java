@@ -20,6 +20,7 @@ import lombok.Data;
 import org.datavec.api.transform.metadata.CategoricalMetaData;
 import org.datavec.api.transform.metadata.ColumnMetaData;
 import org.datavec.api.transform.metadata.IntegerMetaData;
+import org.datavec.api.transform.metadata.OneHotIndexMetaData;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.transform.BaseTransform;
 import org.datavec.api.writable.IntWritable;
@@ -30,6 +31,12 @@ import org.nd4j.shade.jackson.annotation.JsonProperty;
 import java.util.*;
 
 /**
+ * Convert a categorical column to a one-hot representation.<br>
+ * By default, the column is expanded to a set of integer columns (one per state, with value 1 for the state of the
+ * example and 0 otherwise). In sparse mode, the column is instead replaced by a single integer column holding the
+ * index of the state (see {@link OneHotIndexMetaData}), which is expanded to the one-hot vector only when converting
+ * to arrays with the schema. This costs one value per example, regardless of the number of states.
+ *
  * Created by Alex on 4/03/2016.
  */
 @Data
@@ -37,13 +44,25 @@ import java.util.*;
 public class CategoricalToOneHotTransform extends BaseTransform {
 
     private String columnName;
+    private boolean sparse;
     private int columnIdx = -1;
 
     private List<String> stateNames;
     private Map<String, Integer> statesMap;
 
-    public CategoricalToOneHotTransform(@JsonProperty("columnName") String columnName) {
+    public CategoricalToOneHotTransform(String columnName) {
+        this(columnName, false);
+    }
+
+    /**
+     * @param columnName Name of the categorical column
+     * @param sparse     If true: output a single index-encoded one-hot column ({@link OneHotIndexMetaData}) instead of
+     *                   one column per state
+     */
+    public CategoricalToOneHotTransform(@JsonProperty("columnName") String columnName,
+                    @JsonProperty("sparse") boolean sparse) {
         this.columnName = columnName;
+        this.sparse = sparse;
     }
 
     @Override
@@ -74,17 +93,17 @@ public class CategoricalToOneHotTransform extends BaseTransform {
 
         CategoricalToOneHotTransform o2 = (CategoricalToOneHotTransform) o;
 
-        return columnName.equals(o2.columnName);
+        return columnName.equals(o2.columnName) && sparse == o2.sparse;
     }
 
     @Override
     public int hashCode() {
-        return columnName.hashCode();
+        return 31 * columnName.hashCode() + (sparse ? 1 : 0);
     }
 
     @Override
     public String toString() {
-        return "CategoricalToOneHotTransform(columnName=\"" + columnName + "\")";
+        return "CategoricalToOneHotTransform(columnName=\"" + columnName + "\"" + (sparse ? ",sparse=true" : "") + ")";
 
     }
 
@@ -104,6 +123,11 @@ public class CategoricalToOneHotTransform extends BaseTransform {
             ColumnMetaData t = typesIter.next();
 
             if (i++ == columnIdx) {
+                if (sparse) {
+                    //Single index-encoded one-hot column
+                    newMeta.add(new OneHotIndexMetaData(s, stateNames.size()));
+                    continue;
+                }
                 //Convert this to one-hot:
                 for (String stateName : stateNames) {
                     String newName = s + "[" + stateName + "]";
@@ -127,7 +151,7 @@ public class CategoricalToOneHotTransform extends BaseTransform {
         int idx = getColumnIdx();
 
         int n = stateNames.size();
-        List<Writable> out = new ArrayList<>(writables.size() + n);
+        List<Writable> out = new ArrayList<>(writables.size() + (sparse ? 0 : n));
 
         int i = 0;
         for (Writable w : writables) {
@@ -140,6 +164,10 @@ public class CategoricalToOneHotTransform extends BaseTransform {
                     throw new IllegalStateException("Cannot convert categorical value to one-hot: input value (\"" + str
                             + "\") is not in the list of known categories (state names/categories: " + stateNames + ")");
                 }
+                if (sparse) {
+                    out.add(new IntWritable(classIdx));
+                    continue;
+                }
                 for (int j = 0; j < n; j++) {
                     if (j == classIdx)
                         out.add(new IntWritable(1));
@@ -171,6 +199,8 @@ public class CategoricalToOneHotTransform extends BaseTransform {
             throw new IllegalStateException("Cannot convert categorical value to one-hot: input value (\"" + str
                     + "\") is not in the list of known categories (state names/categories: " + stateNames + ")");
         }
+        if (sparse)
+            return classIdx;
         for (int j = 0; j < n; j++) {
             if (j == classIdx)
                 oneHot.add(1);
@@ -188,9 +218,9 @@ public class CategoricalToOneHotTransform extends BaseTransform {
     @Override
     public Object mapSequence(Object sequence) {
         List<?> values = (List<?>) sequence;
-        List<List<Integer>> ret = new ArrayList<>();
+        List<Object> ret = new ArrayList<>();
         for (Object obj : values) {
-            ret.add((List<Integer>) map(obj));
+            ret.add(map(obj));
         }
         return ret;
     }
@@ -203,6 +233,8 @@ public class CategoricalToOneHotTransform extends BaseTransform {
      */
     @Override
     public String outputColumnName() {
+        if (sparse)
+            return columnName;
         throw new UnsupportedOperationException("Output column name will be more than 1");
     }
 
@@ -214,6 +246,8 @@ public class CategoricalToOneHotTransform extends BaseTransform {
      */
     @Override
     public String[] outputColumnNames() {
+        if (sparse)
+            return new String[] {columnName};
         return stateNames.toArray(new String[stateNames.size()]);
     }
 
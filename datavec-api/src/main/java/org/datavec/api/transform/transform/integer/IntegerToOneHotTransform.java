@@ -20,6 +20,7 @@ import lombok.Data;
 import lombok.EqualsAndHashCode;
 import org.datavec.api.transform.metadata.ColumnMetaData;
 import org.datavec.api.transform.metadata.IntegerMetaData;
+import org.datavec.api.transform.metadata.OneHotIndexMetaData;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.transform.BaseTransform;
 import org.datavec.api.writable.IntWritable;
@@ -32,8 +33,9 @@ import java.util.Iterator;
 import java.util.List;
 
 /**
- * Convert an integer column to a  set of one-hot columns.
- *
+ * Convert an integer column to a  set of one-hot columns.<br>
+ * In sparse mode, the column is instead replaced by a single integer column holding the index (value - minValue) of
+ * the one-hot entry: see {@link OneHotIndexMetaData}
  *
  * @author Alex Black
  */
@@ -45,13 +47,27 @@ public class IntegerToOneHotTransform extends BaseTransform {
     private String columnName;
     private int minValue;
     private int maxValue;
+    private boolean sparse;
     private int columnIdx = -1;
 
+    public IntegerToOneHotTransform(String columnName, int minValue, int maxValue) {
+        this(columnName, minValue, maxValue, false);
+    }
+
+    /**
+     * @param columnName Name of the integer column
+     * @param minValue   Minimum value (inclusive)
+     * @param maxValue   Maximum value (inclusive)
+     * @param sparse     If true: output a single index-encoded one-hot column ({@link OneHotIndexMetaData}) instead of
+     *                   one column per value
+     */
     public IntegerToOneHotTransform(@JsonProperty("columnName") String columnName,
-                    @JsonProperty("minValue") int minValue, @JsonProperty("maxValue") int maxValue) {
+                    @JsonProperty("minValue") int minValue, @JsonProperty("maxValue") int maxValue,
+                    @JsonProperty("sparse") boolean sparse) {
         this.columnName = columnName;
         this.minValue = minValue;
         this.maxValue = maxValue;
+        this.sparse = sparse;
     }
 
     @Override
@@ -87,6 +103,11 @@ public class IntegerToOneHotTransform extends BaseTransform {
             ColumnMetaData t = typesIter.next();
 
             if (i++ == columnIdx) {
+                if (sparse) {
+                    //Single index-encoded one-hot column
+                    newMeta.add(new OneHotIndexMetaData(s, maxValue - minValue + 1));
+                    continue;
+                }
                 //Convert this to one-hot:
                 for (int x = minValue; x <= maxValue; x++) {
                     String newName = s + "[" + x + "]";
@@ -110,7 +131,7 @@ public class IntegerToOneHotTransform extends BaseTransform {
         int idx = getColumnIdx();
 
         int n = maxValue - minValue + 1;
-        List<Writable> out = new ArrayList<>(writables.size() + n);
+        List<Writable> out = new ArrayList<>(writables.size() + (sparse ? 0 : n));
 
         int i = 0;
         for (Writable w : writables) {
@@ -122,6 +143,10 @@ public class IntegerToOneHotTransform extends BaseTransform {
                                     + "valid range: must be between " + minValue + " and " + maxValue + " inclusive");
                 }
 
+                if (sparse) {
+                    out.add(new IntWritable(currValue - minValue));
+                    continue;
+                }
                 for (int j = minValue; j <= maxValue; j++) {
                     if (j == currValue) {
                         out.add(new IntWritable(1));
@@ -151,6 +176,8 @@ public class IntegerToOneHotTransform extends BaseTransform {
             throw new IllegalStateException("Invalid value: integer value (" + currValue + ") is outside of "
                             + "valid range: must be between " + minValue + " and " + maxValue + " inclusive");
         }
+        if (sparse)
+            return currValue - minValue;
 
         List<Integer> oneHot = new ArrayList<>();
         for (int j = minValue; j <= maxValue; j++) {
@@ -171,9 +198,9 @@ public class IntegerToOneHotTransform extends BaseTransform {
     @Override
     public Object mapSequence(Object sequence) {
         List<?> values = (List<?>) sequence;
-        List<List<Integer>> ret = new ArrayList<>();
+        List<Object> ret = new ArrayList<>();
         for (Object obj : values) {
-            ret.add((List<Integer>) map(obj));
+            ret.add(map(obj));
         }
         return ret;
     }
@@ -186,6 +213,8 @@ public class IntegerToOneHotTransform extends BaseTransform {
      */
     @Override
     public String outputColumnName() {
+        if (sparse)
+            return columnName;
         throw new UnsupportedOperationException("Output column name will be more than 1");
     }
 
@@ -27,15 +27,17 @@ import org.datavec.api.transform.ops.IAggregableReduceOp;
 import org.datavec.api.transform.reduce.AggregableReductionUtils;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
-import org.datavec.api.writable.Writable;
+import org.datavec.api.writable.*;
 import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
 import org.nd4j.shade.jackson.annotation.JsonInclude;
 import org.nd4j.shade.jackson.annotation.JsonProperty;
 
+import java.util.ArrayDeque;
 import java.util.ArrayList;
 import java.util.Collections;
-import java.util.LinkedList;
+import java.util.EnumSet;
 import java.util.List;
+import java.util.Set;
 
 /**
  * SequenceMovingWindowReduceTransform Adds a new column, where the value is derived by:<br>
@@ -168,16 +170,27 @@ public class SequenceMovingWindowReduceTransform implements Transform {
         int colIdx = inputSchema.getIndexOfColumn(columnName);
         ColumnType columnType = inputSchema.getType(colIdx);
         List<List<Writable>> out = new ArrayList<>(sequence.size());
-        LinkedList<Writable> window = new LinkedList<>();
+        //Numeric columns are reduced incrementally as the window moves; other columns and ops reduce each window
+        WindowAggregator aggregator = WindowAggregator.create(columnType, op, lookback);
+        ArrayDeque<Writable> window = (aggregator == null ? new ArrayDeque<Writable>() : null);
         for (int i = 0; i < sequence.size(); i++) {
             Writable current = sequence.get(i).get(colIdx);
-            window.addLast(current);
-            if (window.size() > lookback) {
-                window.removeFirst();
+            int windowSize;
+            if (aggregator != null) {
+                aggregator.add(current);
+                windowSize = aggregator.size();
+            } else {
+                window.addLast(current);
+                if (window.size() > lookback) {
+                    window.removeFirst();
+                }
+                windowSize = window.size();
             }
             Writable reduced;
-            if (window.size() < lookback && edgeCaseHandling == EdgeCaseHandling.SpecifiedValue) {
+            if (windowSize < lookback && edgeCaseHandling == EdgeCaseHandling.SpecifiedValue) {
                 reduced = edgeCaseValue;
+            } else if (aggregator != null) {
+                reduced = aggregator.get();
             } else {
                 IAggregableReduceOp<Writable, List<Writable>> reductionOp = AggregableReductionUtils
                                 .reduceColumn(Collections.singletonList(op), columnType, false, null);
@@ -269,4 +282,255 @@ public class SequenceMovingWindowReduceTransform implements Transform {
         return columnNames()[0];
     }
 
+    /**
+     * Moving window reduction over a numeric column, without creating writables for each window: the window's values
+     * are held in a ring buffer of primitives.<br>
+     * Min, Max, Range, Count, TakeFirst and TakeLast, and Sum on integer columns, are updated in O(1) amortized time
+     * per step (min and max with monotonic deques of positions). Floating point sums, and means and variances, are
+     * recomputed from the buffer at each step, in the same order and arithmetic as the column reduction ops, so that
+     * the results are identical to the reduction of each window.
+     */
+    private static class WindowAggregator {
+        private static final Set<ReduceOp> TIME_OPS = EnumSet.of(ReduceOp.Min, ReduceOp.Max, ReduceOp.Range,
+                        ReduceOp.Mean, ReduceOp.Stdev, ReduceOp.Count, ReduceOp.TakeFirst, ReduceOp.TakeLast);
+
+        private final ColumnType type;
+        private final ReduceOp op;
+        private final int lookback;
+        private final boolean integral;
+        private final long[] longValues;
+        private final double[] doubleValues;
+        private int count;      //Total number of values added
+        private int size;       //Number of values in the window
+
+        //Monotonic deques of positions, for min (increasing values) and max (decreasing values)
+        private final int[] minDeque;
+        private final int[] maxDeque;
+        private int minHead, minSize, maxHead, maxSize;
+
+        private long longSum;
+        private double sum;
+        private double mean;
+        private double variation;
+
+        private WindowAggregator(ColumnType type, ReduceOp op, int lookback) {
+            this.type = type;
+            this.op = op;
+            this.lookback = lookback;
+            this.integral = (type == ColumnType.Integer || type == ColumnType.Long || type == ColumnType.Time);
+            this.longValues = integral ? new long[lookback] : null;
+            this.doubleValues = integral ? null : new double[lookback];
+            boolean deques = (op == ReduceOp.Min || op == ReduceOp.Max || op == ReduceOp.Range);
+            this.minDeque = deques ? new int[lookback] : null;
+            this.maxDeque = deques ? new int[lookback] : null;
+        }
+
+        /**
+         * @return Aggregator for the column type and op, or null if the op can't be computed incrementally
+         */
+        private static WindowAggregator create(ColumnType type, ReduceOp op, int lookback) {
+            if (lookback < 1)
+                return null;
+            switch (type) {
+                case Integer:
+                case Long:
+                case Float:
+                case Double:
+                    break;
+                case Time:
+                    if (TIME_OPS.contains(op))
+                        break;
+                    return null;
+                default:
+                    return null;
+            }
+            switch (op) {
+                case Min:
+                case Max:
+                case Range:
+                case Sum:
+                case Mean:
+                case Stdev:
+                case UncorrectedStdDev:
+                case Variance:
+                case PopulationVariance:
+                case Count:
+                case TakeFirst:
+                case TakeLast:
+                    return new WindowAggregator(type, op, lookback);
+                default:
+                    return null;
+            }
+        }
+
+        private int size() {
+            return size;
+        }
+
+        private void add(Writable w) {
+            int slot = count % lookback;
+            boolean full = (size == lookback);
+            long oldLong = 0;
+            long newLong = 0;
+            if (integral) {
+                newLong = (type == ColumnType.Integer ? w.toInt() : w.toLong());
+                oldLong = longValues[slot];
+                longValues[slot] = newLong;
+            } else {
+                doubleValues[slot] = (type == ColumnType.Float ? w.toFloat() : w.toDouble());
+            }
+            int position = count++;
+            if (!full)
+                size++;
+
+            switch (op) {
+                case Min:
+                case Max:
+                case Range:
+                    addToDeques(position);
+                    break;
+                case Sum:
+                    if (integral) {
+                        longSum += newLong - (full ? oldLong : 0);
+                        break;
+                    }
+                    //Fall through: adding and removing floating point values would change the results in the last
+                    //bits, hence floating point sums are recomputed, as for moments
+                case Mean:
+                case Stdev:
+                case UncorrectedStdDev:
+                case Variance:
+                case PopulationVariance:
+                    recompute();
+                    break;
+                default:
+                    break;
+            }
+        }
+
+        private int compare(int position1, int position2) {
+            if (integral)
+                return Long.compare(longValues[position1 % lookback], longValues[position2 % lookback]);
+            return Double.compare(doubleValues[position1 % lookback], doubleValues[position2 % lookback]);
+        }
+
+        private void addToDeques(int position) {
+            int oldest = position - lookback;
+            //Expire positions that have left the window
+            if (minSize > 0 && minDeque[minHead] <= oldest) {
+                minHead = (minHead + 1) % lookback;
+                minSize--;
+            }
+            if (maxSize > 0 && maxDeque[maxHead] <= oldest) {
+                maxHead = (maxHead + 1) % lookback;
+                maxSize--;
+            }
+            while (minSize > 0 && compare(minDeque[(minHead + minSize - 1) % lookback], position) > 0) {
+                minSize--;
+            }
+            minDeque[(minHead + minSize++) % lookback] = position;
+            while (maxSize > 0 && compare(maxDeque[(maxHead + maxSize - 1) % lookback], position) < 0) {
+                maxSize--;
+            }
+            maxDeque[(maxHead + maxSize++) % lookback] = position;
+        }
+
+        /**
+         * Recompute the sum or moments from the values in the window, in order, as the column reduction ops do
+         */
+        private void recompute() {
+            int first = count - size;
+            if (op == ReduceOp.Sum) {
+                if (type == ColumnType.Float) {
+                    float s = (float) doubleValues[first % lookback];
+                    for (int i = first + 1; i < count; i++) {
+                        s += (float) doubleValues[i % lookback];
+                    }
+                    sum = s;
+                } else {
+                    double s = doubleValues[first % lookback];
+                    for (int i = first + 1; i < count; i++) {
+                        s += doubleValues[i % lookback];
+                    }
+                    sum = s;
+                }
+            } else {
+                mean = 0;
+                variation = 0;
+                for (int i = first, n = 1; i < count; i++, n++) {
+                    double x = integral ? longValues[i % lookback] : doubleValues[i % lookback];
+                    if (n == 1) {
+                        mean = x;
+                        variation = 0;
+                    } else {
+                        double newMean = mean + (x - mean) / n;
+                        variation += (x - mean) * (x - newMean);
+                        mean = newMean;
+                    }
+                }
+            }
+        }
+
+        private Writable typed(int position) {
+            if (integral)
+                return typedLong(longValues[position % lookback]);
+            return typedDouble(doubleValues[position % lookback]);
+        }
+
+        private Writable typedLong(long value) {
+            if (type == ColumnType.Integer)
+                return new IntWritable((int) value);
+            return new LongWritable(value);
+        }
+
+        private Writable typedDouble(double value) {
+            if (type == ColumnType.Float)
+                return new FloatWritable((float) value);
+            return new DoubleWritable(value);
+        }
+
+        private Writable get() {
+            if (size == 0)
+                return NullWritable.INSTANCE;
+            switch (op) {
+                case Count:
+                    return new LongWritable(size);
+                case TakeFirst:
+                    return typed(count - size);
+                case TakeLast:
+                    return typed(count - 1);
+                case Min:
+                    return typed(minDeque[minHead]);
+                case Max:
+                    return typed(maxDeque[maxHead]);
+                case Range:
+                    int minPos = minDeque[minHead] % lookback;
+                    int maxPos = maxDeque[maxHead] % lookback;
+                    switch (type) {
+                        case Integer:
+                            return new IntWritable((int) longValues[maxPos] - (int) longValues[minPos]);
+                        case Float:
+                            return new FloatWritable((float) doubleValues[maxPos] - (float) doubleValues[minPos]);
+                        case Double:
+                            return new DoubleWritable(doubleValues[maxPos] - doubleValues[minPos]);
+                        default:
+                            return new LongWritable(longValues[maxPos] - longValues[minPos]);
+                    }
+                case Sum:
+                    return integral ? typedLong(longSum) : typedDouble(sum);
+                case Mean:
+                    return new DoubleWritable(mean);
+                case Stdev:
+                    return new DoubleWritable(Math.sqrt(variation / (size - 1)));
+                case UncorrectedStdDev:
+                    return new DoubleWritable(Math.sqrt(variation / size));
+                case Variance:
+                    return new DoubleWritable(variation / (size - 1));
+                case PopulationVariance:
+                    return new DoubleWritable(variation / size);
+                default:
+                    throw new UnsupportedOperationException("Unknown or not implemented op: " + op);
+            }
+        }
+    }
 }
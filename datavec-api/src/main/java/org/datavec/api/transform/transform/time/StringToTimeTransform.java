@@ -22,18 +22,19 @@ import org.datavec.api.transform.metadata.TimeMetaData;
 import org.datavec.api.transform.transform.BaseColumnTransform;
 import org.datavec.api.writable.LongWritable;
 import org.datavec.api.writable.Writable;
+import org.joda.time.Chronology;
+import org.joda.time.DateTimeUtils;
 import org.joda.time.DateTimeZone;
 import org.joda.time.format.DateTimeFormat;
 import org.joda.time.format.DateTimeFormatter;
+import org.joda.time.format.DateTimeParser;
+import org.joda.time.format.DateTimeParserBucket;
 import org.nd4j.shade.jackson.annotation.JsonIgnoreProperties;
 import org.nd4j.shade.jackson.annotation.JsonProperty;
 
 import java.io.IOException;
 import java.io.ObjectInputStream;
 import java.io.ObjectOutputStream;
-import java.text.DateFormat;
-import java.util.ArrayList;
-import java.util.List;
 import java.util.TimeZone;
 import java.util.regex.Pattern;
 
@@ -41,11 +42,18 @@ import java.util.regex.Pattern;
  * Convert a String column to a time column by parsing the date/time String, using a JodaTime.
  * <p>
  * Time format is specified as per http://www.joda.org/joda-time/apidocs/org/joda/time/format/DateTimeFormat.html
+ * <p>
+ * If no time format is specified, several common formats are supported (see the static formats array). The common
+ * ISO-8601 layouts are parsed directly, without going through JodaTime; other values are matched against each format
+ * in turn, starting with the format that last matched a value of this column.<br>
+ * In addition, values of exactly 13 digits (which none of the formats can match) are parsed as epoch milliseconds,
+ * i.e., times between 2001-09-09 and 2286-11-20. Other digit-only values, such as epoch seconds or compact layouts
+ * like yyyyMMddHHmm, are only parsed if they match one of the formats (YYYYMMdd).
  *
  * @author Alex Black
  */
 @Data
-@JsonIgnoreProperties({"formatters", "formatter"})
+@JsonIgnoreProperties({"formatters", "formatter", "lastFormatIdx"})
 public class StringToTimeTransform extends BaseColumnTransform {
 
     private final String timeFormat;
@@ -64,10 +72,17 @@ public class StringToTimeTransform extends BaseColumnTransform {
             "MM/dd/YYYY'T'HH:mm:ss", "YYYY:MM:dd HH:mm:ss", "YYYYMMdd", "YYYY-MM-dd HH:mm:ss","MM/dd/YYYY HH:mm",
 
     };
+    private static final Pattern FRACTIONAL_SECONDS = Pattern.compile("\\.[0-9]+");
+    private static final long NO_MATCH = Long.MIN_VALUE;
+    private static final long MILLIS_PER_DAY = 24 * 60 * 60 * 1000L;
+    private static final int EPOCH_MILLIS_DIGITS = 13;
+
     private transient DateTimeFormatter[] formatters;
 
     private transient DateTimeFormatter formatter;
 
+    private transient int lastFormatIdx;    //Index of the format that last matched, tried first for the next value
+
 
     /**
      * Instantiate this without a time format specified.
@@ -144,16 +159,17 @@ public class StringToTimeTransform extends BaseColumnTransform {
         this.timeZone = timeZone;
         this.minValidTime = minValidTime;
         this.maxValidTime = maxValidTime;
+        initFormatters();
+    }
+
+    private void initFormatters() {
         if(timeFormat != null)
             this.formatter = DateTimeFormat.forPattern(timeFormat).withZone(timeZone);
         else {
-            List<DateTimeFormatter> dateFormatList = new ArrayList<>();
             formatters = new DateTimeFormatter[formats.length];
             for(int i = 0; i < formatters.length; i++) {
-                dateFormatList.add(DateTimeFormat.forPattern(formats[i]).withZone(timeZone));
+                formatters[i] = DateTimeFormat.forPattern(formats[i]).withZone(timeZone);
             }
-
-            formatters = dateFormatList.toArray(new DateTimeFormatter[dateFormatList.size()]);
         }
     }
 
@@ -170,37 +186,209 @@ public class StringToTimeTransform extends BaseColumnTransform {
             str = str.replaceFirst("'T'","T");
         }
 
+        if(formatter != null) {
+            long time = formatter.parseMillis(str);
+            return new LongWritable(time);
+        }
 
-
-        if(formatter == null) {
-            long result = -1;
-            if(Pattern.compile("\\.[0-9]+").matcher(str).find()) {
-                str = str.replaceAll("\\.[0-9]+","");
+        long time = parseCommonFormat(str);
+        if(time == NO_MATCH) {
+            if(str.indexOf('.') >= 0) {
+                str = FRACTIONAL_SECONDS.matcher(str).replaceAll("");
             }
+            time = parseWithFormatters(str);
+        }
 
+        if(time == NO_MATCH) {
+            throw new IllegalStateException("Unable to parse date time " + str);
+        }
+        return new LongWritable(time);
+    }
 
-            for(DateTimeFormatter formatter : formatters) {
-                try {
-                    result = formatter.parseMillis(str);
-                    return new LongWritable(result);
-                }catch (Exception e) {
-
+    /**
+     * Parse the common ISO-8601 layouts - yyyy-MM-dd, yyyy-MM-dd'T'HH:mm:ss and yyyy-MM-dd HH:mm:ss, with optional
+     * fractional seconds and (for the 'T' layout only) a 'Z', +hh:mm or +hhmm suffix - and 13 digit epoch
+     * milliseconds, without allocating.<br>
+     * The results are the same as for the corresponding entries of the formats array: fractional seconds are
+     * dropped, and a 'Z' suffix is matched as a literal, i.e., the time is in the time zone of this transform.
+     *
+     * @return Epoch milliseconds, or NO_MATCH if the value is not in one of these layouts
+     */
+    private long parseCommonFormat(String s) {
+        int len = s.length();
+        if(len == EPOCH_MILLIS_DIGITS && isDigits(s, 0, len)) {
+            //None of the formats match 13 digits: other lengths (epoch seconds, yyyyMMddHHmm, etc) are left to the
+            //formatters, and fail unless a format matches them
+            return parseDigits(s, 0, len);
+        }
+        if(len < 10 || !isDigits(s, 0, 4) || s.charAt(4) != '-' || !isDigits(s, 5, 2) || s.charAt(7) != '-'
+                || !isDigits(s, 8, 2)) {
+            return NO_MATCH;
+        }
+        int year = (int) parseDigits(s, 0, 4);
+        int month = (int) parseDigits(s, 5, 2);
+        int day = (int) parseDigits(s, 8, 2);
+        int hour = 0;
+        int minute = 0;
+        int second = 0;
+        boolean hasOffset = false;
+        int offsetMinutes = 0;
+        if(len > 10) {
+            char sep = s.charAt(10);
+            if((sep != 'T' && sep != ' ') || len < 19 || !isDigits(s, 11, 2) || s.charAt(13) != ':'
+                    || !isDigits(s, 14, 2) || s.charAt(16) != ':' || !isDigits(s, 17, 2)) {
+                return NO_MATCH;
+            }
+            hour = (int) parseDigits(s, 11, 2);
+            minute = (int) parseDigits(s, 14, 2);
+            second = (int) parseDigits(s, 17, 2);
+
+            int pos = 19;
+            if(pos < len && s.charAt(pos) == '.') {
+                int start = ++pos;
+                while(pos < len && isDigits(s, pos, 1)) {
+                    pos++;
                 }
+                if(pos == start) {
+                    return NO_MATCH;
+                }
+            }
+            if(pos < len) {
+                char c = s.charAt(pos);
+                if(sep != 'T') {
+                    return NO_MATCH;
+                } else if(c == '+' || c == '-') {
+                    int n = len - pos;
+                    int offsetHours;
+                    if(n == 6 && isDigits(s, pos + 1, 2) && s.charAt(pos + 3) == ':' && isDigits(s, pos + 4, 2)) {
+                        offsetHours = (int) parseDigits(s, pos + 1, 2);
+                        offsetMinutes = (int) parseDigits(s, pos + 4, 2);
+                    } else if(n == 5 && isDigits(s, pos + 1, 4)) {
+                        offsetHours = (int) parseDigits(s, pos + 1, 2);
+                        offsetMinutes = (int) parseDigits(s, pos + 3, 2);
+                    } else {
+                        return NO_MATCH;
+                    }
+                    if(offsetHours > 23 || offsetMinutes > 59) {
+                        return NO_MATCH;
+                    }
+                    offsetMinutes = (c == '-' ? -1 : 1) * (offsetHours * 60 + offsetMinutes);
+                    hasOffset = true;
+                } else if(c != 'Z' || pos != len - 1) {
+                    return NO_MATCH;
+                }
+            }
+        }
 
+        if(year < 1 || month < 1 || month > 12 || day < 1 || day > daysInMonth(year, month) || hour > 23
+                || minute > 59 || second > 59) {
+            return NO_MATCH;
+        }
+        long local = daysSinceEpoch(year, month, day) * MILLIS_PER_DAY + ((hour * 60 + minute) * 60 + second) * 1000L;
+        if(hasOffset) {
+            return local - offsetMinutes * 60000L;
+        }
+        int offset = timeZone.getOffsetFromLocal(local);
+        long time = local - offset;
+        if(offset != timeZone.getOffset(time)) {
+            //Local time falls in a daylight saving gap: leave to JodaTime
+            return NO_MATCH;
+        }
+        return time;
+    }
 
+    /**
+     * Match the value against each of the formats, without the cost of an exception for each format that does not
+     * match. The format that last matched is tried first.
+     *
+     * @return Epoch milliseconds, or NO_MATCH if none of the formats match the value
+     */
+    private long parseWithFormatters(String str) {
+        //A value with a 'Z' suffix matches both "...ss'Z'" and "...ssZ", with different results: as the first of
+        //these is earlier in the formats array, values of this form are always matched in order
+        boolean inOrder = str.endsWith("Z");
+        int last = lastFormatIdx;
+        if(!inOrder) {
+            long time = tryParse(formatters[last], str);
+            if(time != NO_MATCH) {
+                return time;
+            }
+        }
+        for(int i = 0; i < formatters.length; i++) {
+            if(i == last && !inOrder) {
+                continue;
+            }
+            long time = tryParse(formatters[i], str);
+            if(time != NO_MATCH) {
+                lastFormatIdx = i;
+                return time;
             }
+        }
+        return NO_MATCH;
+    }
 
-            if(result  < 0) {
-                throw new IllegalStateException("Unable to parse date time " + str);
+    /**
+     * As per {@link DateTimeFormatter#parseMillis(String)}, but returns NO_MATCH instead of throwing an exception
+     * if the value does not match the format
+     */
+    private static long tryParse(DateTimeFormatter formatter, String str) {
+        Chronology chrono = DateTimeUtils.getChronology(formatter.getChronology());
+        if(formatter.getZone() != null) {
+            chrono = chrono.withZone(formatter.getZone());
+        }
+        DateTimeParser parser = formatter.getParser();
+        DateTimeParserBucket bucket = new DateTimeParserBucket(0, chrono, formatter.getLocale(),
+                formatter.getPivotYear(), formatter.getDefaultYear());
+        int pos = parser.parseInto(bucket, str, 0);
+        if(pos != str.length()) {
+            //Negative position: no match. Otherwise: unparsed characters remain
+            return NO_MATCH;
+        }
+        try {
+            return bucket.computeMillis(true, str);
+        } catch (IllegalArgumentException e) {
+            //Field value out of range (such as February 30th), or a local time in a daylight saving gap
+            return NO_MATCH;
+        }
+    }
+
+    private static boolean isDigits(String s, int from, int count) {
+        for(int i = from; i < from + count; i++) {
+            char c = s.charAt(i);
+            if(c < '0' || c > '9') {
+                return false;
             }
         }
-        else {
-            long time = formatter.parseMillis(str);
-            return new LongWritable(time);
+        return true;
+    }
+
+    private static long parseDigits(String s, int from, int count) {
+        long value = 0;
+        for(int i = from; i < from + count; i++) {
+            value = value * 10 + (s.charAt(i) - '0');
         }
+        return value;
+    }
 
-        throw new IllegalStateException("Unable to parse date time " + str);
+    private static int daysInMonth(int year, int month) {
+        if(month == 2) {
+            boolean leap = (year % 4 == 0 && year % 100 != 0) || year % 400 == 0;
+            return leap ? 29 : 28;
+        }
+        return (month == 4 || month == 6 || month == 9 || month == 11) ? 30 : 31;
+    }
 
+    /**
+     * Number of days from 1970-01-01 to the given date, in the (proleptic) Gregorian calendar
+     */
+    private static long daysSinceEpoch(int year, int month, int day) {
+        //Count years from March, so that the leap day is the last day of the year
+        long y = month <= 2 ? year - 1 : year;
+        long era = (y >= 0 ? y : y - 399) / 400;
+        long yearOfEra = y - era * 400;
+        long dayOfYear = (153 * (month + (month > 2 ? -3 : 9)) + 2) / 5 + day - 1;
+        long dayOfEra = yearOfEra * 365 + yearOfEra / 4 - yearOfEra / 100 + dayOfYear;
+        return era * 146097 + dayOfEra - 719468;
     }
 
     @Override
@@ -225,17 +413,7 @@ public class StringToTimeTransform extends BaseColumnTransform {
 
     private void readObject(ObjectInputStream in) throws IOException, ClassNotFoundException {
         in.defaultReadObject();
-        if(timeFormat != null)
-            formatter = DateTimeFormat.forPattern(timeFormat).withZone(timeZone);
-        else {
-            List<DateTimeFormatter> dateFormatList = new ArrayList<>();
-            formatters = new DateTimeFormatter[formats.length];
-            for(int i = 0; i < formatters.length; i++) {
-                dateFormatList.add(DateTimeFormat.forPattern(formats[i]).withZone(timeZone));
-            }
-
-            formatters = dateFormatList.toArray(new DateTimeFormatter[dateFormatList.size()]);
-        }
+        initFormatters();
     }
 
     /**
@@ -0,0 +1,40 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.util.concurrent;
+
+/**
+ * Utilities for the background thread pools of DataVec (parallel file loading, parallel transforms, etc)
+ */
+public class ConcurrencyUtils {
+
+    private ConcurrencyUtils() {}
+
+    /**
+     * Check the configuration of a thread pool that works ahead of its consumer
+     *
+     * @param numThreads Number of threads of the pool
+     * @param prefetch   Maximum number of tasks submitted ahead of their use
+     * @throws IllegalArgumentException If the number of threads is not positive, or prefetch < number of threads
+     */
+    public static void checkPrefetchConfiguration(int numThreads, int prefetch) {
+        if (numThreads <= 0 || prefetch < numThreads) {
+            throw new IllegalArgumentException("Invalid parallel configuration: number of threads must be "
+                            + "positive, and prefetch >= number of threads. Got numThreads=" + numThreads
+                            + ", prefetch=" + prefetch);
+        }
+    }
+}
@@ -20,22 +20,30 @@ import com.google.common.base.Preconditions;
 import it.unimi.dsi.fastutil.doubles.DoubleArrayList;
 import lombok.NonNull;
 import org.datavec.api.timeseries.util.TimeSeriesWritableUtils;
+import org.datavec.api.transform.metadata.OneHotIndexMetaData;
+import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.DoubleWritable;
 import org.datavec.api.writable.IntWritable;
 import org.datavec.api.writable.NDArrayWritable;
 import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.api.DataSet;
 import org.nd4j.linalg.factory.Nd4j;
-import org.nd4j.linalg.indexing.INDArrayIndex;
-import org.nd4j.linalg.indexing.NDArrayIndex;
 
 import java.util.*;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.Future;
 
 /**
  * @author Adam Gibson
  */
 public class RecordConverter {
+    //Minimum number of records per thread, when converting records in parallel
+    private static final int MIN_ROWS_PER_THREAD = 64;
+
     private RecordConverter() {}
 
     /**
@@ -74,17 +82,106 @@ public class RecordConverter {
     }
 
     /**
-     * Convert a set of records in to a matrix
+     * Convert a set of records in to a matrix. Records may contain a mix of single value Writables and row vector
+     * NDArrayWritables.
      * @param records the records ot convert
      * @return the matrix for the records
      */
     public static INDArray toMatrix(List<List<Writable>> records) {
-        List<INDArray> toStack = new ArrayList<>();
-        for(List<Writable> l : records){
-            toStack.add(toArray(l));
+        return toMatrix(records, null, false);
+    }
+
+    /**
+     * Convert a record to a row vector, using the schema to expand sparse (index-encoded) one-hot columns
+     * ({@link OneHotIndexMetaData}) to one-hot vectors. Otherwise, as per {@link #toArray(Collection)}
+     *
+     * @param record the record to convert
+     * @param schema the schema of the record
+     * @return the array
+     */
+    public static INDArray toArray(Collection<? extends Writable> record, Schema schema) {
+        return toMatrix(Collections.<List<Writable>>singletonList(new ArrayList<Writable>(record)), schema);
+    }
+
+    /**
+     * Convert a set of records in to a matrix, using the schema to expand sparse (index-encoded) one-hot columns
+     * ({@link OneHotIndexMetaData}) to one-hot vectors: for each such column, only the "hot" entry is set.
+     * Records may contain a mix of single value Writables and row vector NDArrayWritables.
+     *
+     * @param records the records to convert
+     * @param schema  the schema of the records
+     * @return the matrix for the records, one row per record
+     */
+    public static INDArray toMatrix(List<List<Writable>> records, Schema schema) {
+        return toMatrix(records, schema, false);
+    }
+
+    /**
+     * Convert a set of records in to a matrix, one row per record. The width of the rows is computed once (from the
+     * schema, if any, and the first record), and the values of all records are written directly in to a single
+     * [numRecords, width] array: no array is created for each record.<br>
+     * Records may contain a mix of single value Writables and row vector NDArrayWritables. If a schema is provided,
+     * sparse (index-encoded) one-hot columns ({@link OneHotIndexMetaData}) are expanded to one-hot vectors.
+     *
+     * @param records  the records to convert
+     * @param schema   the schema of the records. May be null
+     * @param parallel if true: for large sets of records, fill the rows of the matrix using multiple threads
+     * @return the matrix for the records
+     */
+    public static INDArray toMatrix(List<List<Writable>> records, Schema schema, boolean parallel) {
+        Preconditions.checkArgument(!records.isEmpty(), "No records to convert");
+        List<Writable> first = records.get(0);
+        if (schema == null && first.size() == 1 && first.get(0) instanceof NDArrayWritable
+                        && !((NDArrayWritable) first.get(0)).get().isRowVector()) {
+            //Edge case: single NDArrayWritable per record, not necessarily a row vector
+            List<INDArray> toStack = new ArrayList<>();
+            for (List<Writable> l : records) {
+                toStack.add(toArray(l));
+            }
+            return Nd4j.vstack(toStack);
+        }
+
+        final RowLayout layout = new RowLayout(first, schema);
+        INDArray arr = Nd4j.create(new int[] {records.size(), layout.length}, 'c');
+        final DataBuffer buffer = arr.data();
+
+        int nThreads = 1;
+        if (parallel) {
+            nThreads = Math.min(Runtime.getRuntime().availableProcessors(), records.size() / MIN_ROWS_PER_THREAD);
+        }
+        if (nThreads <= 1) {
+            layout.fill(records, 0, records.size(), buffer);
+            return arr;
         }
 
-        return Nd4j.vstack(toStack);
+        final List<List<Writable>> recordList = records;
+        int rowsPerThread = (records.size() + nThreads - 1) / nThreads;
+        List<Callable<Void>> tasks = new ArrayList<>();
+        for (int from = 0; from < records.size(); from += rowsPerThread) {
+            final int start = from;
+            final int end = Math.min(from + rowsPerThread, records.size());
+            tasks.add(new Callable<Void>() {
+                @Override
+                public Void call() {
+                    layout.fill(recordList, start, end, buffer);
+                    return null;
+                }
+            });
+        }
+        try {
+            for (Future<Void> f : ForkJoinPool.commonPool().invokeAll(tasks)) {
+                f.get();
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            if (e.getCause() instanceof RuntimeException) {
+                throw (RuntimeException) e.getCause();
+            }
+            throw new RuntimeException(e.getCause());
+        }
+        return arr;
     }
 
     /**
@@ -105,37 +202,9 @@ public class RecordConverter {
             return ((NDArrayWritable) l.get(0)).get();
         }
 
-        int length = 0;
-        for (Writable w : record) {
-            if (w instanceof NDArrayWritable) {
-                INDArray a = ((NDArrayWritable) w).get();
-                if (!a.isRowVector()) {
-                    throw new UnsupportedOperationException("Multiple writables present but NDArrayWritable is "
-                            + "not a row vector. Can only concat row vectors with other writables. Shape: "
-                            + Arrays.toString(a.shape()));
-                }
-                length += a.length();
-            } else {
-                //Assume all others are single value
-                length++;
-            }
-        }
-
-        INDArray arr = Nd4j.create(1, length);
-
-        int k = 0;
-        for (Writable w : record ) {
-            if (w instanceof NDArrayWritable) {
-                INDArray toPut = ((NDArrayWritable) w).get();
-                arr.put(new INDArrayIndex[] {NDArrayIndex.point(0),
-                        NDArrayIndex.interval(k, k + toPut.length())}, toPut);
-                k += toPut.length();
-            } else {
-                arr.putScalar(0, k, w.toDouble());
-                k++;
-            }
-        }
-
+        RowLayout layout = new RowLayout(l, null);
+        INDArray arr = Nd4j.create(new int[] {1, layout.length}, 'c');
+        layout.fill(Collections.singletonList(l), 0, 1, arr.data());
         return arr;
     }
 
@@ -256,4 +325,87 @@ public class RecordConverter {
 
         return writableMatrix;
     }
+
+    /**
+     * Position of each column of a record in a row of the output array: single values, row vector NDArrayWritables
+     * and sparse one-hot columns (expanded to one value per state)
+     */
+    private static class RowLayout {
+        private final Schema schema;
+        private final int[] offsets;
+        private final int[] widths;
+        private final boolean[] oneHot;
+        private final int length;
+
+        private RowLayout(List<Writable> first, Schema schema) {
+            int nCols = first.size();
+            if (schema != null) {
+                Preconditions.checkArgument(nCols == schema.numColumns(), "Number of values in record (%s) does not "
+                                + "match number of columns in schema (%s)", nCols, schema.numColumns());
+            }
+            this.schema = schema;
+            offsets = new int[nCols];
+            widths = new int[nCols];
+            oneHot = new boolean[nCols];
+            int length = 0;
+            for (int i = 0; i < nCols; i++) {
+                Writable w = first.get(i);
+                if (schema != null && schema.getMetaData(i) instanceof OneHotIndexMetaData) {
+                    oneHot[i] = true;
+                    widths[i] = ((OneHotIndexMetaData) schema.getMetaData(i)).getNumStates();
+                } else if (w instanceof NDArrayWritable) {
+                    INDArray a = ((NDArrayWritable) w).get();
+                    if (!a.isRowVector()) {
+                        throw new UnsupportedOperationException("Multiple writables present but NDArrayWritable is "
+                                        + "not a row vector. Can only concat row vectors with other writables. Shape: "
+                                        + Arrays.toString(a.shape()));
+                    }
+                    widths[i] = (int) a.length();
+                } else {
+                    //Assume all others are single value
+                    widths[i] = 1;
+                }
+                offsets[i] = length;
+                length += widths[i];
+            }
+            this.length = length;
+        }
+
+        /**
+         * Write records [from, to) in to the given rows of a zero-initialized, c order [numRecords, length] buffer
+         */
+        private void fill(List<List<Writable>> records, int from, int to, DataBuffer buffer) {
+            for (int r = from; r < to; r++) {
+                List<Writable> record = records.get(r);
+                if (record.size() != widths.length) {
+                    throw new IllegalStateException("Record " + r + " has " + record.size() + " values, expected "
+                                    + widths.length + " (as per first record)");
+                }
+                long rowOffset = (long) r * length;
+                for (int i = 0; i < widths.length; i++) {
+                    Writable w = record.get(i);
+                    long idx = rowOffset + offsets[i];
+                    if (oneHot[i]) {
+                        int state = w.toInt();
+                        if (state < 0 || state >= widths[i]) {
+                            throw new IllegalStateException("Invalid one-hot index for column \"" + schema.getName(i)
+                                            + "\": " + state + " (number of states: " + widths[i] + ")");
+                        }
+                        buffer.put(idx + state, 1.0);
+                    } else if (w instanceof NDArrayWritable) {
+                        INDArray a = ((NDArrayWritable) w).get();
+                        if (a.length() != widths[i]) {
+                            throw new IllegalStateException("NDArrayWritable length (" + a.length() + ") for column "
+                                            + i + " of record " + r + " differs from first record (" + widths[i] + ")");
+                        }
+                        for (int j = 0; j < widths[i]; j++) {
+                            buffer.put(idx + j, a.getDouble(j));
+                        }
+                    } else {
+                        buffer.put(idx, w.toDouble());
+                    }
+                }
+            }
+        }
+    }
 }
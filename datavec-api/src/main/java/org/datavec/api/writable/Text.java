@@ -62,6 +62,8 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
 
     private byte[] bytes;
     private int length;
+    //Decoded contents, created on the first call of toString(); cleared when the contents are changed
+    private transient String string;
 
     public Text() {
         bytes = EMPTY_BYTES;
@@ -86,7 +88,8 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
 
     /**
      * Returns the raw bytes; however, only data up to {@link #getLength()} is
-     * valid.
+     * valid. The returned array must not be modified: the decoded string
+     * is cached (see {@link #toString()}).
      */
     public byte[] getBytes() {
         return bytes;
@@ -174,6 +177,7 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
             ByteBuffer bb = encode(string, true);
             bytes = bb.array();
             length = bb.limit();
+            this.string = null;
         } catch (CharacterCodingException e) {
             throw new RuntimeException("Should not have happened " + e.toString());
         }
@@ -200,6 +204,7 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
         setCapacity(len, false);
         System.arraycopy(utf8, start, bytes, 0, len);
         this.length = len;
+        this.string = null;
     }
 
     /**
@@ -212,6 +217,7 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
         setCapacity(length + len, true);
         System.arraycopy(utf8, start, bytes, length, len);
         length += len;
+        string = null;
     }
 
     /**
@@ -219,6 +225,7 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
      */
     public void clear() {
         length = 0;
+        string = null;
     }
 
     /*
@@ -242,15 +249,21 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
     }
 
     /**
-     * Convert text back to string
+     * Convert text back to string. The string is decoded on the first call
+     * only, and cached until the contents of this text are changed.
      * @see java.lang.Object#toString()
      */
     public String toString() {
-        try {
-            return decode(bytes, 0, length);
-        } catch (CharacterCodingException e) {
-            throw new RuntimeException("Should not have happened " + e.toString());
+        String str = string;
+        if (str == null) {
+            try {
+                str = decode(bytes, 0, length);
+            } catch (CharacterCodingException e) {
+                throw new RuntimeException("Should not have happened " + e.toString());
+            }
+            string = str;
         }
+        return str;
     }
 
     /** deserialize
@@ -260,6 +273,7 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
         setCapacity(newLength, false);
         in.readFully(bytes, 0, newLength);
         length = newLength;
+        string = null;
     }
 
     @Override
@@ -588,35 +602,161 @@ public class Text extends BinaryComparable implements WritableComparable<BinaryC
     }
 
 
+    //Powers of ten that are exactly representable as a double/float
+    private static final double[] DOUBLE_POWERS_OF_TEN = {1e0, 1e1, 1e2, 1e3, 1e4, 1e5, 1e6, 1e7, 1e8, 1e9, 1e10, 1e11,
+                    1e12, 1e13, 1e14, 1e15, 1e16, 1e17, 1e18, 1e19, 1e20, 1e21, 1e22};
+    private static final float[] FLOAT_POWERS_OF_TEN = {1e0f, 1e1f, 1e2f, 1e3f, 1e4f, 1e5f, 1e6f, 1e7f, 1e8f, 1e9f, 1e10f};
+
+    /**
+     * Parse the contents as a decimal integer (an optional sign, then ASCII digits only) directly from the bytes,
+     * without decoding. Returns Long.MIN_VALUE for any other content, or if the value is outside of [-limit-1, limit]:
+     * the caller then falls back to parsing the decoded string.
+     */
+    private long parseInteger(long limit) {
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (bytes[0] == '-' || bytes[0] == '+')) {
+            negative = bytes[0] == '-';
+            i = 1;
+        }
+        if (i == length)
+            return Long.MIN_VALUE;
+        //Accumulate negatively, as for Long.parseLong: the negative range is larger
+        long min = negative ? -limit - 1 : -limit;
+        long multMin = min / 10;
+        long result = 0;
+        for (; i < length; i++) {
+            int digit = bytes[i] - '0';
+            if (digit < 0 || digit > 9 || result < multMin)
+                return Long.MIN_VALUE;
+            result *= 10;
+            if (result < min + digit)
+                return Long.MIN_VALUE;
+            result -= digit;
+        }
+        return negative ? result : -result;
+    }
+
+    /**
+     * Parse the contents as a decimal number (an optional sign, digits with an optional decimal point, and an
+     * optional exponent) directly from the bytes, without decoding. Only numbers whose significand and power of ten
+     * are both exactly representable are parsed: a single multiplication or division is then correctly rounded, and
+     * gives the same result as Double.parseDouble (or Float.parseFloat). Returns NaN for any other content: the caller
+     * then falls back to parsing the decoded string.
+     */
+    private double parseExactDecimal(boolean floatPrecision) {
+        long maxSignificand = floatPrecision ? 1L << 24 : 1L << 53;
+        int maxPower = floatPrecision ? FLOAT_POWERS_OF_TEN.length - 1 : DOUBLE_POWERS_OF_TEN.length - 1;
+        int i = 0;
+        boolean negative = false;
+        if (length > 0 && (bytes[0] == '-' || bytes[0] == '+')) {
+            negative = bytes[0] == '-';
+            i = 1;
+        }
+        long significand = 0;
+        int exponent = 0;
+        int digits = 0;
+        boolean point = false;
+        for (; i < length; i++) {
+            byte b = bytes[i];
+            if (b >= '0' && b <= '9') {
+                if (significand > (maxSignificand - (b - '0')) / 10)
+                    return Double.NaN;
+                significand = significand * 10 + (b - '0');
+                digits++;
+                if (point)
+                    exponent--;
+            } else if (b == '.' && !point) {
+                point = true;
+            } else {
+                break;
+            }
+        }
+        if (digits == 0)
+            return Double.NaN;
+        if (i < length) {
+            if (bytes[i] != 'e' && bytes[i] != 'E')
+                return Double.NaN;
+            i++;
+            boolean negativeExponent = false;
+            if (i < length && (bytes[i] == '-' || bytes[i] == '+')) {
+                negativeExponent = bytes[i] == '-';
+                i++;
+            }
+            if (i == length)
+                return Double.NaN;
+            int exp = 0;
+            for (; i < length; i++) {
+                int digit = bytes[i] - '0';
+                if (digit < 0 || digit > 9 || exp > maxPower)
+                    return Double.NaN;
+                exp = exp * 10 + digit;
+            }
+            exponent += negativeExponent ? -exp : exp;
+        }
+        if (exponent > maxPower || exponent < -maxPower)
+            return Double.NaN;
+
+        double value;
+        if (floatPrecision) {
+            value = exponent >= 0 ? (float) significand * FLOAT_POWERS_OF_TEN[exponent]
+                            : (float) significand / FLOAT_POWERS_OF_TEN[-exponent];
+        } else {
+            value = exponent >= 0 ? significand * DOUBLE_POWERS_OF_TEN[exponent]
+                            : significand / DOUBLE_POWERS_OF_TEN[-exponent];
+        }
+        return negative ? -value : value;
+    }
+
     @Override
     public double toDouble() {
-        if(toString().startsWith("0x"))
-            return Long.decode(toString());
+        double value = parseExactDecimal(false);
+        if (!Double.isNaN(value))
+            return value;
+
+        String str = toString();
+        if(str.startsWith("0x"))
+            return Long.decode(str);
 
-        return Double.parseDouble(toString());
+        return Double.parseDouble(str);
     }
 
     @Override
     public float toFloat() {
-        if(toString().startsWith("0x"))
-            return Integer.decode(toString());
-        return Float.parseFloat(toString());
+        double value = parseExactDecimal(true);
+        if (!Double.isNaN(value))
+            return (float) value;
+
+        String str = toString();
+        if(str.startsWith("0x"))
+            return Integer.decode(str);
+        return Float.parseFloat(str);
     }
 
     @Override
     public int toInt() {
-        if(toString().startsWith("0x"))
-            return Integer.decode(toString());
+        long value = parseInteger(Integer.MAX_VALUE);
+        if (value != Long.MIN_VALUE)
+            return (int) value;
+
+        String str = toString();
+        if(str.startsWith("0x"))
+            return Integer.decode(str);
 
-        return Integer.parseInt(toString());
+        return Integer.parseInt(str);
     }
 
     @Override
     public long toLong() {
-        if(toString().startsWith("0x"))
-            return Long.decode(toString());
+        long value = parseInteger(Long.MAX_VALUE);
+        if (value != Long.MIN_VALUE)
+            return value;
+
+        String str = toString();
+        if(str.startsWith("0x"))
+            return Long.decode(str);
 
-        return Long.parseLong(toString());
+        return Long.parseLong(str);
     }
 
     @Override
@@ -0,0 +1,273 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.records.reader.impl;
+
+import org.apache.commons.io.FileUtils;
+import org.datavec.api.records.SequenceRecord;
+import org.datavec.api.records.converter.RecordReaderConverter;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.records.reader.impl.binary.BinarySequenceRecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionSequenceRecordReader;
+import org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader;
+import org.datavec.api.records.writer.impl.binary.BinarySequenceRecordWriter;
+import org.datavec.api.split.CollectionInputSplit;
+import org.datavec.api.split.FileSplit;
+import org.datavec.api.split.NumberedFileInputSplit;
+import org.datavec.api.transform.metadata.BinaryMetaData;
+import org.datavec.api.transform.metadata.BooleanMetaData;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.transform.schema.SequenceSchema;
+import org.datavec.api.writable.*;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.net.URI;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class BinarySequenceRecordReaderTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    private static Schema schema() {
+        return new SequenceSchema.Builder()
+                        .addColumnDouble("d")
+                        .addColumnFloat("f")
+                        .addColumnInteger("i")
+                        .addColumnLong("l")
+                        .addColumnString("s")
+                        .addColumnCategorical("c", "a", "b")
+                        .addColumn(new BooleanMetaData("bool"))
+                        .addColumn(new BinaryMetaData("bytes"))
+                        .build();
+    }
+
+    private static List<List<List<Writable>>> sequences(int n, int offset, Random rng) {
+        List<List<List<Writable>>> sequences = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            List<List<Writable>> sequence = new ArrayList<>();
+            int length = rng.nextInt(10);   //Includes empty sequences
+            for (int t = 0; t < length; t++) {
+                sequence.add(Arrays.<Writable>asList(
+                                new DoubleWritable(rng.nextDouble()),
+                                new FloatWritable(rng.nextFloat()),
+                                new IntWritable(offset + i),
+                                new LongWritable(rng.nextLong()),
+                                new Text("seq " + (offset + i) + " step " + t + " é"),
+                                new Text(rng.nextBoolean() ? "a" : "b"),
+                                new BooleanWritable(rng.nextBoolean()),
+                                new BytesWritable(new byte[] {(byte) i, (byte) t})));
+            }
+            sequences.add(sequence);
+        }
+        return sequences;
+    }
+
+    private static File write(File f, List<List<List<Writable>>> sequences) throws Exception {
+        BinarySequenceRecordWriter writer = new BinarySequenceRecordWriter(f, schema());
+        if (sequences.isEmpty()) {
+            writer.close();
+        } else {
+            RecordReaderConverter.convert(new CollectionSequenceRecordReader(sequences), writer);
+        }
+        return f;
+    }
+
+    @Test
+    public void testRoundTrip() throws Exception {
+        List<List<List<Writable>>> sequences = sequences(50, 0, new Random(12345));
+        File f = write(testDir.newFile("seq.bin"), sequences);
+
+        BinarySequenceRecordReader reader = new BinarySequenceRecordReader();
+        reader.initialize(new FileSplit(f));
+        assertEquals(schema(), reader.getSchema());
+        assertEquals(50, reader.numSequences());
+
+        List<List<List<Writable>>> read = new ArrayList<>();
+        List<RecordMetaData> meta = new ArrayList<>();
+        while (reader.hasNext()) {
+            SequenceRecord r = reader.nextSequence();
+            read.add(r.getSequenceRecord());
+            meta.add(r.getMetaData());
+        }
+        assertEquals(sequences, read);
+
+        //Random access
+        for (int i : new int[] {49, 0, 17, 17}) {
+            assertEquals(sequences.get(i), reader.loadSequenceFromMetaData(meta.get(i)).getSequenceRecord());
+            assertEquals(sequences.get(i), reader.getSequence(i).getSequenceRecord());
+        }
+
+        reader.reset();
+        assertEquals(sequences.get(0), reader.sequenceRecord());
+        reader.close();
+    }
+
+    @Test
+    public void testTypeConversion() throws Exception {
+        //Text values, as read by CSV readers, are stored according to the schema
+        Schema schema = new SequenceSchema.Builder().addColumnDouble("d").addColumnInteger("i").build();
+        File f = testDir.newFile("seq.bin");
+        BinarySequenceRecordWriter writer = new BinarySequenceRecordWriter(f, schema);
+        writer.write(Arrays.asList(Arrays.<Writable>asList(new Text("1.5"), new Text("3")),
+                        Arrays.<Writable>asList(new Text("-2"), new Text("4"))));
+        try {
+            writer.write(Collections.singletonList(Collections.<Writable>singletonList(new Text("1.0"))));
+            fail("Expected exception");
+        } catch (IllegalArgumentException e) {
+            //Expected: wrong number of values
+        }
+        writer.close();
+
+        BinarySequenceRecordReader reader = new BinarySequenceRecordReader();
+        reader.initialize(new FileSplit(f));
+        assertEquals(1, reader.numSequences());
+        List<List<Writable>> expected = Arrays.asList(
+                        Arrays.<Writable>asList(new DoubleWritable(1.5), new IntWritable(3)),
+                        Arrays.<Writable>asList(new DoubleWritable(-2), new IntWritable(4)));
+        assertEquals(expected, reader.sequenceRecord());
+    }
+
+    @Test
+    public void testMultipleFilesShuffled() throws Exception {
+        Random rng = new Random(12345);
+        List<List<List<Writable>>> all = new ArrayList<>();
+        List<URI> uris = new ArrayList<>();
+        for (int i = 0; i < 3; i++) {
+            List<List<List<Writable>>> sequences = sequences(20 * i, all.size(), rng); //First file: empty
+            all.addAll(sequences);
+            uris.add(write(testDir.newFile("seq" + i + ".bin"), sequences).toURI());
+        }
+
+        BinarySequenceRecordReader reader = new BinarySequenceRecordReader(new Random(12345));
+        reader.initialize(new CollectionInputSplit(uris));
+        assertEquals(all.size(), reader.numSequences());
+
+        List<Integer> firstOrder = new ArrayList<>();
+        for (int epoch = 0; epoch < 2; epoch++) {
+            List<Integer> order = new ArrayList<>();
+            List<RecordMetaData> meta = new ArrayList<>();
+            List<List<List<Writable>>> read = new ArrayList<>();
+            while (reader.hasNext()) {
+                SequenceRecord r = reader.nextSequence();
+                read.add(r.getSequenceRecord());
+                meta.add(r.getMetaData());
+                order.add(all.indexOf(r.getSequenceRecord()));
+            }
+            assertEquals(all.size(), read.size());
+            //Integer column: global index of the sequence
+            Set<Integer> unique = new HashSet<>();
+            for (int i = 0; i < read.size(); i++) {
+                assertTrue(all.contains(read.get(i)));
+                if (!read.get(i).isEmpty()) {
+                    assertTrue(unique.add(read.get(i).get(0).get(2).toInt()));
+                }
+            }
+
+            List<SequenceRecord> fromMeta = reader.loadSequenceFromMetaData(meta);
+            for (int i = 0; i < read.size(); i++) {
+                assertEquals(read.get(i), fromMeta.get(i).getSequenceRecord());
+            }
+
+            if (epoch == 0) {
+                firstOrder = order;
+            } else {
+                assertNotEquals(firstOrder, order);
+            }
+            reader.reset();
+        }
+    }
+
+    @Test(expected = IllegalStateException.class)
+    public void testIncompleteFile() throws Exception {
+        File f = testDir.newFile("seq.bin");
+        BinarySequenceRecordWriter writer = new BinarySequenceRecordWriter(f, schema());
+        writer.write(sequences(1, 0, new Random(12345)).get(0));
+        //Not closed: no index
+
+        new BinarySequenceRecordReader().initialize(new FileSplit(f));
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkVsCsvSequences() throws Exception {
+        int numSequences = 20000;
+        int length = 20;
+        int numColumns = 10;
+        Random rng = new Random(12345);
+        File csvDir = testDir.newFolder("csv");
+        SequenceSchema.Builder b = new SequenceSchema.Builder();
+        for (int c = 0; c < numColumns; c++) {
+            b.addColumnDouble("col" + c);
+        }
+        Schema schema = b.build();
+        for (int i = 0; i < numSequences; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int t = 0; t < length; t++) {
+                for (int c = 0; c < numColumns; c++) {
+                    if (c > 0) {
+                        sb.append(",");
+                    }
+                    sb.append(rng.nextDouble());
+                }
+                sb.append("\n");
+            }
+            FileUtils.writeStringToFile(new File(csvDir, "seq_" + i + ".csv"), sb.toString());
+        }
+        String pattern = new File(csvDir, "seq_%d.csv").getAbsolutePath();
+
+        File bin = testDir.newFile("seq.bin");
+        SequenceRecordReader csv = new CSVSequenceRecordReader(0, ",");
+        csv.initialize(new NumberedFileInputSplit(pattern, 0, numSequences - 1));
+        long start = System.nanoTime();
+        RecordReaderConverter.convert(csv, new BinarySequenceRecordWriter(bin, schema));
+        System.out.println("Conversion: " + (System.nanoTime() - start) / 1000000 + " ms, " + bin.length() + " bytes");
+
+        for (int iter = 0; iter < 3; iter++) {
+            csv.initialize(new NumberedFileInputSplit(pattern, 0, numSequences - 1));
+            start = System.nanoTime();
+            double sum = 0;
+            while (csv.hasNext()) {
+                for (List<Writable> step : csv.sequenceRecord()) {
+                    sum += step.get(0).toDouble();
+                }
+            }
+            long csvTime = System.nanoTime() - start;
+
+            BinarySequenceRecordReader binary = new BinarySequenceRecordReader(new Random(iter));
+            binary.initialize(new FileSplit(bin));
+            start = System.nanoTime();
+            double sum2 = 0;
+            while (binary.hasNext()) {
+                for (List<Writable> step : binary.sequenceRecord()) {
+                    sum2 += step.get(0).toDouble();
+                }
+            }
+            long binTime = System.nanoTime() - start;
+            binary.close();
+            assertEquals(sum, sum2, 1e-6 * Math.abs(sum));
+            System.out.println("Epoch: CSV files " + csvTime / 1000000 + " ms, binary (shuffled) " + binTime / 1000000
+                            + " ms");
+        }
+    }
+}
@@ -16,6 +16,8 @@
 
 package org.datavec.api.records.reader.impl;
 
+import org.apache.commons.io.FileUtils;
+import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.SequenceRecord;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.SequenceRecordReader;
@@ -23,6 +25,7 @@ import org.datavec.api.records.reader.impl.csv.CSVSequenceRecordReader;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.split.NumberedFileInputSplit;
 import org.datavec.api.writable.Writable;
+import org.junit.Ignore;
 import org.junit.Rule;
 import org.junit.Test;
 import org.junit.rules.TemporaryFolder;
@@ -32,12 +35,9 @@ import java.io.File;
 import java.io.InputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.Iterator;
-import java.util.List;
+import java.util.*;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 public class CSVSequenceRecordReaderTest {
 
@@ -251,4 +251,122 @@ public class CSVSequenceRecordReaderTest {
         }
 
     }
+
+    @Test
+    public void testParallelLoading() throws Exception {
+        File baseDir = tempDir.newFolder();
+        int numFiles = 50;
+        Random r = new Random(12345);
+        for (int i = 0; i < numFiles; i++) {
+            StringBuilder sb = new StringBuilder("header\n");
+            int length = 1 + r.nextInt(20);
+            for (int t = 0; t < length; t++) {
+                sb.append(i).append(",").append(t).append(",").append(r.nextDouble()).append("\n");
+            }
+            FileUtils.writeStringToFile(new File(baseDir, "seq_" + i + ".csv"), sb.toString());
+        }
+        String path = new File(baseDir, "seq_%d.csv").getAbsolutePath();
+
+        SequenceRecordReader sequential = new CSVSequenceRecordReader(1, ",");
+        sequential.initialize(new NumberedFileInputSplit(path, 0, numFiles - 1));
+        List<List<List<Writable>>> expected = new ArrayList<>();
+        List<RecordMetaData> expectedMeta = new ArrayList<>();
+        while (sequential.hasNext()) {
+            SequenceRecord sr = sequential.nextSequence();
+            expected.add(sr.getSequenceRecord());
+            expectedMeta.add(sr.getMetaData());
+        }
+        assertEquals(numFiles, expected.size());
+
+        for (boolean ordered : new boolean[] {true, false}) {
+            CSVSequenceRecordReader parallel = new CSVSequenceRecordReader(1, ",");
+            parallel.setParallelLoading(4, 8, ordered);
+            parallel.initialize(new NumberedFileInputSplit(path, 0, numFiles - 1));
+            for (int epoch = 0; epoch < 2; epoch++) {
+                List<List<List<Writable>>> actual = new ArrayList<>();
+                while (parallel.hasNext()) {
+                    SequenceRecord sr = parallel.nextSequence();
+                    actual.add(sr.getSequenceRecord());
+                    int idx = expected.indexOf(sr.getSequenceRecord());
+                    assertTrue(idx >= 0);
+                    assertEquals(expectedMeta.get(idx).getURI(), sr.getMetaData().getURI());
+                    assertEquals(expected.get(idx), parallel.loadSequenceFromMetaData(sr.getMetaData()).getSequenceRecord());
+                }
+                if (ordered) {
+                    assertEquals(expected, actual);
+                } else {
+                    assertEquals(new HashSet<>(expected), new HashSet<>(actual));
+                    assertEquals(expected.size(), actual.size());
+                }
+                parallel.reset();
+            }
+
+            //Reset part way through: files already loaded ahead are discarded
+            for (int i = 0; i < 3; i++) {
+                parallel.nextSequence();
+            }
+            parallel.reset();
+            int count = 0;
+            while (parallel.hasNext()) {
+                parallel.nextSequence();
+                count++;
+            }
+            assertEquals(numFiles, count);
+            parallel.close();
+        }
+    }
+
+    @Test
+    public void testParallelLoadingConfiguration() throws Exception {
+        File baseDir = tempDir.newFolder();
+        for (int i = 0; i < 3; i++) {
+            new org.nd4j.linalg.io.ClassPathResource(String.format("csvsequence_%d.txt", i)).getTempFileFromArchive(baseDir);
+        }
+        String featuresPath = new File(baseDir, "csvsequence_%d.txt").getAbsolutePath();
+
+        Configuration conf = new Configuration();
+        conf.setInt(FileRecordReader.LOADER_THREADS, 2);
+        SequenceRecordReader reader = new CSVSequenceRecordReader(1, ",");
+        reader.initialize(conf, new NumberedFileInputSplit(featuresPath, 0, 2));
+        SequenceRecordReader sequential = new CSVSequenceRecordReader(1, ",");
+        sequential.initialize(new NumberedFileInputSplit(featuresPath, 0, 2));
+        while (sequential.hasNext()) {
+            assertEquals(sequential.sequenceRecord(), reader.sequenceRecord());
+        }
+        assertFalse(reader.hasNext());
+        reader.close();
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkParallelLoading() throws Exception {
+        File baseDir = tempDir.newFolder();
+        int numFiles = 5000;
+        Random r = new Random(12345);
+        for (int i = 0; i < numFiles; i++) {
+            StringBuilder sb = new StringBuilder();
+            for (int t = 0; t < 100; t++) {
+                for (int c = 0; c < 20; c++) {
+                    sb.append(c > 0 ? "," : "").append(r.nextDouble());
+                }
+                sb.append("\n");
+            }
+            FileUtils.writeStringToFile(new File(baseDir, "seq_" + i + ".csv"), sb.toString());
+        }
+        String path = new File(baseDir, "seq_%d.csv").getAbsolutePath();
+
+        for (int numThreads : new int[] {0, 1, 2, 4, 8}) {
+            CSVSequenceRecordReader reader = new CSVSequenceRecordReader(0, ",");
+            reader.setParallelLoading(numThreads, 2 * numThreads, true);
+            reader.initialize(new NumberedFileInputSplit(path, 0, numFiles - 1));
+            long start = System.nanoTime();
+            int count = 0;
+            while (reader.hasNext()) {
+                count += reader.sequenceRecord().size();
+            }
+            reader.close();
+            System.out.println(numThreads + " loader threads: " + (System.nanoTime() - start) / 1000000 + " ms, "
+                            + count + " time steps");
+        }
+    }
 }
@@ -19,29 +19,34 @@ package org.datavec.api.records.reader.impl;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
 import org.apache.commons.io.IOUtils;
+import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataLine;
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.split.InputStreamInputSplit;
 import org.datavec.api.writable.Writable;
+import org.junit.Rule;
 import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.io.BufferedReader;
 import java.io.File;
 import java.io.FileInputStream;
 import java.io.FileOutputStream;
 import java.io.OutputStream;
 import java.net.URI;
-import java.util.ArrayList;
-import java.util.Arrays;
-import java.util.List;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
 import java.util.zip.GZIPInputStream;
 import java.util.zip.GZIPOutputStream;
 
-import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.*;
 
 /**
  * Created by agibsonccc on 11/17/14.
@@ -50,6 +55,9 @@ public class LineReaderTest {
 
     private static Logger log = LoggerFactory.getLogger(LineReaderTest.class);
 
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
     @Test
     public void testLineReader() throws Exception {
         String tempDir = System.getProperty("java.io.tmpdir");
@@ -187,4 +195,124 @@ public class LineReaderTest {
             e.printStackTrace();
         }
     }
+
+    @Test
+    public void testLineOffsetIndex() throws Exception {
+        File f = testDir.newFile("lines.txt");
+        //Mixed line terminators, empty lines, no terminator on the last line
+        FileUtils.writeStringToFile(f, "a\nbb\r\n\rccc\n\nd\re", StandardCharsets.UTF_8);
+        List<String> expected = Arrays.asList("a", "bb", "", "ccc", "", "d", "e");
+
+        for (int interval : new int[] {1, 2, 3, 10}) {
+            LineOffsetIndex index = LineOffsetIndex.build(f, interval);
+            assertEquals(expected.size(), index.numLines());
+            for (int i = 0; i < expected.size(); i++) {
+                try (BufferedReader br = index.openAt(f, i)) {
+                    assertEquals(expected.get(i), br.readLine());
+                }
+            }
+        }
+
+        //Saved next to the file, and reused until the file is modified
+        LineOffsetIndex index = LineOffsetIndex.getOrCreate(f, 2);
+        File indexFile = LineOffsetIndex.indexFile(f);
+        assertTrue(indexFile.exists());
+        assertTrue(LineOffsetIndex.isIndexFile(indexFile));
+        assertEquals(index.numLines(), LineOffsetIndex.load(indexFile).numLines());
+        assertEquals(1, new FileSplit(testDir.getRoot()).locations().length);
+
+        FileUtils.writeStringToFile(f, "x\ny\n", StandardCharsets.UTF_8);
+        assertTrue(f.setLastModified(f.lastModified() + 2000));
+        assertFalse(index.isValidFor(f));
+        assertEquals(2, LineOffsetIndex.getOrCreate(f, 2).numLines());
+    }
+
+    @Test
+    public void testLineReaderMetaDataIndexed() throws Exception {
+        File dir = testDir.newFolder();
+        for (int i = 0; i < 3; i++) {
+            List<String> lines = new ArrayList<>();
+            for (int j = 0; j < 100; j++) {
+                lines.add(i + "," + j);
+            }
+            FileUtils.writeLines(new File(dir, "file" + i + ".csv"), lines);
+        }
+
+        LineRecordReader reader = new CSVRecordReader();
+        reader.setLineIndexInterval(7);
+        reader.initialize(new FileSplit(dir));
+        List<Record> records = new ArrayList<>();
+        List<RecordMetaData> meta = new ArrayList<>();
+        while (reader.hasNext()) {
+            Record r = reader.nextRecord();
+            records.add(r);
+            meta.add(r.getMetaData());
+        }
+        assertEquals(300, records.size());
+
+        //Random subset, in random order, with duplicates
+        Random rng = new Random(12345);
+        List<RecordMetaData> subsetMeta = new ArrayList<>();
+        List<Record> expected = new ArrayList<>();
+        for (int i = 0; i < 50; i++) {
+            int idx = rng.nextInt(records.size());
+            subsetMeta.add(meta.get(idx));
+            expected.add(records.get(idx));
+        }
+        assertEquals(expected, reader.loadFromMetaData(subsetMeta));
+        assertEquals(records.get(299), reader.loadFromMetaData(meta.get(299)));
+        for (int i = 0; i < 3; i++) {
+            assertTrue(LineOffsetIndex.indexFile(new File(dir, "file" + i + ".csv")).exists());
+        }
+
+        //Same results without the index
+        LineRecordReader noIndex = new CSVRecordReader();
+        noIndex.initialize(new FileSplit(dir));
+        assertEquals(expected, noIndex.loadFromMetaData(subsetMeta));
+    }
+
+    @Test
+    public void testLineReaderShuffled() throws Exception {
+        File dir = testDir.newFolder();
+        for (int i = 0; i < 2; i++) {
+            List<String> lines = new ArrayList<>();
+            lines.add("header");
+            for (int j = 0; j < 50; j++) {
+                lines.add(i + "," + j);
+            }
+            FileUtils.writeLines(new File(dir, "file" + i + ".csv"), lines);
+        }
+
+        Configuration conf = new Configuration();
+        conf.setInt(LineRecordReader.LINE_INDEX_INTERVAL, 8);
+        conf.setLong(LineRecordReader.SHUFFLE_SEED, 12345);
+        conf.setInt(CSVRecordReader.SKIP_NUM_LINES, 1);
+        CSVRecordReader reader = new CSVRecordReader();
+        reader.initialize(conf, new FileSplit(dir));
+
+        List<Record> records = new ArrayList<>();
+        List<RecordMetaData> meta = new ArrayList<>();
+        while (reader.hasNext()) {
+            Record r = reader.nextRecord();
+            records.add(r);
+            meta.add(r.getMetaData());
+        }
+        assertEquals(100, records.size());
+
+        Set<String> seen = new HashSet<>();
+        boolean inOrder = true;
+        for (int i = 0; i < records.size(); i++) {
+            List<Writable> values = records.get(i).getRecord();
+            assertEquals(2, values.size());
+            int file = values.get(0).toInt();
+            int line = values.get(1).toInt();
+            //Files are read one after the other; line numbers in the metadata account for the header line
+            assertEquals(i / 50, file);
+            assertEquals(line + 1, ((RecordMetaDataLine) records.get(i).getMetaData()).getLineNumber());
+            assertTrue(seen.add(values.toString()));
+            inOrder &= line == i % 50;
+        }
+        assertFalse(inOrder);
+        assertEquals(records, reader.loadFromMetaData(meta));
+    }
 }
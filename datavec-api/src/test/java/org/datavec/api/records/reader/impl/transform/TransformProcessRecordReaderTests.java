@@ -1,9 +1,15 @@
 package org.datavec.api.records.reader.impl.transform;
 
+import org.datavec.api.records.Record;
+import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.reader.impl.inmemory.InMemorySequenceRecordReader;
 import org.datavec.api.split.FileSplit;
+import org.datavec.api.transform.MathOp;
 import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.DoubleColumnCondition;
+import org.datavec.api.transform.filter.ConditionFilter;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
 import org.datavec.api.writable.IntWritable;
@@ -13,6 +19,10 @@ import org.joda.time.DateTimeZone;
 import org.junit.Test;
 import org.nd4j.linalg.io.ClassPathResource;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.ObjectInputStream;
+import java.io.ObjectOutputStream;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.List;
@@ -74,4 +84,82 @@ public class TransformProcessRecordReaderTests {
         assertEquals(2, next.get(0).size());
 
     }
+
+    @Test
+    public void testParallelTransform() throws Exception {
+        Schema schema = new Schema.Builder()
+                .addColumnsDouble("%d", 0, 3)
+                .addColumnInteger("4")
+                .build();
+        TransformProcess transformProcess = new TransformProcess.Builder(schema)
+                .filter(new ConditionFilter(new DoubleColumnCondition("0", ConditionOp.LessThan, 5.0)))
+                .removeColumns("1")
+                .doubleMathOp("2", MathOp.Multiply, 2.0)
+                .build();
+
+        CSVRecordReader sequential = new CSVRecordReader();
+        sequential.initialize(new FileSplit(new ClassPathResource("iris.dat").getFile()));
+        TransformProcessRecordReader expReader = new TransformProcessRecordReader(sequential, transformProcess);
+        List<List<Writable>> expected = new ArrayList<>();
+        while (expReader.hasNext()) {
+            expected.add(expReader.next());
+        }
+        assertTrue(expected.size() > 0 && expected.size() < 150);
+
+        CSVRecordReader csv = new CSVRecordReader();
+        csv.initialize(new FileSplit(new ClassPathResource("iris.dat").getFile()));
+        ParallelTransformProcessRecordReader rr = new ParallelTransformProcessRecordReader(csv, transformProcess, 4, 7, 8);
+        List<List<Writable>> actual = new ArrayList<>();
+        List<RecordMetaData> meta = new ArrayList<>();
+        while (rr.hasNext()) {
+            Record r = rr.nextRecord();
+            actual.add(r.getRecord());
+            meta.add(r.getMetaData());
+        }
+        assertEquals(expected, actual);
+
+        //Metadata: records are loaded and transformed
+        List<Record> fromMeta = rr.loadFromMetaData(meta);
+        assertEquals(expected.size(), fromMeta.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(expected.get(i), fromMeta.get(i).getRecord());
+        }
+        assertEquals(expected.get(3), rr.loadFromMetaData(meta.get(3)).getRecord());
+
+        //Batches, across micro-batches
+        rr.reset();
+        List<List<Writable>> batches = new ArrayList<>();
+        while (rr.hasNext()) {
+            List<List<Writable>> batch = rr.next(10);
+            assertTrue(batch.size() == 10 || !rr.hasNext());
+            batches.addAll(batch);
+        }
+        assertEquals(expected, batches);
+
+        //Reset part way through
+        rr.reset();
+        rr.next(20);
+        rr.reset();
+        assertEquals(expected, rr.next(1000));
+
+        //Re-initialize part way through, without reset: no records of the previous split are returned
+        rr.reset();
+        rr.next(20);
+        rr.initialize(new FileSplit(new ClassPathResource("iris.dat").getFile()));
+        assertEquals(expected, rr.next(1000));
+        rr.close();
+
+        //Java serialization
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(new ParallelTransformProcessRecordReader(new CSVRecordReader(), transformProcess, 4, 7, 8));
+        }
+        ParallelTransformProcessRecordReader restored;
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            restored = (ParallelTransformProcessRecordReader) ois.readObject();
+        }
+        restored.initialize(new FileSplit(new ClassPathResource("iris.dat").getFile()));
+        assertEquals(expected, restored.next(1000));
+        restored.close();
+    }
 }
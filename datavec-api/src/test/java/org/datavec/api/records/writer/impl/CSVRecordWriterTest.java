@@ -16,20 +16,29 @@
 
 package org.datavec.api.records.writer.impl;
 
+import com.google.common.io.Files;
+import org.apache.commons.io.FileUtils;
+import org.apache.commons.io.IOUtils;
+import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.records.writer.impl.csv.CSVRecordWriter;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.partition.NumberOfRecordsPartitioner;
-import org.datavec.api.writable.Text;
-import org.datavec.api.writable.Writable;
+import org.datavec.api.split.partition.Partitioner;
+import org.datavec.api.writable.*;
 import org.junit.Before;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.io.File;
-import java.util.ArrayList;
-import java.util.List;
+import java.io.FileInputStream;
+import java.io.InputStream;
+import java.nio.charset.StandardCharsets;
+import java.util.*;
+import java.util.zip.GZIPInputStream;
 
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
 
 /**
  * @author raver119@gmail.com
@@ -69,4 +78,139 @@ public class CSVRecordWriterTest {
         }
         assertEquals(1, cnt);
     }
+
+    @Test
+    public void testWriteBatch() throws Exception {
+        //Large enough to be encoded in parallel
+        List<List<Writable>> batch = records(20000);
+        StringBuilder expected = new StringBuilder();
+        for (List<Writable> record : batch) {
+            if (expected.length() > 0)
+                expected.append("\n");
+            for (int i = 0; i < record.size(); i++) {
+                if (i > 0)
+                    expected.append(",");
+                expected.append(record.get(i).toString());
+            }
+        }
+
+        File tempFile = File.createTempFile("datavec", "writer");
+        tempFile.deleteOnExit();
+        CSVRecordWriter writer = new CSVRecordWriter();
+        writer.initialize(new FileSplit(tempFile), new NumberOfRecordsPartitioner());
+        writer.writeBatch(batch.subList(0, 10));
+        writer.writeBatch(batch.subList(10, batch.size()));
+        //Flushed at the end of each batch
+        assertEquals(expected.toString(), FileUtils.readFileToString(tempFile, StandardCharsets.UTF_8));
+        writer.close();
+        assertEquals(expected.toString(), FileUtils.readFileToString(tempFile, StandardCharsets.UTF_8));
+    }
+
+    @Test
+    public void testWriteCompressed() throws Exception {
+        List<List<Writable>> batch = records(100);
+        File tempFile = File.createTempFile("datavec", "writer");
+        tempFile.deleteOnExit();
+        Configuration conf = new Configuration();
+        conf.set(NumberOfRecordsPartitioner.COMPRESSION_CONFIG, "gz");
+        conf.setBoolean(FileRecordWriter.FLUSH_EVERY_RECORD, false);
+        CSVRecordWriter writer = new CSVRecordWriter();
+        writer.initialize(conf, new FileSplit(tempFile), new NumberOfRecordsPartitioner());
+        for (List<Writable> record : batch) {
+            writer.write(record);
+        }
+        writer.close();
+
+        String actual;
+        try (InputStream is = new GZIPInputStream(new FileInputStream(tempFile))) {
+            actual = IOUtils.toString(is, StandardCharsets.UTF_8);
+        }
+        String[] lines = actual.split("\n");
+        assertEquals(batch.size(), lines.length);
+        for (int i = 0; i < lines.length; i++) {
+            assertEquals(batch.get(i).get(0) + "," + batch.get(i).get(1) + "," + batch.get(i).get(2) + ","
+                            + batch.get(i).get(3) + "," + batch.get(i).get(4), lines[i]);
+        }
+    }
+
+    @Test
+    public void testWriteCompressedPartitions() throws Exception {
+        List<List<Writable>> batch = records(100);
+        File dir = Files.createTempDir();
+        FileSplit split = new FileSplit(dir);
+        split.bootStrapForWrite();
+        Configuration conf = new Configuration();
+        conf.set(NumberOfRecordsPartitioner.COMPRESSION_CONFIG, "gz");
+        conf.setInt(NumberOfRecordsPartitioner.RECORDS_PER_FILE_CONFIG, 30);
+        conf.setBoolean(FileRecordWriter.FLUSH_EVERY_RECORD, false);
+        Partitioner partitioner = new NumberOfRecordsPartitioner();
+        CSVRecordWriter writer = new CSVRecordWriter();
+        writer.initialize(conf, split, partitioner);
+        //As per RecordMapper: the partitioner moves to the next partition after each record
+        for (List<Writable> record : batch) {
+            partitioner.updatePartitionInfo(writer.write(record));
+            if (partitioner.needsNewPartition()) {
+                partitioner.openNewStream();
+            }
+        }
+        writer.close();
+
+        Set<String> expected = new HashSet<>();
+        for (List<Writable> record : batch) {
+            expected.add(record.get(0) + "," + record.get(1) + "," + record.get(2) + "," + record.get(3) + ","
+                            + record.get(4));
+        }
+        Set<String> actual = new HashSet<>();
+        int numPartitions = 0;
+        for (File f : dir.listFiles()) {
+            if (f.length() == 0) {
+                continue;
+            }
+            //Fails (EOFException) if the compressed data of a partition was not finished
+            String content;
+            try (InputStream is = new GZIPInputStream(new FileInputStream(f))) {
+                content = IOUtils.toString(is, StandardCharsets.UTF_8);
+            }
+            if (content.isEmpty()) {
+                continue;
+            }
+            String[] lines = content.split("\n");
+            assertTrue(lines.length <= 30);
+            actual.addAll(Arrays.asList(lines));
+            numPartitions++;
+        }
+        assertEquals(4, numPartitions);
+        assertEquals(expected, actual);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkWriteBatch() throws Exception {
+        List<List<Writable>> batch = records(1000000);
+        for (int iter = 0; iter < 5; iter++) {
+            File tempFile = File.createTempFile("datavec", "writer");
+            tempFile.deleteOnExit();
+            long start = System.nanoTime();
+            CSVRecordWriter writer = new CSVRecordWriter();
+            writer.initialize(new FileSplit(tempFile), new NumberOfRecordsPartitioner());
+            for (int i = 0; i < batch.size(); i += 10000) {
+                writer.writeBatch(batch.subList(i, i + 10000));
+            }
+            writer.close();
+            long end = System.nanoTime();
+            System.out.println("Wrote " + batch.size() + " records (" + tempFile.length() / 1024 / 1024 + " MB) in "
+                            + (end - start) / 1000000 + " ms");
+        }
+    }
+
+    private static List<List<Writable>> records(int n) {
+        Random r = new Random(12345);
+        List<List<Writable>> ret = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            ret.add(Arrays.<Writable>asList(new IntWritable(r.nextInt()), new LongWritable(r.nextLong()),
+                            new DoubleWritable(r.nextGaussian()), new FloatWritable(r.nextFloat()),
+                            new Text("text\u00e9" + i)));
+        }
+        return ret;
+    }
 }
@@ -0,0 +1,148 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.split;
+
+import org.datavec.api.io.filters.BalancedPathFilter;
+import org.datavec.api.io.labels.ParentPathLabelGenerator;
+import org.junit.Ignore;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.*;
+
+import static org.junit.Assert.*;
+
+public class StreamingFileSplitTest {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testSameLocationsAsFileSplit() throws Exception {
+        File root = createTree(testDir.newFolder(), 5, 20);
+        String[] formats = {"jpg"};
+
+        Set<String> expected = toSet(new FileSplit(root, formats).locationsPathIterator());
+        assertEquals(5 * 10, expected.size());
+
+        StreamingFileSplit split = new StreamingFileSplit(root, formats);
+        assertEquals(expected, toSet(split.locationsPathIterator()));
+        assertTrue(split.isListingComplete());
+        assertEquals(expected.size(), split.length());
+        assertEquals(expected.size(), split.locations().length);
+        assertEquals(expected, toSet(split.locationsPathIterator()));
+
+        //Randomized, while listing and once complete
+        StreamingFileSplit random = new StreamingFileSplit(root, formats, true, new Random(12345), null, 2, 7);
+        List<String> first = toList(random.locationsPathIterator());
+        assertEquals(expected, new HashSet<>(first));
+        assertEquals(first.size(), new HashSet<>(first).size());
+        random.reset();
+        List<String> second = toList(random.locationsPathIterator());
+        assertEquals(expected, new HashSet<>(second));
+        assertNotEquals(first, second);
+
+        //Not recursive: same locations as FileSplit
+        StreamingFileSplit notRecursive = new StreamingFileSplit(root, null, false, null, null);
+        assertEquals(toSet(new FileSplit(root, null, false).locationsPathIterator()),
+                        toSet(notRecursive.locationsPathIterator()));
+    }
+
+    @Test
+    public void testManifest() throws Exception {
+        File root = createTree(testDir.newFolder(), 3, 4);
+        File manifest = new File(testDir.getRoot(), "manifest.txt");
+
+        StreamingFileSplit split = new StreamingFileSplit(root, null, true, null, manifest);
+        Set<String> expected = toSet(split.locationsPathIterator());
+        assertEquals(12, expected.size());
+        assertTrue(manifest.exists());
+
+        //Files added after the manifest was written are not listed
+        assertTrue(new File(root, "class_0/new.jpg").createNewFile());
+        StreamingFileSplit fromManifest = new StreamingFileSplit(root, null, true, null, manifest);
+        assertTrue(fromManifest.isListingComplete());
+        assertEquals(expected, toSet(fromManifest.locationsPathIterator()));
+
+        //Different settings: listed again
+        StreamingFileSplit jpg = new StreamingFileSplit(root, new String[] {"jpg"}, true, null, manifest);
+        assertEquals(7, toSet(jpg.locationsPathIterator()).size());
+    }
+
+    @Test
+    public void testBalancedPathFilter() throws Exception {
+        File root = createTree(testDir.newFolder(), 4, 10);
+        StreamingFileSplit split = new StreamingFileSplit(root, null, new Random(12345));
+        InputSplit[] samples = split.sample(new BalancedPathFilter(new Random(12345), null,
+                        new ParentPathLabelGenerator(), 0, 4, 2), 0.5, 0.5);
+        assertEquals(2, samples.length);
+        assertEquals(8, samples[0].locations().length + samples[1].locations().length);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkListing() throws Exception {
+        File root = createTree(testDir.newFolder(), 1000, 200);
+        for (int iter = 0; iter < 3; iter++) {
+            long start = System.nanoTime();
+            FileSplit fileSplit = new FileSplit(root);
+            Iterator<String> iterator = fileSplit.locationsPathIterator();
+            iterator.next();
+            long first = System.nanoTime();
+            System.out.println("FileSplit: first location after " + (first - start) / 1000000 + " ms, "
+                            + fileSplit.length() + " locations");
+
+            start = System.nanoTime();
+            StreamingFileSplit streaming = new StreamingFileSplit(root);
+            iterator = streaming.locationsPathIterator();
+            iterator.next();
+            first = System.nanoTime();
+            streaming.waitForListing();
+            long end = System.nanoTime();
+            System.out.println("StreamingFileSplit: first location after " + (first - start) / 1000000 + " ms, all "
+                            + streaming.length() + " locations after " + (end - start) / 1000000 + " ms");
+        }
+    }
+
+    /**
+     * One directory per class, with the given number of files per class: half .jpg, half .txt
+     */
+    private static File createTree(File root, int numClasses, int filesPerClass) throws Exception {
+        for (int i = 0; i < numClasses; i++) {
+            File dir = new File(root, "class_" + i);
+            assertTrue(dir.mkdirs());
+            for (int j = 0; j < filesPerClass; j++) {
+                assertTrue(new File(dir, "file_" + j + (j % 2 == 0 ? ".jpg" : ".txt")).createNewFile());
+            }
+        }
+        return root;
+    }
+
+    private static Set<String> toSet(Iterator<String> iterator) {
+        return new HashSet<>(toList(iterator));
+    }
+
+    private static List<String> toList(Iterator<String> iterator) {
+        List<String> ret = new ArrayList<>();
+        while (iterator.hasNext()) {
+            ret.add(iterator.next());
+        }
+        return ret;
+    }
+}
@@ -0,0 +1,213 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.transform.ops;
+
+import org.datavec.api.transform.ReduceOp;
+import org.datavec.api.transform.reduce.Reducer;
+import org.datavec.api.transform.schema.Schema;
+import org.datavec.api.writable.*;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class PrimitiveAggregatorImplsTest {
+
+    private static final List<ReduceOp> OPS = Arrays.asList(ReduceOp.Min, ReduceOp.Max, ReduceOp.Range, ReduceOp.Sum,
+                    ReduceOp.Prod, ReduceOp.Mean, ReduceOp.Stdev, ReduceOp.UncorrectedStdDev, ReduceOp.Variance,
+                    ReduceOp.PopulationVariance, ReduceOp.Count, ReduceOp.TakeFirst, ReduceOp.TakeLast);
+
+    @Test
+    public void testMatchesBoxedOps() {
+        Random r = new Random(12345);
+        List<Writable> ints = new ArrayList<>();
+        List<Writable> longs = new ArrayList<>();
+        List<Writable> floats = new ArrayList<>();
+        List<Writable> doubles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            ints.add(new IntWritable(r.nextInt(20) - 10));
+            longs.add(new LongWritable(r.nextInt(2000) - 1000));
+            floats.add(new FloatWritable(r.nextFloat() * 2 - 1));
+            doubles.add(new DoubleWritable(r.nextGaussian()));
+        }
+
+        List<IAggregableReduceOp<Integer, Writable>> intOps = boxed(OPS);
+        List<IAggregableReduceOp<Long, Writable>> longOps = boxed(OPS);
+        List<IAggregableReduceOp<Float, Writable>> floatOps = boxed(OPS);
+        List<IAggregableReduceOp<Double, Writable>> doubleOps = boxed(OPS);
+        assertEquals(reduce(new IntWritableOp<>(new AggregableMultiOp<>(intOps)), ints),
+                        reduce(new PrimitiveAggregatorImpls.IntColumnAggregator(OPS), ints));
+        assertEquals(reduce(new LongWritableOp<>(new AggregableMultiOp<>(longOps)), longs),
+                        reduce(new PrimitiveAggregatorImpls.LongColumnAggregator(OPS), longs));
+        assertEquals(reduce(new FloatWritableOp<>(new AggregableMultiOp<>(floatOps)), floats),
+                        reduce(new PrimitiveAggregatorImpls.FloatColumnAggregator(OPS), floats));
+        assertEquals(reduce(new DoubleWritableOp<>(new AggregableMultiOp<>(doubleOps)), doubles),
+                        reduce(new PrimitiveAggregatorImpls.DoubleColumnAggregator(OPS), doubles));
+    }
+
+    @Test
+    public void testCombine() {
+        Random r = new Random(12345);
+        List<Writable> doubles = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            doubles.add(new DoubleWritable(r.nextGaussian() * 10 + 5));
+        }
+
+        List<Writable> expected = reduce(new PrimitiveAggregatorImpls.DoubleColumnAggregator(OPS), doubles);
+
+        IAggregableReduceOp<Writable, List<Writable>> first = new PrimitiveAggregatorImpls.DoubleColumnAggregator(OPS);
+        IAggregableReduceOp<Writable, List<Writable>> second = new PrimitiveAggregatorImpls.DoubleColumnAggregator(OPS);
+        IAggregableReduceOp<Writable, List<Writable>> empty = new PrimitiveAggregatorImpls.DoubleColumnAggregator(OPS);
+        reduce(first, doubles.subList(0, 37));
+        reduce(second, doubles.subList(37, doubles.size()));
+        empty.combine(first);
+        empty.combine(second);
+        List<Writable> actual = empty.get();
+
+        assertEquals(expected.size(), actual.size());
+        for (int i = 0; i < expected.size(); i++) {
+            assertEquals(OPS.get(i).toString(), expected.get(i).getClass(), actual.get(i).getClass());
+            assertEquals(OPS.get(i).toString(), expected.get(i).toDouble(), actual.get(i).toDouble(),
+                            1e-9 * Math.max(1.0, Math.abs(expected.get(i).toDouble())));
+        }
+    }
+
+    @Test
+    public void testSupports() {
+        assertTrue(PrimitiveAggregatorImpls.supports(OPS));
+        assertFalse(PrimitiveAggregatorImpls.supports(Arrays.asList(ReduceOp.Sum, ReduceOp.CountUnique)));
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkReducer() {
+        //Group-by on one key column with 20 numeric value columns, 5 groups
+        int nValueCols = 20;
+        int nRows = 1000000;
+        Schema.Builder sb = new Schema.Builder().addColumnString("key");
+        for (int i = 0; i < nValueCols; i++) {
+            if (i % 2 == 0)
+                sb.addColumnDouble("d" + i);
+            else
+                sb.addColumnInteger("i" + i);
+        }
+        Schema schema = sb.build();
+
+        Random r = new Random(12345);
+        List<List<Writable>> rows = new ArrayList<>(nRows);
+        for (int i = 0; i < nRows; i++) {
+            List<Writable> row = new ArrayList<>(nValueCols + 1);
+            row.add(new Text("key" + (i % 5)));
+            for (int j = 0; j < nValueCols; j++) {
+                row.add(j % 2 == 0 ? new DoubleWritable(r.nextDouble()) : new IntWritable(r.nextInt(100)));
+            }
+            rows.add(row);
+        }
+
+        Reducer reducer = new Reducer.Builder(ReduceOp.Mean).keyColumns("key")
+                        .multipleOpColmumns(Arrays.asList(ReduceOp.Min, ReduceOp.Max, ReduceOp.Sum, ReduceOp.Stdev),
+                                        "d0", "d2", "i1", "i3")
+                        .build();
+        reducer.setInputSchema(schema);
+
+        for (int iter = 0; iter < 10; iter++) {
+            long start = System.nanoTime();
+            Map<Writable, IAggregableReduceOp<List<Writable>, List<Writable>>> groups = new HashMap<>();
+            for (List<Writable> row : rows) {
+                IAggregableReduceOp<List<Writable>, List<Writable>> accumulator = groups.get(row.get(0));
+                if (accumulator == null) {
+                    accumulator = reducer.aggregableReducer();
+                    groups.put(row.get(0), accumulator);
+                }
+                accumulator.accept(row);
+            }
+            for (IAggregableReduceOp<List<Writable>, List<Writable>> accumulator : groups.values()) {
+                accumulator.get();
+            }
+            long end = System.nanoTime();
+            System.out.println("Iteration " + iter + ": " + (end - start) / 1000000 + " ms, "
+                            + (long) (nRows / ((end - start) / 1e9)) + " rows/sec");
+        }
+    }
+
+    private static <T extends Number & Comparable<T>> List<IAggregableReduceOp<T, Writable>> boxed(
+                    List<ReduceOp> ops) {
+        List<IAggregableReduceOp<T, Writable>> res = new ArrayList<>();
+        for (ReduceOp op : ops) {
+            switch (op) {
+                case Min:
+                    res.add(new AggregatorImpls.AggregableMin<T>());
+                    break;
+                case Max:
+                    res.add(new AggregatorImpls.AggregableMax<T>());
+                    break;
+                case Range:
+                    res.add(new AggregatorImpls.AggregableRange<T>());
+                    break;
+                case Sum:
+                    res.add(new AggregatorImpls.AggregableSum<T>());
+                    break;
+                case Prod:
+                    res.add(new AggregatorImpls.AggregableProd<T>());
+                    break;
+                case Mean:
+                    res.add(new AggregatorImpls.AggregableMean<T>());
+                    break;
+                case Stdev:
+                    res.add(new AggregatorImpls.AggregableStdDev<T>());
+                    break;
+                case UncorrectedStdDev:
+                    res.add(new AggregatorImpls.AggregableUncorrectedStdDev<T>());
+                    break;
+                case Variance:
+                    res.add(new AggregatorImpls.AggregableVariance<T>());
+                    break;
+                case PopulationVariance:
+                    res.add(new AggregatorImpls.AggregablePopulationVariance<T>());
+                    break;
+                case Count:
+                    res.add(new AggregatorImpls.AggregableCount<T>());
+                    break;
+                case TakeFirst:
+                    res.add(new AggregatorImpls.AggregableFirst<T>());
+                    break;
+                case TakeLast:
+                    res.add(new AggregatorImpls.AggregableLast<T>());
+                    break;
+                default:
+                    throw new UnsupportedOperationException(op.toString());
+            }
+        }
+        return res;
+    }
+
+    private static List<Writable> reduce(IAggregableReduceOp<Writable, List<Writable>> op, List<Writable> values) {
+        for (Writable w : values) {
+            op.accept(w);
+        }
+        return op.get();
+    }
+}
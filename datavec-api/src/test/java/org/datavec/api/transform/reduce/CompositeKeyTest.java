@@ -0,0 +1,171 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.api.transform.reduce;
+
+import org.datavec.api.writable.BooleanWritable;
+import org.datavec.api.writable.DoubleWritable;
+import org.datavec.api.writable.FloatWritable;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.LongWritable;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Text;
+import org.datavec.api.writable.Writable;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.io.*;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Random;
+import java.util.Set;
+
+import static org.junit.Assert.*;
+
+public class CompositeKeyTest {
+
+    private static final int[] KEY_COLS = {0, 1};
+
+    @Test
+    public void testEqualsAndHashCode() {
+        CompositeKey k1 = CompositeKey.of(row(new Text("a"), new IntWritable(1)), KEY_COLS);
+        CompositeKey k2 = CompositeKey.of(row(new Text("a"), new LongWritable(1)), KEY_COLS);
+        CompositeKey k3 = CompositeKey.of(row(new Text("a"), new DoubleWritable(1.0)), KEY_COLS);
+        CompositeKey k4 = CompositeKey.of(row(new Text("a"), NullWritable.INSTANCE), KEY_COLS);
+
+        assertEquals(k1, k2);
+        assertEquals(k1.hashCode(), k2.hashCode());
+        assertNotEquals(k1, k3);
+        assertNotEquals(k1, k4);
+        assertEquals(k3, CompositeKey.of(row(new Text("a"), new FloatWritable(1.0f)), KEY_COLS));
+
+        //Would collide as concatenated strings "a_b_c"
+        CompositeKey s1 = CompositeKey.of(row(new Text("a_b"), new Text("c")), KEY_COLS);
+        CompositeKey s2 = CompositeKey.of(row(new Text("a"), new Text("b_c")), KEY_COLS);
+        assertNotEquals(s1, s2);
+
+        assertEquals(new Text("a"), k1.get(0));
+        assertEquals(new LongWritable(1), k1.get(1));
+        assertEquals(2, k1.size());
+    }
+
+    @Test
+    public void testSerialization() throws Exception {
+        List<CompositeKey> keys = Arrays.asList(CompositeKey.EMPTY,
+                        CompositeKey.of(row(new Text("abc"), new IntWritable(-5)), KEY_COLS),
+                        CompositeKey.of(row(new DoubleWritable(Double.NaN), NullWritable.INSTANCE), KEY_COLS),
+                        CompositeKey.of(row(new BooleanWritable(true), new Text("\u00e9t\u00e9")), KEY_COLS));
+
+        for (CompositeKey key : keys) {
+            CompositeKey read = roundTrip(key);
+            assertEquals(key, read);
+            assertEquals(key.hashCode(), read.hashCode());
+            assertEquals(0, key.compareTo(read));
+        }
+    }
+
+    @Test
+    public void testCompareTo() {
+        CompositeKey a1 = CompositeKey.of(row(new Text("a"), new IntWritable(1)), KEY_COLS);
+        CompositeKey a2 = CompositeKey.of(row(new Text("a"), new IntWritable(2)), KEY_COLS);
+        CompositeKey b1 = CompositeKey.of(row(new Text("b"), new IntWritable(1)), KEY_COLS);
+        CompositeKey a = CompositeKey.of(row(new Text("a")), new int[] {0});
+
+        assertTrue(a1.compareTo(a2) < 0);
+        assertTrue(a2.compareTo(b1) < 0);
+        assertTrue(b1.compareTo(a1) > 0);
+        assertTrue(a.compareTo(a1) < 0);
+        assertEquals(0, a1.compareTo(CompositeKey.of(row(new Text("a"), new LongWritable(1)), KEY_COLS)));
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkVersusStringKeys() throws Exception {
+        //Three key columns: a string, an int and a double; 100 distinct keys
+        int n = 1000000;
+        Random r = new Random(12345);
+        List<List<Writable>> rows = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            int k = r.nextInt(100);
+            rows.add(row(new Text("customer_" + k), new IntWritable(k * 31), new DoubleWritable(k / 7.0),
+                            new DoubleWritable(r.nextDouble())));
+        }
+        int[] keyCols = {0, 1, 2};
+
+        for (int iter = 0; iter < 5; iter++) {
+            long start = System.nanoTime();
+            Set<String> stringKeys = new HashSet<>();
+            for (List<Writable> row : rows) {
+                StringBuilder sb = new StringBuilder();
+                for (int i = 0; i < keyCols.length; i++) {
+                    if (i > 0)
+                        sb.append("_");
+                    sb.append(row.get(keyCols[i]).toString());
+                }
+                stringKeys.add(sb.toString());
+            }
+            long stringTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            Set<CompositeKey> compositeKeys = new HashSet<>();
+            for (List<Writable> row : rows) {
+                compositeKeys.add(CompositeKey.of(row, keyCols));
+            }
+            long compositeTime = System.nanoTime() - start;
+
+            System.out.println("String keys: " + stringTime / 1000000 + " ms (" + stringKeys.size() + " keys), "
+                            + "composite keys: " + compositeTime / 1000000 + " ms (" + compositeKeys.size()
+                            + " keys)");
+        }
+
+        //Serialized (shuffle) size of the keys for 10000 rows
+        List<String> stringKeys = new ArrayList<>();
+        List<CompositeKey> compositeKeys = new ArrayList<>();
+        for (List<Writable> row : rows.subList(0, 10000)) {
+            stringKeys.add(row.get(0) + "_" + row.get(1) + "_" + row.get(2));
+            compositeKeys.add(CompositeKey.of(row, keyCols));
+        }
+        System.out.println("Serialized bytes, string keys: " + serializedSize(stringKeys) + ", composite keys: "
+                        + serializedSize(compositeKeys));
+    }
+
+    private static List<Writable> row(Writable... writables) {
+        return Arrays.asList(writables);
+    }
+
+    private static CompositeKey roundTrip(CompositeKey key) throws Exception {
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            oos.writeObject(key);
+        }
+        try (ObjectInputStream ois = new ObjectInputStream(new ByteArrayInputStream(baos.toByteArray()))) {
+            return (CompositeKey) ois.readObject();
+        }
+    }
+
+    private static int serializedSize(List<?> keys) throws IOException {
+        //Keys are written to a single stream, as for the records of a partition in a shuffle
+        ByteArrayOutputStream baos = new ByteArrayOutputStream();
+        try (ObjectOutputStream oos = new ObjectOutputStream(baos)) {
+            for (Object key : keys) {
+                oos.writeObject(key);
+            }
+        }
+        return baos.size();
+    }
+}
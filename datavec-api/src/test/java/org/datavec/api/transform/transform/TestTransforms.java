@@ -26,6 +26,9 @@ import org.datavec.api.transform.metadata.CategoricalMetaData;
 import org.datavec.api.transform.metadata.DoubleMetaData;
 import org.datavec.api.transform.metadata.IntegerMetaData;
 import org.datavec.api.transform.metadata.LongMetaData;
+import org.datavec.api.transform.metadata.OneHotIndexMetaData;
+import org.datavec.api.transform.ops.IAggregableReduceOp;
+import org.datavec.api.transform.reduce.AggregableReductionUtils;
 import org.datavec.api.transform.reduce.IAssociativeReducer;
 import org.datavec.api.transform.reduce.Reducer;
 import org.datavec.api.transform.schema.Schema;
@@ -51,11 +54,15 @@ import org.datavec.api.transform.transform.string.*;
 import org.datavec.api.transform.transform.time.DeriveColumnsFromTimeTransform;
 import org.datavec.api.transform.transform.time.StringToTimeTransform;
 import org.datavec.api.transform.transform.time.TimeMathOpTransform;
+import org.datavec.api.util.ndarray.RecordConverter;
 import org.datavec.api.writable.*;
 import org.joda.time.DateTimeFieldType;
 import org.joda.time.DateTimeZone;
+import org.joda.time.format.DateTimeFormat;
 import org.junit.Assert;
+import org.junit.Ignore;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
 import org.nd4j.shade.jackson.core.JsonFactory;
 import org.nd4j.shade.jackson.databind.ObjectMapper;
@@ -153,6 +160,40 @@ public class TestTransforms {
                 transform.map(Collections.singletonList((Writable) new Text("two"))));
     }
 
+    @Test
+    public void testCategoricalToSparseOneHotTransform() {
+        Schema schema = getSchema(ColumnType.Categorical, "zero", "one", "two");
+
+        Transform transform = new CategoricalToOneHotTransform("column", true);
+        transform.setInputSchema(schema);
+        Schema out = transform.transform(schema);
+
+        assertEquals(1, out.getColumnMetaData().size());
+        assertEquals(ColumnType.Integer, out.getMetaData(0).getColumnType());
+        assertEquals("column", out.getName(0));
+        OneHotIndexMetaData meta = (OneHotIndexMetaData) out.getMetaData(0);
+        assertEquals(3, meta.getNumStates());
+        assertEquals(0, (int) meta.getMinAllowedValue());
+        assertEquals(2, (int) meta.getMaxAllowedValue());
+
+        assertEquals(Collections.<Writable>singletonList(new IntWritable(0)),
+                transform.map(Collections.singletonList((Writable) new Text("zero"))));
+        assertEquals(Collections.<Writable>singletonList(new IntWritable(2)),
+                transform.map(Collections.singletonList((Writable) new Text("two"))));
+
+        //Sparse and dense output should give the same array, once expanded using the schema
+        Transform dense = new CategoricalToOneHotTransform("column");
+        dense.setInputSchema(schema);
+        List<List<Writable>> sparseRecords = new ArrayList<>();
+        List<List<Writable>> denseRecords = new ArrayList<>();
+        for (String s : Arrays.asList("one", "zero", "two", "one")) {
+            List<Writable> in = Collections.<Writable>singletonList(new Text(s));
+            sparseRecords.add(transform.map(in));
+            denseRecords.add(dense.map(in));
+        }
+        assertEquals(RecordConverter.toMatrix(denseRecords), RecordConverter.toMatrix(sparseRecords, out));
+    }
+
     @Test
     public void testPivotTransform(){
         Schema schema = new Schema.Builder()
@@ -234,6 +275,28 @@ public class TestTransforms {
                 transform.map(Collections.singletonList((Writable) new IntWritable(5))));
     }
 
+    @Test
+    public void testIntegerToSparseOneHotTransform() {
+        Schema schema = getSchema(ColumnType.Integer);
+
+        Transform transform = new IntegerToOneHotTransform("column", 3, 5, true);
+        transform.setInputSchema(schema);
+        Schema out = transform.transform(schema);
+
+        assertEquals(Collections.singletonList("column"), out.getColumnNames());
+        OneHotIndexMetaData meta = (OneHotIndexMetaData) out.getMetaData(0);
+        assertEquals(3, meta.getNumStates());
+
+        assertEquals(Collections.<Writable>singletonList(new IntWritable(0)),
+                transform.map(Collections.singletonList((Writable) new IntWritable(3))));
+        assertEquals(Collections.<Writable>singletonList(new IntWritable(2)),
+                transform.map(Collections.singletonList((Writable) new IntWritable(5))));
+
+        INDArray exp = Nd4j.create(new double[] {0, 1, 0});
+        assertEquals(exp, RecordConverter.toArray(
+                transform.map(Collections.singletonList((Writable) new IntWritable(4))), out));
+    }
+
     @Test
     public void testStringToCategoricalTransform() {
         Schema schema = getSchema(ColumnType.String);
@@ -743,6 +806,83 @@ public class TestTransforms {
     }
 
 
+    @Test
+    public void testStringToTimeTransformMultipleFormats() {
+        for (DateTimeZone zone : Arrays.asList(DateTimeZone.UTC, DateTimeZone.forID("America/New_York"),
+                DateTimeZone.forID("Asia/Kolkata"))) {
+            StringToTimeTransform transform = new StringToTimeTransform("column", null, zone);
+            transform.setInputSchema(getSchema(ColumnType.String));
+
+            //Common layouts (parsed directly) and others (parsed with JodaTime), in an order that changes the
+            //format that last matched. Expected values: as per the first matching entry of the formats array,
+            //after dropping fractional seconds
+            String[][] values = {
+                    {"2017-09-21T17:06:29", "YYYY-MM-dd'T'HH:mm:ss", "2017-09-21T17:06:29"},
+                    {"12/1/2010 11:21", "MM/dd/YYYY HH:mm", "12/1/2010 11:21"},
+                    {"2017-09-21T17:06:29.064687", "YYYY-MM-dd'T'HH:mm:ss", "2017-09-21T17:06:29"},
+                    {"2016-02-29", "YYYY-MM-dd", "2016-02-29"},
+                    {"2017-09-21T17:06:29Z", "YYYY-MM-dd'T'HH:mm:ss'Z'", "2017-09-21T17:06:29Z"},
+                    {"2017-09-21T17:06:29.123-05:00", "YYYY-MM-dd'T'HH:mm:ssZ", "2017-09-21T17:06:29-05:00"},
+                    {"2017-09-21T17:06:29+0530", "YYYY-MM-dd'T'HH:mm:ssZ", "2017-09-21T17:06:29+0530"},
+                    {"2017-9-21T17:06:29+0100", "YYYY-MM-dd'T'HH:mm:ssZ", "2017-9-21T17:06:29+0100"},
+                    {"2017-9-21T17:06:29Z", "YYYY-MM-dd'T'HH:mm:ss'Z'", "2017-9-21T17:06:29Z"},
+                    {"2015-06-30 23:59:59", "YYYY-MM-dd HH:mm:ss", "2015-06-30 23:59:59"},
+                    {"2017:09:21 17:06:29", "YYYY:MM:dd HH:mm:ss", "2017:09:21 17:06:29"},
+                    {"20170921", "YYYYMMdd", "20170921"},
+                    {"12/01/2010T11:21:00", "MM/dd/YYYY'T'HH:mm:ss", "12/01/2010T11:21:00"},
+                    {"0001-01-01", "YYYY-MM-dd", "0001-01-01"},
+                    {"1900-03-01 00:00:00", "YYYY-MM-dd HH:mm:ss", "1900-03-01 00:00:00"}};
+
+            for (String[] v : values) {
+                long exp = DateTimeFormat.forPattern(v[1]).withZone(zone).parseMillis(v[2]);
+                assertEquals(v[0] + " - " + zone, Collections.singletonList((Writable) new LongWritable(exp)),
+                        transform.map(Collections.singletonList((Writable) new Text(v[0]))));
+            }
+
+            assertEquals(new LongWritable(1506013589064L), transform.map(new Text("1506013589064")));
+
+            //Only 13 digit values are epoch milliseconds: epoch seconds and compact layouts not in the formats
+            //array (yyyyMMddHHmm) fail, rather than being parsed as times near 1970
+            for (String invalid : Arrays.asList("2017-02-29", "2017-13-01", "2017-09-21 17:06:29Z", "not a date",
+                    "1506013589", "201709211706")) {
+                try {
+                    transform.map(new Text(invalid));
+                    fail("Expected exception for " + invalid);
+                } catch (IllegalStateException e) {
+                    //Expected
+                }
+            }
+        }
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkStringToTimeTransform() {
+        //10M values in 4 layouts, as for a log file with mixed time stamps
+        int n = 10000000;
+        String[] values = new String[1000];
+        Random r = new Random(12345);
+        String[] patterns = {"YYYY-MM-dd'T'HH:mm:ss.SSS", "YYYY-MM-dd HH:mm:ss", "YYYY-MM-dd'T'HH:mm:ssZZ",
+                "MM/dd/YYYY HH:mm"};
+        for (int i = 0; i < values.length; i++) {
+            long t = 1500000000000L + (long) (r.nextDouble() * 1e11);
+            values[i] = DateTimeFormat.forPattern(patterns[(i / 250) % patterns.length]).withZone(DateTimeZone.UTC)
+                    .print(t);
+        }
+
+        StringToTimeTransform transform = new StringToTimeTransform("column", null, DateTimeZone.UTC);
+        for (int iter = 0; iter < 5; iter++) {
+            long start = System.nanoTime();
+            long sum = 0;
+            for (int i = 0; i < n; i++) {
+                sum += ((LongWritable) transform.map(new Text(values[i % values.length]))).get();
+            }
+            long end = System.nanoTime();
+            System.out.println("Iteration " + iter + ": " + (end - start) / 1000000 + " ms, "
+                    + (long) (n / ((end - start) / 1e9)) + " values/sec (" + sum + ")");
+        }
+    }
+
     @Test
     public void testDeriveColumnsFromTimeTransform() throws Exception {
         Schema schema = new Schema.Builder().addColumnTime("column", DateTimeZone.forID("UTC"))
@@ -1293,6 +1433,48 @@ public class TestTransforms {
         assertEquals(exp2, act2);
     }
 
+    @Test
+    public void testSequenceMovingWindowReduceTransformIncremental(){
+        //Window reductions should be identical to reducing each window separately
+        Random r = new Random(12345);
+        int n = 200;
+        List<List<Writable>> seq = new ArrayList<>();
+        for (int i = 0; i < n; i++) {
+            seq.add(Arrays.<Writable>asList(new IntWritable(r.nextInt(100) - 50), new LongWritable(r.nextInt(1000)),
+                    new FloatWritable(r.nextFloat()), new DoubleWritable(r.nextGaussian() * 100)));
+        }
+        Schema schema = new SequenceSchema.Builder().addColumnInteger("i").addColumnLong("l")
+                .addColumnFloat("f").addColumnDouble("d").build();
+
+        ReduceOp[] ops = {ReduceOp.Min, ReduceOp.Max, ReduceOp.Range, ReduceOp.Sum, ReduceOp.Mean, ReduceOp.Stdev,
+                ReduceOp.UncorrectedStdDev, ReduceOp.Variance, ReduceOp.PopulationVariance, ReduceOp.Count,
+                ReduceOp.TakeFirst, ReduceOp.TakeLast, ReduceOp.Prod};
+        for (int lookback : new int[]{1, 3, 17}) {
+            for (ReduceOp op : ops) {
+                for (int col = 0; col < 4; col++) {
+                    String name = schema.getName(col);
+                    SequenceMovingWindowReduceTransform t = new SequenceMovingWindowReduceTransform(name, lookback, op);
+                    t.setInputSchema(schema);
+                    List<List<Writable>> out = t.mapSequence(seq);
+
+                    for (int i = 0; i < n; i++) {
+                        IAggregableReduceOp<Writable, List<Writable>> reduceOp = AggregableReductionUtils.reduceColumn(
+                                Collections.singletonList(op), schema.getType(col), false, null);
+                        for (int j = Math.max(0, i - lookback + 1); j <= i; j++) {
+                            reduceOp.accept(seq.get(j).get(col));
+                        }
+                        Writable exp = reduceOp.get().get(0);
+                        Writable act = out.get(i).get(4);
+                        String msg = op + ", " + name + ", lookback " + lookback + ", step " + i;
+                        assertEquals(msg, exp.getClass(), act.getClass());
+                        //Results must be identical, not just close (NaN for the standard deviation of one value)
+                        assertEquals(msg, exp.toDouble(), act.toDouble(), 0.0);
+                    }
+                }
+            }
+        }
+    }
+
     @Test
     public void testTrimSequenceTransform(){
         List<List<Writable>> seq = Arrays.asList(
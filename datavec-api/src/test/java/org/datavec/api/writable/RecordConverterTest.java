@@ -20,15 +20,18 @@ import com.google.common.collect.Lists;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.util.ndarray.RecordConverter;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.dataset.DataSet;
 import org.nd4j.linalg.dataset.api.iterator.DataSetIterator;
 import org.nd4j.linalg.factory.Nd4j;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 
@@ -106,4 +109,96 @@ public class RecordConverterTest {
 
         assertEquals(exp, act);
     }
+
+    @Test
+    public void testToMatrixParallel() {
+        Random r = new Random(12345);
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            records.add(Arrays.<Writable>asList(new DoubleWritable(r.nextDouble()),
+                    new NDArrayWritable(Nd4j.rand(1, 5)), new IntWritable(r.nextInt(10)),
+                    new NDArrayWritable(Nd4j.rand(1, 3))));
+        }
+
+        //Expected values are built element by element, independently of the conversion code under test
+        double[][] expValues = new double[records.size()][10];
+        for (int i = 0; i < records.size(); i++) {
+            int col = 0;
+            for (Writable w : records.get(i)) {
+                if (w instanceof NDArrayWritable) {
+                    INDArray arr = ((NDArrayWritable) w).get();
+                    for (int j = 0; j < arr.length(); j++) {
+                        expValues[i][col++] = arr.getDouble(j);
+                    }
+                } else {
+                    expValues[i][col++] = w.toDouble();
+                }
+            }
+            assertEquals(10, col);
+        }
+        INDArray exp = Nd4j.create(expValues);
+
+        assertEquals(exp, RecordConverter.toMatrix(records));
+        assertEquals(exp, RecordConverter.toMatrix(records, null, true));
+    }
+
+    @Test
+    public void testToTensor() {
+        //Two sequences, of lengths 2 and 1
+        List<List<Writable>> seq1 = Arrays.asList(
+                Arrays.<Writable>asList(new DoubleWritable(1), new NDArrayWritable(Nd4j.create(new double[]{2, 3}))),
+                Arrays.<Writable>asList(new DoubleWritable(4), new NDArrayWritable(Nd4j.create(new double[]{5, 6}))));
+        List<List<Writable>> seq2 = Collections.singletonList(
+                Arrays.<Writable>asList(new DoubleWritable(7), new NDArrayWritable(Nd4j.create(new double[]{8, 9}))));
+        List<List<List<Writable>>> sequences = Arrays.asList(seq1, seq2);
+
+        INDArray act = RecordConverter.toTensor(sequences);
+        assertEquals(2, act.size(0));
+        assertEquals(3, act.size(1));
+        assertEquals(2, act.size(2));
+        double[][][] exp = {{{1, 4}, {2, 5}, {3, 6}}, {{7, 0}, {8, 0}, {9, 0}}};
+        for (int i = 0; i < 2; i++) {
+            for (int j = 0; j < 3; j++) {
+                for (int k = 0; k < 2; k++) {
+                    assertEquals(exp[i][j][k], act.getDouble(i, j, k), 0.0);
+                }
+            }
+        }
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkToMatrix() {
+        //Minibatch of 1024 records with 2000 single value features
+        Random r = new Random(12345);
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 1024; i++) {
+            List<Writable> record = new ArrayList<>();
+            for (int j = 0; j < 2000; j++) {
+                record.add(new DoubleWritable(r.nextDouble()));
+            }
+            records.add(record);
+        }
+
+        for (int iter = 0; iter < 10; iter++) {
+            long start = System.nanoTime();
+            List<INDArray> rows = new ArrayList<>();
+            for (List<Writable> record : records) {
+                rows.add(RecordConverter.toArray(record));
+            }
+            Nd4j.vstack(rows);
+            long perRow = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            RecordConverter.toMatrix(records);
+            long direct = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            RecordConverter.toMatrix(records, null, true);
+            long parallel = System.nanoTime() - start;
+
+            System.out.println("Per row arrays + vstack: " + perRow / 1000000 + " ms, direct: " + direct / 1000000
+                    + " ms, direct (parallel): " + parallel / 1000000 + " ms");
+        }
+    }
 }
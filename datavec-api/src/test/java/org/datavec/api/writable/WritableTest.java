@@ -1,6 +1,7 @@
 package org.datavec.api.writable;
 
 import org.datavec.api.writable.batch.NDArrayRecordBatch;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
@@ -11,6 +12,8 @@ import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Iterator;
 import java.util.List;
+import java.util.Locale;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -87,6 +90,116 @@ public class WritableTest {
     }
 
 
+    @Test
+    public void testTextNumericParsing() {
+        String[] integers = {"0", "-0", "+7", "123", "-123", "2147483647", "-2147483648", "2147483648", "-2147483649",
+                        "9223372036854775807", "-9223372036854775808", "00042", "0x1F"};
+        for (String str : integers) {
+            Text t = new Text(str);
+            assertEquals(str, Long.decode(str).longValue(), t.toLong());
+            long l = Long.decode(str);
+            if (l >= Integer.MIN_VALUE && l <= Integer.MAX_VALUE) {
+                assertEquals(str, (int) l, t.toInt());
+            } else {
+                try {
+                    t.toInt();
+                    fail("Expected NumberFormatException: " + str);
+                } catch (NumberFormatException e) {
+                    //Expected
+                }
+            }
+        }
+
+        String[] decimals = {"0", "-0", "-0.0", "1.5", "-2.25", ".5", "5.", "1e3", "1E-3", "+3.14159", "-1.5e+10",
+                        "123456789012345678", "0.1", "0.3", "1e22", "1e23", "1e-22", "4.9e-324", "NaN", "-Infinity",
+                        " 1.5 ", "1.5d"};
+        for (String str : decimals) {
+            Text t = new Text(str);
+            assertEquals(str, Double.doubleToLongBits(Double.parseDouble(str)),
+                            Double.doubleToLongBits(t.toDouble()));
+            assertEquals(str, Float.floatToIntBits(Float.parseFloat(str)), Float.floatToIntBits(t.toFloat()));
+        }
+
+        Random r = new Random(12345);
+        for (int i = 0; i < 10000; i++) {
+            double d = r.nextGaussian() * Math.pow(10, r.nextInt(20) - 10);
+            String[] strs = {Double.toString(d), Float.toString((float) d), String.format(Locale.ROOT, "%.4f", d)};
+            for (String str : strs) {
+                Text t = new Text(str);
+                assertEquals(str, Double.parseDouble(str), t.toDouble(), 0.0);
+                assertEquals(str, Float.parseFloat(str), t.toFloat(), 0.0f);
+            }
+        }
+
+        String[] invalid = {"", "-", "1.2.3", "1e", "abc", "1,5"};
+        for (String str : invalid) {
+            try {
+                new Text(str).toDouble();
+                fail("Expected NumberFormatException: \"" + str + "\"");
+            } catch (NumberFormatException e) {
+                //Expected
+            }
+        }
+    }
+
+    @Test
+    public void testTextCachedString() {
+        Text t = new Text("12");
+        assertEquals("12", t.toString());
+        assertSame(t.toString(), t.toString());
+        t.append("34".getBytes(), 0, 2);
+        assertEquals("1234", t.toString());
+        assertEquals(1234, t.toInt());
+        t.set("\u00e9t\u00e9");
+        assertEquals("\u00e9t\u00e9", t.toString());
+        t.clear();
+        assertEquals("", t.toString());
+        t.set(new Text("5.5"));
+        assertEquals("5.5", t.toString());
+        assertEquals(new Text("5.5"), t);
+        assertEquals(new Text("5.5").hashCode(), t.hashCode());
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkTextToDouble() throws Exception {
+        int n = 1000000;
+        Random r = new Random(12345);
+        List<Text> doubles = new ArrayList<>(n);
+        List<Text> longs = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            doubles.add(new Text(String.format(Locale.ROOT, "%.3f", r.nextDouble() * 1000)));
+            longs.add(new Text(String.valueOf(r.nextInt())));
+        }
+
+        for (int iter = 0; iter < 10; iter++) {
+            long start = System.nanoTime();
+            double sum = 0;
+            for (Text t : doubles) {
+                sum += t.toDouble();
+            }
+            long doubleTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            double sumString = 0;
+            for (Text t : doubles) {
+                sumString += Double.parseDouble(Text.decode(t.getBytes(), 0, t.getLength()));
+            }
+            long stringTime = System.nanoTime() - start;
+
+            start = System.nanoTime();
+            long sumLong = 0;
+            for (Text t : longs) {
+                sumLong += t.toLong();
+            }
+            long longTime = System.nanoTime() - start;
+
+            System.out.println("toDouble: " + doubleTime / 1000000 + " ms, decode + parseDouble: "
+                            + stringTime / 1000000 + " ms, toLong: " + longTime / 1000000 + " ms (" + sum + ", "
+                            + sumString + ", " + sumLong + ")");
+        }
+    }
+
     @Test
     public void testFuzzies() {
         assertTrue(new DoubleWritable(1.1d).fuzzyEquals(new FloatWritable(1.1f), 1e-6d));
@@ -0,0 +1,152 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.arrow;
+
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.memory.RootAllocator;
+
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Provider of the Arrow {@link BufferAllocator}s used by DataVec.<br>
+ * All off-heap memory used by DataVec for Arrow vectors is allocated from a single, shared root allocator: operations
+ * (reading a file, converting a batch, etc) use their own child allocator of the root, so that each operation's memory
+ * is accounted for separately, and leaked buffers are reported when the child allocator is closed.
+ * <p>
+ * The root allocator is created on first use, with the memory limit (in bytes) given by the
+ * {@link #MAX_MEMORY_PROPERTY} system property (no limit by default): the property must be set before first use.
+ * Alternatively, an allocator may be set with {@link #setRootAllocator(BufferAllocator)}, for example to share an
+ * allocator with other Arrow users of the JVM. Allocators obtained after it is set are created from the new root,
+ * including the long-lived allocators of {@link #getSharedChildAllocator(String)}.
+ * Allocated and peak off-heap memory for all of DataVec are available from {@link #getAllocatedMemory()} and
+ * {@link #getPeakMemoryAllocation()}.
+ */
+public class ArrowAllocators {
+
+    /**
+     * System property for the maximum off-heap memory (in bytes) of the default root allocator
+     */
+    public static final String MAX_MEMORY_PROPERTY = "org.datavec.arrow.maxMemory";
+
+    private static BufferAllocator rootAllocator;
+    //Long-lived child allocators, by name, of sharedRoot
+    private static final Map<String, BufferAllocator> sharedAllocators = new HashMap<>();
+    private static BufferAllocator sharedRoot;
+
+    private ArrowAllocators() {}
+
+    /**
+     * @return The root allocator, created on first use if none has been set
+     */
+    public static synchronized BufferAllocator getRootAllocator() {
+        if (rootAllocator == null) {
+            long limit = Long.MAX_VALUE;
+            String property = System.getProperty(MAX_MEMORY_PROPERTY);
+            if (property != null) {
+                try {
+                    limit = Long.parseLong(property.trim());
+                } catch (NumberFormatException e) {
+                    throw new IllegalStateException("Invalid value for system property " + MAX_MEMORY_PROPERTY
+                                    + ": expected number of bytes, got \"" + property + "\"", e);
+                }
+            }
+            rootAllocator = new RootAllocator(limit);
+        }
+        return rootAllocator;
+    }
+
+    /**
+     * Set the root allocator to use for all subsequent allocations. The previous root allocator (if any) is not closed:
+     * child allocators created from it remain valid until they are closed.
+     *
+     * @param allocator Root allocator to use
+     */
+    public static synchronized void setRootAllocator(BufferAllocator allocator) {
+        if (allocator == null) {
+            throw new IllegalArgumentException("Allocator cannot be null");
+        }
+        rootAllocator = allocator;
+    }
+
+    /**
+     * Create a child allocator of the root allocator, for one operation. The child allocator is limited only by the
+     * limit of the root allocator, and must be closed (after all buffers allocated from it have been released) when
+     * the operation is complete.
+     *
+     * @param name Name of the allocator, reported in errors (memory limit exceeded, leaked buffers)
+     */
+    public static BufferAllocator newChildAllocator(String name) {
+        BufferAllocator root = getRootAllocator();
+        return root.newChildAllocator(name, 0, root.getLimit());
+    }
+
+    /**
+     * Create a child allocator of the root allocator, for one operation, with the given memory limit. The child
+     * allocator must be closed (after all buffers allocated from it have been released) when the operation is complete.
+     *
+     * @param name      Name of the allocator, reported in errors (memory limit exceeded, leaked buffers)
+     * @param maxMemory Maximum memory (in bytes) that can be allocated by the child allocator
+     */
+    public static BufferAllocator newChildAllocator(String name, long maxMemory) {
+        return getRootAllocator().newChildAllocator(name, 0, maxMemory);
+    }
+
+    /**
+     * Get the long-lived child allocator with the given name, shared by all callers using this name (typically a
+     * class holding buffers across operations). The allocator is created from the current root allocator on first
+     * use, and again after the root allocator is changed with {@link #setRootAllocator(BufferAllocator)}: callers
+     * should get it for each use rather than keeping it in a static field.
+     *
+     * @param name Name of the allocator, reported in errors (memory limit exceeded, leaked buffers)
+     */
+    public static synchronized BufferAllocator getSharedChildAllocator(String name) {
+        BufferAllocator root = getRootAllocator();
+        if (root != sharedRoot) {
+            //Allocators of the previous root are not closed: buffers allocated from them may still be in use
+            sharedAllocators.clear();
+            sharedRoot = root;
+        }
+        BufferAllocator allocator = sharedAllocators.get(name);
+        if (allocator == null) {
+            allocator = root.newChildAllocator(name, 0, root.getLimit());
+            sharedAllocators.put(name, allocator);
+        }
+        return allocator;
+    }
+
+    /**
+     * @return Off-heap memory (in bytes) currently allocated by the root allocator and all of its child allocators
+     */
+    public static long getAllocatedMemory() {
+        return getRootAllocator().getAllocatedMemory();
+    }
+
+    /**
+     * @return Peak off-heap memory (in bytes) allocated by the root allocator and all of its child allocators
+     */
+    public static long getPeakMemoryAllocation() {
+        return getRootAllocator().getPeakMemoryAllocation();
+    }
+
+    /**
+     * @return Memory limit (in bytes) of the root allocator
+     */
+    public static long getLimit() {
+        return getRootAllocator().getLimit();
+    }
+}
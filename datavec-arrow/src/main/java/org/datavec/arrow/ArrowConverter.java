@@ -1,9 +1,9 @@
 package org.datavec.arrow;
 
+import io.netty.buffer.ArrowBuf;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.*;
 import org.apache.arrow.vector.dictionary.Dictionary;
 import org.apache.arrow.vector.dictionary.DictionaryProvider;
@@ -53,7 +53,10 @@ import static java.nio.channels.Channels.newChannel;
 @Slf4j
 public class ArrowConverter {
 
-
+    /**
+     * Arrow field metadata key holding the number of states of a sparse one-hot column ({@link OneHotIndexMetaData})
+     */
+    public static final String ONE_HOT_NUM_STATES_KEY = "datavec.oneHotNumStates";
 
 
     /**
@@ -74,8 +77,6 @@ public class ArrowConverter {
     }
 
 
-
-
     /**
      * Create an ndarray from a matrix.
      * The included batch must be all the same number of rows in order
@@ -90,6 +91,21 @@ public class ArrowConverter {
      * @return an {@link INDArray} representative of the input data
      */
     public static INDArray toArray(ArrowWritableRecordBatch arrowWritableRecordBatch) {
+        return toArray(arrowWritableRecordBatch, Nd4j.order());
+    }
+
+    /**
+     * Create an ndarray from a matrix, as per {@link #toArray(ArrowWritableRecordBatch)}.
+     * The values of each column are read directly from the Arrow data buffer and written in to a single
+     * [rows, columns] array, allocated once, with the given order. Note that null values are not checked: the
+     * corresponding entries of the output are the (unspecified) values in the Arrow data buffer.
+     *
+     * @param arrowWritableRecordBatch the incoming batch. This is typically output from
+     *                                 an {@link org.datavec.arrow.recordreader.ArrowRecordReader}
+     * @param order                    the order of the output array: 'c' (row major) or 'f' (column major)
+     * @return an {@link INDArray} representative of the input data
+     */
+    public static INDArray toArray(ArrowWritableRecordBatch arrowWritableRecordBatch, char order) {
         List<FieldVector> columnVectors = arrowWritableRecordBatch.getList();
         Schema schema = arrowWritableRecordBatch.getSchema();
         for(int i = 0; i < schema.numColumns(); i++) {
@@ -106,21 +122,43 @@ public class ArrowConverter {
                     throw new ND4JIllegalArgumentException("Illegal data type found for column " + schema.getName(i));
             }
         }
+        if(order != 'c' && order != 'f') {
+            throw new ND4JIllegalArgumentException("Invalid order: " + order + ". Must be 'c' or 'f'");
+        }
 
-        int rows  = arrowWritableRecordBatch.getList().get(0).getValueCount();
+        int rows = arrowWritableRecordBatch.size();
+        int offset = arrowWritableRecordBatch.getOffset();
         int cols = schema.numColumns();
-        INDArray arr  = Nd4j.create(rows,cols);
-        for(int i = 0; i < cols; i++) {
-            INDArray put = ArrowConverter.convertArrowVector(columnVectors.get(i),schema.getType(i));
-            switch(arr.data().dataType()) {
-                case FLOAT:
-                    arr.putColumn(i,Nd4j.create(put.data().asFloat()).reshape(rows,1));
+        INDArray arr = Nd4j.create(new int[] {rows, cols}, order);
+        DataBuffer buffer = arr.data();
+        //Distance in the output buffer between consecutive rows, and between consecutive columns
+        long rowStride = order == 'c' ? cols : 1;
+        long colStride = order == 'c' ? 1 : rows;
+        for(int j = 0; j < cols; j++) {
+            ArrowBuf data = columnVectors.get(j).getDataBuffer();
+            long idx = j * colStride;
+            switch(schema.getType(j)) {
+                case Integer:
+                    for(int i = offset; i < offset + rows; i++, idx += rowStride) {
+                        buffer.put(idx, data.getInt(i * IntVector.TYPE_WIDTH));
+                    }
                     break;
-                case DOUBLE:
-                    arr.putColumn(i,Nd4j.create(put.data().asDouble()).reshape(rows,1));
+                case Long:
+                    for(int i = offset; i < offset + rows; i++, idx += rowStride) {
+                        buffer.put(idx, data.getLong(i * BigIntVector.TYPE_WIDTH));
+                    }
+                    break;
+                case Float:
+                    for(int i = offset; i < offset + rows; i++, idx += rowStride) {
+                        buffer.put(idx, data.getFloat(i * Float4Vector.TYPE_WIDTH));
+                    }
+                    break;
+                case Double:
+                    for(int i = offset; i < offset + rows; i++, idx += rowStride) {
+                        buffer.put(idx, data.getDouble(i * Float8Vector.TYPE_WIDTH));
+                    }
                     break;
             }
-
         }
 
         return arr;
@@ -157,6 +195,49 @@ public class ArrowConverter {
         return Nd4j.create(buffer,new int[] {cols,1});
     }
 
+    /**
+     * Wrap the data buffer of a field vector as a column vector, without copying: the returned array is a view of the
+     * Arrow memory, so changes to either are visible in the other.<br>
+     * The returned array is only valid as long as the buffers of the field vector are (for example, for a field vector
+     * read by an {@link org.datavec.arrow.recordreader.ArrowRecordReader}: until the next record batch is loaded).
+     * Null values are not checked, as per {@link #toArray(ArrowWritableRecordBatch, char)}.
+     *
+     * @param fieldVector the field vector to wrap
+     * @param type the type of the column: Integer, Long, Float or Double
+     * @return the column vector, with the data type of the column
+     */
+    public static INDArray wrapArrowVector(FieldVector fieldVector,ColumnType type) {
+        int rows = fieldVector.getValueCount();
+        DataBuffer.Type dataType;
+        int width;
+        switch(type) {
+            case Integer:
+                dataType = DataBuffer.Type.INT;
+                width = IntVector.TYPE_WIDTH;
+                break;
+            case Long:
+                dataType = DataBuffer.Type.LONG;
+                width = BigIntVector.TYPE_WIDTH;
+                break;
+            case Float:
+                dataType = DataBuffer.Type.FLOAT;
+                width = Float4Vector.TYPE_WIDTH;
+                break;
+            case Double:
+                dataType = DataBuffer.Type.DOUBLE;
+                width = Float8Vector.TYPE_WIDTH;
+                break;
+            default:
+                throw new ND4JIllegalArgumentException("Illegal data type for column " + fieldVector.getField().getName()
+                        + ": " + type);
+        }
+
+        //nioBuffer is a view of the (direct) Arrow memory, which the ND4J buffer wraps by address
+        ByteBuffer view = fieldVector.getDataBuffer().nioBuffer(0, rows * width).order(ByteOrder.nativeOrder());
+        DataBuffer buffer = Nd4j.createBuffer(view, dataType, rows);
+        return Nd4j.create(buffer,new int[] {rows,1});
+    }
+
 
     /**
      * Convert an {@link INDArray}
@@ -227,8 +308,9 @@ public class ArrowConverter {
      * @param outputStream the output stream to write to
      */
     public static void writeRecordBatchTo(List<List<Writable>> recordBatch, Schema inputSchema,OutputStream outputStream) {
-        BufferAllocator bufferAllocator = new RootAllocator(Long.MAX_VALUE);
-        writeRecordBatchTo(bufferAllocator,recordBatch,inputSchema,outputStream);
+        try (BufferAllocator bufferAllocator = ArrowAllocators.newChildAllocator("ArrowConverter.writeRecordBatchTo")) {
+            writeRecordBatchTo(bufferAllocator,recordBatch,inputSchema,outputStream);
+        }
     }
 
     /**
@@ -238,40 +320,18 @@ public class ArrowConverter {
      * @param outputStream the output stream to write to
      */
     public static void writeRecordBatchTo(BufferAllocator bufferAllocator ,List<List<Writable>> recordBatch, Schema inputSchema,OutputStream outputStream) {
-        if(!(recordBatch instanceof ArrowWritableRecordBatch)) {
-            val convertedSchema = toArrowSchema(inputSchema);
-            val columns  = toArrowColumns(bufferAllocator,inputSchema,recordBatch);
-            try {
-                VectorSchemaRoot root = new VectorSchemaRoot(convertedSchema,columns,recordBatch.size());
-
-                ArrowFileWriter writer = new ArrowFileWriter(root, providerForVectors(columns,convertedSchema.getFields()),
-                        newChannel(outputStream));
-                writer.start();
-                writer.writeBatch();
-                writer.end();
-
-
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
-
-        }
-        else {
-            val convertedSchema = toArrowSchema(inputSchema);
-            val pair = toArrowColumns(bufferAllocator,inputSchema,recordBatch);
-            try {
-                VectorSchemaRoot root = new VectorSchemaRoot(convertedSchema,pair,recordBatch.size());
-
-                ArrowFileWriter writer = new ArrowFileWriter(root, providerForVectors(pair,convertedSchema.getFields()),
-                        newChannel(outputStream));
-                writer.start();
-                writer.writeBatch();
-                writer.end();
-
-
-            } catch (IOException e) {
-                throw new IllegalStateException(e);
-            }
+        val convertedSchema = toArrowSchema(inputSchema);
+        val columns  = toArrowColumns(bufferAllocator,inputSchema,recordBatch);
+        //The vectors are only needed for writing: release them afterwards. The writer itself is not closed, as
+        //that would close the output stream
+        try (VectorSchemaRoot root = new VectorSchemaRoot(convertedSchema,columns,recordBatch.size())) {
+            ArrowFileWriter writer = new ArrowFileWriter(root, providerForVectors(columns,convertedSchema.getFields()),
+                    newChannel(outputStream));
+            writer.start();
+            writer.writeBatch();
+            writer.end();
+        } catch (IOException e) {
+            throw new IllegalStateException(e);
         }
 
     }
@@ -317,29 +377,13 @@ public class ArrowConverter {
 
     /**
      * Read a datavec schema and record set
-     * from the given arrow file.
+     * from the given arrow file. All record batches of the file are read: see
+     * {@link org.datavec.arrow.recordreader.ArrowRecordReader} to stream the record batches of large files instead.
      * @param input the input to read
      * @return the associated datavec schema and record
      */
     public static Pair<Schema,ArrowWritableRecordBatch> readFromFile(FileInputStream input) throws IOException {
-        BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
-        Schema retSchema = null;
-        ArrowWritableRecordBatch ret = null;
-        SeekableReadChannel channel = new SeekableReadChannel(input.getChannel());
-        ArrowFileReader reader = new ArrowFileReader(channel, allocator);
-        reader.loadNextBatch();
-        retSchema = toDatavecSchema(reader.getVectorSchemaRoot().getSchema());
-        //load the batch
-        VectorUnloader unloader = new VectorUnloader(reader.getVectorSchemaRoot());
-        VectorLoader vectorLoader = new VectorLoader(reader.getVectorSchemaRoot());
-        ArrowRecordBatch recordBatch = unloader.getRecordBatch();
-
-        vectorLoader.load(recordBatch);
-        ret = asDataVecBatch(recordBatch,retSchema,reader.getVectorSchemaRoot());
-        ret.setUnloader(unloader);
-
-        return Pair.of(retSchema,ret);
-
+        return readAllBatches(new SeekableReadChannel(input.getChannel()), "ArrowConverter.readFromFile");
     }
 
     /**
@@ -354,29 +398,66 @@ public class ArrowConverter {
 
     /**
      * Read a datavec schema and record set
-     * from the given bytes (usually expected to be an arrow format file)
+     * from the given bytes (usually expected to be an arrow format file).
+     * All record batches are read: see {@link org.datavec.arrow.recordreader.ArrowRecordReader}
+     * to stream the record batches of large files instead.
      * @param input the input to read
      * @return the associated datavec schema and record
      */
     public static Pair<Schema,ArrowWritableRecordBatch> readFromBytes(byte[] input) throws IOException {
-        BufferAllocator allocator = new RootAllocator(Long.MAX_VALUE);
-        Schema retSchema = null;
-        ArrowWritableRecordBatch ret = null;
-        SeekableReadChannel channel = new SeekableReadChannel(new ByteArrayReadableSeekableByteChannel(input));
-        ArrowFileReader reader = new ArrowFileReader(channel, allocator);
-        reader.loadNextBatch();
-        retSchema = toDatavecSchema(reader.getVectorSchemaRoot().getSchema());
-        //load the batch
-        VectorUnloader unloader = new VectorUnloader(reader.getVectorSchemaRoot());
-        VectorLoader vectorLoader = new VectorLoader(reader.getVectorSchemaRoot());
-        ArrowRecordBatch recordBatch = unloader.getRecordBatch();
+        return readAllBatches(new SeekableReadChannel(new ByteArrayReadableSeekableByteChannel(input)),
+                "ArrowConverter.readFromBytes");
+    }
 
-        vectorLoader.load(recordBatch);
-        ret = asDataVecBatch(recordBatch,retSchema,reader.getVectorSchemaRoot());
-        ret.setUnloader(unloader);
+    /**
+     * Read all record batches of an arrow file in to a single batch, allocated from a child allocator of
+     * {@link ArrowAllocators}: closing the batch releases all of the memory used for reading.
+     * A file with a single record batch is returned without copying: the vectors of the returned batch are those
+     * of the reader. The record batches of a file with multiple record batches are copied in to a single set of
+     * vectors.
+     */
+    private static Pair<Schema,ArrowWritableRecordBatch> readAllBatches(SeekableReadChannel channel, String name)
+            throws IOException {
+        BufferAllocator allocator = ArrowAllocators.newChildAllocator(name);
+        ArrowFileReader reader = new ArrowFileReader(channel, allocator);
+        try {
+            reader.loadNextBatch();
+            VectorSchemaRoot root = reader.getVectorSchemaRoot();
+            Schema retSchema = toDatavecSchema(root.getSchema());
+            if(reader.getRecordBlocks().size() <= 1) {
+                ArrowWritableRecordBatch ret = asDataVecBatch(null, retSchema, root);
+                ret.addResource(reader);
+                ret.addResource(allocator);
+                return Pair.of(retSchema,ret);
+            }
 
-        return Pair.of(retSchema,ret);
+            //Multiple record batches: the vectors of the reader are reused for each batch, so copy the records
+            List<List<Writable>> records = new ArrayList<>();
+            do {
+                records.addAll(asDataVecBatch(null, retSchema, reader.getVectorSchemaRoot()).toArrayList());
+            } while(reader.loadNextBatch());
+            reader.close();
+
+            List<FieldVector> vectors = toArrowColumns(allocator, retSchema, records);
+            ArrowWritableRecordBatch ret = new ArrowWritableRecordBatch(vectors, retSchema);
+            for(FieldVector vector : vectors) {
+                ret.addResource(vector);
+            }
+            ret.addResource(allocator);
+            return Pair.of(retSchema,ret);
+        } catch (IOException | RuntimeException e) {
+            closeQuietly(reader);
+            closeQuietly(allocator);
+            throw e;
+        }
+    }
 
+    private static void closeQuietly(AutoCloseable closeable) {
+        try {
+            closeable.close();
+        } catch (Exception e) {
+            log.warn("Error closing {}", closeable, e);
+        }
     }
 
     /**
@@ -388,7 +469,17 @@ public class ArrowConverter {
     public static org.apache.arrow.vector.types.pojo.Schema toArrowSchema(Schema schema) {
         List<Field> fields = new ArrayList<>(schema.numColumns());
         for(int i = 0; i < schema.numColumns(); i++) {
-            fields.add(getFieldForColumn(schema.getName(i),schema.getType(i)));
+            ColumnMetaData metaData = schema.getMetaData(i);
+            if(metaData instanceof OneHotIndexMetaData) {
+                //Integer column; number of states is kept in the field metadata
+                Map<String,String> fieldMetaData = Collections.singletonMap(ONE_HOT_NUM_STATES_KEY,
+                        String.valueOf(((OneHotIndexMetaData) metaData).getNumStates()));
+                fields.add(new Field(schema.getName(i),
+                        new FieldType(true, new ArrowType.Int(32,false), null, fieldMetaData), new ArrayList<Field>()));
+            }
+            else {
+                fields.add(getFieldForColumn(schema.getName(i),schema.getType(i)));
+            }
         }
 
         return new org.apache.arrow.vector.types.pojo.Schema(fields);
@@ -1063,7 +1154,11 @@ public class ArrowConverter {
         ArrowType arrowType = field.getFieldType().getType();
         if(arrowType instanceof ArrowType.Int) {
             val intType = (ArrowType.Int) arrowType;
-            if(intType.getBitWidth() == 32)
+            Map<String,String> fieldMetaData = field.getMetadata();
+            if(intType.getBitWidth() == 32 && fieldMetaData != null && fieldMetaData.containsKey(ONE_HOT_NUM_STATES_KEY))
+                return new OneHotIndexMetaData(field.getName(),
+                        Integer.parseInt(fieldMetaData.get(ONE_HOT_NUM_STATES_KEY)));
+            else if(intType.getBitWidth() == 32)
                 return new IntegerMetaData(field.getName());
             else {
                 return new LongMetaData(field.getName());
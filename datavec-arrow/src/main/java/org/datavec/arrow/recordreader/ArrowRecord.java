@@ -1,6 +1,5 @@
 package org.datavec.arrow.recordreader;
 
-import lombok.AllArgsConstructor;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.metadata.RecordMetaDataIndex;
@@ -16,12 +15,31 @@ import java.util.List;
  *
  * @author Adam Gibson
  */
-@AllArgsConstructor
 public class ArrowRecord implements Record {
     private ArrowWritableRecordBatch arrowWritableRecordBatch;
     private  int index;
+    private long batchStartRow;
     private URI recordUri;
 
+    public ArrowRecord(ArrowWritableRecordBatch arrowWritableRecordBatch, int index, URI recordUri) {
+        this(arrowWritableRecordBatch, index, 0, recordUri);
+    }
+
+    /**
+     * @param arrowWritableRecordBatch the record batch containing the record
+     * @param index                    index of the record in the batch
+     * @param batchStartRow            index of the first row of the batch in the file (for files containing
+     *                                 multiple record batches)
+     * @param recordUri                the file containing the record
+     */
+    public ArrowRecord(ArrowWritableRecordBatch arrowWritableRecordBatch, int index, long batchStartRow,
+                       URI recordUri) {
+        this.arrowWritableRecordBatch = arrowWritableRecordBatch;
+        this.index = index;
+        this.batchStartRow = batchStartRow;
+        this.recordUri = recordUri;
+    }
+
     @Override
     public List<Writable> getRecord() {
         return arrowWritableRecordBatch.get(index);
@@ -34,7 +52,7 @@ public class ArrowRecord implements Record {
 
     @Override
     public RecordMetaData getMetaData() {
-        RecordMetaData ret = new RecordMetaDataIndex(index,recordUri,ArrowRecordReader.class);
+        RecordMetaData ret = new RecordMetaDataIndex(batchStartRow + index,recordUri,ArrowRecordReader.class);
         return ret;
     }
 
@@ -1,7 +1,16 @@
 package org.datavec.arrow.recordreader;
 
 import lombok.Getter;
-import lombok.val;
+import lombok.extern.slf4j.Slf4j;
+import org.apache.arrow.memory.BufferAllocator;
+import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.VectorSchemaRoot;
+import org.apache.arrow.vector.ipc.ArrowFileReader;
+import org.apache.arrow.vector.ipc.ArrowReader;
+import org.apache.arrow.vector.ipc.ArrowStreamReader;
+import org.apache.arrow.vector.ipc.SeekableReadChannel;
+import org.apache.arrow.vector.util.ByteArrayReadableSeekableByteChannel;
+import org.apache.commons.io.IOUtils;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.listener.RecordListener;
@@ -12,52 +21,85 @@ import org.datavec.api.split.FileSplit;
 import org.datavec.api.split.InputSplit;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowAllocators;
+import org.datavec.arrow.ArrowConverter;
 
-import java.io.DataInputStream;
-import java.io.File;
-import java.io.IOException;
-import java.io.InputStream;
+import java.io.*;
 import java.net.URI;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.StandardOpenOption;
 import java.util.*;
 
-import static org.datavec.arrow.ArrowConverter.readFromBytes;
-
 /**
  * Implements a record reader using arrow.
  * The {@link ArrowRecordReader} minimizes memory footprint by
  * using an {@link ArrowWritableRecordBatch} as the current in memory
  * batch during iteration rather than the normal of objects
  * you would find with the traditional record readers with {@link List<List<Writable>>}
+ * <p>
+ * Both the Arrow file format and the Arrow stream format are supported, and all record batches of each file are
+ * read, one at a time: the buffers of a record batch are released when the next one is loaded, so that memory use
+ * is bounded by the size of a record batch (not of a file). Note that, as a consequence, an
+ * {@link ArrowWritableRecordBatch} returned by {@link #next(int)} or {@link #getCurrentBatch()} is only valid until
+ * the next record batch is loaded, whereas records returned by {@link #nextRecord()} and
+ * {@link #loadFromMetaData(List)} hold a copy of their values.<br>
+ * Local files are read directly through a {@link FileChannel}; other locations are read through
+ * {@link InputSplit#openInputStreamFor(String)} (the Arrow file format is then buffered in memory, as it requires
+ * random access, whereas the stream format is read incrementally).
+ * <p>
+ * If a schema is provided, only the columns of the schema are returned, in the order of the schema.
  *
  *
  *
  * @author Adam Gibson
  *
  */
+@Slf4j
 public class ArrowRecordReader implements RecordReader {
 
+    private static final byte[] FILE_MAGIC = "ARROW1".getBytes(StandardCharsets.UTF_8);
+
     private InputSplit split;
     private Configuration configuration;
     private Iterator<String> pathsIter;
     private int currIdx;
     private String currentPath;
     private Schema schema;
-    private List<Writable> recordAllocation = new ArrayList<>();
+    private Schema projection;
     @Getter
     private ArrowWritableRecordBatch currentBatch;
     private List<RecordListener> recordListeners;
 
+    private BufferAllocator allocator;
+    private ArrowReader arrowReader;
+    private boolean fileExhausted;
+    private long batchStartRow;     //Index, in the current file, of the first row of the current batch
+
+    public ArrowRecordReader() {
+        this(null);
+    }
+
+    /**
+     * @param projection Columns to read: only the columns of this schema are returned, in the order of this schema.
+     *                   If null, all columns are returned
+     */
+    public ArrowRecordReader(Schema projection) {
+        this.projection = projection;
+    }
+
     @Override
     public void initialize(InputSplit split) {
+        closeCurrentFile();
         this.split = split;
         this.pathsIter = split.locationsPathIterator();
     }
 
     @Override
     public void initialize(Configuration conf, InputSplit split) {
-        this.split = split;
-        this.pathsIter = split.locationsPathIterator();
-
+        setConf(conf);
+        initialize(split);
     }
 
     @Override
@@ -67,18 +109,17 @@ public class ArrowRecordReader implements RecordReader {
 
     @Override
     public List<List<Writable>> next(int num) {
-        if (currentBatch == null || currIdx >= currentBatch.size()) {
-            loadNextBatch();
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
         }
 
-        if(num == currentBatch.getArrowRecordBatch().getLength()) {
+        if(currIdx == 0 && num == currentBatch.size()) {
             currIdx += num;
             return currentBatch;
         }
         else {
             List<List<Writable>> ret = new ArrayList<>(num);
-            int numBatches = 0;
-            while(hasNext() && numBatches < num) {
+            while(ret.size() < num && hasNext()) {
                 ret.add(next());
             }
 
@@ -90,41 +131,129 @@ public class ArrowRecordReader implements RecordReader {
 
     @Override
     public List<Writable> next() {
-        if (currentBatch == null || currIdx >= currentBatch.size()) {
-            loadNextBatch();
-        }
-        else {
-            recordAllocation = currentBatch.get(currIdx++);
+        if (!hasNext()) {
+            throw new NoSuchElementException("No next element");
         }
 
-        return recordAllocation;
-
+        return currentBatch.get(currIdx++);
     }
 
-    private void loadNextBatch() {
-        String url = pathsIter.next();
-        try (InputStream inputStream = split.openInputStreamFor(url)) {
-            currIdx = 0;
-            byte[] arr = org.apache.commons.io.IOUtils.toByteArray(inputStream);
-            val read = readFromBytes(arr);
-            if(this.schema == null) {
-                this.schema = read.getFirst();
+    /**
+     * Load record batches (from the current file, then from the next files) until one with unread rows is found
+     *
+     * @return False if there are no more rows
+     */
+    private boolean advance() {
+        while (currentBatch == null || currIdx >= currentBatch.size()) {
+            try {
+                if (arrowReader != null && !fileExhausted && arrowReader.loadNextBatch()) {
+                    if (currentBatch != null) {
+                        batchStartRow += currentBatch.size();
+                    }
+                    VectorSchemaRoot root = arrowReader.getVectorSchemaRoot();
+                    List<FieldVector> vectors = new ArrayList<>(schema.numColumns());
+                    for (int i = 0; i < schema.numColumns(); i++) {
+                        vectors.add(root.getVector(schema.getName(i)));
+                    }
+                    currentBatch = new ArrowWritableRecordBatch(vectors, schema, 0, root.getRowCount());
+                    currIdx = 0;
+                } else {
+                    fileExhausted = true;
+                    if (pathsIter == null || !pathsIter.hasNext()) {
+                        return false;
+                    }
+                    openFile(pathsIter.next());
+                }
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading Arrow record batch from " + currentPath, e);
             }
+        }
+        return true;
+    }
 
-            this.currentBatch = read.getRight();
-            this.recordAllocation = currentBatch.get(0);
-            currIdx++;
-            this.currentPath = url;
-        }catch(Exception e) {
-            e.printStackTrace();
+    private void openFile(String location) throws IOException {
+        closeCurrentFile();
+        if (allocator == null) {
+            allocator = ArrowAllocators.newChildAllocator("ArrowRecordReader");
         }
 
+        URI uri = URI.create(location);
+        if ("file".equals(uri.getScheme())) {
+            FileChannel channel = FileChannel.open(new File(uri).toPath(), StandardOpenOption.READ);
+            ByteBuffer magic = ByteBuffer.allocate(FILE_MAGIC.length);
+            channel.read(magic, 0);
+            if (Arrays.equals(FILE_MAGIC, magic.array())) {
+                arrowReader = new ArrowFileReader(new SeekableReadChannel(channel), allocator);
+            } else {
+                arrowReader = new ArrowStreamReader(channel, allocator);
+            }
+        } else {
+            InputStream is;
+            try {
+                is = new BufferedInputStream(split.openInputStreamFor(location));
+            } catch (IOException e) {
+                throw e;
+            } catch (Exception e) {
+                throw new IOException("Error opening " + location, e);
+            }
+            is.mark(FILE_MAGIC.length);
+            byte[] magic = new byte[FILE_MAGIC.length];
+            int read = IOUtils.read(is, magic);
+            is.reset();
+            if (read == FILE_MAGIC.length && Arrays.equals(FILE_MAGIC, magic)) {
+                //File format needs random access (footer at the end of the file)
+                byte[] bytes;
+                try {
+                    bytes = IOUtils.toByteArray(is);
+                } finally {
+                    is.close();
+                }
+                arrowReader = new ArrowFileReader(
+                        new SeekableReadChannel(new ByteArrayReadableSeekableByteChannel(bytes)), allocator);
+            } else {
+                arrowReader = new ArrowStreamReader(is, allocator);
+            }
+        }
+        currentPath = location;
+
+        Schema fileSchema = ArrowConverter.toDatavecSchema(arrowReader.getVectorSchemaRoot().getSchema());
+        if (projection == null) {
+            schema = fileSchema;
+        } else {
+            for (int i = 0; i < projection.numColumns(); i++) {
+                String name = projection.getName(i);
+                if (!fileSchema.hasColumn(name)) {
+                    throw new IllegalStateException("Column \"" + name + "\" not found in " + location
+                            + ". Columns: " + fileSchema.getColumnNames());
+                }
+                if (fileSchema.getType(fileSchema.getIndexOfColumn(name)) != projection.getType(i)) {
+                    throw new IllegalStateException("Column \"" + name + "\" in " + location + " has type "
+                            + fileSchema.getType(fileSchema.getIndexOfColumn(name)) + ", expected "
+                            + projection.getType(i));
+                }
+            }
+            schema = projection;
+        }
     }
 
+    private void closeCurrentFile() {
+        currentBatch = null;
+        currIdx = 0;
+        batchStartRow = 0;
+        fileExhausted = false;
+        if (arrowReader != null) {
+            try {
+                arrowReader.close();
+            } catch (Exception e) {
+                log.warn("Error closing Arrow reader for " + currentPath, e);
+            }
+            arrowReader = null;
+        }
+    }
 
     @Override
     public boolean hasNext() {
-        return pathsIter.hasNext() || currIdx < this.currentBatch.size();
+        return advance();
     }
 
     @Override
@@ -134,8 +263,10 @@ public class ArrowRecordReader implements RecordReader {
 
     @Override
     public void reset() {
+        closeCurrentFile();
         if(split != null) {
             split.reset();
+            pathsIter = split.locationsPathIterator();
         }
     }
 
@@ -149,11 +280,16 @@ public class ArrowRecordReader implements RecordReader {
         throw new UnsupportedOperationException();
     }
 
+    /**
+     * Returns the next record, with its values copied out of the current record batch: unlike the batches returned by
+     * {@link #next(int)}, the record remains valid once the next record batch is loaded or the file is closed.
+     */
     @Override
     public Record nextRecord() {
-        next();
-        ArrowRecord ret =  new ArrowRecord(currentBatch,currIdx - 1,URI.create(currentPath));
-        return ret;
+        List<Writable> record = next();
+        RecordMetaData metaData = new RecordMetaDataIndex(batchStartRow + currIdx - 1, URI.create(currentPath),
+                ArrowRecordReader.class);
+        return new org.datavec.api.records.impl.Record(record, metaData);
     }
 
     @Override
@@ -165,10 +301,37 @@ public class ArrowRecordReader implements RecordReader {
         RecordMetaDataIndex index = (RecordMetaDataIndex) recordMetaData;
         InputSplit fileSplit = new FileSplit(new File(index.getURI()));
         initialize(fileSplit);
-        this.currIdx = (int) index.getIndex();
+        seekToRow(index.getIndex());
         return nextRecord();
     }
 
+    /**
+     * Position the reader at the given row of the current file, loading record batches as required
+     */
+    private void seekToRow(long row) {
+        if (currentBatch != null && row < batchStartRow) {
+            //Record batches can only be read in order: restart from the first batch of the file
+            String path = currentPath;
+            try {
+                openFile(path);
+            } catch (IOException e) {
+                throw new IllegalStateException("Error reading " + path, e);
+            }
+        }
+        while (true) {
+            if (currentBatch != null && row < batchStartRow + currentBatch.size()) {
+                currIdx = (int) (row - batchStartRow);
+                return;
+            }
+            if (currentBatch != null) {
+                currIdx = currentBatch.size();
+            }
+            if (!advance()) {
+                throw new IllegalStateException("Row " + row + " not found in " + currentPath);
+            }
+        }
+    }
+
     @Override
     public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) {
         Map<String,List<RecordMetaData>> metaDataByUri = new HashMap<>();
@@ -196,7 +359,7 @@ public class ArrowRecordReader implements RecordReader {
             initialize(fileSplit);
             for(RecordMetaData index : metaData) {
                 RecordMetaDataIndex index2 = (RecordMetaDataIndex) index;
-                this.currIdx = (int) index2.getIndex();
+                seekToRow(index2.getIndex());
                 ret.add(nextRecord());
             }
 
@@ -222,12 +385,10 @@ public class ArrowRecordReader implements RecordReader {
 
     @Override
     public void close() {
-        if(currentBatch != null) {
-            try {
-                currentBatch.close();
-            } catch (IOException e) {
-                e.printStackTrace();
-            }
+        closeCurrentFile();
+        if(allocator != null) {
+            allocator.close();
+            allocator = null;
         }
     }
 
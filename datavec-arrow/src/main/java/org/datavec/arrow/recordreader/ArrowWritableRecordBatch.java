@@ -1,7 +1,9 @@
 package org.datavec.arrow.recordreader;
 
-import lombok.AllArgsConstructor;
+import lombok.AccessLevel;
 import lombok.Data;
+import lombok.Getter;
+import lombok.Setter;
 import org.apache.arrow.vector.FieldVector;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
@@ -15,12 +17,16 @@ import org.datavec.arrow.ArrowConverter;
 import java.io.Closeable;
 import java.io.IOException;
 import java.util.*;
+import java.util.concurrent.atomic.AtomicInteger;
 
 /**
- *
+ * A list of records backed by Arrow vectors.<br>
+ * A batch may own off-heap resources (the reader and the child allocator of a batch read from a file, for example):
+ * these are released when the batch is closed. Closing is reference counted: a batch starts with a reference count of
+ * one, {@link #retain()} increments it, and the resources are released when {@link #close()} has been called once
+ * more than {@link #retain()}.
  */
 @Data
-@AllArgsConstructor
 public class ArrowWritableRecordBatch extends AbstractWritableRecordBatch implements Closeable {
 
     private List<FieldVector> list;
@@ -30,6 +36,22 @@ public class ArrowWritableRecordBatch extends AbstractWritableRecordBatch implem
     private VectorSchemaRoot vectorLoader;
     private VectorUnloader unloader;
     private int offset,rows;
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final AtomicInteger refCount = new AtomicInteger(1);
+    @Getter(AccessLevel.NONE) @Setter(AccessLevel.NONE)
+    private final List<AutoCloseable> resources = new ArrayList<>();
+
+    public ArrowWritableRecordBatch(List<FieldVector> list, int size, Schema schema, ArrowRecordBatch arrowRecordBatch,
+                                    VectorSchemaRoot vectorLoader, VectorUnloader unloader, int offset, int rows) {
+        this.list = list;
+        this.size = size;
+        this.schema = schema;
+        this.arrowRecordBatch = arrowRecordBatch;
+        this.vectorLoader = vectorLoader;
+        this.unloader = unloader;
+        this.offset = offset;
+        this.rows = rows;
+    }
 
     public ArrowWritableRecordBatch(List<FieldVector> list,Schema schema,int offset,int rows) {
         this.list = list;
@@ -213,14 +235,90 @@ public class ArrowWritableRecordBatch extends AbstractWritableRecordBatch implem
         return Objects.hash(super.hashCode(), list, size, schema);
     }
 
+    /**
+     * Register a resource (a vector, reader or allocator) to be closed when this batch is released. Resources are
+     * closed in the order they were added, after the record batch and vector schema root of this batch (if any).
+     *
+     * @param resource the resource owned by this batch
+     */
+    public synchronized void addResource(AutoCloseable resource) {
+        if (refCount.get() <= 0) {
+            throw new IllegalStateException("Cannot add a resource to a closed batch");
+        }
+        resources.add(resource);
+    }
+
+    /**
+     * Increment the reference count of this batch: one additional call of {@link #close()} is then
+     * needed before the resources of this batch are released
+     *
+     * @return this batch
+     */
+    public ArrowWritableRecordBatch retain() {
+        while (true) {
+            int count = refCount.get();
+            if (count <= 0) {
+                throw new IllegalStateException("Cannot retain a closed batch");
+            }
+            if (refCount.compareAndSet(count, count + 1)) {
+                return this;
+            }
+        }
+    }
+
+    /**
+     * @return the current reference count of this batch (0 once its resources have been released)
+     */
+    public int referenceCount() {
+        return refCount.get();
+    }
+
+    /**
+     * Decrement the reference count of this batch, releasing its resources when it reaches zero.
+     * Closing a batch whose resources have already been released has no effect.
+     */
     @Override
     public void close() throws IOException {
+        while (true) {
+            int count = refCount.get();
+            if (count <= 0) {
+                return;
+            }
+            if (refCount.compareAndSet(count, count - 1)) {
+                if (count == 1) {
+                    release();
+                }
+                return;
+            }
+        }
+    }
+
+    private synchronized void release() throws IOException {
+        Exception first = null;
+        List<AutoCloseable> toClose = new ArrayList<>(resources.size() + 2);
         if(arrowRecordBatch != null)
-            arrowRecordBatch.close();
+            toClose.add(arrowRecordBatch);
         if(vectorLoader != null)
-            vectorLoader.close();
-
+            toClose.add(vectorLoader);
+        toClose.addAll(resources);
+        resources.clear();
+        for (AutoCloseable c : toClose) {
+            try {
+                c.close();
+            } catch (Exception e) {
+                if (first == null) {
+                    first = e;
+                }
+            }
+        }
 
+        if (first instanceof IOException) {
+            throw (IOException) first;
+        } else if (first instanceof RuntimeException) {
+            throw (RuntimeException) first;
+        } else if (first != null) {
+            throw new IOException("Error closing Arrow record batch", first);
+        }
     }
 
 
@@ -4,19 +4,28 @@ import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
 import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
+import org.apache.arrow.vector.Float8Vector;
+import org.apache.arrow.vector.IntVector;
 import org.apache.arrow.vector.TimeStampMilliVector;
+import org.apache.arrow.vector.VectorLoader;
 import org.apache.arrow.vector.VectorSchemaRoot;
 import org.apache.arrow.vector.VectorUnloader;
+import org.apache.arrow.vector.dictionary.DictionaryProvider;
 import org.apache.arrow.vector.ipc.ArrowFileWriter;
+import org.apache.arrow.vector.ipc.ArrowStreamWriter;
+import org.apache.arrow.vector.ipc.ArrowWriter;
+import org.apache.arrow.vector.ipc.message.ArrowRecordBatch;
 import org.apache.arrow.vector.types.FloatingPointPrecision;
 import org.apache.arrow.vector.types.pojo.ArrowType;
 import org.apache.arrow.vector.types.pojo.Field;
+import org.apache.commons.io.FileUtils;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaData;
 import org.datavec.api.records.metadata.RecordMetaDataIndex;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.transform.ColumnType;
+import org.datavec.api.transform.metadata.OneHotIndexMetaData;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.writable.DoubleWritable;
 import org.datavec.api.writable.IntWritable;
@@ -25,8 +34,10 @@ import org.datavec.api.writable.Writable;
 import org.datavec.arrow.recordreader.ArrowRecordReader;
 import org.datavec.arrow.recordreader.ArrowWritableRecordBatch;
 import org.junit.Test;
+import org.nd4j.linalg.api.buffer.DataBuffer;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.primitives.Pair;
 
 import java.io.ByteArrayOutputStream;
@@ -38,6 +49,10 @@ import java.util.*;
 import static java.nio.channels.Channels.newChannel;
 import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotSame;
+import static org.junit.Assert.assertSame;
+import static org.junit.Assert.assertTrue;
 
 public class ArrowConverterTest {
 
@@ -153,6 +168,45 @@ public class ArrowConverterTest {
         assertEquals(exp, arr);
     }
 
+    @Test
+    public void testToArrayMixedTypes() {
+        Schema schema = new Schema.Builder().addColumnInteger("i").addColumnLong("l").addColumnFloat("f")
+                .addColumnDouble("d").build();
+        List<FieldVector> vectors = Arrays.<FieldVector>asList(
+                ArrowConverter.vectorFor(bufferAllocator, "i", new int[]{1, 2, 3}),
+                ArrowConverter.vectorFor(bufferAllocator, "l", new long[]{4, 5, 6}),
+                ArrowConverter.vectorFor(bufferAllocator, "f", new float[]{7.5f, 8.5f, 9.5f}),
+                ArrowConverter.vectorFor(bufferAllocator, "d", new double[]{10.25, 11.25, 12.25}));
+        ArrowWritableRecordBatch batch = new ArrowWritableRecordBatch(vectors, schema);
+
+        INDArray exp = Nd4j.create(new double[][]{{1, 4, 7.5, 10.25}, {2, 5, 8.5, 11.25}, {3, 6, 9.5, 12.25}});
+        for(char order : new char[]{'c', 'f'}) {
+            INDArray arr = ArrowConverter.toArray(batch, order);
+            assertEquals(order, arr.ordering());
+            assertEquals(exp, arr);
+        }
+
+        //Rows [1, 3) only
+        ArrowWritableRecordBatch subset = new ArrowWritableRecordBatch(vectors, schema, 1, 2);
+        assertEquals(exp.get(NDArrayIndex.interval(1, 3), NDArrayIndex.all()), ArrowConverter.toArray(subset, 'f'));
+    }
+
+    @Test
+    public void testWrapArrowVector() {
+        Float8Vector doubles = ArrowConverter.vectorFor(bufferAllocator, "d", new double[]{1, 2, 3});
+        INDArray wrapped = ArrowConverter.wrapArrowVector(doubles, ColumnType.Double);
+        assertEquals(Nd4j.create(new double[]{1, 2, 3}, new int[]{3, 1}), wrapped);
+
+        //No copy: changes to the Arrow vector are visible in the array
+        doubles.set(1, 42.0);
+        assertEquals(42.0, wrapped.getDouble(1), 0.0);
+
+        IntVector ints = ArrowConverter.vectorFor(bufferAllocator, "i", new int[]{4, 5, 6});
+        INDArray wrappedInts = ArrowConverter.wrapArrowVector(ints, ColumnType.Integer);
+        assertEquals(DataBuffer.Type.INT, wrappedInts.data().dataType());
+        assertEquals(5, wrappedInts.getInt(1));
+    }
+
     @Test
     public void testConvertVector() {
         Schema.Builder schema = new Schema.Builder();
@@ -219,6 +273,19 @@ public class ArrowConverterTest {
 
     }
 
+    @Test
+    public void testSchemaConversionOneHotIndex() {
+        Schema schema = new Schema.Builder()
+                .addColumnDouble("d")
+                .addColumn(new OneHotIndexMetaData("label", 10))
+                .build();
+
+        val arrowSchema = ArrowConverter.toArrowSchema(schema);
+        val convertedSchema = ArrowConverter.toDatavecSchema(arrowSchema);
+        assertEquals(schema, convertedSchema);
+        assertEquals(10, ((OneHotIndexMetaData) convertedSchema.getMetaData(1)).getNumStates());
+    }
+
     @Test
     public void testSchemaConversionBasic() {
         Schema.Builder schemaBuilder = new Schema.Builder();
@@ -344,6 +411,36 @@ public class ArrowConverterTest {
 
     }
 
+    @Test
+    public void testReadFromBytesReleasesMemory() throws Exception {
+        val recordsToWrite = recordToWrite();
+        ByteArrayOutputStream byteArrayOutputStream = new ByteArrayOutputStream();
+        ArrowConverter.writeRecordBatchTo(recordsToWrite.getRight(),recordsToWrite.getFirst(),byteArrayOutputStream);
+        byte[] arr = byteArrayOutputStream.toByteArray();
+
+        long before = ArrowAllocators.getAllocatedMemory();
+        for (int i = 0; i < 10; i++) {
+            ArrowWritableRecordBatch batch = ArrowConverter.readFromBytes(arr).getRight();
+            assertTrue(ArrowAllocators.getAllocatedMemory() > before);
+            assertEquals(recordsToWrite.getRight(), batch);
+
+            //Reference counted: only released on the last close
+            batch.retain();
+            assertEquals(2, batch.referenceCount());
+            batch.close();
+            assertEquals(1, batch.referenceCount());
+            assertEquals(recordsToWrite.getRight(), batch);
+            batch.close();
+            assertEquals(0, batch.referenceCount());
+            assertEquals(before, ArrowAllocators.getAllocatedMemory());
+
+            //Closing again has no effect
+            batch.close();
+            assertEquals(0, batch.referenceCount());
+        }
+        assertTrue(ArrowAllocators.getPeakMemoryAllocation() > before);
+    }
+
     @Test
     public void testRecordReaderMetaDataList() throws Exception {
         val recordsToWrite = recordToWrite();
@@ -383,6 +480,136 @@ public class ArrowConverterTest {
 
 
 
+    @Test
+    public void testSharedChildAllocatorFollowsRoot() {
+        BufferAllocator previousRoot = ArrowAllocators.getRootAllocator();
+        BufferAllocator shared = ArrowAllocators.getSharedChildAllocator("test");
+        assertSame(shared, ArrowAllocators.getSharedChildAllocator("test"));
+
+        BufferAllocator newRoot = new RootAllocator(1 << 20);
+        try {
+            ArrowAllocators.setRootAllocator(newRoot);
+            BufferAllocator afterChange = ArrowAllocators.getSharedChildAllocator("test");
+            assertNotSame(shared, afterChange);
+            assertEquals(1 << 20, afterChange.getLimit());
+            afterChange.buffer(1024).release();
+            assertTrue(newRoot.getPeakMemoryAllocation() >= 1024);
+        } finally {
+            ArrowAllocators.setRootAllocator(previousRoot);
+        }
+        assertSame(previousRoot, ArrowAllocators.getRootAllocator());
+    }
+
+    @Test
+    public void testRecordReaderMultipleBatches() throws Exception {
+        Schema schema = new Schema.Builder().addColumnInteger("a").addColumnDouble("b").addColumnInteger("c").build();
+        List<List<List<Writable>>> batches = new ArrayList<>();
+        List<List<Writable>> all = new ArrayList<>();
+        int v = 0;
+        for(int size : new int[]{3, 4, 2}) {
+            List<List<Writable>> batch = new ArrayList<>();
+            for(int i = 0; i < size; i++, v++) {
+                List<Writable> record = Arrays.<Writable>asList(new IntWritable(v), new DoubleWritable(v / 2.0),
+                        new IntWritable(-v));
+                batch.add(record);
+                all.add(record);
+            }
+            batches.add(batch);
+        }
+
+        for(boolean streamFormat : new boolean[]{false, true}) {
+            File f = File.createTempFile("arrow-multi-batch", ".arrow");
+            f.deleteOnExit();
+            writeBatches(f, schema, batches, streamFormat);
+
+            ArrowRecordReader reader = new ArrowRecordReader();
+            reader.initialize(new FileSplit(f));
+            List<List<Writable>> read = new ArrayList<>();
+            while(reader.hasNext()) {
+                read.add(reader.next());
+            }
+            assertEquals(all, read);
+            reader.close();
+
+            if(!streamFormat) {
+                //All record batches are read in to a single batch
+                ArrowWritableRecordBatch fromFile = ArrowConverter.readFromFile(f).getRight();
+                assertEquals(all, fromFile.toArrayList());
+                fromFile.close();
+                ArrowWritableRecordBatch fromBytes = ArrowConverter.readFromBytes(FileUtils.readFileToByteArray(f)).getRight();
+                assertEquals(all, fromBytes.toArrayList());
+                fromBytes.close();
+            }
+
+            //Column projection
+            Schema projection = new Schema.Builder().addColumnInteger("c").addColumnInteger("a").build();
+            reader = new ArrowRecordReader(projection);
+            reader.initialize(new FileSplit(f));
+            for(List<Writable> record : all) {
+                assertEquals(Arrays.asList(record.get(2), record.get(0)), reader.next());
+            }
+            assertFalse(reader.hasNext());
+            reader.close();
+
+            //Meta data: index of the row in the file, not in the record batch
+            reader = new ArrowRecordReader();
+            for(int row : new int[]{5, 1, 8}) {
+                Record r = reader.loadFromMetaData(new RecordMetaDataIndex(row, f.toURI(), ArrowRecordReader.class));
+                assertEquals(all.get(row), r.getRecord());
+                assertEquals(row, ((RecordMetaDataIndex) r.getMetaData()).getIndex());
+            }
+            reader.close();
+        }
+
+        //Meta data spanning record batches and files: records must remain valid once other batches are loaded and
+        //their file is closed
+        File f1 = File.createTempFile("arrow-multi-batch", ".arrow");
+        f1.deleteOnExit();
+        writeBatches(f1, schema, batches, false);
+        File f2 = File.createTempFile("arrow-multi-batch", ".arrow");
+        f2.deleteOnExit();
+        writeBatches(f2, schema, batches, true);
+        List<RecordMetaData> meta = new ArrayList<>();
+        for(File f : new File[]{f1, f2}) {
+            for(int row : new int[]{5, 1, 8, 0}) {
+                meta.add(new RecordMetaDataIndex(row, f.toURI(), ArrowRecordReader.class));
+            }
+        }
+        ArrowRecordReader reader = new ArrowRecordReader();
+        List<Record> loaded = reader.loadFromMetaData(meta);
+        reader.close();
+        assertEquals(meta.size(), loaded.size());
+        for(Record r : loaded) {
+            int row = (int) ((RecordMetaDataIndex) r.getMetaData()).getIndex();
+            assertEquals(all.get(row), r.getRecord());
+        }
+    }
+
+    private static void writeBatches(File f, Schema schema, List<List<List<Writable>>> batches,
+                                     boolean streamFormat) throws IOException {
+        org.apache.arrow.vector.types.pojo.Schema arrowSchema = ArrowConverter.toArrowSchema(schema);
+        VectorSchemaRoot root = new VectorSchemaRoot(arrowSchema,
+                ArrowConverter.toArrowColumns(bufferAllocator, schema, batches.get(0)), batches.get(0).size());
+        try(FileOutputStream fos = new FileOutputStream(f)) {
+            DictionaryProvider provider = new DictionaryProvider.MapDictionaryProvider();
+            ArrowWriter writer = streamFormat ? new ArrowStreamWriter(root, provider, fos)
+                    : new ArrowFileWriter(root, provider, fos.getChannel());
+            writer.start();
+            writer.writeBatch();
+            for(int i = 1; i < batches.size(); i++) {
+                VectorSchemaRoot batchRoot = new VectorSchemaRoot(arrowSchema,
+                        ArrowConverter.toArrowColumns(bufferAllocator, schema, batches.get(i)), batches.get(i).size());
+                try(ArrowRecordBatch recordBatch = new VectorUnloader(batchRoot).getRecordBatch()) {
+                    new VectorLoader(root).load(recordBatch);
+                }
+                batchRoot.close();
+                writer.writeBatch();
+            }
+            writer.end();
+        }
+        root.close();
+    }
+
     private File tmpDataFile(Pair<Schema,List<List<Writable>>> recordsToWrite) throws IOException {
         //send file
         File tmp = new File(System.getProperty("java.io.tmpdir"),"tmp-file-" + UUID.randomUUID().toString());
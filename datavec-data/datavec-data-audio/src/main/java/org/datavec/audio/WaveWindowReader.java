@@ -0,0 +1,246 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.audio;
+
+import java.io.ByteArrayInputStream;
+import java.io.Closeable;
+import java.io.File;
+import java.io.IOException;
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.channels.ReadableByteChannel;
+import java.nio.file.StandardOpenOption;
+import java.util.NoSuchElementException;
+
+/**
+ * Reads the samples of a wave file as a stream of fixed size, optionally overlapping, windows.<br>
+ * Unlike {@link Wave}, the PCM data is never loaded into memory as a whole: the header is parsed once, and samples
+ * are then read through a small buffer as windows are requested, so memory use is bounded by the window size.
+ * <p>
+ * As with {@link Wave#getSampleAmplitudes()}, the samples of all channels are read as a single interleaved stream.
+ * A trailing partial window (fewer than windowSize samples left) is not returned.
+ */
+public class WaveWindowReader implements Closeable {
+
+    private static final int BUFFER_SIZE = 64 * 1024;
+
+    private final ReadableByteChannel channel;
+    private final WaveHeader waveHeader;
+    private final int windowSize;
+    private final int hop;
+    private final int bytesPerSample;
+    private final int maxAmplitude;
+    private final ByteBuffer buffer;
+    private final short[] window;
+    private long bytesRemaining;
+    private long windowsRead;
+    private boolean hasNext;
+    private boolean first = true;
+
+    /**
+     * @param file       Wave file to read
+     * @param windowSize Number of samples per window
+     * @param overlap    Number of samples shared by consecutive windows; 0 <= overlap < windowSize
+     */
+    public WaveWindowReader(File file, int windowSize, int overlap) throws IOException {
+        this(FileChannel.open(file.toPath(), StandardOpenOption.READ), windowSize, overlap);
+    }
+
+    /**
+     * @param inputStream Wave file input stream
+     * @param windowSize  Number of samples per window
+     * @param overlap     Number of samples shared by consecutive windows; 0 <= overlap < windowSize
+     */
+    public WaveWindowReader(InputStream inputStream, int windowSize, int overlap) throws IOException {
+        this(Channels.newChannel(inputStream), windowSize, overlap);
+    }
+
+    private WaveWindowReader(ReadableByteChannel channel, int windowSize, int overlap) throws IOException {
+        if (windowSize < 1)
+            throw new IllegalArgumentException("Window size must be >= 1, got " + windowSize);
+        if (overlap < 0 || overlap >= windowSize)
+            throw new IllegalArgumentException(
+                            "Overlap must be >= 0 and < window size (" + windowSize + "), got " + overlap);
+        this.channel = channel;
+        this.windowSize = windowSize;
+        this.hop = windowSize - overlap;
+
+        ByteBuffer headerBuffer = ByteBuffer.allocate(WaveHeader.HEADER_BYTE_LENGTH);
+        readFully(headerBuffer);
+        this.waveHeader = new WaveHeader(new ByteArrayInputStream(headerBuffer.array()));
+        if (!waveHeader.isValid()) {
+            channel.close();
+            throw new IOException("Invalid or unsupported wave header");
+        }
+
+        this.bytesPerSample = waveHeader.getBitsPerSample() / 8;
+        int maxAmplitude = 1 << (waveHeader.getBitsPerSample() - 1);
+        if (waveHeader.getBitsPerSample() == 8) {
+            // usually 8bit is unsigned: one more bit for unsigned value
+            maxAmplitude <<= 1;
+        }
+        this.maxAmplitude = maxAmplitude;
+        this.bytesRemaining = waveHeader.getSubChunk2Size() > 0 ? waveHeader.getSubChunk2Size() : Long.MAX_VALUE;
+        //The buffer must be able to hold at least one full window, for hasNext() to be able to look ahead
+        int bufferSize = Math.max(BUFFER_SIZE, windowSize * bytesPerSample);
+        this.buffer = ByteBuffer.allocate(bufferSize - bufferSize % bytesPerSample);
+        this.buffer.flip();
+        this.window = new short[windowSize];
+        this.hasNext = readSamples(0, windowSize);
+    }
+
+    /**
+     * @return The header of the wave file
+     */
+    public WaveHeader getWaveHeader() {
+        return waveHeader;
+    }
+
+    public int getWindowSize() {
+        return windowSize;
+    }
+
+    /**
+     * @return Number of new samples in each window, i.e., windowSize - overlap
+     */
+    public int getHop() {
+        return hop;
+    }
+
+    /**
+     * @return Number of windows returned so far
+     */
+    public long getWindowsRead() {
+        return windowsRead;
+    }
+
+    public boolean hasNext() {
+        return hasNext;
+    }
+
+    /**
+     * Get the amplitudes of the next window. Note that the returned array is reused for subsequent windows:
+     * copy it if it needs to be retained after the next call.
+     *
+     * @return amplitudes of the samples in the window (signed 16-bit)
+     */
+    public short[] next() throws IOException {
+        if (!hasNext)
+            throw new NoSuchElementException("No more windows");
+        if (!first) {
+            //Shift the overlapping samples to the start of the window, then read the new samples after them
+            System.arraycopy(window, hop, window, 0, windowSize - hop);
+            hasNext = readSamples(windowSize - hop, windowSize);
+            if (!hasNext)
+                throw new NoSuchElementException("No more windows");
+        }
+        first = false;
+        windowsRead++;
+        //Check whether another full window is available, so that hasNext() is exact
+        hasNext = peekAvailable(hop);
+        return window;
+    }
+
+    /**
+     * Get the normalized amplitudes of the next window, as per {@link Wave#getNormalizedAmplitudes()}
+     *
+     * @param out array to write the amplitudes to; if null or too small, a new array is allocated
+     * @return normalized amplitudes of the samples in the window
+     */
+    public double[] nextNormalized(double[] out) throws IOException {
+        short[] amplitudes = next();
+        if (out == null || out.length < windowSize)
+            out = new double[windowSize];
+        for (int i = 0; i < windowSize; i++) {
+            out[i] = (double) amplitudes[i] / maxAmplitude;
+        }
+        return out;
+    }
+
+    /**
+     * Skip the given number of windows
+     *
+     * @param numWindows number of windows to skip
+     */
+    public void skipWindows(long numWindows) throws IOException {
+        for (long i = 0; i < numWindows && hasNext; i++) {
+            next();
+        }
+    }
+
+    private boolean readSamples(int from, int to) throws IOException {
+        for (int i = from; i < to; i++) {
+            if (buffer.remaining() < bytesPerSample && !fillBuffer())
+                return false;
+            short amplitude = 0;
+            for (int byteNumber = 0; byteNumber < bytesPerSample; byteNumber++) {
+                // little endian
+                amplitude |= (short) ((buffer.get() & 0xFF) << (byteNumber * 8));
+            }
+            window[i] = amplitude;
+        }
+        return true;
+    }
+
+    private boolean peekAvailable(int numSamples) throws IOException {
+        long needed = (long) numSamples * bytesPerSample;
+        while (buffer.remaining() < needed) {
+            if (buffer.remaining() == buffer.capacity() || !fillBuffer())
+                return buffer.remaining() >= needed;
+        }
+        return true;
+    }
+
+    /**
+     * Read more data into the buffer, keeping any unread bytes
+     */
+    private boolean fillBuffer() throws IOException {
+        if (bytesRemaining <= 0)
+            return false;
+        buffer.compact();
+        int limit = (int) Math.min(buffer.remaining(), bytesRemaining);
+        int oldLimit = buffer.limit();
+        buffer.limit(buffer.position() + limit);
+        int read = 0;
+        int r;
+        while (buffer.hasRemaining() && (r = channel.read(buffer)) >= 0) {
+            read += r;
+        }
+        buffer.limit(oldLimit);
+        buffer.flip();
+        if (read <= 0) {
+            bytesRemaining = 0;
+            return false;
+        }
+        bytesRemaining -= read;
+        return true;
+    }
+
+    private void readFully(ByteBuffer bb) throws IOException {
+        while (bb.hasRemaining()) {
+            if (channel.read(bb) < 0)
+                throw new IOException("Unexpected end of stream while reading wave header");
+        }
+    }
+
+    @Override
+    public void close() throws IOException {
+        channel.close();
+    }
+}
@@ -17,14 +17,75 @@
 package org.datavec.audio.dsp;
 
 import org.jtransforms.fft.DoubleFFT_1D;
+import org.jtransforms.fft.FloatFFT_1D;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
 
 /**
  * FFT object, transform amplitudes to frequency intensities
+ * <p>
+ * FFT plans are expensive to create, so they are cached per size and reused across calls. The cache is per thread,
+ * hence a FastFourierTransform may safely be used from multiple threads concurrently, and holds only the plans of the
+ * few most recently used sizes.
  *
  * @author Jacquet Wong
  */
 public class FastFourierTransform {
 
+    //Max number of plans cached per thread and precision: typically, only one or two frame sizes are in use
+    private static final int MAX_CACHED_PLANS = 4;
+
+    private static final ThreadLocal<Map<Integer, DoubleFFT_1D>> DOUBLE_PLANS =
+                    new ThreadLocal<Map<Integer, DoubleFFT_1D>>() {
+                        @Override
+                        protected Map<Integer, DoubleFFT_1D> initialValue() {
+                            return new PlanCache<>();
+                        }
+                    };
+
+    private static final ThreadLocal<Map<Integer, FloatFFT_1D>> FLOAT_PLANS =
+                    new ThreadLocal<Map<Integer, FloatFFT_1D>>() {
+                        @Override
+                        protected Map<Integer, FloatFFT_1D> initialValue() {
+                            return new PlanCache<>();
+                        }
+                    };
+
+    /**
+     * Least recently used cache of FFT plans, by size
+     */
+    private static class PlanCache<T> extends LinkedHashMap<Integer, T> {
+        private PlanCache() {
+            super(MAX_CACHED_PLANS + 1, 1.0f, true);
+        }
+
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Integer, T> eldest) {
+            return size() > MAX_CACHED_PLANS;
+        }
+    }
+
+    private static DoubleFFT_1D doublePlan(int size) {
+        Map<Integer, DoubleFFT_1D> plans = DOUBLE_PLANS.get();
+        DoubleFFT_1D fft = plans.get(size);
+        if (fft == null) {
+            fft = new DoubleFFT_1D(size);
+            plans.put(size, fft);
+        }
+        return fft;
+    }
+
+    private static FloatFFT_1D floatPlan(int size) {
+        Map<Integer, FloatFFT_1D> plans = FLOAT_PLANS.get();
+        FloatFFT_1D fft = plans.get(size);
+        if (fft == null) {
+            fft = new FloatFFT_1D(size);
+            plans.put(size, fft);
+        }
+        return fft;
+    }
+
     /**
      * Get the frequency intensities
      *
@@ -34,6 +95,21 @@ public class FastFourierTransform {
      * @return intensities of each frequency unit: mag[frequency_unit]=intensity
      */
     public double[] getMagnitudes(double[] amplitudes, boolean complex) {
+        double[] mag = new double[amplitudes.length / 2];
+        getMagnitudes(amplitudes, complex, mag);
+        return mag;
+    }
+
+    /**
+     * Get the frequency intensities, writing them to the provided array instead of allocating a new one.
+     * Note that amplitudes is used as the work array of the FFT, and is overwritten.
+     *
+     * @param amplitudes amplitudes of the signal. Format depends on value of complex
+     * @param complex    if true, amplitudes is assumed to be complex interlaced (re = even, im = odd), if false amplitudes
+     *                   are assumed to be real valued.
+     * @param mag        output array for the intensities; length must be at least amplitudes.length / 2
+     */
+    public void getMagnitudes(double[] amplitudes, boolean complex, double[] mag) {
 
         final int sampleSize = amplitudes.length;
         final int nrofFrequencyBins = sampleSize / 2;
@@ -41,11 +117,9 @@ public class FastFourierTransform {
 
         // call the fft and transform the complex numbers
         if (complex) {
-            DoubleFFT_1D fft = new DoubleFFT_1D(nrofFrequencyBins);
-            fft.complexForward(amplitudes);
+            doublePlan(nrofFrequencyBins).complexForward(amplitudes);
         } else {
-            DoubleFFT_1D fft = new DoubleFFT_1D(sampleSize);
-            fft.realForward(amplitudes);
+            doublePlan(sampleSize).realForward(amplitudes);
             // amplitudes[1] contains re[sampleSize/2] or im[(sampleSize-1) / 2] (depending on whether sampleSize is odd or even)
             // Discard it as it is useless without the other part
             // im part dc bin is always 0 for real input
@@ -55,13 +129,29 @@ public class FastFourierTransform {
 
         // even indexes (0,2,4,6,...) are real parts
         // odd indexes (1,3,5,7,...) are img parts
-        double[] mag = new double[nrofFrequencyBins];
         for (int i = 0; i < nrofFrequencyBins; i++) {
             final int f = 2 * i;
             mag[i] = Math.sqrt(amplitudes[f] * amplitudes[f] + amplitudes[f + 1] * amplitudes[f + 1]);
         }
+    }
 
-        return mag;
+    /**
+     * Get the frequency intensities of a real valued signal, in single precision.
+     * Note that amplitudes is used as the work array of the FFT, and is overwritten.
+     *
+     * @param amplitudes real valued amplitudes of the signal
+     * @param mag        output array for the intensities; length must be at least amplitudes.length / 2
+     */
+    public void getMagnitudes(float[] amplitudes, float[] mag) {
+        final int nrofFrequencyBins = amplitudes.length / 2;
+
+        floatPlan(amplitudes.length).realForward(amplitudes);
+        amplitudes[1] = 0;
+
+        for (int i = 0; i < nrofFrequencyBins; i++) {
+            final int f = 2 * i;
+            mag[i] = (float) Math.sqrt(amplitudes[f] * amplitudes[f] + amplitudes[f + 1] * amplitudes[f + 1]);
+        }
     }
 
     /**
@@ -17,12 +17,25 @@
 package org.datavec.audio.extension;
 
 
+import org.datavec.api.util.concurrent.DaemonThreadFactory;
 import org.datavec.audio.Wave;
 import org.datavec.audio.dsp.FastFourierTransform;
 import org.datavec.audio.dsp.WindowFunction;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+
 /**
  * Handles the wave data in frequency-time domain.
+ * <p>
+ * Frames are transformed in parallel (see {@link #Spectrogram(Wave, int, int, int, boolean)}), on a pool shared by
+ * all spectrograms, directly into the spectrogram arrays: each frame is windowed from the sample amplitudes into a
+ * per-thread work array, so no intermediate copy of the (overlapped) signal is made.
  *
  * @author Jacquet Wong
  */
@@ -30,6 +43,7 @@ public class Spectrogram {
 
     public static final int SPECTROGRAM_DEFAULT_FFT_SAMPLE_SIZE = 1024;
     public static final int SPECTROGRAM_DEFAULT_OVERLAP_FACTOR = 0; // 0 for no overlapping
+    private static final int MIN_FRAMES_PER_THREAD = 64;
 
     private Wave wave;
     private double[][] spectrogram; // relative spectrogram
@@ -40,6 +54,17 @@ public class Spectrogram {
     private int framesPerSecond; // frame per second of the spectrogram
     private int numFrequencyUnit; // number of y-axis unit
     private double unitFrequency; // frequency per y-axis unit
+    private int numThreads; // number of threads used to transform the frames
+    private boolean floatPrecision; // if true, the fft is done in single precision
+
+    /**
+     * Pool on which frames are transformed, shared by all spectrograms (and created on first use) so that its threads,
+     * and their cached FFT plans, are reused
+     */
+    private static class FramePool {
+        private static final ExecutorService EXECUTOR = Executors.newFixedThreadPool(
+                        Runtime.getRuntime().availableProcessors(), new DaemonThreadFactory("DataVec-spectrogram"));
+    }
 
     /**
      * Constructor
@@ -51,6 +76,7 @@ public class Spectrogram {
         // default
         this.fftSampleSize = SPECTROGRAM_DEFAULT_FFT_SAMPLE_SIZE;
         this.overlapFactor = SPECTROGRAM_DEFAULT_OVERLAP_FACTOR;
+        this.numThreads = Runtime.getRuntime().availableProcessors();
         buildSpectrogram();
     }
 
@@ -62,7 +88,23 @@ public class Spectrogram {
      * @param overlapFactor	1/overlapFactor overlapping, e.g. 1/4=25% overlapping, 0 for no overlapping
      */
     public Spectrogram(Wave wave, int fftSampleSize, int overlapFactor) {
+        this(wave, fftSampleSize, overlapFactor, Runtime.getRuntime().availableProcessors(), false);
+    }
+
+    /**
+     * Constructor
+     *
+     * @param wave
+     * @param fftSampleSize	number of sample in fft, the value needed to be a number to power of 2
+     * @param overlapFactor	1/overlapFactor overlapping, e.g. 1/4=25% overlapping, 0 for no overlapping
+     * @param numThreads	number of threads used to transform the frames (the calling thread, and threads of a pool of
+     *                  one thread per available processor)
+     * @param floatPrecision	if true, do the fft in single precision: faster, but less accurate
+     */
+    public Spectrogram(Wave wave, int fftSampleSize, int overlapFactor, int numThreads, boolean floatPrecision) {
         this.wave = wave;
+        this.numThreads = Math.max(1, numThreads);
+        this.floatPrecision = floatPrecision;
 
         if (Integer.bitCount(fftSampleSize) == 1) {
             this.fftSampleSize = fftSampleSize;
@@ -81,25 +123,15 @@ public class Spectrogram {
      */
     private void buildSpectrogram() {
 
-        short[] amplitudes = wave.getSampleAmplitudes();
+        final short[] amplitudes = wave.getSampleAmplitudes();
         int numSamples = amplitudes.length;
 
-        int pointer = 0;
-        // overlapping
+        // overlapping: frame f starts at sample f * hop
+        int hop = fftSampleSize;
         if (overlapFactor > 1) {
-            int numOverlappedSamples = numSamples * overlapFactor;
             int backSamples = fftSampleSize * (overlapFactor - 1) / overlapFactor;
-            short[] overlapAmp = new short[numOverlappedSamples];
-            pointer = 0;
-            for (int i = 0; i < amplitudes.length; i++) {
-                overlapAmp[pointer++] = amplitudes[i];
-                if (pointer % fftSampleSize == 0) {
-                    // overlap
-                    i -= backSamples;
-                }
-            }
-            numSamples = numOverlappedSamples;
-            amplitudes = overlapAmp;
+            hop = fftSampleSize - backSamples;
+            numSamples = numSamples * overlapFactor;
         }
         // end overlapping
 
@@ -109,23 +141,44 @@ public class Spectrogram {
         // set signals for fft
         WindowFunction window = new WindowFunction();
         window.setWindowType("Hamming");
-        double[] win = window.generate(fftSampleSize);
+        final double[] win = window.generate(fftSampleSize);
+        final int frameHop = hop;
 
-        double[][] signals = new double[numFrames][];
-        for (int f = 0; f < numFrames; f++) {
-            signals[f] = new double[fftSampleSize];
-            int startSample = f * fftSampleSize;
-            for (int n = 0; n < fftSampleSize; n++) {
-                signals[f][n] = amplitudes[startSample + n] * win[n];
+        absoluteSpectrogram = new double[numFrames][fftSampleSize / 2];
+        int threads = Math.max(1, Math.min(numThreads, numFrames / MIN_FRAMES_PER_THREAD));
+        if (threads == 1) {
+            transformFrames(amplitudes, win, frameHop, 0, numFrames);
+        } else {
+            //The last range is transformed on the calling thread, the others on the shared pool
+            int perThread = (numFrames + threads - 1) / threads;
+            List<Future<?>> futures = new ArrayList<>(threads - 1);
+            int from = 0;
+            for (; from + perThread < numFrames; from += perThread) {
+                final int start = from;
+                final int end = from + perThread;
+                futures.add(FramePool.EXECUTOR.submit(new Callable<Void>() {
+                    @Override
+                    public Void call() {
+                        transformFrames(amplitudes, win, frameHop, start, end);
+                        return null;
+                    }
+                }));
+            }
+            try {
+                transformFrames(amplitudes, win, frameHop, from, numFrames);
+                for (Future<?> f : futures) {
+                    f.get();
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                throw new RuntimeException(e);
+            } catch (ExecutionException e) {
+                throw new RuntimeException(e.getCause());
+            } finally {
+                for (Future<?> f : futures) {
+                    f.cancel(true);
+                }
             }
-        }
-        // end set signals for fft
-
-        absoluteSpectrogram = new double[numFrames][];
-        // for each frame in signals, do fft on it
-        FastFourierTransform fft = new FastFourierTransform();
-        for (int i = 0; i < numFrames; i++) {
-            absoluteSpectrogram[i] = fft.getMagnitudes(signals[i], false);
         }
 
         if (absoluteSpectrogram.length > 0) {
@@ -171,6 +224,41 @@ public class Spectrogram {
         }
     }
 
+    /**
+     * Window and transform frames [from, to) into the rows of absoluteSpectrogram.<br>
+     * With overlapping, samples are read as if from the overlapped signal of the original implementation: frames
+     * past the first incomplete one (at the end of the wave) are all zero.
+     */
+    private void transformFrames(short[] amplitudes, double[] win, int hop, int from, int to) {
+        FastFourierTransform fft = new FastFourierTransform();
+        double[] signal = floatPrecision ? null : new double[fftSampleSize];
+        float[] signalF = floatPrecision ? new float[fftSampleSize] : null;
+        float[] magF = floatPrecision ? new float[fftSampleSize / 2] : null;
+        for (int f = from; f < to; f++) {
+            int startSample = f * hop;
+            boolean filled = f == 0 || (f - 1) * hop + fftSampleSize <= amplitudes.length;
+            for (int n = 0; n < fftSampleSize; n++) {
+                int idx = startSample + n;
+                double v = filled && idx < amplitudes.length ? amplitudes[idx] * win[n] : 0.0;
+                if (floatPrecision) {
+                    signalF[n] = (float) v;
+                } else {
+                    signal[n] = v;
+                }
+            }
+
+            double[] row = absoluteSpectrogram[f];
+            if (floatPrecision) {
+                fft.getMagnitudes(signalF, magF);
+                for (int j = 0; j < magF.length; j++) {
+                    row[j] = magF[j];
+                }
+            } else {
+                fft.getMagnitudes(signal, false, row);
+            }
+        }
+    }
+
     /**
      * Get spectrogram: spectrogram[time][frequency]=intensity
      *
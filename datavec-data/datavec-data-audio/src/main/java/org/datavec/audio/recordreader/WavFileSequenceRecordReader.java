@@ -0,0 +1,261 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.audio.recordreader;
+
+import org.datavec.api.conf.Configuration;
+import org.datavec.api.records.Record;
+import org.datavec.api.records.SequenceRecord;
+import org.datavec.api.records.metadata.RecordMetaData;
+import org.datavec.api.records.metadata.RecordMetaDataInterval;
+import org.datavec.api.records.reader.SequenceRecordReader;
+import org.datavec.api.records.reader.impl.FileRecordReader;
+import org.datavec.api.split.InputSplit;
+import org.datavec.api.util.RecordUtils;
+import org.datavec.api.writable.Writable;
+import org.datavec.audio.WaveWindowReader;
+import org.datavec.audio.dsp.FastFourierTransform;
+import org.datavec.audio.dsp.WindowFunction;
+
+import java.io.DataInputStream;
+import java.io.File;
+import java.io.IOException;
+import java.net.URI;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Sequence record reader for wave files, that streams the samples of each file as fixed size (optionally
+ * overlapping) windows, instead of loading the whole file into memory as {@link WavFileRecordReader} does.<br>
+ * Each time step of a sequence is one window: either the normalized amplitudes of the window's samples
+ * (windowSize values), or, if {@link #SPECTROGRAM} is set, the FFT magnitudes of the Hamming windowed samples
+ * (windowSize / 2 values, as per {@link org.datavec.audio.extension.Spectrogram#getAbsoluteSpectrogramData()}).
+ * <p>
+ * By default, each file is returned as a single sequence. For long recordings, set a maximum sequence length
+ * ({@link #MAX_SEQUENCE_LENGTH}): each file is then split into consecutive sequences of at most that many windows,
+ * and memory use is bounded by the window size and the maximum sequence length, irrespective of the file length.
+ */
+public class WavFileSequenceRecordReader extends FileRecordReader implements SequenceRecordReader {
+
+    public static final String WINDOW_SIZE = NAME_SPACE + ".wav.windowsize";
+    public static final String WINDOW_OVERLAP = NAME_SPACE + ".wav.windowoverlap";
+    public static final String SPECTROGRAM = NAME_SPACE + ".wav.spectrogram";
+    public static final String MAX_SEQUENCE_LENGTH = NAME_SPACE + ".wav.maxsequencelength";
+
+    public static final int DEFAULT_WINDOW_SIZE = 1024;
+
+    private int windowSize = DEFAULT_WINDOW_SIZE;
+    private int windowOverlap = 0;
+    private boolean spectrogram = false;
+    private int maxSequenceLength = -1;
+
+    private WaveWindowReader current;
+    private URI currentUri;
+
+    public WavFileSequenceRecordReader() {}
+
+    /**
+     * @param windowSize    Number of samples per time step
+     * @param windowOverlap Number of samples shared by consecutive time steps
+     */
+    public WavFileSequenceRecordReader(int windowSize, int windowOverlap) {
+        this(windowSize, windowOverlap, false, -1);
+    }
+
+    /**
+     * @param windowSize        Number of samples per time step
+     * @param windowOverlap     Number of samples shared by consecutive time steps
+     * @param spectrogram       If true: return the FFT magnitudes of each window instead of its amplitudes
+     * @param maxSequenceLength Maximum number of time steps per sequence; -1 to return each file as one sequence
+     */
+    public WavFileSequenceRecordReader(int windowSize, int windowOverlap, boolean spectrogram,
+                    int maxSequenceLength) {
+        this.windowSize = windowSize;
+        this.windowOverlap = windowOverlap;
+        this.spectrogram = spectrogram;
+        this.maxSequenceLength = maxSequenceLength;
+    }
+
+    @Override
+    public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
+        setConf(conf);
+        initialize(split);
+    }
+
+    @Override
+    public void setConf(Configuration conf) {
+        super.setConf(conf);
+        windowSize = conf.getInt(WINDOW_SIZE, windowSize);
+        windowOverlap = conf.getInt(WINDOW_OVERLAP, windowOverlap);
+        spectrogram = conf.getBoolean(SPECTROGRAM, spectrogram);
+        maxSequenceLength = conf.getInt(MAX_SEQUENCE_LENGTH, maxSequenceLength);
+    }
+
+    @Override
+    public boolean hasNext() {
+        if (current != null && current.hasNext())
+            return true;
+        closeCurrent();
+        return super.hasNext();
+    }
+
+    @Override
+    public List<List<Writable>> sequenceRecord() {
+        return nextSequence().getSequenceRecord();
+    }
+
+    @Override
+    public List<List<Writable>> sequenceRecord(URI uri, DataInputStream dataInputStream) throws IOException {
+        invokeListeners(uri);
+        try (WaveWindowReader reader = new WaveWindowReader(dataInputStream, windowSize, windowOverlap)) {
+            return readWindows(reader, -1);
+        }
+    }
+
+    @Override
+    public SequenceRecord nextSequence() {
+        try {
+            if (current == null || !current.hasNext()) {
+                closeCurrent();
+                File next = nextFile();
+                invokeListeners(next);
+                current = new WaveWindowReader(next, windowSize, windowOverlap);
+                currentUri = next.toURI();
+            }
+
+            long from = current.getWindowsRead();
+            List<List<Writable>> sequence = readWindows(current, maxSequenceLength);
+            long to = current.getWindowsRead();
+            URI uri = currentUri;
+            if (!current.hasNext())
+                closeCurrent();
+
+            return new org.datavec.api.records.impl.SequenceRecord(sequence,
+                            new RecordMetaDataInterval(from, to, uri, WavFileSequenceRecordReader.class));
+        } catch (IOException e) {
+            throw new RuntimeException(e);
+        }
+    }
+
+    @Override
+    public SequenceRecord loadSequenceFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        return loadSequenceFromMetaData(Collections.singletonList(recordMetaData)).get(0);
+    }
+
+    @Override
+    public List<SequenceRecord> loadSequenceFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        List<SequenceRecord> out = new ArrayList<>();
+        for (RecordMetaData meta : recordMetaDatas) {
+            File f = new File(meta.getURI());
+            try (WaveWindowReader reader = new WaveWindowReader(f, windowSize, windowOverlap)) {
+                List<List<Writable>> sequence;
+                if (meta instanceof RecordMetaDataInterval) {
+                    RecordMetaDataInterval interval = (RecordMetaDataInterval) meta;
+                    int numWindows = (int) (interval.getTo() - interval.getFrom());
+                    reader.skipWindows(interval.getFrom());
+                    sequence = numWindows > 0 ? readWindows(reader, numWindows)
+                                    : new ArrayList<List<Writable>>();
+                } else {
+                    sequence = readWindows(reader, -1);
+                }
+                out.add(new org.datavec.api.records.impl.SequenceRecord(sequence, meta));
+            }
+        }
+        return out;
+    }
+
+    private List<List<Writable>> readWindows(WaveWindowReader reader, int maxWindows) throws IOException {
+        List<List<Writable>> out = new ArrayList<>();
+        double[] win = null;
+        double[] signal = null;
+        double[] magnitudes = null;
+        FastFourierTransform fft = null;
+        if (spectrogram) {
+            WindowFunction window = new WindowFunction();
+            window.setWindowType("Hamming");
+            win = window.generate(windowSize);
+            signal = new double[windowSize];
+            magnitudes = new double[windowSize / 2];
+            fft = new FastFourierTransform();
+        }
+
+        while (reader.hasNext() && (maxWindows <= 0 || out.size() < maxWindows)) {
+            if (spectrogram) {
+                short[] amplitudes = reader.next();
+                for (int i = 0; i < windowSize; i++) {
+                    signal[i] = amplitudes[i] * win[i];
+                }
+                fft.getMagnitudes(signal, false, magnitudes);
+                out.add(RecordUtils.toRecord(magnitudes));
+            } else {
+                signal = reader.nextNormalized(signal);
+                out.add(RecordUtils.toRecord(signal));
+            }
+        }
+        return out;
+    }
+
+    private void closeCurrent() {
+        if (current != null) {
+            try {
+                current.close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+            current = null;
+            currentUri = null;
+        }
+    }
+
+    @Override
+    public List<Writable> next() {
+        throw new UnsupportedOperationException(
+                        "next() not supported for WavFileSequenceRecordReader (use: sequenceRecord)");
+    }
+
+    @Override
+    public Record nextRecord() {
+        throw new UnsupportedOperationException("Use nextSequence() for sequence readers");
+    }
+
+    @Override
+    public List<Writable> record(URI uri, DataInputStream dataInputStream) throws IOException {
+        throw new UnsupportedOperationException(
+                        "record(URI,DataInputStream) not supported for WavFileSequenceRecordReader");
+    }
+
+    @Override
+    public Record loadFromMetaData(RecordMetaData recordMetaData) throws IOException {
+        throw new UnsupportedOperationException("Use loadSequenceFromMetaData() for sequence readers");
+    }
+
+    @Override
+    public List<Record> loadFromMetaData(List<RecordMetaData> recordMetaDatas) throws IOException {
+        throw new UnsupportedOperationException("Use loadSequenceFromMetaData() for sequence readers");
+    }
+
+    @Override
+    public void reset() {
+        closeCurrent();
+        super.reset();
+    }
+
+    @Override
+    public void close() throws IOException {
+        closeCurrent();
+    }
+}
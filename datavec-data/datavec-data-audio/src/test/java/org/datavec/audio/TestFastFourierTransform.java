@@ -61,4 +61,25 @@ public class TestFastFourierTransform {
         Assert.assertEquals(3, frequencies.length);
         Assert.assertArrayEquals(new double[] {24.2, 3.861, 16.876}, frequencies, 0.005);
     }
+
+    @Test
+    public void testFastFourierTransformManySizes() {
+        //More sizes than plans are cached: evicted plans are recreated
+        FastFourierTransform fft = new FastFourierTransform();
+        double[][] expected = new double[16][];
+        for (int rep = 0; rep < 2; rep++) {
+            for (int i = 0; i < expected.length; i++) {
+                double[] amplitudes = new double[2 * (i + 2)];
+                for (int j = 0; j < amplitudes.length; j++) {
+                    amplitudes[j] = Math.sin(j + i);
+                }
+                double[] frequencies = fft.getMagnitudes(amplitudes, false);
+                if (rep == 0) {
+                    expected[i] = frequencies;
+                } else {
+                    Assert.assertArrayEquals(expected[i], frequencies, 0.0);
+                }
+            }
+        }
+    }
 }
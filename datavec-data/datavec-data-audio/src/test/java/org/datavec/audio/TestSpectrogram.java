@@ -0,0 +1,151 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.audio;
+
+import org.datavec.audio.dsp.FastFourierTransform;
+import org.datavec.audio.dsp.WindowFunction;
+import org.datavec.audio.extension.Spectrogram;
+import org.junit.Ignore;
+import org.junit.Test;
+
+import java.util.Random;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class TestSpectrogram {
+
+    @Test
+    public void testSpectrogramMatchesSequential() {
+        Wave wave = randomWave(8000 * 10 + 123, 12345);
+
+        for (int overlapFactor : new int[] {0, 2, 4}) {
+            double[][] expected = referenceSpectrogram(wave, 256, overlapFactor);
+
+            for (int numThreads : new int[] {1, 4}) {
+                Spectrogram s = new Spectrogram(wave, 256, overlapFactor, numThreads, false);
+                double[][] actual = s.getAbsoluteSpectrogramData();
+                assertEquals(expected.length, actual.length);
+                assertEquals(expected.length, s.getNumFrames());
+                for (int i = 0; i < expected.length; i++) {
+                    assertArrayEquals(expected[i], actual[i], 1e-6);
+                }
+            }
+
+            Spectrogram sFloat = new Spectrogram(wave, 256, overlapFactor, 4, true);
+            double[][] actual = sFloat.getAbsoluteSpectrogramData();
+            assertEquals(expected.length, actual.length);
+            for (int i = 0; i < expected.length; i++) {
+                //Single precision error is relative to the largest magnitude of the frame
+                double max = 1.0;
+                for (double d : expected[i]) {
+                    max = Math.max(max, d);
+                }
+                assertArrayEquals(expected[i], actual[i], 1e-4 * max);
+            }
+        }
+    }
+
+    @Test
+    public void testSpectrogramThreadsReused() {
+        Wave wave = randomWave(8000 * 10, 12345);
+        double[][] expected = new Spectrogram(wave, 256, 2, 1, false).getAbsoluteSpectrogramData();
+
+        //Spectrograms share one pool: threads are not created per spectrogram
+        for (int i = 0; i < 10; i++) {
+            double[][] actual = new Spectrogram(wave, 256, 2, 4, false).getAbsoluteSpectrogramData();
+            for (int j = 0; j < expected.length; j++) {
+                assertArrayEquals(expected[j], actual[j], 0.0);
+            }
+        }
+        int count = 0;
+        for (Thread t : Thread.getAllStackTraces().keySet()) {
+            if (t.getName().startsWith("DataVec-spectrogram")) {
+                assertTrue(t.isDaemon());
+                count++;
+            }
+        }
+        assertTrue(count <= Runtime.getRuntime().availableProcessors());
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkSpectrogram() {
+        //One hour of 8kHz mono audio (the default header)
+        Wave wave = randomWave(8000 * 3600, 12345);
+
+        for (int numThreads : new int[] {1, Runtime.getRuntime().availableProcessors()}) {
+            for (boolean floatPrecision : new boolean[] {false, true}) {
+                long start = System.currentTimeMillis();
+                Spectrogram s = new Spectrogram(wave, 1024, 2, numThreads, floatPrecision);
+                long end = System.currentTimeMillis();
+                System.out.println("Threads: " + numThreads + ", float: " + floatPrecision + ", frames: "
+                                + s.getNumFrames() + ", time: " + (end - start) + " ms");
+            }
+        }
+    }
+
+    private static Wave randomWave(int numSamples, long seed) {
+        Random r = new Random(seed);
+        byte[] data = new byte[2 * numSamples];
+        r.nextBytes(data);
+        WaveHeader header = new WaveHeader();
+        header.setSubChunk2Size(data.length);
+        header.setChunkSize(data.length + 36);
+        return new Wave(header, data);
+    }
+
+    /**
+     * Spectrogram computed as in the original implementation: copy out the (overlapped) frames, then transform
+     * them one at a time
+     */
+    private static double[][] referenceSpectrogram(Wave wave, int fftSampleSize, int overlapFactor) {
+        short[] amplitudes = wave.getSampleAmplitudes();
+        int numSamples = amplitudes.length;
+        if (overlapFactor > 1) {
+            int numOverlappedSamples = numSamples * overlapFactor;
+            int backSamples = fftSampleSize * (overlapFactor - 1) / overlapFactor;
+            short[] overlapAmp = new short[numOverlappedSamples];
+            int pointer = 0;
+            for (int i = 0; i < amplitudes.length; i++) {
+                overlapAmp[pointer++] = amplitudes[i];
+                if (pointer % fftSampleSize == 0) {
+                    i -= backSamples;
+                }
+            }
+            numSamples = numOverlappedSamples;
+            amplitudes = overlapAmp;
+        }
+
+        int numFrames = numSamples / fftSampleSize;
+        WindowFunction window = new WindowFunction();
+        window.setWindowType("Hamming");
+        double[] win = window.generate(fftSampleSize);
+
+        double[][] out = new double[numFrames][];
+        FastFourierTransform fft = new FastFourierTransform();
+        for (int f = 0; f < numFrames; f++) {
+            double[] signal = new double[fftSampleSize];
+            for (int n = 0; n < fftSampleSize; n++) {
+                signal[n] = amplitudes[f * fftSampleSize + n] * win[n];
+            }
+            out[f] = fft.getMagnitudes(signal, false);
+        }
+        return out;
+    }
+}
@@ -0,0 +1,129 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.audio;
+
+import org.datavec.api.records.SequenceRecord;
+import org.datavec.api.split.FileSplit;
+import org.datavec.api.writable.Writable;
+import org.datavec.audio.extension.Spectrogram;
+import org.datavec.audio.recordreader.WavFileSequenceRecordReader;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+import java.io.File;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class TestWavFileSequenceRecordReader {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testAmplitudeWindows() throws Exception {
+        File f = writeWave(10000);
+        double[] expected = new Wave(f.getAbsolutePath()).getNormalizedAmplitudes();
+
+        //Window of 256 with overlap of 56 -> hop of 200
+        WavFileSequenceRecordReader rr = new WavFileSequenceRecordReader(256, 56);
+        rr.initialize(new FileSplit(f));
+        assertTrue(rr.hasNext());
+        List<List<Writable>> seq = rr.sequenceRecord();
+        assertFalse(rr.hasNext());
+
+        assertEquals((10000 - 256) / 200 + 1, seq.size());
+        for (int i = 0; i < seq.size(); i++) {
+            List<Writable> step = seq.get(i);
+            assertEquals(256, step.size());
+            for (int j = 0; j < 256; j++) {
+                assertEquals(expected[i * 200 + j], step.get(j).toDouble(), 0.0);
+            }
+        }
+    }
+
+    @Test
+    public void testSpectrogramWindows() throws Exception {
+        File f = writeWave(10000);
+        double[][] expected = new Spectrogram(new Wave(f.getAbsolutePath()), 256, 0).getAbsoluteSpectrogramData();
+
+        WavFileSequenceRecordReader rr = new WavFileSequenceRecordReader(256, 0, true, -1);
+        rr.initialize(new FileSplit(f));
+        List<List<Writable>> seq = rr.sequenceRecord();
+
+        assertEquals(expected.length, seq.size());
+        for (int i = 0; i < seq.size(); i++) {
+            assertEquals(128, seq.get(i).size());
+            for (int j = 0; j < 128; j++) {
+                assertEquals(expected[i][j], seq.get(i).get(j).toDouble(), 1e-6);
+            }
+        }
+    }
+
+    @Test
+    public void testMaxSequenceLengthAndMetaData() throws Exception {
+        File f = writeWave(10000);
+
+        WavFileSequenceRecordReader rr = new WavFileSequenceRecordReader(100, 0);
+        rr.initialize(new FileSplit(f));
+        List<List<Writable>> all = rr.sequenceRecord();
+        assertEquals(100, all.size());
+
+        //100 windows, in sequences of at most 30 windows
+        rr = new WavFileSequenceRecordReader(100, 0, false, 30);
+        rr.initialize(new FileSplit(f));
+        List<SequenceRecord> records = new ArrayList<>();
+        List<List<Writable>> joined = new ArrayList<>();
+        while (rr.hasNext()) {
+            SequenceRecord r = rr.nextSequence();
+            records.add(r);
+            joined.addAll(r.getSequenceRecord());
+        }
+        assertEquals(4, records.size());
+        assertEquals(30, records.get(0).getSequenceRecord().size());
+        assertEquals(10, records.get(3).getSequenceRecord().size());
+        assertEquals(all, joined);
+
+        for (SequenceRecord r : records) {
+            SequenceRecord fromMeta = rr.loadSequenceFromMetaData(r.getMetaData());
+            assertEquals(r.getSequenceRecord(), fromMeta.getSequenceRecord());
+        }
+
+        rr.reset();
+        assertTrue(rr.hasNext());
+        assertEquals(records.get(0).getSequenceRecord(), rr.sequenceRecord());
+        rr.close();
+    }
+
+    private File writeWave(int numSamples) throws Exception {
+        Random r = new Random(12345);
+        byte[] data = new byte[2 * numSamples];
+        r.nextBytes(data);
+        WaveHeader header = new WaveHeader();
+        header.setSubChunk2Size(data.length);
+        header.setChunkSize(data.length + 36);
+
+        File f = new File(testDir.newFolder(), "test.wav");
+        new WaveFileManager(new Wave(header, data)).saveWaveAsFile(f.getAbsolutePath());
+        return f;
+    }
+}
@@ -47,6 +47,10 @@ public abstract class BaseCodecRecordReader extends FileRecordReader implements
     protected double videoLength = -1;
     protected int rows = 28, cols = 28;
     protected boolean ravel = false;
+    protected int frameStride = 1;
+    protected int clipLength = -1;
+    protected int clipOverlap = 0;
+    protected int channels = -1;
 
     public final static String NAME_SPACE = "org.datavec.codec.reader";
     public final static String ROWS = NAME_SPACE + ".rows";
@@ -56,6 +60,14 @@ public abstract class BaseCodecRecordReader extends FileRecordReader implements
     public final static String TIME_SLICE = NAME_SPACE + ".time";
     public final static String RAVEL = NAME_SPACE + ".ravel";
     public final static String VIDEO_DURATION = NAME_SPACE + ".duration";
+    /** Keep only every n-th frame in frame mode (default: 1, all frames) */
+    public final static String FRAME_STRIDE = NAME_SPACE + ".framestride";
+    /** Number of frames per clip, when reading a video as a sequence of fixed length clips */
+    public final static String CLIP_LENGTH = NAME_SPACE + ".cliplength";
+    /** Number of frames shared by consecutive clips (default: 0, no overlap) */
+    public final static String CLIP_OVERLAP = NAME_SPACE + ".clipoverlap";
+    /** Number of channels to convert frames to (default: -1, keep the channels of the video) */
+    public final static String CHANNELS = NAME_SPACE + ".channels";
 
 
     @Override
@@ -107,6 +119,15 @@ public abstract class BaseCodecRecordReader extends FileRecordReader implements
         videoLength = conf.getFloat(VIDEO_DURATION, -1);
         ravel = conf.getBoolean(RAVEL, false);
         totalFrames = conf.getInt(TOTAL_FRAMES, -1);
+        frameStride = conf.getInt(FRAME_STRIDE, 1);
+        clipLength = conf.getInt(CLIP_LENGTH, -1);
+        clipOverlap = conf.getInt(CLIP_OVERLAP, 0);
+        channels = conf.getInt(CHANNELS, -1);
+        if (frameStride < 1)
+            throw new IllegalArgumentException("Frame stride must be >= 1, got " + frameStride);
+        if (clipLength > 0 && (clipOverlap < 0 || clipOverlap >= clipLength))
+            throw new IllegalArgumentException("Clip overlap must be >= 0 and < clip length (" + clipLength
+                            + "), got " + clipOverlap);
     }
 
     @Override
@@ -16,6 +16,7 @@
 
 package org.datavec.codec.reader;
 
+import org.bytedeco.javacpp.opencv_core.Mat;
 import org.bytedeco.javacv.FFmpegFrameGrabber;
 import org.bytedeco.javacv.Frame;
 import org.bytedeco.javacv.OpenCVFrameConverter;
@@ -23,15 +24,27 @@ import org.datavec.api.conf.Configuration;
 import org.datavec.api.util.ndarray.RecordConverter;
 import org.datavec.api.writable.Writable;
 import org.datavec.image.loader.NativeImageLoader;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 
+import java.io.Closeable;
 import java.io.File;
 import java.io.IOException;
 import java.io.InputStream;
 import java.util.ArrayList;
+import java.util.Iterator;
 import java.util.List;
+import java.util.NoSuchElementException;
 
 /**
  * An implementation of the CodecRecordReader that uses JavaCV and FFmpeg.
+ * <p>
+ * Frames are decoded sequentially: the grabber seeks at most once (to the start frame), and frames are sampled
+ * by frame stride ({@link #FRAME_STRIDE}) or by time interval ({@link #TIME_SLICE}) as they are decoded.
+ * Besides the usual sequence records, a whole video can be loaded directly into a preallocated
+ * [frames, channels, height, width] array with {@link #loadTensor(File)}, and long videos can be consumed with
+ * bounded memory as a sequence of (possibly overlapping) clips with {@link #clipIterator(File)}.
  *
  * @author saudet
  */
@@ -44,7 +57,7 @@ public class NativeCodecRecordReader extends BaseCodecRecordReader {
     public void setConf(Configuration conf) {
         super.setConf(conf);
         converter = new OpenCVFrameConverter.ToMat();
-        imageLoader = new NativeImageLoader(rows, cols);
+        imageLoader = channels > 0 ? new NativeImageLoader(rows, cols, channels) : new NativeImageLoader(rows, cols);
     }
 
     @Override
@@ -53,31 +66,221 @@ public class NativeCodecRecordReader extends BaseCodecRecordReader {
 
         try (FFmpegFrameGrabber fg =
                         inputStream != null ? new FFmpegFrameGrabber(inputStream) : new FFmpegFrameGrabber(file)) {
-            if (numFrames >= 1) {
-                fg.start();
+            FrameSampler sampler = new FrameSampler(fg);
+            Mat mat;
+            while ((mat = sampler.next()) != null) {
+                record.add(RecordConverter.toRecord(imageLoader.asRowVector(mat)));
+            }
+        }
+
+        return record;
+    }
+
+    /**
+     * Load the sampled frames of the given video into a single array of shape [frames, channels, height, width],
+     * without creating intermediate per-frame records
+     *
+     * @param file Video file to load
+     * @return Array of frames
+     */
+    public INDArray loadTensor(File file) throws IOException {
+        try (FFmpegFrameGrabber fg = new FFmpegFrameGrabber(file)) {
+            FrameSampler sampler = new FrameSampler(fg);
+            Mat mat = sampler.next();
+            if (mat == null)
+                return null;
+
+            int n = sampler.expectedFrames();
+            INDArray out = Nd4j.createUninitialized(new int[] {n, frameChannels(mat), rows, cols}, 'c');
+            int count = 0;
+            while (mat != null && count < n) {
+                imageLoader.asMatrixView(mat, out.tensorAlongDimension(count++, 1, 2, 3));
+                mat = sampler.next();
+            }
+            if (count < n) {
+                //Video was shorter than expected
+                out = out.get(NDArrayIndex.interval(0, count), NDArrayIndex.all(), NDArrayIndex.all(),
+                                NDArrayIndex.all()).dup();
+            }
+            return out;
+        }
+    }
+
+    /**
+     * Read the sampled frames of the given video as clips of {@link #CLIP_LENGTH} frames, each of shape
+     * [frames, channels, height, width]. Consecutive clips share {@link #CLIP_OVERLAP} frames; the last clip may be
+     * shorter than the clip length. Only one clip is held in memory at a time, and the video is decoded lazily as
+     * the iterator is advanced.<br>
+     * The returned iterator should be closed if it is not fully consumed.
+     *
+     * @param file Video file to read
+     * @return Iterator over the clips of the video
+     */
+    public ClipIterator clipIterator(File file) throws IOException {
+        if (clipLength < 1)
+            throw new IllegalStateException("Clip length must be set (" + CLIP_LENGTH + ") to read clips");
+        return new ClipIterator(new FFmpegFrameGrabber(file));
+    }
+
+    private int frameChannels(Mat first) {
+        return channels > 0 ? channels : first.channels();
+    }
+
+    /**
+     * Iterator over the fixed length clips of a video. See {@link #clipIterator(File)}
+     */
+    public class ClipIterator implements Iterator<INDArray>, Closeable {
+        private final FFmpegFrameGrabber fg;
+        private final FrameSampler sampler;
+        private Mat nextMat;
+        private INDArray previous;
+        private int frameChannels;
+        private boolean closed;
+
+        private ClipIterator(FFmpegFrameGrabber fg) throws IOException {
+            this.fg = fg;
+            this.sampler = new FrameSampler(fg);
+            this.nextMat = sampler.next();
+            if (nextMat != null) {
+                frameChannels = frameChannels(nextMat);
+            } else {
+                close();
+            }
+        }
+
+        @Override
+        public boolean hasNext() {
+            return nextMat != null;
+        }
+
+        @Override
+        public INDArray next() {
+            if (nextMat == null)
+                throw new NoSuchElementException("No more clips");
+
+            INDArray clip = Nd4j.createUninitialized(new int[] {clipLength, frameChannels, rows, cols}, 'c');
+            int count = 0;
+            if (previous != null && clipOverlap > 0) {
+                //Overlapping frames are copied from the end of the previous clip rather than decoded again
+                clip.get(NDArrayIndex.interval(0, clipOverlap), NDArrayIndex.all(), NDArrayIndex.all(),
+                                NDArrayIndex.all())
+                                .assign(previous.get(NDArrayIndex.interval(clipLength - clipOverlap, clipLength),
+                                                NDArrayIndex.all(), NDArrayIndex.all(), NDArrayIndex.all()));
+                count = clipOverlap;
+            }
+
+            try {
+                while (nextMat != null && count < clipLength) {
+                    imageLoader.asMatrixView(nextMat, clip.tensorAlongDimension(count++, 1, 2, 3));
+                    nextMat = sampler.next();
+                }
+                if (nextMat == null)
+                    close();
+            } catch (IOException e) {
+                throw new RuntimeException(e);
+            }
+
+            if (count < clipLength) {
+                clip = clip.get(NDArrayIndex.interval(0, count), NDArrayIndex.all(), NDArrayIndex.all(),
+                                NDArrayIndex.all()).dup();
+            }
+            previous = clip;
+            return clip;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported");
+        }
+
+        @Override
+        public void close() throws IOException {
+            if (!closed) {
+                closed = true;
+                nextMat = null;
+                fg.close();
+            }
+        }
+    }
+
+    /**
+     * Decodes frames sequentially, returning only the frames selected by the reader's configuration: either every
+     * {@link #frameStride}-th frame of [startFrame, startFrame + numFrames), or one frame every {@link #framesPerSecond}
+     * seconds up to {@link #videoLength} seconds (or the end of the video, if no length is set).
+     * Returned Mats are only valid until the next call to {@link #next()}.
+     */
+    private class FrameSampler {
+        private final FFmpegFrameGrabber fg;
+        private final boolean frameMode;
+        private final long intervalMicros;
+        private final long endMicros;
+        private int frameIdx;
+        private long nextTimestamp;
+        private Mat repeat;
+        private int repeatCount;
+
+        private FrameSampler(FFmpegFrameGrabber fg) throws IOException {
+            this.fg = fg;
+            this.frameMode = numFrames >= 1;
+            if (!frameMode && framesPerSecond <= 0)
+                throw new IllegalStateException("No frames or frame time intervals specified");
+
+            fg.start();
+            if (frameMode) {
                 if (startFrame != 0)
                     fg.setFrameNumber(startFrame);
+                intervalMicros = 0;
+                endMicros = 0;
+            } else {
+                intervalMicros = Math.max(1, Math.round(framesPerSecond * 1000000L));
+                endMicros = videoLength > 0 ? Math.round(videoLength * 1000000L) : fg.getLengthInTime();
+            }
+        }
+
+        /**
+         * @return Number of frames that will be returned, if the video is long enough
+         */
+        private int expectedFrames() {
+            if (frameMode)
+                return (numFrames + frameStride - 1) / frameStride;
+            return (int) ((endMicros + intervalMicros - 1) / intervalMicros);
+        }
 
-                for (int i = startFrame; i < startFrame + numFrames; i++) {
+        private Mat next() throws IOException {
+            if (repeatCount > 0) {
+                repeatCount--;
+                return repeat;
+            }
+            if (frameMode) {
+                while (frameIdx < numFrames) {
                     Frame grab = fg.grabImage();
-                    record.add(RecordConverter.toRecord(imageLoader.asRowVector(converter.convert(grab))));
+                    if (grab == null)
+                        return null;
+                    if (frameIdx++ % frameStride == 0)
+                        return converter.convert(grab);
                 }
-            } else {
-                if (framesPerSecond < 1)
-                    throw new IllegalStateException("No frames or frame time intervals specified");
-                else {
-                    fg.start();
-
-                    for (double i = 0; i < videoLength; i += framesPerSecond) {
-                        fg.setTimestamp(Math.round(i * 1000000L));
-                        Frame grab = fg.grabImage();
-                        record.add(RecordConverter.toRecord(imageLoader.asRowVector(converter.convert(grab))));
+                return null;
+            }
+
+            while (nextTimestamp < endMicros) {
+                Frame grab = fg.grabImage();
+                if (grab == null)
+                    return null;
+                long ts = fg.getTimestamp();
+                if (ts >= nextTimestamp) {
+                    //A frame may cover more than one sampling time, if frames are sparser than the interval
+                    int n = 0;
+                    while (ts >= nextTimestamp && nextTimestamp < endMicros) {
+                        nextTimestamp += intervalMicros;
+                        n++;
                     }
+                    repeat = converter.convert(grab);
+                    repeatCount = n - 1;
+                    return repeat;
                 }
             }
+            return null;
         }
-
-        return record;
     }
 
 }
@@ -25,14 +25,18 @@ import org.datavec.api.writable.ArrayWritable;
 import org.datavec.api.writable.Writable;
 import org.junit.Ignore;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
+import org.nd4j.linalg.indexing.NDArrayIndex;
 import org.nd4j.linalg.io.ClassPathResource;
 
 import java.io.DataInputStream;
 import java.io.File;
 import java.io.FileInputStream;
+import java.util.ArrayList;
 import java.util.Iterator;
 import java.util.List;
 
+import static org.junit.Assert.assertArrayEquals;
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertTrue;
 
@@ -205,4 +209,38 @@ public class CodecReaderTest {
 
         assertEquals(expected, actual);
     }
+
+    @Ignore
+    @Test
+    public void testNativeCodecReaderClips() throws Exception {
+        File file = new ClassPathResource("fire_lowres.mp4").getFile();
+        NativeCodecRecordReader reader = new NativeCodecRecordReader();
+        Configuration conf = new Configuration();
+        conf.set(CodecRecordReader.START_FRAME, "160");
+        conf.set(CodecRecordReader.TOTAL_FRAMES, "500");
+        conf.set(CodecRecordReader.FRAME_STRIDE, "2");
+        conf.set(CodecRecordReader.CLIP_LENGTH, "100");
+        conf.set(CodecRecordReader.CLIP_OVERLAP, "25");
+        conf.set(CodecRecordReader.ROWS, "80");
+        conf.set(CodecRecordReader.COLUMNS, "46");
+        conf.set(CodecRecordReader.CHANNELS, "3");
+        reader.setConf(conf);
+
+        INDArray all = reader.loadTensor(file);
+        assertArrayEquals(new long[] {250, 3, 80, 46}, all.shape());
+
+        //250 frames, clips of 100 with overlap of 25: [0,100), [75,175), [150,250)
+        List<INDArray> clips = new ArrayList<>();
+        try (NativeCodecRecordReader.ClipIterator iter = reader.clipIterator(file)) {
+            while (iter.hasNext()) {
+                clips.add(iter.next());
+            }
+        }
+        assertEquals(3, clips.size());
+        for (int i = 0; i < clips.size(); i++) {
+            int start = 75 * i;
+            assertEquals(all.get(NDArrayIndex.interval(start, start + 100), NDArrayIndex.all(), NDArrayIndex.all(),
+                            NDArrayIndex.all()), clips.get(i));
+        }
+    }
 }
@@ -134,9 +134,13 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
 
 
 
-        URI[] locations = split.locations();
-        if (locations != null && locations.length >= 1) {
-            if (appendLabel && labelGenerator != null && labelGenerator.inferLabelClasses()) {
+        //Only list all of the locations when they are needed to infer the labels: splits such as
+        //StreamingFileSplit can then provide the locations as they are found
+        boolean inferLabels = appendLabel && labelGenerator != null && labelGenerator.inferLabelClasses();
+        URI[] locations = inferLabels ? split.locations() : null;
+        Iterator<String> paths = inferLabels ? null : inputSplit.locationsPathIterator();
+        if (inferLabels ? locations != null && locations.length >= 1 : paths.hasNext()) {
+            if (inferLabels) {
                 Set<String> labelsSet = new HashSet<>();
                 for (URI location : locations) {
                     File imgFile = new File(location);
@@ -154,7 +158,10 @@ public abstract class BaseImageRecordReader extends BaseRecordReader {
                     log.info("ImageRecordReader: {} label classes inferred using label generator {}", labelsSet.size(), labelGenerator.getClass().getSimpleName());
                 }
             }
-            iter = new FileFromPathIterator(inputSplit.locationsPathIterator()); //This handles randomization internally if necessary
+            if (paths == null) {
+                paths = inputSplit.locationsPathIterator();
+            }
+            iter = new FileFromPathIterator(paths); //This handles randomization internally if necessary
         } else
             throw new IllegalArgumentException("No path locations found in the split.");
 
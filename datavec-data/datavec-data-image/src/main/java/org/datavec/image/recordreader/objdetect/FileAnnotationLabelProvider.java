@@ -0,0 +1,34 @@
+/*
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.image.recordreader.objdetect;
+
+import java.io.File;
+
+/**
+ * An {@link ImageObjectLabelProvider} that reads the objects for each image from a separate annotation file
+ * (for example, one Pascal VOC XML file per image).<br>
+ * Knowing the annotation file allows {@link ImageObjectIndex} to detect when a cached entry is out of date.
+ */
+public interface FileAnnotationLabelProvider extends ImageObjectLabelProvider {
+
+    /**
+     * @param path Path of the image
+     * @return The annotation file containing the objects for the specified image
+     */
+    File getAnnotationFile(String path);
+
+}
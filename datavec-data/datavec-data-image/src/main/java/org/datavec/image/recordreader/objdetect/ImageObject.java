@@ -19,8 +19,11 @@ package org.datavec.image.recordreader.objdetect;
 import lombok.AllArgsConstructor;
 import lombok.Data;
 
+import java.io.Serializable;
+
 @Data
-public class ImageObject {
+public class ImageObject implements Serializable {
+    private static final long serialVersionUID = 1L;
 
     private final int x1;
     private final int y1;
@@ -0,0 +1,319 @@
+/*
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.image.recordreader.objdetect;
+
+import lombok.NonNull;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.*;
+import java.net.URI;
+import java.util.*;
+import java.util.concurrent.*;
+
+/**
+ * A serializable index of the {@link ImageObject}s present in each image of an object detection data set.<br>
+ * Label providers such as {@link org.datavec.image.recordreader.objdetect.impl.VocLabelProvider} parse one annotation
+ * file per lookup; the index parses each annotation once (in parallel), after which lookups are O(1) hash map gets.
+ * The set of labels (sorted, to give a consistent label to index assignment) and a label to index map are
+ * maintained alongside the objects.<br>
+ * <br>
+ * The index can be saved next to the data set and reloaded using {@link #loadOrBuild(File, ImageObjectLabelProvider, URI[], int)}.
+ * On reload, entries are re-parsed only for images that are new, or whose annotation file has changed (as determined by
+ * the file's last modified time and length). For a {@link FileAnnotationLabelProvider} the annotation file is used
+ * for this check; otherwise the image file itself is used.<br>
+ * When more than one thread is used, the label provider is called concurrently, and hence must be thread safe.
+ */
+@Slf4j
+public class ImageObjectIndex implements Serializable {
+    //Saved indexes remain loadable as long as the serialized form is compatible
+    private static final long serialVersionUID = 1L;
+
+    private final Map<String, Entry> entries = new HashMap<>();
+    private List<String> labels = new ArrayList<>();
+    private Map<String, Integer> labelIndices = new HashMap<>();
+
+    /**
+     * Build a new index by parsing the annotations for all of the specified locations.
+     *
+     * @param labelProvider Label provider used to parse the annotations
+     * @param locations     Locations of the images
+     * @param numThreads    Number of threads to use when parsing annotations
+     */
+    public static ImageObjectIndex build(@NonNull ImageObjectLabelProvider labelProvider, @NonNull URI[] locations,
+                    int numThreads) {
+        ImageObjectIndex index = new ImageObjectIndex();
+        index.update(labelProvider, locations, numThreads);
+        return index;
+    }
+
+    /**
+     * Load the index from the specified file if it exists, bring it up to date with the specified locations (parsing
+     * only the new or modified annotations), and save it back to the file if anything changed.
+     *
+     * @param indexFile     File to load the index from and save it to
+     * @param labelProvider Label provider used to parse the annotations
+     * @param locations     Locations of the images
+     * @param numThreads    Number of threads to use when parsing annotations
+     */
+    public static ImageObjectIndex loadOrBuild(@NonNull File indexFile, @NonNull ImageObjectLabelProvider labelProvider,
+                    @NonNull URI[] locations, int numThreads) throws IOException {
+        ImageObjectIndex index = null;
+        if (indexFile.exists()) {
+            try {
+                index = load(indexFile);
+            } catch (IOException e) {
+                log.warn("Could not load annotation index from {}; rebuilding", indexFile, e);
+            }
+        }
+
+        boolean save = index == null;
+        if (index == null) {
+            index = new ImageObjectIndex();
+        }
+        if (index.update(labelProvider, locations, numThreads) || save) {
+            index.save(indexFile);
+        }
+        return index;
+    }
+
+    /**
+     * Load an index previously saved with {@link #save(File)}
+     */
+    public static ImageObjectIndex load(@NonNull File file) throws IOException {
+        try (ObjectInputStream ois = new ObjectInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+            return (ImageObjectIndex) ois.readObject();
+        } catch (ClassNotFoundException | ClassCastException e) {
+            throw new IOException("Invalid annotation index file: " + file, e);
+        }
+    }
+
+    /**
+     * Save the index to the specified file
+     */
+    public void save(@NonNull File file) throws IOException {
+        try (ObjectOutputStream oos = new ObjectOutputStream(new BufferedOutputStream(new FileOutputStream(file)))) {
+            oos.writeObject(this);
+        }
+    }
+
+    /**
+     * Bring the index up to date with the specified locations: entries for locations that are not present are removed,
+     * and annotations are (re)parsed for locations that are new or whose annotation file has changed.
+     *
+     * @return True if the index was modified
+     */
+    public boolean update(@NonNull ImageObjectLabelProvider labelProvider, @NonNull URI[] locations, int numThreads) {
+        Map<String, URI> keys = new LinkedHashMap<>();
+        for (URI u : locations) {
+            keys.put(key(u), u);
+        }
+
+        boolean changed = entries.keySet().retainAll(keys.keySet());
+
+        List<URI> toParse = new ArrayList<>();
+        for (Map.Entry<String, URI> e : keys.entrySet()) {
+            Entry existing = entries.get(e.getKey());
+            if (existing == null || !existing.isCurrent(sourceFile(labelProvider, e.getKey()))) {
+                toParse.add(e.getValue());
+            }
+        }
+
+        if (!toParse.isEmpty()) {
+            entries.putAll(parse(labelProvider, toParse, numThreads));
+            changed = true;
+        }
+
+        if (changed) {
+            updateLabels();
+        }
+        return changed;
+    }
+
+    /**
+     * @return The objects for the specified image, or null if the image is not present in the index
+     */
+    public List<ImageObject> getImageObjects(URI uri) {
+        Entry e = entries.get(key(uri));
+        return e == null ? null : e.objects;
+    }
+
+    /**
+     * @return The objects for the specified image, or null if the image is not present in the index
+     */
+    public List<ImageObject> getImageObjects(String path) {
+        Entry e = entries.get(key(path));
+        return e == null ? null : e.objects;
+    }
+
+    /**
+     * @return True if the specified image is present in the index
+     */
+    public boolean contains(URI uri) {
+        return entries.containsKey(key(uri));
+    }
+
+    /**
+     * @return Number of images in the index
+     */
+    public int size() {
+        return entries.size();
+    }
+
+    /**
+     * @return All labels present in the index, in sorted order
+     */
+    public List<String> getLabels() {
+        return Collections.unmodifiableList(labels);
+    }
+
+    /**
+     * @return Index of the specified label in {@link #getLabels()}, or -1 if the label is not present
+     */
+    public int getLabelIndex(String label) {
+        Integer idx = labelIndices.get(label);
+        return idx == null ? -1 : idx;
+    }
+
+    private void updateLabels() {
+        Set<String> labelSet = new HashSet<>();
+        for (Entry e : entries.values()) {
+            for (ImageObject io : e.objects) {
+                labelSet.add(io.getLabel());
+            }
+        }
+        labels = new ArrayList<>(labelSet);
+        Collections.sort(labels);
+        labelIndices = indexLabels(labels);
+    }
+
+    /**
+     * Create a map from label to its position in the specified list
+     */
+    public static Map<String, Integer> indexLabels(@NonNull List<String> labels) {
+        Map<String, Integer> m = new HashMap<>(Math.max(16, 2 * labels.size()));
+        for (int i = 0; i < labels.size(); i++) {
+            m.put(labels.get(i), i);
+        }
+        return m;
+    }
+
+    private static Map<String, Entry> parse(final ImageObjectLabelProvider labelProvider, List<URI> locations,
+                    int numThreads) {
+        numThreads = Math.max(1, Math.min(numThreads, locations.size()));
+        if (numThreads == 1) {
+            return parseAll(labelProvider, locations);
+        }
+
+        ExecutorService exec = Executors.newFixedThreadPool(numThreads);
+        try {
+            int perThread = (locations.size() + numThreads - 1) / numThreads;
+            List<Future<Map<String, Entry>>> futures = new ArrayList<>(numThreads);
+            for (int i = 0; i < locations.size(); i += perThread) {
+                final List<URI> subset = locations.subList(i, Math.min(locations.size(), i + perThread));
+                futures.add(exec.submit(new Callable<Map<String, Entry>>() {
+                    @Override
+                    public Map<String, Entry> call() {
+                        return parseAll(labelProvider, subset);
+                    }
+                }));
+            }
+
+            Map<String, Entry> out = new HashMap<>();
+            for (Future<Map<String, Entry>> f : futures) {
+                out.putAll(f.get());
+            }
+            return out;
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException("Interrupted while building annotation index", e);
+        } catch (ExecutionException e) {
+            Throwable t = e.getCause();
+            if (t instanceof RuntimeException) {
+                throw (RuntimeException) t;
+            }
+            throw new RuntimeException(t);
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    private static Map<String, Entry> parseAll(ImageObjectLabelProvider labelProvider, List<URI> locations) {
+        Map<String, Entry> out = new HashMap<>();
+        for (URI u : locations) {
+            String key = key(u);
+            List<ImageObject> objects = labelProvider.getImageObjectsForPath(u);
+            if (objects == null) {
+                objects = Collections.emptyList();
+            }
+            out.put(key, new Entry(new ArrayList<>(objects), sourceFile(labelProvider, key)));
+        }
+        return out;
+    }
+
+    private static File sourceFile(ImageObjectLabelProvider labelProvider, String key) {
+        if (labelProvider instanceof FileAnnotationLabelProvider) {
+            return ((FileAnnotationLabelProvider) labelProvider).getAnnotationFile(key);
+        }
+        if (key.contains("://")) {
+            //Not a local file: can't check for modifications
+            return null;
+        }
+        return new File(key);
+    }
+
+    protected static String key(URI uri) {
+        if ("file".equalsIgnoreCase(uri.getScheme())) {
+            return new File(uri).getAbsolutePath();
+        }
+        return uri.toString();
+    }
+
+    protected static String key(String path) {
+        if (path.startsWith("file:")) {
+            try {
+                return key(new URI(path));
+            } catch (Exception e) {
+                //Not a valid URI - fall through and treat as a path
+            }
+        }
+        if (path.contains("://")) {
+            return path;
+        }
+        return new File(path).getAbsolutePath();
+    }
+
+    private static class Entry implements Serializable {
+        private static final long serialVersionUID = 1L;
+
+        private final List<ImageObject> objects;
+        private final long lastModified;
+        private final long length;
+
+        private Entry(List<ImageObject> objects, File source) {
+            this.objects = objects;
+            this.lastModified = source == null ? -1 : source.lastModified();
+            this.length = source == null ? -1 : source.length();
+        }
+
+        private boolean isCurrent(File source) {
+            if (source == null) {
+                return lastModified == -1;
+            }
+            return source.lastModified() == lastModified && source.length() == length;
+        }
+    }
+}
@@ -0,0 +1,76 @@
+/*
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.image.recordreader.objdetect;
+
+import lombok.Getter;
+import lombok.NonNull;
+
+import java.net.URI;
+import java.util.List;
+
+/**
+ * An {@link ImageObjectLabelProvider} backed by an {@link ImageObjectIndex}: lookups for images present in the index
+ * do not parse any annotation files. Images not present in the index are passed to the underlying label provider,
+ * if one is set.<br>
+ * When used with {@link ObjectDetectionRecordReader}, the set of labels is taken directly from the index.
+ */
+public class IndexedLabelProvider implements ImageObjectLabelProvider {
+
+    @Getter
+    private final ImageObjectIndex index;
+    private final ImageObjectLabelProvider underlying;
+
+    /**
+     * @param index Index to look up images in. Images not present in the index will result in an exception
+     */
+    public IndexedLabelProvider(@NonNull ImageObjectIndex index) {
+        this(index, null);
+    }
+
+    /**
+     * @param index      Index to look up images in
+     * @param underlying Label provider to use for images not present in the index. May be null
+     */
+    public IndexedLabelProvider(@NonNull ImageObjectIndex index, ImageObjectLabelProvider underlying) {
+        this.index = index;
+        this.underlying = underlying;
+    }
+
+    @Override
+    public List<ImageObject> getImageObjectsForPath(String path) {
+        List<ImageObject> l = index.getImageObjects(path);
+        if (l != null) {
+            return l;
+        }
+        if (underlying == null) {
+            throw new IllegalStateException("No annotations found in index for image " + path);
+        }
+        return underlying.getImageObjectsForPath(path);
+    }
+
+    @Override
+    public List<ImageObject> getImageObjectsForPath(URI uri) {
+        List<ImageObject> l = index.getImageObjects(uri);
+        if (l != null) {
+            return l;
+        }
+        if (underlying == null) {
+            throw new IllegalStateException("No annotations found in index for image " + uri);
+        }
+        return underlying.getImageObjectsForPath(uri);
+    }
+}
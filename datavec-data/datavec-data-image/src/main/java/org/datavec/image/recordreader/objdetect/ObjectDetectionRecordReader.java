@@ -51,6 +51,12 @@ import static org.nd4j.linalg.indexing.NDArrayIndex.point;
  * Where the image is quantized into h x w grid locations.
  * <p>
  * Note that this matches the format required for Deeplearning4j's Yolo2OutputLayer
+ * <p>
+ * The annotations for all images in the split are looked up once on initialization and kept in an
+ * {@link ImageObjectIndex}, so that they are not parsed again in each call to {@link #next(int)}. By default they are
+ * looked up on the calling thread; see {@link #setAnnotationParsingThreads(int)} to parse them in parallel. Alternatively, pass
+ * an {@link IndexedLabelProvider} (for example, with an index loaded via
+ * {@link ImageObjectIndex#loadOrBuild(File, ImageObjectLabelProvider, URI[], int)}) to avoid parsing the annotations at all.
  *
  * @author Alex Black
  */
@@ -61,6 +67,9 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
     private final ImageObjectLabelProvider labelProvider;
 
     protected Image currentImage;
+    protected ImageObjectLabelProvider indexedLabelProvider;
+    protected Map<String, Integer> labelIndices;
+    protected int annotationParsingThreads = 1;
 
     /**
      *
@@ -100,6 +109,20 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
         this.imageTransform = imageTransform;
     }
 
+    /**
+     * Parse the annotations of the images in parallel on initialization. Must be set before initialization.<br>
+     * The label provider is then called concurrently from several threads, and hence must be thread safe. This is
+     * not required by {@link ImageObjectLabelProvider}, so parsing is sequential by default.
+     *
+     * @param numThreads Number of threads for parsing the annotations. Default: 1 (parse on the calling thread)
+     */
+    public void setAnnotationParsingThreads(int numThreads) {
+        if (numThreads < 1) {
+            throw new IllegalArgumentException("Number of threads must be positive. Got: " + numThreads);
+        }
+        this.annotationParsingThreads = numThreads;
+    }
+
     @Override
     public List<Writable> next() {
         return next(1).get(0);
@@ -114,8 +137,15 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
         URI[] locations = split.locations();
         Set<String> labelSet = new HashSet<>();
         if (locations != null && locations.length >= 1) {
+            if (labelProvider instanceof IndexedLabelProvider) {
+                indexedLabelProvider = labelProvider;
+            } else {
+                //Parse each image's annotations once only: next(int) then looks them up in the index
+                ImageObjectIndex index = ImageObjectIndex.build(labelProvider, locations, annotationParsingThreads);
+                indexedLabelProvider = new IndexedLabelProvider(index, labelProvider);
+            }
             for (URI location : locations) {
-                List<ImageObject> imageObjects = labelProvider.getImageObjectsForPath(location);
+                List<ImageObject> imageObjects = indexedLabelProvider.getImageObjectsForPath(location);
                 for (ImageObject io : imageObjects) {
                     String name = io.getLabel();
                     if (!labelSet.contains(name)) {
@@ -137,6 +167,7 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
         //To ensure consistent order for label assignment (irrespective of file iteration order), we want to sort the list of labels
         labels = new ArrayList<>(labelSet);
         Collections.sort(labels);
+        labelIndices = ImageObjectIndex.indexLabels(labels);
     }
 
     @Override
@@ -149,7 +180,7 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
             this.currentFile = f;
             if (!f.isDirectory()) {
                 files.add(f);
-                objects.add(labelProvider.getImageObjectsForPath(f.getPath()));
+                objects.add(lookupProvider().getImageObjectsForPath(f.getPath()));
             }
         }
 
@@ -190,6 +221,10 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
         int W = oW;
         int H = oH;
 
+        if (labelIndices == null) {
+            labelIndices = ImageObjectIndex.indexLabels(labels);
+        }
+
         //put the label data into the output label array
         for (ImageObject io : objectsThisImg) {
             double cx = io.getXCenterPixels();
@@ -235,7 +270,11 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
             outLabel.putScalar(exampleNum, 3, imgGridY, imgGridX, brPost[1]);
 
             //Put label class into label array: (one-hot representation)
-            int labelIdx = labels.indexOf(io.getLabel());
+            Integer labelIdx = labelIndices.get(io.getLabel());
+            if (labelIdx == null) {
+                throw new IllegalStateException("Label \"" + io.getLabel() + "\" was not present in the set of " +
+                        "labels found during initialization: " + labels);
+            }
             outLabel.putScalar(exampleNum, 4 + labelIdx, imgGridY, imgGridX, 1.0);
         }
     }
@@ -251,7 +290,7 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
 
         List<Writable> ret = RecordConverter.toRecord(image.getImage());
         if (appendLabel) {
-            List<ImageObject> imageObjectsForPath = labelProvider.getImageObjectsForPath(uri.getPath());
+            List<ImageObject> imageObjectsForPath = lookupProvider().getImageObjectsForPath(uri.getPath());
             int nClasses = labels.size();
             INDArray outLabel = Nd4j.create(1, 4 + nClasses, gridH, gridW);
             label(image, imageObjectsForPath, outLabel, 0);
@@ -260,6 +299,10 @@ public class ObjectDetectionRecordReader extends BaseImageRecordReader {
         return ret;
     }
 
+    private ImageObjectLabelProvider lookupProvider() {
+        return indexedLabelProvider != null ? indexedLabelProvider : labelProvider;
+    }
+
     @Override
     public Record nextRecord() {
         List<Writable> list = next();
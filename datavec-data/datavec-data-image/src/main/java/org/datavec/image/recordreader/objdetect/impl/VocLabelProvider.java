@@ -19,8 +19,8 @@ package org.datavec.image.recordreader.objdetect.impl;
 import lombok.NonNull;
 import org.apache.commons.io.FileUtils;
 import org.apache.commons.io.FilenameUtils;
+import org.datavec.image.recordreader.objdetect.FileAnnotationLabelProvider;
 import org.datavec.image.recordreader.objdetect.ImageObject;
-import org.datavec.image.recordreader.objdetect.ImageObjectLabelProvider;
 
 import java.io.File;
 import java.io.IOException;
@@ -39,11 +39,15 @@ import java.util.List;
  * How to use:<br>
  * 1. Download and extract VOC dataset<br>
  * 2. Set baseDirectory to (for example) VOC2012 directory (should contain JPEGImages and Annotations directories)<br>
+ * <br>
+ * Each call to {@link #getImageObjectsForPath(String)} parses the image's XML file. To avoid parsing the annotations
+ * repeatedly, use an {@link org.datavec.image.recordreader.objdetect.ImageObjectIndex} (which can be persisted
+ * alongside the data set) with an {@link org.datavec.image.recordreader.objdetect.IndexedLabelProvider}.
  *
  *
  * @author Alex Black
  */
-public class VocLabelProvider implements ImageObjectLabelProvider {
+public class VocLabelProvider implements FileAnnotationLabelProvider {
 
     private static final String OBJECT_START_TAG = "<object>";
     private static final String OBJECT_END_TAG = "</object>";
@@ -65,13 +69,18 @@ public class VocLabelProvider implements ImageObjectLabelProvider {
     }
 
     @Override
-    public List<ImageObject> getImageObjectsForPath(String path) {
+    public File getAnnotationFile(String path) {
         int idx = path.lastIndexOf('/');
         idx = Math.max(idx, path.lastIndexOf('\\'));
 
         String filename = path.substring(idx+1, path.length()-4);   //-4: ".jpg"
-        String xmlPath = FilenameUtils.concat(annotationsDir, filename + ".xml");
-        File xmlFile = new File(xmlPath);
+        return new File(FilenameUtils.concat(annotationsDir, filename + ".xml"));
+    }
+
+    @Override
+    public List<ImageObject> getImageObjectsForPath(String path) {
+        File xmlFile = getAnnotationFile(path);
+        String xmlPath = xmlFile.getPath();
         if(!xmlFile.exists()){
             throw new IllegalStateException("Could not find XML file for image " + path + "; expected at " + xmlPath);
         }
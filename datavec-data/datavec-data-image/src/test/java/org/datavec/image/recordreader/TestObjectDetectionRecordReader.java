@@ -41,7 +41,9 @@ import java.net.URI;
 import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
+import java.util.HashSet;
 import java.util.List;
+import java.util.Set;
 import org.datavec.image.transform.FlipImageTransform;
 import org.datavec.image.transform.PipelineImageTransform;
 import org.nd4j.linalg.io.ClassPathResource;
@@ -213,6 +215,32 @@ public class TestObjectDetectionRecordReader {
         }
     }
 
+    @Test
+    public void testAnnotationParsingThreads() throws Exception {
+        String path = new ClassPathResource("objdetect/000012.jpg").getFile().getParent();
+        URI[] u = new FileSplit(new File(path)).locations();
+
+        //Label providers are not required to be thread safe: by default, they are only called on the calling thread
+        final Set<Thread> threads = Collections.synchronizedSet(new HashSet<Thread>());
+        ImageObjectLabelProvider lp = new TestImageObjectDetectionLabelProvider() {
+            @Override
+            public List<ImageObject> getImageObjectsForPath(String path) {
+                threads.add(Thread.currentThread());
+                return super.getImageObjectsForPath(path);
+            }
+        };
+        ObjectDetectionRecordReader rr = new ObjectDetectionRecordReader(32, 32, 3, 10, 13, lp);
+        rr.initialize(new CollectionInputSplit(u));
+        assertEquals(Collections.singleton(Thread.currentThread()), threads);
+        assertEquals(Arrays.asList("car", "cat"), rr.getLabels());
+
+        //Opt-in parallel parsing gives the same labels
+        rr = new ObjectDetectionRecordReader(32, 32, 3, 10, 13, new TestImageObjectDetectionLabelProvider());
+        rr.setAnnotationParsingThreads(2);
+        rr.initialize(new CollectionInputSplit(u));
+        assertEquals(Arrays.asList("car", "cat"), rr.getLabels());
+    }
+
     //2 images: 000012.jpg and 000019.jpg
     private static class TestImageObjectDetectionLabelProvider implements ImageObjectLabelProvider {
 
@@ -0,0 +1,114 @@
+/*
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.image.recordreader.objdetect;
+
+import org.apache.commons.io.FileUtils;
+import org.datavec.image.recordreader.objdetect.impl.VocLabelProvider;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+import org.nd4j.linalg.io.ClassPathResource;
+
+import java.io.File;
+import java.net.URI;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+import static org.junit.Assert.*;
+
+public class TestImageObjectIndex {
+
+    @Rule
+    public TemporaryFolder testDir = new TemporaryFolder();
+
+    @Test
+    public void testBuildSaveLoad() throws Exception {
+        File baseDir = testDir.newFolder();
+        File origDir = new ClassPathResource("voc/2007/JPEGImages/000005.jpg").getFile().getParentFile().getParentFile();
+        FileUtils.copyDirectory(origDir, baseDir);
+
+        ImageObjectLabelProvider lp = new VocLabelProvider(baseDir.getPath());
+        File img5 = new File(baseDir, "JPEGImages/000005.jpg");
+        File img7 = new File(baseDir, "JPEGImages/000007.jpg");
+        URI[] locations = new URI[]{img5.toURI(), img7.toURI()};
+
+        for (int numThreads : new int[]{1, 2}) {
+            ImageObjectIndex index = ImageObjectIndex.build(lp, locations, numThreads);
+            assertEquals(2, index.size());
+            assertEquals(lp.getImageObjectsForPath(img5.getPath()), index.getImageObjects(img5.getPath()));
+            assertEquals(lp.getImageObjectsForPath(img7.getPath()), index.getImageObjects(img7.toURI()));
+            assertEquals(Arrays.asList("car", "chair"), index.getLabels());
+            assertEquals(0, index.getLabelIndex("car"));
+            assertEquals(1, index.getLabelIndex("chair"));
+            assertEquals(-1, index.getLabelIndex("dog"));
+        }
+
+        File indexFile = new File(testDir.newFolder(), "annotations.index");
+        ImageObjectIndex built = ImageObjectIndex.loadOrBuild(indexFile, lp, locations, 2);
+        assertTrue(indexFile.exists());
+
+        ImageObjectIndex loaded = ImageObjectIndex.load(indexFile);
+        assertEquals(built.getLabels(), loaded.getLabels());
+        assertEquals(built.getImageObjects(img5.toURI()), loaded.getImageObjects(img5.toURI()));
+        assertEquals(built.getImageObjects(img7.toURI()), loaded.getImageObjects(img7.toURI()));
+
+        //No changes: should not need to re-parse anything
+        assertFalse(loaded.update(lp, locations, 1));
+
+        //Change an annotation file: only that entry should be re-parsed
+        File xml7 = new File(baseDir, "Annotations/000007.xml");
+        String content = FileUtils.readFileToString(xml7).replace("<name>car</name>", "<name>bus</name>");
+        FileUtils.writeStringToFile(xml7, content);
+        assertTrue(xml7.setLastModified(xml7.lastModified() + 10000));
+
+        ImageObjectIndex updated = ImageObjectIndex.loadOrBuild(indexFile, lp, locations, 1);
+        List<ImageObject> exp7 = Collections.singletonList(new ImageObject(141, 50, 500, 330, "bus"));
+        assertEquals(exp7, updated.getImageObjects(img7.toURI()));
+        assertEquals(Arrays.asList("bus", "chair"), updated.getLabels());
+        assertEquals(exp7, ImageObjectIndex.load(indexFile).getImageObjects(img7.toURI()));
+
+        //Remove an image from the data set
+        assertTrue(updated.update(lp, new URI[]{img5.toURI()}, 1));
+        assertEquals(1, updated.size());
+        assertNull(updated.getImageObjects(img7.toURI()));
+        assertEquals(Collections.singletonList("chair"), updated.getLabels());
+    }
+
+    @Test
+    public void testIndexedLabelProvider() throws Exception {
+        String path = new ClassPathResource("voc/2007/JPEGImages/000005.jpg").getFile().getParentFile().getParent();
+        ImageObjectLabelProvider lp = new VocLabelProvider(path);
+
+        File img5 = new ClassPathResource("voc/2007/JPEGImages/000005.jpg").getFile();
+        File img7 = new ClassPathResource("voc/2007/JPEGImages/000007.jpg").getFile();
+
+        ImageObjectIndex index = ImageObjectIndex.build(lp, new URI[]{img5.toURI()}, 1);
+
+        ImageObjectLabelProvider indexed = new IndexedLabelProvider(index, lp);
+        assertEquals(lp.getImageObjectsForPath(img5.getPath()), indexed.getImageObjectsForPath(img5.getPath()));
+        //Not in index: falls back to the underlying provider
+        assertEquals(lp.getImageObjectsForPath(img7.getPath()), indexed.getImageObjectsForPath(img7.toURI()));
+
+        try {
+            new IndexedLabelProvider(index).getImageObjectsForPath(img7.getPath());
+            fail("Expected exception");
+        } catch (IllegalStateException e) {
+            //Expected
+        }
+    }
+}
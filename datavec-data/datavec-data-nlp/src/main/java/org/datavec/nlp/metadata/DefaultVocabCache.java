@@ -22,6 +22,13 @@ import org.datavec.nlp.vectorizer.TextVectorizer;
 import org.nd4j.linalg.util.MathUtils;
 import org.nd4j.util.Index;
 
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
 /**
  * Vocab cache used for storing information
  * about vocab
@@ -35,6 +42,10 @@ public class DefaultVocabCache implements VocabCache {
     private int minWordFrequency;
     private Index vocabWords = new Index();
     private double numDocs = 0;
+    //For caches to be merged: for each word, the position (index of the count increment) and count after each of
+    //its increments, until its count reaches the min word frequency
+    private Map<String, List<double[]>> occurrences;
+    private long numIncrements = 0;
 
     /**
      * Instantiate with a given min word frequency
@@ -44,6 +55,18 @@ public class DefaultVocabCache implements VocabCache {
         this.minWordFrequency = minWordFrequency;
     }
 
+    /**
+     * @param minWordFrequency  the min word frequency
+     * @param trackOccurrences  if true, record the positions of the first occurrences of each word, so that when this
+     *                          cache is {@link #merge(DefaultVocabCache) merged} in to another, words are added to the
+     *                          vocab in the same order as if the words had been counted by that cache
+     */
+    public DefaultVocabCache(int minWordFrequency, boolean trackOccurrences) {
+        this.minWordFrequency = minWordFrequency;
+        if (trackOccurrences)
+            this.occurrences = new HashMap<>();
+    }
+
     /*
      * Constructor for use with initialize()
      */
@@ -102,6 +125,16 @@ public class DefaultVocabCache implements VocabCache {
 
     @Override
     public void incrementCount(String word, double by) {
+        if (occurrences != null
+                        && (wordFrequencies.getCount(word) < minWordFrequency || !occurrences.containsKey(word))) {
+            List<double[]> list = occurrences.get(word);
+            if (list == null) {
+                list = new ArrayList<>(1);
+                occurrences.put(word, list);
+            }
+            list.add(new double[] {numIncrements, wordFrequencies.getCount(word) + by});
+        }
+        numIncrements++;
         wordFrequencies.incrementCount(word, by);
         if (wordFrequencies.getCount(word) >= minWordFrequency && vocabWords.indexOf(word) < 0)
             vocabWords.add(word);
@@ -117,6 +150,59 @@ public class DefaultVocabCache implements VocabCache {
         return MathUtils.tfidf(MathUtils.tf((int) frequency), MathUtils.idf(numDocs, idf(word)));
     }
 
+    /**
+     * Add the word and document counts of another cache to this one. This allows counts to be collected
+     * independently (for example, on different threads or for different subsets of the documents) and then combined.
+     * Words are added to the vocab once their combined frequency reaches the min word frequency.<br>
+     * If the other cache was created with occurrence tracking, newly eligible words are added in the order in which
+     * they reached the min word frequency: merging caches of consecutive subsets of the documents, in order, gives
+     * the same vocab order as counting all of the documents with one cache. Otherwise, they are added in
+     * alphabetical order.
+     *
+     * @param other the cache to merge into this one
+     */
+    public void merge(DefaultVocabCache other) {
+        final Map<String, Double> reachedAt = new HashMap<>();
+        for (String word : other.wordFrequencies.keySet()) {
+            double before = wordFrequencies.getCount(word);
+            double count = other.wordFrequencies.getCount(word);
+            wordFrequencies.incrementCount(word, count);
+            if (before + count >= minWordFrequency && vocabWords.indexOf(word) < 0)
+                reachedAt.put(word, other.positionReaching(word, minWordFrequency - before));
+        }
+        List<String> newWords = new ArrayList<>(reachedAt.keySet());
+        Collections.sort(newWords, new Comparator<String>() {
+            @Override
+            public int compare(String w1, String w2) {
+                int c = Double.compare(reachedAt.get(w1), reachedAt.get(w2));
+                return c != 0 ? c : w1.compareTo(w2);
+            }
+        });
+        for (String word : newWords)
+            vocabWords.add(word);
+
+        for (String word : other.docFrequencies.keySet()) {
+            incrementDocCount(word, other.docFrequencies.getCount(word));
+        }
+        numDocs += other.numDocs;
+        numIncrements += other.numIncrements;
+    }
+
+    /**
+     * @return Position of the increment at which the count of the word reached the given count, or
+     *         {@link Double#MAX_VALUE} if occurrences are not tracked
+     */
+    private double positionReaching(String word, double count) {
+        List<double[]> list = occurrences == null ? null : occurrences.get(word);
+        if (list != null) {
+            for (double[] occurrence : list) {
+                if (occurrence[1] >= count)
+                    return occurrence[0];
+            }
+        }
+        return Double.MAX_VALUE;
+    }
+
     public int getMinWordFrequency() {
         return minWordFrequency;
     }
@@ -34,15 +34,26 @@ import java.util.*;
 /**
  * TFIDF record reader (wraps a tfidf vectorizer
  * for delivering labels and conforming to the record reader interface)
+ * <p>
+ * By default, all records are vectorized and kept in memory on initialization. If {@link #STREAM_RECORDS} is set,
+ * the vectorizer is fit on initialization (if needed), and records are then read and vectorized one at a time, as
+ * they are requested; this requires the input split to support reset.
+ * <p>
+ * If no vectorizer is set and feature hashing is configured ({@link TfidfVectorizer#HASHING_DIMENSION}), the
+ * vectorizer is not fit: no vocabulary pass over the files is needed, and vectors contain term frequencies.
+ * Vectors are dense rows ({@link NDArrayWritable}).
  *
  * @author Adam Gibson
  */
 public class TfidfRecordReader extends FileRecordReader {
+    public final static String STREAM_RECORDS = NAME_SPACE + ".tfidf.streamrecords";
+
     private TfidfVectorizer tfidfVectorizer;
     private List<Record> records = new ArrayList<>();
     private Iterator<Record> recordIter;
     private int numFeatures;
     private boolean initialized = false;
+    private boolean streamRecords = false;
 
 
     @Override
@@ -53,14 +64,27 @@ public class TfidfRecordReader extends FileRecordReader {
     @Override
     public void initialize(Configuration conf, InputSplit split) throws IOException, InterruptedException {
         super.initialize(conf, split);
-        //train  a new one since it hasn't been specified
+        initialized = false;
+        streamRecords = conf.getBoolean(STREAM_RECORDS, false);
+        recordIter = null;
+        records.clear();
+        boolean fit = false;
         if (tfidfVectorizer == null) {
+            //train  a new one since it hasn't been specified
             tfidfVectorizer = new TfidfVectorizer();
             tfidfVectorizer.initialize(conf);
+            //With feature hashing, no vocab is needed: the vectorizer is used without fitting (term frequencies)
+            fit = !tfidfVectorizer.isHashing();
+        }
 
-            //clear out old strings
-            records.clear();
-
+        if (streamRecords) {
+            //Fit if needed (reading the files via super, as recordIter is null), then vectorize on demand
+            if (fit) {
+                tfidfVectorizer.fit(this);
+                super.reset();
+            }
+            numFeatures = tfidfVectorizer.numFeatures();
+        } else if (fit) {
             INDArray ret = tfidfVectorizer.fitTransform(this, new Vectorizer.RecordCallBack() {
                 @Override
                 public void onRecord(Record fullRecord) {
@@ -78,36 +102,44 @@ public class TfidfRecordReader extends FileRecordReader {
             //document frequency phase and just using the super() to get the file contents
             //and pass it to the already existing vectorizer.
             while (super.hasNext()) {
-                Record fileContents = super.nextRecord();
-                INDArray transform = tfidfVectorizer.transform(fileContents);
-
-                org.datavec.api.records.impl.Record record = new org.datavec.api.records.impl.Record(
-                                new ArrayList<>(Collections.<Writable>singletonList(new NDArrayWritable(transform))),
-                                new RecordMetaDataURI(fileContents.getMetaData().getURI(), TfidfRecordReader.class));
-
-                if (appendLabel)
-                    record.getRecord().add(fileContents.getRecord().get(fileContents.getRecord().size() - 1));
-
-                records.add(record);
+                records.add(vectorize(super.nextRecord()));
             }
 
+            numFeatures = tfidfVectorizer.numFeatures();
             recordIter = records.iterator();
         }
 
         this.initialized = true;
     }
 
+    private Record vectorize(Record fileContents) {
+        INDArray transform = tfidfVectorizer.transform(fileContents);
+
+        org.datavec.api.records.impl.Record record = new org.datavec.api.records.impl.Record(
+                        new ArrayList<>(Collections.<Writable>singletonList(new NDArrayWritable(transform))),
+                        new RecordMetaDataURI(fileContents.getMetaData().getURI(), TfidfRecordReader.class));
+
+        if (appendLabel)
+            record.getRecord().add(fileContents.getRecord().get(fileContents.getRecord().size() - 1));
+        return record;
+    }
+
     @Override
     public void reset() {
         if (inputSplit == null)
             throw new UnsupportedOperationException("Cannot reset without first initializing");
-        recordIter = records.iterator();
+        if (streamRecords && initialized)
+            super.reset();
+        else
+            recordIter = records.iterator();
     }
 
     @Override
     public Record nextRecord() {
-        if (recordIter == null)
-            return super.nextRecord();
+        if (recordIter == null) {
+            Record fileContents = super.nextRecord();
+            return streamRecords && initialized ? vectorize(fileContents) : fileContents;
+        }
         return recordIter.next();
     }
 
@@ -160,6 +192,8 @@ public class TfidfRecordReader extends FileRecordReader {
     }
 
     public void shuffle(Random random) {
+        if (streamRecords)
+            throw new UnsupportedOperationException("Shuffling is not supported when streaming records");
         Collections.shuffle(this.records, random);
         this.reset();
     }
@@ -174,15 +208,7 @@ public class TfidfRecordReader extends FileRecordReader {
         List<Record> out = new ArrayList<>();
 
         for (Record fileContents : super.loadFromMetaData(recordMetaDatas)) {
-            INDArray transform = tfidfVectorizer.transform(fileContents);
-
-            org.datavec.api.records.impl.Record record = new org.datavec.api.records.impl.Record(
-                            new ArrayList<>(Collections.<Writable>singletonList(new NDArrayWritable(transform))),
-                            new RecordMetaDataURI(fileContents.getMetaData().getURI(), TfidfRecordReader.class));
-
-            if (appendLabel)
-                record.getRecord().add(fileContents.getRecord().get(fileContents.getRecord().size() - 1));
-            out.add(record);
+            out.add(vectorize(fileContents));
         }
 
         return out;
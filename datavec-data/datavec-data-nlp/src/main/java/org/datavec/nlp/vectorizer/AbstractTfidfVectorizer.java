@@ -19,21 +19,55 @@ package org.datavec.nlp.vectorizer;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.nlp.metadata.DefaultVocabCache;
+import org.datavec.nlp.metadata.VocabCache;
 import org.datavec.nlp.tokenization.tokenizer.Tokenizer;
 import org.datavec.nlp.tokenization.tokenizerfactory.DefaultTokenizerFactory;
 import org.datavec.nlp.tokenization.tokenizerfactory.TokenizerFactory;
 
+import java.util.ArrayList;
 import java.util.HashSet;
+import java.util.LinkedList;
+import java.util.List;
 import java.util.Set;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
 
 /**
  * Tf idf vectorizer
+ * <p>
+ * If {@link #NUM_THREADS} is set to more than 1 (and the vocab cache is a {@link DefaultVocabCache}), fitting is
+ * done in parallel: records are read on the calling thread, and batches of records are tokenized and counted on
+ * worker threads, each into its own cache. The partial caches are then merged into the vectorizer's cache, in the
+ * order the records were read, so that the vocab (and hence the column order) is the same as for a sequential fit.
+ *
  * @author Adam Gibson
  */
 public abstract class AbstractTfidfVectorizer<VECTOR_TYPE> extends TextVectorizer<VECTOR_TYPE> {
 
+    public final static String NUM_THREADS = "org.datavec.nlp.numthreads";
+    private static final int FIT_BATCH_SIZE = 256;
+
+    protected int numThreads = 1;
+
+    @Override
+    public void initialize(Configuration conf) {
+        super.initialize(conf);
+        numThreads = conf.getInt(NUM_THREADS, 1);
+    }
+
     @Override
     public void doWithTokens(Tokenizer tokenizer) {
+        doWithTokens(tokenizer, cache);
+    }
+
+    /**
+     * Increment the word and document counts of the given cache for the (non stop word) tokens
+     */
+    protected void doWithTokens(Tokenizer tokenizer, VocabCache cache) {
         Set<String> seen = new HashSet<>();
         while (tokenizer.hasMoreTokens()) {
             String token = tokenizer.nextToken();
@@ -47,6 +81,60 @@ public abstract class AbstractTfidfVectorizer<VECTOR_TYPE> extends TextVectorize
         }
     }
 
+    @Override
+    public void fit(RecordReader reader, RecordCallBack callBack) {
+        if (numThreads <= 1 || !(cache instanceof DefaultVocabCache)) {
+            super.fit(reader, callBack);
+            return;
+        }
+
+        DefaultVocabCache target = (DefaultVocabCache) cache;
+        ExecutorService exec = Executors.newFixedThreadPool(numThreads);
+        //Bound the number of batches in flight: records must not all be buffered if counting is slower than reading
+        LinkedList<Future<DefaultVocabCache>> pending = new LinkedList<>();
+        try {
+            List<String> batch = new ArrayList<>(FIT_BATCH_SIZE);
+            while (reader.hasNext()) {
+                Record record = reader.nextRecord();
+                batch.add(toString(record.getRecord()));
+                if (callBack != null)
+                    callBack.onRecord(record);
+
+                if (batch.size() == FIT_BATCH_SIZE) {
+                    pending.add(exec.submit(countTask(batch)));
+                    batch = new ArrayList<>(FIT_BATCH_SIZE);
+                    if (pending.size() > 2 * numThreads)
+                        target.merge(pending.removeFirst().get());
+                }
+            }
+            if (!batch.isEmpty())
+                pending.add(exec.submit(countTask(batch)));
+            while (!pending.isEmpty())
+                target.merge(pending.removeFirst().get());
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+            throw new RuntimeException(e);
+        } catch (ExecutionException e) {
+            throw new RuntimeException(e.getCause());
+        } finally {
+            exec.shutdownNow();
+        }
+    }
+
+    private Callable<DefaultVocabCache> countTask(final List<String> documents) {
+        return new Callable<DefaultVocabCache>() {
+            @Override
+            public DefaultVocabCache call() {
+                DefaultVocabCache partial = new DefaultVocabCache(cache.minWordFrequency(), true);
+                for (String s : documents) {
+                    partial.incrementNumDocs(1);
+                    doWithTokens(tokenizerFactory.create(s), partial);
+                }
+                return partial;
+            }
+        };
+    }
+
     @Override
     public TokenizerFactory createTokenizerFactory(Configuration conf) {
         String clazz = conf.get(TOKENIZER, DefaultTokenizerFactory.class.getName());
@@ -69,6 +69,13 @@ public abstract class TextVectorizer<VECTOR_TYPE> implements Vectorizer<VECTOR_T
         }
     }
 
+    /**
+     * @return The vocab cache: vocab words and document frequencies, once fit
+     */
+    public VocabCache getCache() {
+        return cache;
+    }
+
     @Override
     public void fit(RecordReader reader) {
         fit(reader, null);
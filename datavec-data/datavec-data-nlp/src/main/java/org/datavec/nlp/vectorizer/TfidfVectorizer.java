@@ -18,12 +18,14 @@ package org.datavec.nlp.vectorizer;
 
 
 import org.nd4j.linalg.primitives.Counter;
+import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.metadata.RecordMetaDataURI;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.writable.NDArrayWritable;
 import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.factory.Nd4j;
+import org.nd4j.linalg.util.MathUtils;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -32,19 +34,65 @@ import java.util.List;
 /**
  *
  * Nd4j tfidf vectorizer
+ * <p>
+ * Vectors are built from the terms of the document only: each term is looked up in the vocab, rather than
+ * looking up every vocab word in the document's term counts.<br>
+ * Alternatively, with feature hashing ({@link #HASHING_DIMENSION}), terms are mapped to one of a fixed number of
+ * columns by their hash code. No vocab is needed in this mode: without fitting, vectors contain term frequencies;
+ * if the vectorizer has been fit, they contain the tfidf values (summed, for terms hashed to the same column).
+ * <p>
+ * Vectors are dense row vectors: DataVec has no sparse array writable, and the consumers of these vectors expect
+ * dense arrays. Construction cost is proportional to the number of terms of the document, not the vocab size.
  *
  * @author Adam Gibson
  */
 public class TfidfVectorizer extends AbstractTfidfVectorizer<INDArray> {
+
+    public final static String HASHING_DIMENSION = "org.datavec.nlp.hashingdimension";
+
+    protected int hashingDimension = -1;
+
+    @Override
+    public void initialize(Configuration conf) {
+        super.initialize(conf);
+        hashingDimension = conf.getInt(HASHING_DIMENSION, -1);
+    }
+
+    /**
+     * @return True if feature hashing ({@link #HASHING_DIMENSION}) is used: no vocab, and hence no fitting, is needed
+     */
+    public boolean isHashing() {
+        return hashingDimension > 0;
+    }
+
+    /**
+     * @return Number of columns of the vectors: the vocab size, or the hashing dimension if feature hashing is used
+     */
+    public int numFeatures() {
+        return hashingDimension > 0 ? hashingDimension : cache.vocabWords().size();
+    }
+
     @Override
     public INDArray createVector(Object[] args) {
         Counter<String> docFrequencies = (Counter<String>) args[0];
-        double[] vector = new double[cache.vocabWords().size()];
-        for (int i = 0; i < cache.vocabWords().size(); i++) {
-            double freq = docFrequencies.getCount(cache.wordAt(i));
-            vector[i] = cache.tfidf(cache.wordAt(i), freq);
+        INDArray vector = Nd4j.create(1, numFeatures());
+        boolean hashing = hashingDimension > 0;
+        boolean fitted = cache.numDocs() > 0;
+        for (String word : docFrequencies.keySet()) {
+            double freq = docFrequencies.getCount(word);
+            if (hashing) {
+                if (stopWords.contains(word))
+                    continue;
+                int idx = (word.hashCode() & Integer.MAX_VALUE) % hashingDimension;
+                double value = fitted ? cache.tfidf(word, freq) : MathUtils.tf((int) freq);
+                vector.putScalar(idx, vector.getDouble(idx) + value);
+            } else {
+                int idx = cache.vocabWords().indexOf(word);
+                if (idx >= 0)
+                    vector.putScalar(idx, cache.tfidf(word, freq));
+            }
         }
-        return Nd4j.create(vector);
+        return vector;
     }
 
     @Override
@@ -64,7 +112,7 @@ public class TfidfVectorizer extends AbstractTfidfVectorizer<INDArray> {
 
         if (records.isEmpty())
             throw new IllegalStateException("No records found!");
-        INDArray ret = Nd4j.create(records.size(), cache.vocabWords().size());
+        INDArray ret = Nd4j.create(records.size(), numFeatures());
         int i = 0;
         for (Record record : records) {
             INDArray transformed = transform(record);
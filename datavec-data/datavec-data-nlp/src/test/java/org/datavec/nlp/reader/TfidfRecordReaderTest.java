@@ -19,15 +19,23 @@ package org.datavec.nlp.reader;
 import org.datavec.api.conf.Configuration;
 import org.datavec.api.records.Record;
 import org.datavec.api.records.reader.RecordReader;
+import org.datavec.api.records.reader.impl.FileRecordReader;
+import org.datavec.api.records.reader.impl.collection.CollectionRecordReader;
 import org.datavec.api.split.FileSplit;
 import org.datavec.api.writable.NDArrayWritable;
+import org.datavec.api.writable.Text;
 import org.datavec.api.writable.Writable;
 import org.datavec.nlp.vectorizer.TfidfVectorizer;
 import org.junit.Test;
+import org.nd4j.linalg.api.ndarray.INDArray;
 import org.nd4j.linalg.io.ClassPathResource;
 
+import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.Collection;
 import java.util.Iterator;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.*;
 
@@ -98,4 +106,154 @@ public class TfidfRecordReaderTest {
         assertEquals(record.getRecord().get(1), reread.getRecord().get(1));
         assertEquals(record.getMetaData(), reread.getMetaData());
     }
+
+    @Test
+    public void testStreamRecords() throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(TfidfVectorizer.MIN_WORD_FREQUENCY, 1);
+        conf.setBoolean(RecordReader.APPEND_LABEL, true);
+        TfidfRecordReader reader = new TfidfRecordReader();
+        reader.initialize(conf, new FileSplit(new ClassPathResource("labeled").getFile()));
+        List<List<Writable>> expected = new ArrayList<>();
+        while (reader.hasNext()) {
+            expected.add(reader.next());
+        }
+
+        Configuration confStream = new Configuration(conf);
+        confStream.setBoolean(TfidfRecordReader.STREAM_RECORDS, true);
+        TfidfRecordReader streaming = new TfidfRecordReader();
+        streaming.initialize(confStream, new FileSplit(new ClassPathResource("labeled").getFile()));
+        assertEquals(reader.getNumFeatures(), streaming.getNumFeatures());
+
+        for (int epoch = 0; epoch < 2; epoch++) {
+            List<List<Writable>> actual = new ArrayList<>();
+            while (streaming.hasNext()) {
+                actual.add(streaming.next());
+            }
+            assertEquals(expected, actual);
+            streaming.reset();
+        }
+    }
+
+    @Test
+    public void testParallelFit() throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(TfidfVectorizer.MIN_WORD_FREQUENCY, 1);
+        conf.setBoolean(RecordReader.APPEND_LABEL, true);
+        TfidfVectorizer sequential = new TfidfVectorizer();
+        sequential.initialize(conf);
+        FileRecordReader fileReader = new FileRecordReader();
+        fileReader.initialize(conf, new FileSplit(new ClassPathResource("labeled").getFile()));
+        sequential.fit(fileReader);
+
+        Configuration confParallel = new Configuration(conf);
+        confParallel.setInt(TfidfVectorizer.NUM_THREADS, 4);
+        TfidfVectorizer parallel = new TfidfVectorizer();
+        parallel.initialize(confParallel);
+        fileReader.reset();
+        parallel.fit(fileReader);
+
+        assertEquals(sequential.numFeatures(), parallel.numFeatures());
+        fileReader.reset();
+        while (fileReader.hasNext()) {
+            Record r = fileReader.nextRecord();
+            assertEquals(sequential.transform(r), parallel.transform(r));
+        }
+    }
+
+    @Test
+    public void testParallelFitVocabOrder() throws Exception {
+        //Enough documents for several batches, so that partial vocab caches are merged
+        Random r = new Random(12345);
+        List<List<Writable>> docs = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            StringBuilder sb = new StringBuilder();
+            int numWords = 1 + r.nextInt(20);
+            for (int j = 0; j < numWords; j++) {
+                sb.append(" word").append((int) Math.abs(r.nextGaussian() * 300));
+            }
+            docs.add(Arrays.<Writable>asList(new Text(sb.toString())));
+        }
+
+        for (int minWordFrequency : new int[] {1, 3}) {
+            Configuration conf = new Configuration();
+            conf.setInt(TfidfVectorizer.MIN_WORD_FREQUENCY, minWordFrequency);
+            TfidfVectorizer sequential = new TfidfVectorizer();
+            sequential.initialize(conf);
+            sequential.fit(new CollectionRecordReader(docs));
+
+            for (int numThreads : new int[] {2, 4}) {
+                Configuration confParallel = new Configuration(conf);
+                confParallel.setInt(TfidfVectorizer.NUM_THREADS, numThreads);
+                TfidfVectorizer parallel = new TfidfVectorizer();
+                parallel.initialize(confParallel);
+                parallel.fit(new CollectionRecordReader(docs));
+
+                assertEquals(sequential.numFeatures(), parallel.numFeatures());
+                for (int i = 0; i < sequential.numFeatures(); i++) {
+                    assertEquals(sequential.getCache().wordAt(i), parallel.getCache().wordAt(i));
+                }
+            }
+        }
+    }
+
+    @Test
+    public void testFeatureHashing() throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(TfidfVectorizer.MIN_WORD_FREQUENCY, 1);
+        conf.setBoolean(RecordReader.APPEND_LABEL, true);
+        conf.setInt(TfidfVectorizer.HASHING_DIMENSION, 64);
+        conf.setBoolean(TfidfRecordReader.STREAM_RECORDS, true);
+
+        //Without fitting: term frequencies, no vocab needed
+        TfidfVectorizer vectorizer = new TfidfVectorizer();
+        vectorizer.initialize(conf);
+        assertEquals(64, vectorizer.numFeatures());
+
+        TfidfRecordReader reader = new TfidfRecordReader();
+        reader.setTfidfVectorizer(vectorizer);
+        reader.initialize(conf, new FileSplit(new ClassPathResource("labeled").getFile()));
+        assertEquals(64, reader.getNumFeatures());
+        int count = 0;
+        while (reader.hasNext()) {
+            List<Writable> next = reader.next();
+            INDArray arr = ((NDArrayWritable) next.get(0)).get();
+            assertEquals(64, arr.length());
+            assertTrue(arr.sumNumber().doubleValue() > 0);
+            count++;
+        }
+        assertEquals(3, count);
+    }
+
+    @Test
+    public void testFeatureHashingNoVocabPass() throws Exception {
+        Configuration conf = new Configuration();
+        conf.setInt(TfidfVectorizer.MIN_WORD_FREQUENCY, 1);
+        conf.setBoolean(RecordReader.APPEND_LABEL, true);
+        conf.setInt(TfidfVectorizer.HASHING_DIMENSION, 64);
+
+        for (boolean stream : new boolean[] {false, true}) {
+            conf.setBoolean(TfidfRecordReader.STREAM_RECORDS, stream);
+            //No vectorizer set: with feature hashing, the files are not read to build a vocab
+            TfidfRecordReader reader = new TfidfRecordReader();
+            reader.initialize(conf, new FileSplit(new ClassPathResource("labeled").getFile()));
+            assertEquals(64, reader.getNumFeatures());
+            assertEquals(0, reader.getTfidfVectorizer().getCache().numDocs(), 0.0);
+
+            TfidfVectorizer unfit = new TfidfVectorizer();
+            unfit.initialize(conf);
+            TfidfRecordReader expectedReader = new TfidfRecordReader();
+            expectedReader.setTfidfVectorizer(unfit);
+            expectedReader.initialize(conf, new FileSplit(new ClassPathResource("labeled").getFile()));
+
+            int count = 0;
+            while (reader.hasNext()) {
+                INDArray arr = ((NDArrayWritable) reader.next().get(0)).get();
+                assertEquals(64, arr.length());
+                assertEquals(((NDArrayWritable) expectedReader.next().get(0)).get(), arr);
+                count++;
+            }
+            assertEquals(3, count);
+        }
+    }
 }
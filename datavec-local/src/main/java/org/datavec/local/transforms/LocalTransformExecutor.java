@@ -5,7 +5,6 @@ import com.codepoetics.protonpack.StreamUtils;
 import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.datavec.api.transform.DataAction;
 import org.datavec.api.transform.Transform;
@@ -14,19 +13,22 @@ import org.datavec.api.transform.filter.Filter;
 import org.datavec.api.transform.join.Join;
 import org.datavec.api.transform.ops.IAggregableReduceOp;
 import org.datavec.api.transform.rank.CalculateSortedRank;
+import org.datavec.api.transform.reduce.CompositeKey;
 import org.datavec.api.transform.reduce.IAssociativeReducer;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
 import org.datavec.api.transform.sequence.ConvertToSequence;
 import org.datavec.api.transform.sequence.SequenceSplit;
 import org.datavec.api.writable.*;
+import org.datavec.arrow.ArrowAllocators;
 import org.datavec.arrow.ArrowConverter;
+import org.datavec.arrow.recordreader.ArrowWritableRecordBatch;
 import org.datavec.local.transforms.functions.EmptyRecordFunction;
 import org.datavec.local.transforms.join.ExecuteJoinFromCoGroupFlatMapFunction;
 import org.datavec.local.transforms.join.ExtractKeysFunction;
 import org.datavec.local.transforms.misc.ColumnAsKeyPairFunction;
 import org.datavec.local.transforms.rank.UnzipForCalculateSortedRankFunction;
-import org.datavec.local.transforms.reduce.MapToPairForReducerFunction;
+import org.datavec.local.transforms.reduce.MapToCompositeKeyForReducerFunction;
 import org.datavec.local.transforms.sequence.*;
 import org.datavec.local.transforms.transform.LocalTransformFunction;
 import org.datavec.local.transforms.transform.SequenceSplitFunction;
@@ -51,8 +53,6 @@ public class LocalTransformExecutor {
     //returning empty records
     public final static String LOG_ERROR_PROPERTY = "org.datavec.spark.transform.logerrors";
 
-    private static BufferAllocator bufferAllocator = new RootAllocator(Long.MAX_VALUE);
-
     /**
      * Execute the specified TransformProcess with the given input data<br>
      * Note: this method can only be used if the TransformProcess returns non-sequence data. For TransformProcesses
@@ -363,20 +363,22 @@ public class LocalTransformExecutor {
                     //First: convert to PairRDD
                     Schema schema = cts.getInputSchema();
                     int[] colIdxs = schema.getIndexOfColumns(cts.getKeyColumns());
-                    LocalMapToPairByMultipleColumnsFunction localMapToPairByMultipleColumnsFunction = new LocalMapToPairByMultipleColumnsFunction(colIdxs);
-                    List<Pair<List<Writable>, List<Writable>>> withKey =
+                    LocalMapToCompositeKeyFunction localMapToPairByMultipleColumnsFunction = new LocalMapToCompositeKeyFunction(colIdxs);
+                    List<Pair<CompositeKey, List<Writable>>> withKey =
                             currentWritables.stream()
                                     .map(inputSequence2 -> localMapToPairByMultipleColumnsFunction
                                             .apply(inputSequence2))
                                     .collect(toList());
 
 
-                    Map<List<Writable>, List<List<Writable>>> collect = FunctionalUtils.groupByKey(withKey);
+                    Map<CompositeKey, List<List<Writable>>> collect = FunctionalUtils.groupByKey(withKey);
                     LocalGroupToSequenceFunction localGroupToSequenceFunction = new LocalGroupToSequenceFunction(cts.getComparator());
                     //Now: convert to a sequence...
+                    final int maxSequenceLength = cts.getMaxSequenceLength();
                     currentSequence = collect.entrySet().stream()
                             .map(input -> input.getValue())
                             .map(input -> localGroupToSequenceFunction.apply(input))
+                            .flatMap(input -> splitSequence(input, maxSequenceLength).stream())
                             .collect(toList());
 
                     currentWritables = null;
@@ -408,27 +410,27 @@ public class LocalTransformExecutor {
                 if (currentWritables == null)
                     throw new IllegalStateException("Error during execution of reduction: current writables are null. "
                             + "Trying to execute a reduce operation on a sequence?");
-                MapToPairForReducerFunction mapToPairForReducerFunction = new MapToPairForReducerFunction(reducer);
-                List<Pair<String, List<Writable>>> pair =
+                MapToCompositeKeyForReducerFunction mapToPairForReducerFunction = new MapToCompositeKeyForReducerFunction(reducer);
+                List<Pair<CompositeKey, List<Writable>>> pair =
                         currentWritables.stream().map(input -> mapToPairForReducerFunction.apply(input))
                                 .collect(toList());
 
 
                 //initial op
-                Map<String, IAggregableReduceOp<List<Writable>, List<Writable>>> resultPerKey = new HashMap<>();
+                Map<CompositeKey, IAggregableReduceOp<List<Writable>, List<Writable>>> resultPerKey = new HashMap<>();
 
                 val groupedByKey = FunctionalUtils.groupByKey(pair);
                 val aggregated = StreamUtils.aggregate(groupedByKey.entrySet()
-                        .stream(), new BiPredicate<Map.Entry<String, List<List<Writable>>>, Map.Entry<String, List<List<Writable>>>>() {
+                        .stream(), new BiPredicate<Map.Entry<CompositeKey, List<List<Writable>>>, Map.Entry<CompositeKey, List<List<Writable>>>>() {
                     @Override
-                    public boolean test(Map.Entry<String, List<List<Writable>>> stringListEntry, Map.Entry<String, List<List<Writable>>> stringListEntry2) {
+                    public boolean test(Map.Entry<CompositeKey, List<List<Writable>>> stringListEntry, Map.Entry<CompositeKey, List<List<Writable>>> stringListEntry2) {
                         return stringListEntry.getKey().equals(stringListEntry2.getKey());
                     }
                 }).collect(Collectors.toList());
 
 
-                aggregated.stream().forEach((List<Map.Entry<String, List<List<Writable>>>> input) -> {
-                    for(Map.Entry<String, List<List<Writable>>> entry : input) {
+                aggregated.stream().forEach((List<Map.Entry<CompositeKey, List<List<Writable>>>> input) -> {
+                    for(Map.Entry<CompositeKey, List<List<Writable>>> entry : input) {
                         if(!resultPerKey.containsKey(entry.getKey())) {
                             IAggregableReduceOp<List<Writable>, List<Writable>> reducer2 = reducer.aggregableReducer();
                             resultPerKey.put(entry.getKey(),reducer2);
@@ -502,7 +504,7 @@ public class LocalTransformExecutor {
 
             if(allSameLength) {
                 List<FieldVector> arrowColumns = ArrowConverter.toArrowColumnsTimeSeries(
-                        bufferAllocator,
+                        bufferAllocator(),
                         sequence.getFinalSchema(),
                         currentSequence);
                  int timeSeriesLength = currentSequence.get(0).size() * currentSequence.get(0).get(0).size();
@@ -522,13 +524,7 @@ public class LocalTransformExecutor {
         }
         else {
 
-            return new Pair<>(ArrowConverter.
-                    toArrowWritables(ArrowConverter.toArrowColumns(
-                            bufferAllocator,
-                            sequence.getFinalSchema(),
-                            currentWritables)
-                            ,sequence.getFinalSchema()),
-                    null);
+            return new Pair<>(toOwnedArrowWritables(sequence.getFinalSchema(), currentWritables), null);
         }
 
     }
@@ -537,7 +533,27 @@ public class LocalTransformExecutor {
 
 
     /**
-     * Execute a join on the specified data
+     * Split a sequence into consecutive sequences of at most maxSequenceLength steps
+     *
+     * @param sequence          Sequence to split
+     * @param maxSequenceLength Maximum length of the output sequences; <= 0 for no limit
+     */
+    private static List<List<List<Writable>>> splitSequence(List<List<Writable>> sequence, int maxSequenceLength) {
+        if (maxSequenceLength <= 0 || sequence.size() <= maxSequenceLength)
+            return Collections.singletonList(sequence);
+        List<List<List<Writable>>> out = new ArrayList<>();
+        for (int i = 0; i < sequence.size(); i += maxSequenceLength) {
+            out.add(new ArrayList<>(sequence.subList(i, Math.min(i + maxSequenceLength, sequence.size()))));
+        }
+        return out;
+    }
+
+    /**
+     * Execute a join on the specified data.<br>
+     * Unless the join strategy is {@link Join.JoinStrategy#Shuffle} (group both sides by key, then join the values
+     * for each key), the join is executed as a hash join: one side is hashed by join key, and the examples of the other
+     * side are streamed through the hash table. The hashed side is the smaller side for Inner joins, the right side
+     * for LeftOuter and FullOuter joins, and the left side for RightOuter joins.
      *
      * @param join  Join to execute
      * @param left  Left data for join
@@ -554,33 +570,113 @@ public class LocalTransformExecutor {
         }
         ExtractKeysFunction extractKeysFunction1 = new ExtractKeysFunction(leftColumnIndexes);
 
-        List<Pair<List<Writable>, List<Writable>>> leftJV = left.stream()
-                .filter(input -> input.size() != leftColumnNames.length).map(input ->
-                extractKeysFunction1.apply(input)).collect(toList());
-
         String[] rightColumnNames = join.getJoinColumnsRight();
         int[] rightColumnIndexes = new int[rightColumnNames.length];
         for (int i = 0; i < rightColumnNames.length; i++) {
             rightColumnIndexes[i] = join.getRightSchema().getIndexOfColumn(rightColumnNames[i]);
         }
-
         ExtractKeysFunction extractKeysFunction = new ExtractKeysFunction(rightColumnIndexes);
-        List<Pair<List<Writable>, List<Writable>>> rightJV =
-                right.stream().filter(input -> input.size() != rightColumnNames.length)
-                        .map(input -> extractKeysFunction.apply(input))
-                        .collect(toList());
 
-        Map<List<Writable>, Pair<List<List<Writable>>, List<List<Writable>>>> cogroupedJV = FunctionalUtils.cogroup(leftJV, rightJV);
-        ExecuteJoinFromCoGroupFlatMapFunction executeJoinFromCoGroupFlatMapFunction = new ExecuteJoinFromCoGroupFlatMapFunction(join);
-        List<List<Writable>> ret =  cogroupedJV.entrySet().stream()
-                .flatMap(input ->
-                        executeJoinFromCoGroupFlatMapFunction.call(Pair.of(input.getKey(),input.getValue())).stream())
-                .collect(toList());
+        List<List<Writable>> ret;
+        if (join.getJoinStrategy() == Join.JoinStrategy.Shuffle) {
+            List<Pair<List<Writable>, List<Writable>>> leftJV = left.stream()
+                    .filter(input -> input.size() != leftColumnNames.length).map(input ->
+                    extractKeysFunction1.apply(input)).collect(toList());
+
+            List<Pair<List<Writable>, List<Writable>>> rightJV =
+                    right.stream().filter(input -> input.size() != rightColumnNames.length)
+                            .map(input -> extractKeysFunction.apply(input))
+                            .collect(toList());
+
+            Map<List<Writable>, Pair<List<List<Writable>>, List<List<Writable>>>> cogroupedJV = FunctionalUtils.cogroup(leftJV, rightJV);
+            ExecuteJoinFromCoGroupFlatMapFunction executeJoinFromCoGroupFlatMapFunction = new ExecuteJoinFromCoGroupFlatMapFunction(join);
+            ret =  cogroupedJV.entrySet().stream()
+                    .flatMap(input ->
+                            executeJoinFromCoGroupFlatMapFunction.call(Pair.of(input.getKey(),input.getValue())).stream())
+                    .collect(toList());
+        } else {
+            List<List<Writable>> leftFiltered = left.stream()
+                    .filter(input -> input.size() != leftColumnNames.length).collect(toList());
+            List<List<Writable>> rightFiltered = right.stream()
+                    .filter(input -> input.size() != rightColumnNames.length).collect(toList());
+
+            Join.JoinType jt = join.getJoinType();
+            boolean hashRight = jt == Join.JoinType.LeftOuter || jt == Join.JoinType.FullOuter
+                    || (jt == Join.JoinType.Inner && rightFiltered.size() <= leftFiltered.size());
+            if (hashRight) {
+                ret = hashJoin(join, leftFiltered, extractKeysFunction1, rightFiltered, extractKeysFunction, true);
+            } else {
+                ret = hashJoin(join, rightFiltered, extractKeysFunction, leftFiltered, extractKeysFunction1, false);
+            }
+        }
 
         Schema retSchema = join.getOutputSchema();
-        return ArrowConverter.toArrowWritables(ArrowConverter.toArrowColumns(bufferAllocator,retSchema,ret),retSchema);
+        return toOwnedArrowWritables(retSchema, ret);
 
     }
 
+    /**
+     * Convert the records to a batch backed by Arrow vectors. The batch owns its vectors: closing it
+     * ({@link ArrowWritableRecordBatch#close()}) releases their off-heap memory.
+     */
+    private static ArrowWritableRecordBatch toOwnedArrowWritables(Schema schema, List<List<Writable>> records) {
+        List<FieldVector> columns = ArrowConverter.toArrowColumns(bufferAllocator(), schema, records);
+        ArrowWritableRecordBatch ret = ArrowConverter.toArrowWritables(columns, schema);
+        for (FieldVector column : columns) {
+            ret.addResource(column);
+        }
+        return ret;
+    }
+
+    /**
+     * Hash join: hash the examples of one side by join key, then stream the examples of the other side through
+     * the hash table. Unmatched examples of the streamed side are output for outer joins on that side; unmatched
+     * examples of the hashed side are output (after all streamed examples) for FullOuter joins only.
+     */
+    private static List<List<Writable>> hashJoin(Join join, List<List<Writable>> streamed,
+                                                 ExtractKeysFunction streamedKeys, List<List<Writable>> hashed,
+                                                 ExtractKeysFunction hashedKeys, boolean rightIsHashed) {
+        Map<List<Writable>, List<List<Writable>>> hashTable = new HashMap<>();
+        for (List<Writable> example : hashed) {
+            hashTable.computeIfAbsent(hashedKeys.apply(example).getFirst(), k -> new ArrayList<>(1)).add(example);
+        }
+
+        Join.JoinType jt = join.getJoinType();
+        boolean outputUnmatchedStreamed = jt == Join.JoinType.FullOuter
+                || (rightIsHashed ? jt == Join.JoinType.LeftOuter : jt == Join.JoinType.RightOuter);
+        Set<List<Writable>> matchedKeys = jt == Join.JoinType.FullOuter ? new HashSet<>() : null;
+
+        List<List<Writable>> ret = new ArrayList<>();
+        for (List<Writable> example : streamed) {
+            List<Writable> key = streamedKeys.apply(example).getFirst();
+            List<List<Writable>> matches = hashTable.get(key);
+            if (matches == null) {
+                if (outputUnmatchedStreamed) {
+                    ret.add(rightIsHashed ? join.joinExamples(example, null) : join.joinExamples(null, example));
+                }
+                continue;
+            }
+            if (matchedKeys != null)
+                matchedKeys.add(key);
+            for (List<Writable> m : matches) {
+                ret.add(rightIsHashed ? join.joinExamples(example, m) : join.joinExamples(m, example));
+            }
+        }
+
+        if (matchedKeys != null) {
+            //FullOuter: hashed side is always the right side
+            for (Map.Entry<List<Writable>, List<List<Writable>>> e : hashTable.entrySet()) {
+                if (matchedKeys.contains(e.getKey()))
+                    continue;
+                for (List<Writable> example : e.getValue()) {
+                    ret.add(join.joinExamples(null, example));
+                }
+            }
+        }
+        return ret;
+    }
 
+    private static BufferAllocator bufferAllocator() {
+        return ArrowAllocators.getSharedChildAllocator("LocalTransformExecutor");
+    }
 }
@@ -0,0 +1,57 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.local.transforms.reduce;
+
+import org.datavec.api.transform.reduce.CompositeKey;
+import org.datavec.api.transform.reduce.IAssociativeReducer;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.function.Function;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.List;
+
+
+/**
+ * Map an example to a pair for reduction, keyed by the values of the reducer's key columns
+ * (see {@link CompositeKey}), or by {@link #GLOBAL_KEY} for a global reduction.<br>
+ * Unlike {@link MapToPairForReducerFunction}, which keys by the joined string values of the key columns, there are no
+ * key collisions between values containing the separator, and no string is built per example.
+ */
+public class MapToCompositeKeyForReducerFunction implements Function<List<Writable>, Pair<CompositeKey, List<Writable>>> {
+    public static final CompositeKey GLOBAL_KEY = CompositeKey.EMPTY;
+
+    private final IAssociativeReducer reducer;
+    private int[] keyColumnIdxs;
+
+    public MapToCompositeKeyForReducerFunction(IAssociativeReducer reducer) {
+        this.reducer = reducer;
+    }
+
+    @Override
+    public Pair<CompositeKey, List<Writable>> apply(List<Writable> writables) {
+        List<String> keyColumns = reducer.getKeyColumns();
+
+        if(keyColumns == null){
+            //Global reduction
+            return Pair.of(GLOBAL_KEY, writables);
+        } else {
+            if (keyColumnIdxs == null)
+                keyColumnIdxs = reducer.getInputSchema().getIndexOfColumns(keyColumns);
+            return Pair.of(CompositeKey.of(writables, keyColumnIdxs), writables);
+        }
+    }
+}
@@ -0,0 +1,42 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.local.transforms.sequence;
+
+import lombok.AllArgsConstructor;
+import org.datavec.api.transform.reduce.CompositeKey;
+import org.datavec.api.writable.Writable;
+import org.nd4j.linalg.function.Function;
+import org.nd4j.linalg.primitives.Pair;
+
+import java.util.List;
+
+/**
+ * Function to map an example to a pair, by using some of the column values as the key.
+ * The key is a {@link CompositeKey} of the column values: unlike the list of values used as key by
+ * {@link LocalMapToPairByMultipleColumnsFunction}, it is hashed once, and compared per typed value.
+ */
+@AllArgsConstructor
+public class LocalMapToCompositeKeyFunction
+                implements Function<List<Writable>, Pair<CompositeKey, List<Writable>>> {
+
+    private final int[] keyColumnIdxs;
+
+    @Override
+    public Pair<CompositeKey, List<Writable>> apply(List<Writable> writables) {
+        return Pair.of(CompositeKey.of(writables, keyColumnIdxs), writables);
+    }
+}
@@ -24,6 +24,7 @@ import org.datavec.api.writable.*;
 
 
 import org.datavec.local.transforms.LocalTransformExecutor;
+import org.junit.Ignore;
 import org.junit.Test;
 
 import java.util.*;
@@ -181,56 +182,91 @@ public class TestJoin  {
         List<List<Writable>> secondRDD = (second);
 
         int count = 0;
-        for (Join.JoinType jt : Join.JoinType.values()) {
-            Join join = new Join.Builder(jt).setJoinColumnsLeft("category").setJoinColumnsRight("otherCategory")
-                            .setSchemas(schema1, schema2).build();
-            List<List<Writable>> out =
-                            new ArrayList<>(LocalTransformExecutor.executeJoin(join, firstRDD, secondRDD));
-
-            //Sort output by column 0, then column 1, then column 2 for comparison to expected...
-            Collections.sort(out, new Comparator<List<Writable>>() {
-                @Override
-                public int compare(List<Writable> o1, List<Writable> o2) {
-                    Writable w1 = o1.get(0);
-                    Writable w2 = o2.get(0);
-                    if (w1 instanceof NullWritable)
-                        return 1;
-                    else if (w2 instanceof NullWritable)
-                        return -1;
-                    int c = Long.compare(w1.toLong(), w2.toLong());
-                    if (c != 0)
-                        return c;
-                    c = o1.get(1).toString().compareTo(o2.get(1).toString());
-                    if (c != 0)
-                        return c;
-                    w1 = o1.get(2);
-                    w2 = o2.get(2);
-                    if (w1 instanceof NullWritable)
-                        return 1;
-                    else if (w2 instanceof NullWritable)
-                        return -1;
-                    return Long.compare(w1.toLong(), w2.toLong());
+        for (Join.JoinStrategy strategy : Join.JoinStrategy.values()) {
+            for (Join.JoinType jt : Join.JoinType.values()) {
+                Join join = new Join.Builder(jt).setJoinColumnsLeft("category").setJoinColumnsRight("otherCategory")
+                                .setSchemas(schema1, schema2).setJoinStrategy(strategy).build();
+                List<List<Writable>> out =
+                                new ArrayList<>(LocalTransformExecutor.executeJoin(join, firstRDD, secondRDD));
+
+                //Sort output by column 0, then column 1, then column 2 for comparison to expected...
+                Collections.sort(out, new Comparator<List<Writable>>() {
+                    @Override
+                    public int compare(List<Writable> o1, List<Writable> o2) {
+                        Writable w1 = o1.get(0);
+                        Writable w2 = o2.get(0);
+                        if (w1 instanceof NullWritable)
+                            return 1;
+                        else if (w2 instanceof NullWritable)
+                            return -1;
+                        int c = Long.compare(w1.toLong(), w2.toLong());
+                        if (c != 0)
+                            return c;
+                        c = o1.get(1).toString().compareTo(o2.get(1).toString());
+                        if (c != 0)
+                            return c;
+                        w1 = o1.get(2);
+                        w2 = o2.get(2);
+                        if (w1 instanceof NullWritable)
+                            return 1;
+                        else if (w2 instanceof NullWritable)
+                            return -1;
+                        return Long.compare(w1.toLong(), w2.toLong());
+                    }
+                });
+
+                switch (jt) {
+                    case Inner:
+                        assertEquals(expInnerJoin, out);
+                        break;
+                    case LeftOuter:
+                        assertEquals(expLeftJoin, out);
+                        break;
+                    case RightOuter:
+                        assertEquals(expRightJoin, out);
+                        break;
+                    case FullOuter:
+                        assertEquals(expOuterJoin, out);
+                        break;
                 }
-            });
-
-            switch (jt) {
-                case Inner:
-                    assertEquals(expInnerJoin, out);
-                    break;
-                case LeftOuter:
-                    assertEquals(expLeftJoin, out);
-                    break;
-                case RightOuter:
-                    assertEquals(expRightJoin, out);
-                    break;
-                case FullOuter:
-                    assertEquals(expOuterJoin, out);
-                    break;
+                count++;
             }
-            count++;
         }
 
-        assertEquals(4, count);
+        assertEquals(4 * 3, count);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkSmallDimensionTableJoin() {
+        //1M facts joined to a 1000 row dimension table
+        Schema factSchema = new Schema.Builder().addColumnLong("factID").addColumnLong("dimID")
+                        .addColumnDouble("amount").build();
+        Schema dimSchema = new Schema.Builder().addColumnLong("dimID").addColumnString("dimName").build();
+
+        Random r = new Random(12345);
+        List<List<Writable>> facts = new ArrayList<>();
+        for (int i = 0; i < 1000000; i++) {
+            facts.add(Arrays.<Writable>asList(new LongWritable(i), new LongWritable(r.nextInt(1000)),
+                            new DoubleWritable(r.nextDouble())));
+        }
+        List<List<Writable>> dims = new ArrayList<>();
+        for (int i = 0; i < 1000; i++) {
+            dims.add(Arrays.<Writable>asList(new LongWritable(i), new Text("dim" + i)));
+        }
+
+        for (Join.JoinStrategy strategy : new Join.JoinStrategy[] {Join.JoinStrategy.Shuffle,
+                        Join.JoinStrategy.Broadcast}) {
+            Join join = new Join.Builder(Join.JoinType.LeftOuter).setJoinColumns("dimID")
+                            .setSchemas(factSchema, dimSchema).setJoinStrategy(strategy).build();
+            for (int iter = 0; iter < 5; iter++) {
+                long start = System.nanoTime();
+                int n = LocalTransformExecutor.executeJoin(join, facts, dims).size();
+                long end = System.nanoTime();
+                System.out.println(strategy + ", iteration " + iter + ": " + (end - start) / 1000000 + " ms, "
+                                + n + " joined examples");
+            }
+        }
     }
 
 }
@@ -2,13 +2,14 @@ package org.datavec.spark.transform;
 
 import lombok.AllArgsConstructor;
 import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
 import lombok.val;
 import org.apache.arrow.memory.BufferAllocator;
-import org.apache.arrow.memory.RootAllocator;
 import org.apache.arrow.vector.FieldVector;
 import org.datavec.api.transform.TransformProcess;
 import org.datavec.api.util.ndarray.RecordConverter;
 import org.datavec.api.writable.Writable;
+import org.datavec.arrow.ArrowAllocators;
 import org.datavec.arrow.ArrowConverter;
 import org.datavec.arrow.recordreader.ArrowWritableRecordBatch;
 import org.datavec.arrow.recordreader.ArrowWritableRecordTimeSeriesBatch;
@@ -40,7 +41,6 @@ import static org.datavec.local.transforms.LocalTransformExecutor.executeToSeque
 public class CSVSparkTransform {
     @Getter
     private TransformProcess transformProcess;
-    private static BufferAllocator bufferAllocator = new RootAllocator(Long.MAX_VALUE);
 
     /**
      * Convert a raw record via
@@ -51,14 +51,17 @@ public class CSVSparkTransform {
      * @throws IOException
      */
     public Base64NDArrayBody toArray(BatchCSVRecord batch) throws IOException {
-        List<List<Writable>> converted =  execute(toArrowWritables(toArrowColumnsString(
-                bufferAllocator,transformProcess.getInitialSchema(),
-                batch.getRecordsAsString()),
-                transformProcess.getInitialSchema()),transformProcess);
-
-        ArrowWritableRecordBatch arrowRecordBatch = (ArrowWritableRecordBatch) converted;
-        INDArray convert = ArrowConverter.toArray(arrowRecordBatch);
-        return new Base64NDArrayBody(Nd4jBase64.base64String(convert));
+        List<FieldVector> input = toArrowColumnsString(bufferAllocator(), transformProcess.getInitialSchema(),
+                batch.getRecordsAsString());
+        List<List<Writable>> converted = null;
+        try {
+            converted = execute(toArrowWritables(input, transformProcess.getInitialSchema()), transformProcess);
+            ArrowWritableRecordBatch arrowRecordBatch = (ArrowWritableRecordBatch) converted;
+            INDArray convert = ArrowConverter.toArray(arrowRecordBatch);
+            return new Base64NDArrayBody(Nd4jBase64.base64String(convert));
+        } finally {
+            release(input, converted);
+        }
     }
 
     /**
@@ -70,13 +73,17 @@ public class CSVSparkTransform {
      * @throws IOException
      */
     public Base64NDArrayBody toArray(SingleCSVRecord record) throws IOException {
-        List<Writable> record2 = toArrowWritablesSingle(
-                toArrowColumnsStringSingle(bufferAllocator,
-                        transformProcess.getInitialSchema(),record.getValues()),
-                transformProcess.getInitialSchema());
-        List<Writable> finalRecord = execute(Arrays.asList(record2),transformProcess).get(0);
-        INDArray convert = RecordConverter.toArray(finalRecord);
-        return new Base64NDArrayBody(Nd4jBase64.base64String(convert));
+        List<FieldVector> input = toArrowColumnsStringSingle(bufferAllocator(),
+                transformProcess.getInitialSchema(), record.getValues());
+        List<List<Writable>> converted = null;
+        try {
+            List<Writable> record2 = toArrowWritablesSingle(input, transformProcess.getInitialSchema());
+            converted = execute(Arrays.asList(record2), transformProcess);
+            INDArray convert = RecordConverter.toArray(converted.get(0));
+            return new Base64NDArrayBody(Nd4jBase64.base64String(convert));
+        } finally {
+            release(input, converted);
+        }
     }
 
     /**
@@ -86,16 +93,20 @@ public class CSVSparkTransform {
      */
     public BatchCSVRecord transform(BatchCSVRecord batch) {
         BatchCSVRecord batchCSVRecord = new BatchCSVRecord();
-        List<List<Writable>> converted =  execute(toArrowWritables(toArrowColumnsString(
-                bufferAllocator,transformProcess.getInitialSchema(),
-                batch.getRecordsAsString()),
-                transformProcess.getInitialSchema()),transformProcess);
-        int numCols = converted.get(0).size();
-        for (int row = 0; row < converted.size(); row++) {
-            String[] values = new String[numCols];
-            for (int i = 0; i < values.length; i++)
-                values[i] = converted.get(row).get(i).toString();
-            batchCSVRecord.add(new SingleCSVRecord(values));
+        List<FieldVector> input = toArrowColumnsString(bufferAllocator(), transformProcess.getInitialSchema(),
+                batch.getRecordsAsString());
+        List<List<Writable>> converted = null;
+        try {
+            converted = execute(toArrowWritables(input, transformProcess.getInitialSchema()), transformProcess);
+            int numCols = converted.get(0).size();
+            for (int row = 0; row < converted.size(); row++) {
+                String[] values = new String[numCols];
+                for (int i = 0; i < values.length; i++)
+                    values[i] = converted.get(row).get(i).toString();
+                batchCSVRecord.add(new SingleCSVRecord(values));
+            }
+        } finally {
+            release(input, converted);
         }
 
         return batchCSVRecord;
@@ -108,15 +119,20 @@ public class CSVSparkTransform {
      * @return the transformed record
      */
     public SingleCSVRecord transform(SingleCSVRecord record) {
-        List<Writable> record2 = toArrowWritablesSingle(
-                toArrowColumnsStringSingle(bufferAllocator,
-                        transformProcess.getInitialSchema(),record.getValues()),
-                transformProcess.getInitialSchema());
-        List<Writable> finalRecord = execute(Arrays.asList(record2),transformProcess).get(0);
-        String[] values = new String[finalRecord.size()];
-        for (int i = 0; i < values.length; i++)
-            values[i] = finalRecord.get(i).toString();
-        return new SingleCSVRecord(values);
+        List<FieldVector> input = toArrowColumnsStringSingle(bufferAllocator(),
+                transformProcess.getInitialSchema(), record.getValues());
+        List<List<Writable>> converted = null;
+        try {
+            List<Writable> record2 = toArrowWritablesSingle(input, transformProcess.getInitialSchema());
+            converted = execute(Arrays.asList(record2), transformProcess);
+            List<Writable> finalRecord = converted.get(0);
+            String[] values = new String[finalRecord.size()];
+            for (int i = 0; i < values.length; i++)
+                values[i] = finalRecord.get(i).toString();
+            return new SingleCSVRecord(values);
+        } finally {
+            release(input, converted);
+        }
 
     }
 
@@ -131,7 +147,7 @@ public class CSVSparkTransform {
          */
         List<List<List<Writable>>> converted = executeToSequence(
                 toArrowWritables(toArrowColumnsStringTimeSeries(
-                        bufferAllocator, transformProcess.getInitialSchema(),
+                        bufferAllocator(), transformProcess.getInitialSchema(),
                         Arrays.asList(transform.getRecordsAsString())),
                         transformProcess.getInitialSchema()), transformProcess);
 
@@ -163,7 +179,7 @@ public class CSVSparkTransform {
         }
 
         if(allSameLength) {
-            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator, transformProcess.getInitialSchema(), recordsAsString);
+            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator(), transformProcess.getInitialSchema(), recordsAsString);
             ArrowWritableRecordTimeSeriesBatch arrowWritableRecordTimeSeriesBatch = new ArrowWritableRecordTimeSeriesBatch(fieldVectors,
                     transformProcess.getInitialSchema(),
                     recordsAsString.get(0).get(0).size());
@@ -197,7 +213,7 @@ public class CSVSparkTransform {
         }
 
         if(allSameLength) {
-            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator, transformProcess.getInitialSchema(), strings);
+            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator(), transformProcess.getInitialSchema(), strings);
             ArrowWritableRecordTimeSeriesBatch arrowWritableRecordTimeSeriesBatch = new ArrowWritableRecordTimeSeriesBatch(fieldVectors,transformProcess.getInitialSchema(),strings.get(0).get(0).size());
             val transformed = LocalTransformExecutor.executeSequenceToSequence(arrowWritableRecordTimeSeriesBatch,transformProcess);
             INDArray arr = RecordConverter.toTensor(transformed).reshape(strings.size(),strings.get(0).get(0).size(),strings.get(0).size());
@@ -227,7 +243,7 @@ public class CSVSparkTransform {
      */
     public Base64NDArrayBody transformSequenceArrayIncremental(BatchCSVRecord singleCsvRecord) {
         List<List<List<Writable>>> converted =  executeToSequence(toArrowWritables(toArrowColumnsString(
-                bufferAllocator,transformProcess.getInitialSchema(),
+                bufferAllocator(),transformProcess.getInitialSchema(),
                 singleCsvRecord.getRecordsAsString()),
                 transformProcess.getInitialSchema()),transformProcess);
         ArrowWritableRecordTimeSeriesBatch arrowWritableRecordBatch = (ArrowWritableRecordTimeSeriesBatch) converted;
@@ -255,7 +271,7 @@ public class CSVSparkTransform {
         }
 
         if(allSameLength) {
-            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator, transformProcess.getInitialSchema(), strings);
+            List<FieldVector> fieldVectors = toArrowColumnsStringTimeSeries(bufferAllocator(), transformProcess.getInitialSchema(), strings);
             ArrowWritableRecordTimeSeriesBatch arrowWritableRecordTimeSeriesBatch = new ArrowWritableRecordTimeSeriesBatch(fieldVectors,transformProcess.getInitialSchema(),strings.get(0).get(0).size());
             val transformed = LocalTransformExecutor.executeSequenceToSequence(arrowWritableRecordTimeSeriesBatch,transformProcess);
              return SequenceBatchCSVRecord.fromWritables(transformed);
@@ -268,4 +284,25 @@ public class CSVSparkTransform {
         }
 
     }
+
+    /**
+     * Release the off-heap memory of the input vectors and of the transformed records, once the result
+     * of a request has been computed
+     */
+    private static void release(List<FieldVector> input, List<List<Writable>> converted) {
+        if (converted instanceof ArrowWritableRecordBatch) {
+            try {
+                ((ArrowWritableRecordBatch) converted).close();
+            } catch (IOException e) {
+                log.warn("Error closing transformed record batch", e);
+            }
+        }
+        for (FieldVector vector : input) {
+            vector.close();
+        }
+    }
+
+    private static BufferAllocator bufferAllocator() {
+        return ArrowAllocators.getSharedChildAllocator("CSVSparkTransform");
+    }
 }
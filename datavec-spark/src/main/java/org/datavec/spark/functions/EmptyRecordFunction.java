@@ -9,7 +9,11 @@ import java.util.List;
  * Used for filtering empty records
  *
  * @author Adam Gibson
+ *
+ * @deprecated No longer used by {@link org.datavec.spark.transform.SparkTransformExecutor}: empty records are
+ *             dropped by {@link org.datavec.spark.transform.transform.SparkRowPipelineFunction}
  */
+@Deprecated
 public class EmptyRecordFunction implements Function<List<Writable>, Boolean> {
     @Override
     public Boolean call(List<Writable> v1) throws Exception {
@@ -19,8 +19,10 @@ package org.datavec.spark.transform;
 import org.apache.commons.math3.util.Pair;
 import org.apache.spark.api.java.JavaPairRDD;
 import org.apache.spark.api.java.JavaRDD;
+import org.apache.spark.api.java.JavaSparkContext;
 import org.apache.spark.api.java.function.Function;
 import org.apache.spark.api.java.function.Function2;
+import org.apache.spark.broadcast.Broadcast;
 import org.datavec.api.transform.DataAction;
 import org.datavec.api.transform.Transform;
 import org.datavec.api.transform.TransformProcess;
@@ -28,6 +30,7 @@ import org.datavec.api.transform.filter.Filter;
 import org.datavec.api.transform.join.Join;
 import org.datavec.api.transform.ops.IAggregableReduceOp;
 import org.datavec.api.transform.rank.CalculateSortedRank;
+import org.datavec.api.transform.reduce.CompositeKey;
 import org.datavec.api.transform.reduce.IAssociativeReducer;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
@@ -35,23 +38,23 @@ import org.datavec.api.transform.sequence.ConvertToSequence;
 import org.datavec.api.transform.sequence.SequenceSplit;
 import org.datavec.api.writable.Writable;
 import org.datavec.spark.SequenceEmptyRecordFunction;
-import org.datavec.spark.functions.EmptyRecordFunction;
 import org.datavec.spark.transform.analysis.SequenceFlatMapFunction;
-import org.datavec.spark.transform.filter.SparkFilterFunction;
-import org.datavec.spark.transform.join.ExecuteJoinFromCoGroupFlatMapFunction;
-import org.datavec.spark.transform.join.ExtractKeysFunction;
+import org.datavec.spark.transform.join.*;
 import org.datavec.spark.transform.misc.ColumnAsKeyPairFunction;
 import org.datavec.spark.transform.rank.UnzipForCalculateSortedRankFunction;
-import org.datavec.spark.transform.reduce.MapToPairForReducerFunction;
+import org.datavec.spark.transform.reduce.MapToCompositeKeyForReducerFunction;
 import org.datavec.spark.transform.sequence.*;
 import org.datavec.spark.transform.transform.SequenceSplitFunction;
-import org.datavec.spark.transform.transform.SparkTransformFunction;
+import org.datavec.spark.transform.transform.SparkRowPipelineFunction;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import scala.Tuple2;
 
+import java.util.ArrayList;
 import java.util.Comparator;
+import java.util.HashMap;
 import java.util.List;
+import java.util.Map;
 
 /**
  * Execute a datavec
@@ -183,36 +186,32 @@ public class SparkTransformExecutor {
 
 
         int count = 1;
+        //Consecutive transforms and filters on non-sequence data are executed as a single mapPartitions stage
+        List<DataAction> rowPipeline = new ArrayList<>();
         for (DataAction d : dataActions) {
             //log.info("Starting execution of stage {} of {}", count, dataActions.size());     //
 
+            if (currentWritables != null && (d.getTransform() != null || d.getFilter() != null)) {
+                rowPipeline.add(d);
+                count++;
+                continue;
+            }
+            if (!rowPipeline.isEmpty()) {
+                currentWritables = currentWritables.mapPartitions(new SparkRowPipelineFunction(rowPipeline));
+                rowPipeline = new ArrayList<>();
+            }
+
             if (d.getTransform() != null) {
                 Transform t = d.getTransform();
-                if (currentWritables != null) {
-                    Function<List<Writable>, List<Writable>> function = new SparkTransformFunction(t);
-                    if (isTryCatch())
-                        currentWritables = currentWritables.map(function).filter(new EmptyRecordFunction());
-                    else
-                        currentWritables = currentWritables.map(function);
-                } else {
-                    Function<List<List<Writable>>, List<List<Writable>>> function =
-                                    new SparkSequenceTransformFunction(t);
-                    if (isTryCatch())
-                        currentSequence = currentSequence.map(function).filter(new SequenceEmptyRecordFunction());
-                    else
-                        currentSequence = currentSequence.map(function);
-
-
-                }
+                Function<List<List<Writable>>, List<List<Writable>>> function = new SparkSequenceTransformFunction(t);
+                if (isTryCatch())
+                    currentSequence = currentSequence.map(function).filter(new SequenceEmptyRecordFunction());
+                else
+                    currentSequence = currentSequence.map(function);
             } else if (d.getFilter() != null) {
                 //Filter
                 Filter f = d.getFilter();
-                if (currentWritables != null) {
-                    currentWritables = currentWritables.filter(new SparkFilterFunction(f));
-                } else {
-                    currentSequence = currentSequence.filter(new SparkSequenceFilterFunction(f));
-                }
-
+                currentSequence = currentSequence.filter(new SparkSequenceFilterFunction(f));
             } else if (d.getConvertToSequence() != null) {
                 //Convert to a sequence...
                 final ConvertToSequence cts = d.getConvertToSequence();
@@ -222,16 +221,21 @@ public class SparkTransformExecutor {
                     currentSequence = currentWritables.map(new ConvertToSequenceLengthOne());
                     currentWritables = null;
                 } else {
-                    //Standard case: join by key
-                    //First: convert to PairRDD
+                    //Standard case: group by key
+                    //Secondary sort: partition by key only, and sort within each partition by (key, comparator).
+                    //This avoids materializing each group in memory (as groupByKey would) before sorting it
                     Schema schema = cts.getInputSchema();
                     int[] colIdxs = schema.getIndexOfColumns(cts.getKeyColumns());
-                    JavaPairRDD<List<Writable>, List<Writable>> withKey =
-                            currentWritables.mapToPair(new SparkMapToPairByMultipleColumnsFunction(colIdxs));
-                    JavaPairRDD<List<Writable>, Iterable<List<Writable>>> grouped = withKey.groupByKey();
-
-                    //Now: convert to a sequence...
-                    currentSequence = grouped.mapValues(new SparkGroupToSequenceFunction(cts.getComparator())).values();
+                    JavaPairRDD<Tuple2<CompositeKey, List<Writable>>, Writable> withKey =
+                            currentWritables.mapToPair(new SparkMapToSortKeyFunction(colIdxs));
+                    JavaRDD<Tuple2<CompositeKey, List<Writable>>> sorted = withKey
+                            .repartitionAndSortWithinPartitions(
+                                    new SequenceKeyPartitioner(currentWritables.partitions().size()),
+                                    new SequenceSortComparator(cts.getComparator()))
+                            .keys();
+
+                    //Now: convert each run of examples with the same key to a sequence...
+                    currentSequence = sorted.mapPartitions(new SortedRunsToSequenceFunction(cts.getMaxSequenceLength()));
                     currentWritables = null;
                 }
             } else if (d.getConvertFromSequence() != null) {
@@ -255,8 +259,8 @@ public class SparkTransformExecutor {
                 if (currentWritables == null)
                     throw new IllegalStateException("Error during execution of reduction: current writables are null. "
                                     + "Trying to execute a reduce operation on a sequence?");
-                JavaPairRDD<String, List<Writable>> pair =
-                                currentWritables.mapToPair(new MapToPairForReducerFunction(reducer));
+                JavaPairRDD<CompositeKey, List<Writable>> pair =
+                                currentWritables.mapToPair(new MapToCompositeKeyForReducerFunction(reducer));
 
 
                 currentWritables = pair.aggregateByKey(reducer.aggregableReducer(),
@@ -316,13 +320,24 @@ public class SparkTransformExecutor {
             count++;
         }
 
+        if (!rowPipeline.isEmpty()) {
+            currentWritables = currentWritables.mapPartitions(new SparkRowPipelineFunction(rowPipeline));
+        }
+
         //log.info("Completed {} of {} execution steps", count - 1, dataActions.size());       //Lazy execution means this can be printed before anything has actually happened...
 
         return new Pair<>(currentWritables, currentSequence);
     }
 
     /**
-     * Execute a join on the specified data
+     * Execute a join on the specified data.<br>
+     * The join is executed according to {@link Join#getJoinStrategy()}: either as a broadcast hash join (one side is
+     * collected, hashed by join key and broadcast, and the other side is streamed through it without a shuffle) or
+     * as a shuffle join (both sides are cogrouped by join key). With {@link Join.JoinStrategy#Auto}, a broadcast join
+     * is used if the side to be hashed has at most {@link Join#getBroadcastThreshold()} examples.<br>
+     * Broadcast joins are not possible for FullOuter joins; these always use a shuffle join.<br>
+     * As for other transformations, the join itself is lazy. The broadcast hash table is referenced by the returned
+     * RDD, and is released by Spark's context cleaner once the RDD is no longer referenced.
      *
      * @param join  Join to execute
      * @param left  Left data for join
@@ -338,20 +353,99 @@ public class SparkTransformExecutor {
             leftColumnIndexes[i] = join.getLeftSchema().getIndexOfColumn(leftColumnNames[i]);
         }
 
-        JavaPairRDD<List<Writable>, List<Writable>> leftJV = left.mapToPair(new ExtractKeysFunction(leftColumnIndexes));
-
         String[] rightColumnNames = join.getJoinColumnsRight();
         int[] rightColumnIndexes = new int[rightColumnNames.length];
         for (int i = 0; i < rightColumnNames.length; i++) {
             rightColumnIndexes[i] = join.getRightSchema().getIndexOfColumn(rightColumnNames[i]);
         }
 
+        //Right side can be hashed for Inner and LeftOuter joins (all left examples are streamed), left side for
+        //Inner and RightOuter joins
+        Join.JoinType jt = join.getJoinType();
+        boolean canHashRight = jt == Join.JoinType.Inner || jt == Join.JoinType.LeftOuter;
+        boolean canHashLeft = jt == Join.JoinType.Inner || jt == Join.JoinType.RightOuter;
+        switch (join.getJoinStrategy()) {
+            case Broadcast:
+                if (canHashRight) {
+                    return broadcastHashJoin(join, left, right.collect(), true, leftColumnIndexes,
+                                    rightColumnIndexes);
+                } else if (canHashLeft) {
+                    return broadcastHashJoin(join, right, left.collect(), false, rightColumnIndexes,
+                                    leftColumnIndexes);
+                }
+                log.warn("Broadcast join is not supported for join type {}: executing as shuffle join", jt);
+                break;
+            case Auto:
+                //take(n+1) only evaluates as many partitions as are needed to return n+1 examples
+                int threshold = (int) Math.min(join.getBroadcastThreshold(), Integer.MAX_VALUE - 1);
+                if (canHashRight) {
+                    List<List<Writable>> rightExamples = right.take(threshold + 1);
+                    if (rightExamples.size() <= threshold) {
+                        return broadcastHashJoin(join, left, rightExamples, true, leftColumnIndexes,
+                                        rightColumnIndexes);
+                    }
+                }
+                if (canHashLeft) {
+                    List<List<Writable>> leftExamples = left.take(threshold + 1);
+                    if (leftExamples.size() <= threshold) {
+                        return broadcastHashJoin(join, right, leftExamples, false, rightColumnIndexes,
+                                        leftColumnIndexes);
+                    }
+                }
+                break;
+            case Shuffle:
+            default:
+                break;
+        }
+
+        JavaPairRDD<List<Writable>, List<Writable>> leftJV = left.mapToPair(new ExtractKeysFunction(leftColumnIndexes));
         JavaPairRDD<List<Writable>, List<Writable>> rightJV =
                         right.mapToPair(new ExtractKeysFunction(rightColumnIndexes));
 
+        //Salting for skewed keys: spread each key of one side over N sub-keys, and replicate the other side N times
+        int saltFactor = join.getSkewSaltFactor();
+        if (saltFactor > 1) {
+            switch (jt) {
+                case Inner:
+                case LeftOuter:
+                    leftJV = leftJV.mapToPair(new SaltKeysFunction(saltFactor));
+                    rightJV = JavaPairRDD.fromJavaRDD(rightJV.flatMap(new ReplicateForSaltFunction(saltFactor)));
+                    break;
+                case RightOuter:
+                    rightJV = rightJV.mapToPair(new SaltKeysFunction(saltFactor));
+                    leftJV = JavaPairRDD.fromJavaRDD(leftJV.flatMap(new ReplicateForSaltFunction(saltFactor)));
+                    break;
+                default:
+                    log.warn("Skew salting is not supported for join type {}: ignoring salt factor", jt);
+            }
+        }
+
         JavaPairRDD<List<Writable>, Tuple2<Iterable<List<Writable>>, Iterable<List<Writable>>>> cogroupedJV =
                         leftJV.cogroup(rightJV);
 
         return cogroupedJV.flatMap(new ExecuteJoinFromCoGroupFlatMapFunction(join));
     }
+
+    private static JavaRDD<List<Writable>> broadcastHashJoin(Join join, JavaRDD<List<Writable>> streamed,
+                    List<List<Writable>> hashed, boolean rightIsBroadcast, int[] streamedKeyColumnIndexes,
+                    int[] hashedKeyColumnIndexes) {
+        Map<List<Writable>, List<List<Writable>>> hashTable = new HashMap<>();
+        for (List<Writable> example : hashed) {
+            List<Writable> key = new ArrayList<>(hashedKeyColumnIndexes.length);
+            for (int i : hashedKeyColumnIndexes) {
+                key.add(example.get(i));
+            }
+            List<List<Writable>> examples = hashTable.get(key);
+            if (examples == null) {
+                examples = new ArrayList<>(1);
+                hashTable.put(key, examples);
+            }
+            examples.add(example);
+        }
+
+        Broadcast<Map<List<Writable>, List<List<Writable>>>> broadcast =
+                        JavaSparkContext.fromSparkContext(streamed.context()).broadcast(hashTable);
+        return streamed.flatMap(
+                        new BroadcastHashJoinFunction(join, broadcast, rightIsBroadcast, streamedKeyColumnIndexes));
+    }
 }
@@ -26,8 +26,13 @@ import java.util.List;
 /**
  * Spark function for executing filter operations
  * @author Alex Black
+ *
+ * @deprecated No longer used by {@link org.datavec.spark.transform.SparkTransformExecutor}: consecutive transforms
+ *             and filters are executed in a single stage by
+ *             {@link org.datavec.spark.transform.transform.SparkRowPipelineFunction}
  */
 @AllArgsConstructor
+@Deprecated
 public class SparkFilterFunction implements Function<List<Writable>, Boolean> {
 
     private final Filter filter;
@@ -0,0 +1,38 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.join;
+
+import org.apache.spark.broadcast.Broadcast;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
+
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execute a join against a broadcast hash table. See {@link BroadcastHashJoinFunctionAdapter}
+ *
+ * @author Alex Black
+ */
+public class BroadcastHashJoinFunction extends BaseFlatMapFunctionAdaptee<List<Writable>, List<Writable>> {
+
+    public BroadcastHashJoinFunction(Join join, Broadcast<Map<List<Writable>, List<List<Writable>>>> hashTable,
+                    boolean rightIsBroadcast, int[] keyColumnIndexes) {
+        super(new BroadcastHashJoinFunctionAdapter(join, hashTable, rightIsBroadcast, keyColumnIndexes));
+    }
+}
@@ -0,0 +1,92 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.join;
+
+import org.apache.spark.broadcast.Broadcast;
+import org.datavec.api.transform.join.Join;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.functions.FlatMapFunctionAdapter;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Execute a join by probing a broadcast hash table (join key -> examples) with each example of the other
+ * (streamed) side. Used for Inner and LeftOuter joins with the right side broadcast, and for Inner and RightOuter
+ * joins with the left side broadcast.
+ *
+ * @author Alex Black
+ */
+public class BroadcastHashJoinFunctionAdapter implements FlatMapFunctionAdapter<List<Writable>, List<Writable>> {
+
+    private final Join join;
+    private final Broadcast<Map<List<Writable>, List<List<Writable>>>> hashTable;
+    private final boolean rightIsBroadcast;
+    private final int[] keyColumnIndexes;
+
+    /**
+     * @param join             Join to execute
+     * @param hashTable        Examples of the broadcast side, by join key
+     * @param rightIsBroadcast If true: the right side is broadcast, and the left side is streamed. Otherwise, the
+     *                         left side is broadcast
+     * @param keyColumnIndexes Indexes of the join columns in the streamed examples
+     */
+    public BroadcastHashJoinFunctionAdapter(Join join, Broadcast<Map<List<Writable>, List<List<Writable>>>> hashTable,
+                    boolean rightIsBroadcast, int[] keyColumnIndexes) {
+        this.join = join;
+        this.hashTable = hashTable;
+        this.rightIsBroadcast = rightIsBroadcast;
+        this.keyColumnIndexes = keyColumnIndexes;
+    }
+
+    @Override
+    public Iterable<List<Writable>> call(List<Writable> example) throws Exception {
+        List<Writable> key;
+        if (keyColumnIndexes.length == 1) {
+            key = Collections.singletonList(example.get(keyColumnIndexes[0]));
+        } else {
+            key = new ArrayList<>(keyColumnIndexes.length);
+            for (int i : keyColumnIndexes) {
+                key.add(example.get(i));
+            }
+        }
+
+        List<List<Writable>> matches = hashTable.getValue().get(key);
+        if (matches == null) {
+            //No match: only outer joins (streamed side) return a value
+            Join.JoinType jt = join.getJoinType();
+            if (rightIsBroadcast && jt == Join.JoinType.LeftOuter) {
+                return Collections.singletonList(join.joinExamples(example, null));
+            } else if (!rightIsBroadcast && jt == Join.JoinType.RightOuter) {
+                return Collections.singletonList(join.joinExamples(null, example));
+            }
+            return Collections.emptyList();
+        }
+
+        List<List<Writable>> ret = new ArrayList<>(matches.size());
+        for (List<Writable> m : matches) {
+            if (rightIsBroadcast) {
+                ret.add(join.joinExamples(example, m));
+            } else {
+                ret.add(join.joinExamples(m, example));
+            }
+        }
+        return ret;
+    }
+}
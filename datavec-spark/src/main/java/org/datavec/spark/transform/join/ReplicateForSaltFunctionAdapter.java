@@ -0,0 +1,54 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.join;
+
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.functions.FlatMapFunctionAdapter;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Replicate each (join key, example) pair once for each salt value (0 to saltFactor-1), adding the salt value to the
+ * join key. Used for the side of a shuffle join that is not salted by {@link SaltKeysFunction}
+ *
+ * @author Alex Black
+ */
+public class ReplicateForSaltFunctionAdapter implements
+                FlatMapFunctionAdapter<Tuple2<List<Writable>, List<Writable>>, Tuple2<List<Writable>, List<Writable>>> {
+
+    private final int saltFactor;
+
+    public ReplicateForSaltFunctionAdapter(int saltFactor) {
+        this.saltFactor = saltFactor;
+    }
+
+    @Override
+    public Iterable<Tuple2<List<Writable>, List<Writable>>> call(Tuple2<List<Writable>, List<Writable>> t2)
+                    throws Exception {
+        List<Tuple2<List<Writable>, List<Writable>>> ret = new ArrayList<>(saltFactor);
+        for (int i = 0; i < saltFactor; i++) {
+            List<Writable> saltedKey = new ArrayList<>(t2._1().size() + 1);
+            saltedKey.addAll(t2._1());
+            saltedKey.add(new IntWritable(i));
+            ret.add(new Tuple2<>(saltedKey, t2._2()));
+        }
+        return ret;
+    }
+}
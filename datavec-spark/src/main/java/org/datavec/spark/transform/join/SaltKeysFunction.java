@@ -0,0 +1,54 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.join;
+
+import org.apache.spark.api.java.function.PairFunction;
+import org.datavec.api.writable.IntWritable;
+import org.datavec.api.writable.Writable;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Add a salt value (0 to saltFactor-1) to the join key of each example, for spreading the examples of skewed keys
+ * over multiple sub-keys in a shuffle join. Salt values are assigned round-robin within each partition (rather than
+ * randomly), so that recomputing a partition assigns the same salt values.
+ * The examples on the other side of the join are replicated for every salt value: see
+ * {@link ReplicateForSaltFunctionAdapter}
+ *
+ * @author Alex Black
+ */
+public class SaltKeysFunction
+                implements PairFunction<Tuple2<List<Writable>, List<Writable>>, List<Writable>, List<Writable>> {
+
+    private final int saltFactor;
+    private int next;
+
+    public SaltKeysFunction(int saltFactor) {
+        this.saltFactor = saltFactor;
+    }
+
+    @Override
+    public Tuple2<List<Writable>, List<Writable>> call(Tuple2<List<Writable>, List<Writable>> t2) throws Exception {
+        List<Writable> saltedKey = new ArrayList<>(t2._1().size() + 1);
+        saltedKey.addAll(t2._1());
+        saltedKey.add(new IntWritable(next));
+        next = (next + 1) % saltFactor;
+        return new Tuple2<>(saltedKey, t2._2());
+    }
+}
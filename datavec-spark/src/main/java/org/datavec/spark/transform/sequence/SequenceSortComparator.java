@@ -0,0 +1,45 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.sequence;
+
+import lombok.AllArgsConstructor;
+import org.datavec.api.transform.reduce.CompositeKey;
+import org.datavec.api.transform.sequence.SequenceComparator;
+import org.datavec.api.writable.Writable;
+import scala.Tuple2;
+
+import java.io.Serializable;
+import java.util.Comparator;
+import java.util.List;
+
+/**
+ * Comparator for (sequence key, example) pairs: orders by sequence key first, then by the provided
+ * {@link SequenceComparator}, so that after sorting the examples of each sequence are contiguous and in order
+ */
+@AllArgsConstructor
+public class SequenceSortComparator implements Comparator<Tuple2<CompositeKey, List<Writable>>>, Serializable {
+
+    private final SequenceComparator comparator;
+
+    @Override
+    public int compare(Tuple2<CompositeKey, List<Writable>> o1, Tuple2<CompositeKey, List<Writable>> o2) {
+        int c = o1._1().compareTo(o2._1());
+        if (c != 0)
+            return c;
+        return comparator.compare(o1._2(), o2._2());
+    }
+}
@@ -0,0 +1,96 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.sequence;
+
+import org.datavec.api.transform.reduce.CompositeKey;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.functions.FlatMapFunctionAdapter;
+import scala.Tuple2;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Converts a partition of (sequence key, example) pairs, sorted by key and then by time step, into sequences.
+ * Sequences are built lazily, one at a time, as the output is iterated. If a maximum sequence length is set, longer
+ * runs of the same key are split into consecutive sequences of at most that length.
+ */
+public class SortedRunsToSequenceFunctionAdapter
+                implements FlatMapFunctionAdapter<Iterator<Tuple2<CompositeKey, List<Writable>>>,
+                                List<List<Writable>>> {
+
+    private final int maxSequenceLength;
+
+    /**
+     * @param maxSequenceLength Maximum sequence length; <= 0 for no limit
+     */
+    public SortedRunsToSequenceFunctionAdapter(int maxSequenceLength) {
+        this.maxSequenceLength = maxSequenceLength;
+    }
+
+    @Override
+    public Iterable<List<List<Writable>>> call(final Iterator<Tuple2<CompositeKey, List<Writable>>> iterator)
+                    throws Exception {
+        return new Iterable<List<List<Writable>>>() {
+            @Override
+            public Iterator<List<List<Writable>>> iterator() {
+                return new SequenceIterator(iterator);
+            }
+        };
+    }
+
+    private class SequenceIterator implements Iterator<List<List<Writable>>> {
+        private final Iterator<Tuple2<CompositeKey, List<Writable>>> iterator;
+        private Tuple2<CompositeKey, List<Writable>> pending;
+
+        private SequenceIterator(Iterator<Tuple2<CompositeKey, List<Writable>>> iterator) {
+            this.iterator = iterator;
+            this.pending = iterator.hasNext() ? iterator.next() : null;
+        }
+
+        @Override
+        public boolean hasNext() {
+            return pending != null;
+        }
+
+        @Override
+        public List<List<Writable>> next() {
+            if (pending == null)
+                throw new NoSuchElementException();
+            CompositeKey key = pending._1();
+            List<List<Writable>> sequence = new ArrayList<>();
+            sequence.add(pending._2());
+            pending = null;
+            while (iterator.hasNext()) {
+                Tuple2<CompositeKey, List<Writable>> next = iterator.next();
+                if (!key.equals(next._1()) || (maxSequenceLength > 0 && sequence.size() >= maxSequenceLength)) {
+                    pending = next;
+                    break;
+                }
+                sequence.add(next._2());
+            }
+            return sequence;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported");
+        }
+    }
+}
@@ -30,8 +30,13 @@ import java.util.List;
  * using a provided {@link SequenceComparator}
  *
  * @author Alex Black
+ *
+ * @deprecated No longer used by {@link org.datavec.spark.transform.SparkTransformExecutor}: ConvertToSequence is
+ *             executed with a secondary sort ({@link SparkMapToSortKeyFunction}, {@link SequenceKeyPartitioner},
+ *             {@link SortedRunsToSequenceFunction}), without grouping each sequence in memory
  */
 @AllArgsConstructor
+@Deprecated
 public class SparkGroupToSequenceFunction implements Function<Iterable<List<Writable>>, List<List<Writable>>> {
 
     private final SequenceComparator comparator;
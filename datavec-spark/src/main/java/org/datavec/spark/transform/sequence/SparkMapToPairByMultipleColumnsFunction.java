@@ -28,8 +28,12 @@ import java.util.List;
  * Spark function to map an example to a pair, by using some of the column values as the key.
  *
  * @author Alex Black
+ *
+ * @deprecated No longer used by {@link org.datavec.spark.transform.SparkTransformExecutor}: ConvertToSequence keys
+ *             examples with {@link SparkMapToSortKeyFunction}
  */
 @AllArgsConstructor
+@Deprecated
 public class SparkMapToPairByMultipleColumnsFunction
                 implements PairFunction<List<Writable>, List<Writable>, List<Writable>> {
 
@@ -0,0 +1,44 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.sequence;
+
+import lombok.AllArgsConstructor;
+import org.apache.spark.api.java.function.PairFunction;
+import org.datavec.api.transform.reduce.CompositeKey;
+import org.datavec.api.writable.NullWritable;
+import org.datavec.api.writable.Writable;
+import scala.Tuple2;
+
+import java.util.List;
+
+/**
+ * Spark function to map an example to a (sequence key, example) pair as the key of a pair RDD, for sorting the
+ * examples of each sequence with a secondary sort (see {@link SequenceSortComparator}). The values are unused
+ * ({@link NullWritable}).
+ */
+@AllArgsConstructor
+public class SparkMapToSortKeyFunction
+                implements PairFunction<List<Writable>, Tuple2<CompositeKey, List<Writable>>, Writable> {
+
+    private final int[] keyColumnIdxs;
+
+    @Override
+    public Tuple2<Tuple2<CompositeKey, List<Writable>>, Writable> call(List<Writable> writables) throws Exception {
+        return new Tuple2<Tuple2<CompositeKey, List<Writable>>, Writable>(
+                        new Tuple2<>(CompositeKey.of(writables, keyColumnIdxs), writables), NullWritable.INSTANCE);
+    }
+}
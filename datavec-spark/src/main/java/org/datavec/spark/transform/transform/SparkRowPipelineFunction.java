@@ -0,0 +1,37 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.transform;
+
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.transform.BaseFlatMapFunctionAdaptee;
+
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Spark function (for mapPartitions) for executing consecutive transforms and filters in a single pass.
+ * See {@link SparkRowPipelineFunctionAdapter}
+ *
+ * @author Alex Black
+ */
+public class SparkRowPipelineFunction extends BaseFlatMapFunctionAdaptee<Iterator<List<Writable>>, List<Writable>> {
+
+    public SparkRowPipelineFunction(List<DataAction> actions) {
+        super(new SparkRowPipelineFunctionAdapter(actions));
+    }
+}
@@ -0,0 +1,138 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.transform;
+
+import lombok.extern.slf4j.Slf4j;
+import org.datavec.api.transform.DataAction;
+import org.datavec.api.transform.Transform;
+import org.datavec.api.transform.filter.Filter;
+import org.datavec.api.writable.Writable;
+import org.datavec.spark.functions.FlatMapFunctionAdapter;
+import org.datavec.spark.transform.SparkTransformExecutor;
+
+import java.util.Iterator;
+import java.util.List;
+import java.util.NoSuchElementException;
+
+/**
+ * Executes a sequence of consecutive row-local actions (transforms and filters on non-sequence data) over a
+ * partition in a single pass, instead of one map/filter stage per action.<br>
+ * In error-logging mode (see {@link SparkTransformExecutor#LOG_ERROR_PROPERTY}), examples for which a transform
+ * throws an exception or returns an empty example are logged and skipped, in the same pass.
+ *
+ * @author Alex Black
+ */
+@Slf4j
+public class SparkRowPipelineFunctionAdapter
+                implements FlatMapFunctionAdapter<Iterator<List<Writable>>, List<Writable>> {
+
+    //One entry per step: exactly one of transforms[i] and filters[i] is non-null
+    private final Transform[] transforms;
+    private final Filter[] filters;
+
+    /**
+     * @param actions Actions to execute, in order. Each action must be either a transform or a filter
+     */
+    public SparkRowPipelineFunctionAdapter(List<DataAction> actions) {
+        this.transforms = new Transform[actions.size()];
+        this.filters = new Filter[actions.size()];
+        for (int i = 0; i < actions.size(); i++) {
+            DataAction d = actions.get(i);
+            if (d.getTransform() != null) {
+                transforms[i] = d.getTransform();
+            } else if (d.getFilter() != null) {
+                filters[i] = d.getFilter();
+            } else {
+                throw new IllegalArgumentException("Only transforms and filters can be executed in a row pipeline: "
+                                + "got " + d);
+            }
+        }
+    }
+
+    @Override
+    public Iterable<List<Writable>> call(final Iterator<List<Writable>> iterator) throws Exception {
+        final boolean tryCatch = SparkTransformExecutor.isTryCatch();
+        return new Iterable<List<Writable>>() {
+            @Override
+            public Iterator<List<Writable>> iterator() {
+                return new PipelineIterator(iterator, tryCatch);
+            }
+        };
+    }
+
+    /**
+     * Apply all steps to one example
+     *
+     * @return The processed example, or null if the example was removed
+     */
+    private List<Writable> apply(List<Writable> example, boolean tryCatch) {
+        List<Writable> current = example;
+        for (int i = 0; i < transforms.length; i++) {
+            if (filters[i] != null) {
+                if (filters[i].removeExample(current))
+                    return null;
+                continue;
+            }
+            if (tryCatch) {
+                try {
+                    current = transforms[i].map(current);
+                } catch (Exception e) {
+                    log.warn("Error occurred " + e + " on record " + current);
+                    return null;
+                }
+                if (current == null || current.isEmpty())
+                    return null;
+            } else {
+                current = transforms[i].map(current);
+            }
+        }
+        return current;
+    }
+
+    private class PipelineIterator implements Iterator<List<Writable>> {
+        private final Iterator<List<Writable>> iterator;
+        private final boolean tryCatch;
+        private List<Writable> next;
+
+        private PipelineIterator(Iterator<List<Writable>> iterator, boolean tryCatch) {
+            this.iterator = iterator;
+            this.tryCatch = tryCatch;
+        }
+
+        @Override
+        public boolean hasNext() {
+            while (next == null && iterator.hasNext()) {
+                next = apply(iterator.next(), tryCatch);
+            }
+            return next != null;
+        }
+
+        @Override
+        public List<Writable> next() {
+            if (!hasNext())
+                throw new NoSuchElementException();
+            List<Writable> ret = next;
+            next = null;
+            return ret;
+        }
+
+        @Override
+        public void remove() {
+            throw new UnsupportedOperationException("Not supported");
+        }
+    }
+}
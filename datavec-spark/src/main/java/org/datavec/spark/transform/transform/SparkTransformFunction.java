@@ -28,9 +28,13 @@ import java.util.List;
 
 /**
  * Created by Alex on 5/03/2016.
+ *
+ * @deprecated No longer used by {@link org.datavec.spark.transform.SparkTransformExecutor}: consecutive transforms
+ *             and filters are executed in a single stage by {@link SparkRowPipelineFunction}
  */
 @AllArgsConstructor
 @Slf4j
+@Deprecated
 public class SparkTransformFunction implements Function<List<Writable>, List<Writable>> {
 
     private final Transform transform;
@@ -0,0 +1,45 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import org.apache.spark.serializer.KryoRegistrator;
+import org.datavec.api.writable.*;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+
+/**
+ * Kryo registrator for compact serialization of DataVec records: registers the {@link WritableListSerializer} for
+ * the list classes used for records ({@link ArrayList} and the list returned by {@link Arrays#asList(Object[])}),
+ * and registers the writable classes themselves (for writables that are not part of a record).<br>
+ * Use via {@link SparkUtils#useCompactWritableSerialization(org.apache.spark.SparkConf)}, or by setting
+ * "spark.kryo.registrator" to this class.
+ */
+public class DataVecKryoRegistrator implements KryoRegistrator {
+
+    @Override
+    public void registerClasses(Kryo kryo) {
+        WritableListSerializer serializer = new WritableListSerializer();
+        kryo.register(ArrayList.class, serializer);
+        kryo.register(Arrays.asList().getClass(), serializer);
+
+        for (Class<?> c : SparkUtils.WRITABLE_CLASSES) {
+            kryo.register(c);
+        }
+    }
+}
@@ -25,6 +25,7 @@ import org.apache.spark.SparkConf;
 import org.apache.spark.SparkContext;
 import org.apache.spark.api.java.JavaRDD;
 import org.apache.spark.api.java.JavaSparkContext;
+import org.apache.spark.serializer.KryoSerializer;
 import org.datavec.api.transform.analysis.DataAnalysis;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.split.RandomSplit;
@@ -43,6 +44,11 @@ import java.util.List;
  */
 public class SparkUtils {
 
+    static final Class<?>[] WRITABLE_CLASSES = new Class<?>[] {BooleanWritable.class, ByteWritable.class,
+                    DoubleWritable.class, FloatWritable.class, IntWritable.class, LongWritable.class,
+                    NullWritable.class, Text.class};
+    private static final String KRYO_REGISTRATOR = "spark.kryo.registrator";
+
     public static <T> List<JavaRDD<T>> splitData(SplitStrategy splitStrategy, JavaRDD<T> data, long seed) {
 
         if (splitStrategy instanceof RandomSplit) {
@@ -272,11 +278,23 @@ public class SparkUtils {
      * Register the DataVec writable classes for Kryo
      */
     public static void registerKryoClasses(SparkConf conf) {
-        List<Class<?>> classes = Arrays.<Class<?>>asList(BooleanWritable.class, ByteWritable.class,
-                        DoubleWritable.class, FloatWritable.class, IntWritable.class, LongWritable.class,
-                        NullWritable.class, Text.class);
+        conf.registerKryoClasses(WRITABLE_CLASSES);
+    }
 
-        conf.registerKryoClasses((Class<?>[]) classes.toArray());
+    /**
+     * Configure Spark to use Kryo serialization, with compact serialization of DataVec records (lists of writables)
+     * for shuffles and serialized caching: see {@link WritableListSerializer}. Any Kryo registrators already set via
+     * "spark.kryo.registrator" are retained.
+     */
+    public static void useCompactWritableSerialization(SparkConf conf) {
+        conf.set("spark.serializer", KryoSerializer.class.getName());
+        String registrators = conf.get(KRYO_REGISTRATOR, "").trim();
+        String registrator = DataVecKryoRegistrator.class.getName();
+        if (registrators.isEmpty()) {
+            conf.set(KRYO_REGISTRATOR, registrator);
+        } else if (!Arrays.asList(registrators.split("\\s*,\\s*")).contains(registrator)) {
+            conf.set(KRYO_REGISTRATOR, registrators + "," + registrator);
+        }
     }
 
     public static Class<? extends CompressionCodec> getCompressionCodeClass(String compressionCodecClass) {
@@ -0,0 +1,173 @@
+/*-
+ *  * Copyright 2018 Skymind, Inc.
+ *  *
+ *  *    Licensed under the Apache License, Version 2.0 (the "License");
+ *  *    you may not use this file except in compliance with the License.
+ *  *    You may obtain a copy of the License at
+ *  *
+ *  *        http://www.apache.org/licenses/LICENSE-2.0
+ *  *
+ *  *    Unless required by applicable law or agreed to in writing, software
+ *  *    distributed under the License is distributed on an "AS IS" BASIS,
+ *  *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *  *    See the License for the specific language governing permissions and
+ *  *    limitations under the License.
+ */
+
+package org.datavec.spark.transform.utils;
+
+import com.esotericsoftware.kryo.Kryo;
+import com.esotericsoftware.kryo.Serializer;
+import com.esotericsoftware.kryo.io.Input;
+import com.esotericsoftware.kryo.io.Output;
+import org.datavec.api.writable.*;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+
+/**
+ * Compact Kryo serializer for lists of writables (DataVec records), as used for shuffles and serialized caching in
+ * Spark.<br>
+ * Instead of a class tag and object per value, a record is written as: the number of values, a header with a 4-bit
+ * type code per value, and then the values in packed binary form (zig-zag varints for int and long values, 8 and 4
+ * bytes for doubles and floats, length-prefixed UTF-8 bytes for Text, and nothing at all for booleans and
+ * NullWritable). Values of any other type (including non-writable elements) are written with Kryo as usual, so this
+ * serializer can be registered for general purpose list classes.<br>
+ * Lists are always deserialized as an {@link ArrayList}.
+ * <p>
+ * See {@link DataVecKryoRegistrator} and {@link SparkUtils#useCompactWritableSerialization(org.apache.spark.SparkConf)}
+ */
+public class WritableListSerializer extends Serializer<List<Object>> {
+
+    private static final int NULL_REF = 0;
+    private static final int NULL_WRITABLE = 1;
+    private static final int INT = 2;
+    private static final int LONG = 3;
+    private static final int DOUBLE = 4;
+    private static final int FLOAT = 5;
+    private static final int TEXT = 6;
+    private static final int FALSE = 7;
+    private static final int TRUE = 8;
+    private static final int BYTE = 9;
+    private static final int OTHER = 10;
+
+    @Override
+    public void write(Kryo kryo, Output output, List<Object> list) {
+        int n = list.size();
+        output.writeInt(n, true);
+
+        //Header: two type codes per byte
+        Iterator<Object> iter = list.iterator();
+        for (int i = 0; i < n; i += 2) {
+            int b = typeOf(iter.next());
+            if (i + 1 < n)
+                b |= typeOf(iter.next()) << 4;
+            output.writeByte(b);
+        }
+
+        for (Object o : list) {
+            switch (typeOf(o)) {
+                case INT:
+                    output.writeInt(((IntWritable) o).get(), false);
+                    break;
+                case LONG:
+                    output.writeLong(((LongWritable) o).get(), false);
+                    break;
+                case DOUBLE:
+                    output.writeDouble(((DoubleWritable) o).get());
+                    break;
+                case FLOAT:
+                    output.writeFloat(((FloatWritable) o).get());
+                    break;
+                case TEXT:
+                    Text t = (Text) o;
+                    output.writeInt(t.getLength(), true);
+                    output.writeBytes(t.getBytes(), 0, t.getLength());
+                    break;
+                case BYTE:
+                    output.writeByte(((ByteWritable) o).get());
+                    break;
+                case OTHER:
+                    kryo.writeClassAndObject(output, o);
+                    break;
+                default:
+                    //Null, NullWritable, booleans: no value, type code only
+            }
+        }
+    }
+
+    @Override
+    public List<Object> read(Kryo kryo, Input input, Class<List<Object>> type) {
+        int n = input.readInt(true);
+        List<Object> list = new ArrayList<>(n);
+        kryo.reference(list);
+
+        byte[] header = input.readBytes((n + 1) / 2);
+        for (int i = 0; i < n; i++) {
+            int typeCode = (header[i >> 1] >> ((i & 1) << 2)) & 0xF;
+            switch (typeCode) {
+                case NULL_REF:
+                    list.add(null);
+                    break;
+                case NULL_WRITABLE:
+                    list.add(NullWritable.INSTANCE);
+                    break;
+                case INT:
+                    list.add(new IntWritable(input.readInt(false)));
+                    break;
+                case LONG:
+                    list.add(new LongWritable(input.readLong(false)));
+                    break;
+                case DOUBLE:
+                    list.add(new DoubleWritable(input.readDouble()));
+                    break;
+                case FLOAT:
+                    list.add(new FloatWritable(input.readFloat()));
+                    break;
+                case TEXT:
+                    list.add(new Text(input.readBytes(input.readInt(true))));
+                    break;
+                case FALSE:
+                    list.add(new BooleanWritable(false));
+                    break;
+                case TRUE:
+                    list.add(new BooleanWritable(true));
+                    break;
+                case BYTE:
+                    list.add(new ByteWritable(input.readByte()));
+                    break;
+                case OTHER:
+                    list.add(kryo.readClassAndObject(input));
+                    break;
+                default:
+                    throw new IllegalStateException("Invalid type code: " + typeCode);
+            }
+        }
+        return list;
+    }
+
+    private static int typeOf(Object o) {
+        if (o == null)
+            return NULL_REF;
+        //Exact class match only: subclasses may have additional state
+        Class<?> c = o.getClass();
+        if (c == NullWritable.class)
+            return NULL_WRITABLE;
+        if (c == IntWritable.class)
+            return INT;
+        if (c == LongWritable.class)
+            return LONG;
+        if (c == DoubleWritable.class)
+            return DOUBLE;
+        if (c == FloatWritable.class)
+            return FLOAT;
+        if (c == Text.class)
+            return TEXT;
+        if (c == BooleanWritable.class)
+            return ((BooleanWritable) o).get() ? TRUE : FALSE;
+        if (c == ByteWritable.class)
+            return BYTE;
+        return OTHER;
+    }
+}
@@ -16,17 +16,25 @@
 
 package org.datavec.spark;
 
+import org.apache.spark.SparkConf;
 import org.apache.spark.serializer.KryoSerializer;
 import org.apache.spark.serializer.KryoSerializerInstance;
 import org.apache.spark.serializer.SerializerInstance;
 import org.datavec.api.records.reader.RecordReader;
 import org.datavec.api.records.reader.impl.csv.CSVRecordReader;
 import org.datavec.api.split.FileSplit;
+import org.datavec.api.writable.*;
+import org.datavec.spark.transform.utils.SparkUtils;
+import org.junit.Ignore;
 import org.junit.Test;
 import org.nd4j.linalg.io.ClassPathResource;
 
 import java.io.File;
 import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Random;
 
 import static org.junit.Assert.assertEquals;
 import static org.junit.Assert.assertFalse;
@@ -58,6 +66,75 @@ public class TestKryoSerialization extends BaseSparkTest {
     }
 
 
+    @Test
+    public void testCompactWritableSerialization() {
+        SparkConf conf = new SparkConf();
+        SparkUtils.useCompactWritableSerialization(conf);
+        SerializerInstance compact = new KryoSerializer(conf).newInstance();
+        SerializerInstance standard = sc.env().serializer().newInstance();
+
+        List<Writable> record = Arrays.<Writable>asList(new IntWritable(-3), new LongWritable(Long.MAX_VALUE),
+                        new DoubleWritable(Math.PI), new FloatWritable(1.5f), new Text("text \u00e9"),
+                        new BooleanWritable(true), new BooleanWritable(false), new ByteWritable((byte) 7),
+                        NullWritable.INSTANCE);
+        List<Writable> out = serDe(record, compact);
+        assertEquals(record, out);
+        assertEquals(new ArrayList<>(record), serDe(new ArrayList<>(record), compact));
+
+        //Nested lists, non-writable elements and null elements
+        List<Object> nested = new ArrayList<>();
+        nested.add(new ArrayList<>(record.subList(0, 3)));
+        nested.add("string");
+        nested.add(null);
+        assertEquals(nested, serDe(nested, compact));
+
+        //Numeric record: packed layout should be much smaller than the default
+        List<Writable> numeric = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            numeric.add(i % 2 == 0 ? new IntWritable(i) : new DoubleWritable(i));
+        }
+        int compactSize = compact.serialize(numeric, null).remaining();
+        int standardSize = standard.serialize(numeric, null).remaining();
+        assertTrue(compactSize + " vs " + standardSize, compactSize < standardSize);
+    }
+
+    @Ignore
+    @Test
+    public void benchmarkCompactWritableSerialization() {
+        SparkConf conf = new SparkConf();
+        SparkUtils.useCompactWritableSerialization(conf);
+        SerializerInstance compact = new KryoSerializer(conf).newInstance();
+        SerializerInstance standard = sc.env().serializer().newInstance();
+
+        //Records as shuffled by a group by key: a key column, 10 double and 10 int columns
+        Random r = new Random(12345);
+        List<List<Writable>> records = new ArrayList<>();
+        for (int i = 0; i < 100000; i++) {
+            List<Writable> record = new ArrayList<>();
+            record.add(new Text("key" + r.nextInt(100)));
+            for (int j = 0; j < 10; j++) {
+                record.add(new DoubleWritable(r.nextDouble()));
+                record.add(new IntWritable(r.nextInt(1000)));
+            }
+            records.add(record);
+        }
+
+        for (int iter = 0; iter < 5; iter++) {
+            for (SerializerInstance si : new SerializerInstance[] {standard, compact}) {
+                long bytes = 0;
+                long start = System.nanoTime();
+                for (List<Writable> record : records) {
+                    ByteBuffer bb = si.serialize(record, null);
+                    bytes += bb.remaining();
+                    si.deserialize(bb, null);
+                }
+                long end = System.nanoTime();
+                System.out.println((si == compact ? "Compact" : "Standard") + ": " + bytes + " bytes, "
+                                + (end - start) / 1000000 + " ms (serialize and deserialize)");
+            }
+        }
+    }
+
     private <T> T serDe(T in, SerializerInstance si){
         ByteBuffer bb = si.serialize(in, null);
         return (T)si.deserialize(bb, null);
@@ -20,6 +20,8 @@ import org.apache.spark.api.java.JavaRDD;
 import org.datavec.api.transform.MathOp;
 import org.datavec.api.transform.ReduceOp;
 import org.datavec.api.transform.TransformProcess;
+import org.datavec.api.transform.condition.ConditionOp;
+import org.datavec.api.transform.condition.column.IntegerColumnCondition;
 import org.datavec.api.transform.reduce.Reducer;
 import org.datavec.api.transform.schema.Schema;
 import org.datavec.api.transform.schema.SequenceSchema;
@@ -72,6 +74,38 @@ public class ExecutionTest extends BaseSparkTest {
         assertEquals(expected, out);
     }
 
+    @Test
+    public void testExecutionTransformsAndFilters() {
+        Schema schema = new Schema.Builder().addColumnInteger("col0")
+                        .addColumnCategorical("col1", "state0", "state1", "state2").addColumnDouble("col2").build();
+
+        //Transforms and filters are executed in a single pass
+        TransformProcess tp = new TransformProcess.Builder(schema).categoricalToInteger("col1")
+                        .filter(new IntegerColumnCondition("col0", ConditionOp.LessThan, 1))
+                        .doubleMathOp("col2", MathOp.Add, 10.0).build();
+
+        List<List<Writable>> inputData = new ArrayList<>();
+        inputData.add(Arrays.<Writable>asList(new IntWritable(0), new Text("state2"), new DoubleWritable(0.1)));
+        inputData.add(Arrays.<Writable>asList(new IntWritable(1), new Text("state1"), new DoubleWritable(1.1)));
+        inputData.add(Arrays.<Writable>asList(new IntWritable(2), new Text("state0"), new Text("notADouble")));
+
+        List<List<Writable>> expected = new ArrayList<>();
+        expected.add(Arrays.<Writable>asList(new IntWritable(1), new IntWritable(1), new DoubleWritable(11.1)));
+
+        //Error logging mode: the example that can't be transformed is skipped
+        System.setProperty(SparkTransformExecutor.LOG_ERROR_PROPERTY, "true");
+        try {
+            List<List<Writable>> out = SparkTransformExecutor.execute(sc.parallelize(inputData, 2), tp).collect();
+            assertEquals(expected, out);
+        } finally {
+            System.clearProperty(SparkTransformExecutor.LOG_ERROR_PROPERTY);
+        }
+
+        inputData.remove(2);
+        List<List<Writable>> out = SparkTransformExecutor.execute(sc.parallelize(inputData, 2), tp).collect();
+        assertEquals(expected, out);
+    }
+
     @Test
     public void testExecutionSequence() {
 
@@ -180,56 +180,61 @@ public class TestJoin extends BaseSparkTest {
         JavaRDD<List<Writable>> secondRDD = sc.parallelize(second);
 
         int count = 0;
-        for (Join.JoinType jt : Join.JoinType.values()) {
-            Join join = new Join.Builder(jt).setJoinColumnsLeft("category").setJoinColumnsRight("otherCategory")
-                            .setSchemas(schema1, schema2).build();
-            List<List<Writable>> out =
-                            new ArrayList<>(SparkTransformExecutor.executeJoin(join, firstRDD, secondRDD).collect());
-
-            //Sort output by column 0, then column 1, then column 2 for comparison to expected...
-            Collections.sort(out, new Comparator<List<Writable>>() {
-                @Override
-                public int compare(List<Writable> o1, List<Writable> o2) {
-                    Writable w1 = o1.get(0);
-                    Writable w2 = o2.get(0);
-                    if (w1 instanceof NullWritable)
-                        return 1;
-                    else if (w2 instanceof NullWritable)
-                        return -1;
-                    int c = Long.compare(w1.toLong(), w2.toLong());
-                    if (c != 0)
-                        return c;
-                    c = o1.get(1).toString().compareTo(o2.get(1).toString());
-                    if (c != 0)
-                        return c;
-                    w1 = o1.get(2);
-                    w2 = o2.get(2);
-                    if (w1 instanceof NullWritable)
-                        return 1;
-                    else if (w2 instanceof NullWritable)
-                        return -1;
-                    return Long.compare(w1.toLong(), w2.toLong());
+        for (Join.JoinStrategy strategy : Join.JoinStrategy.values()) {
+            for (int saltFactor : new int[] {1, 3}) {
+                for (Join.JoinType jt : Join.JoinType.values()) {
+                    Join join = new Join.Builder(jt).setJoinColumnsLeft("category")
+                                    .setJoinColumnsRight("otherCategory").setSchemas(schema1, schema2)
+                                    .setJoinStrategy(strategy).setSkewSaltFactor(saltFactor).build();
+                    List<List<Writable>> out = new ArrayList<>(
+                                    SparkTransformExecutor.executeJoin(join, firstRDD, secondRDD).collect());
+
+                    //Sort output by column 0, then column 1, then column 2 for comparison to expected...
+                    Collections.sort(out, new Comparator<List<Writable>>() {
+                        @Override
+                        public int compare(List<Writable> o1, List<Writable> o2) {
+                            Writable w1 = o1.get(0);
+                            Writable w2 = o2.get(0);
+                            if (w1 instanceof NullWritable)
+                                return 1;
+                            else if (w2 instanceof NullWritable)
+                                return -1;
+                            int c = Long.compare(w1.toLong(), w2.toLong());
+                            if (c != 0)
+                                return c;
+                            c = o1.get(1).toString().compareTo(o2.get(1).toString());
+                            if (c != 0)
+                                return c;
+                            w1 = o1.get(2);
+                            w2 = o2.get(2);
+                            if (w1 instanceof NullWritable)
+                                return 1;
+                            else if (w2 instanceof NullWritable)
+                                return -1;
+                            return Long.compare(w1.toLong(), w2.toLong());
+                        }
+                    });
+
+                    switch (jt) {
+                        case Inner:
+                            assertEquals(expInnerJoin, out);
+                            break;
+                        case LeftOuter:
+                            assertEquals(expLeftJoin, out);
+                            break;
+                        case RightOuter:
+                            assertEquals(expRightJoin, out);
+                            break;
+                        case FullOuter:
+                            assertEquals(expOuterJoin, out);
+                            break;
+                    }
+                    count++;
                 }
-            });
-
-            switch (jt) {
-                case Inner:
-                    assertEquals(expInnerJoin, out);
-                    break;
-                case LeftOuter:
-                    assertEquals(expLeftJoin, out);
-                    break;
-                case RightOuter:
-                    assertEquals(expRightJoin, out);
-                    break;
-                case FullOuter:
-                    assertEquals(expOuterJoin, out);
-                    break;
             }
-            count++;
         }
 
-        assertEquals(4, count);
+        assertEquals(4 * 3 * 2, count);
     }
 
 }
@@ -27,6 +27,7 @@ import org.datavec.spark.BaseSparkTest;
 import org.datavec.spark.transform.SparkTransformExecutor;
 import org.junit.Test;
 
+import java.util.ArrayList;
 import java.util.Arrays;
 import java.util.Collections;
 import java.util.List;
@@ -84,6 +85,44 @@ public class TestConvertToSequence extends BaseSparkTest {
         assertEquals(expSeq1, seq1);
     }
 
+    @Test
+    public void testConvertToSequenceMaxLength() {
+
+        Schema s = new Schema.Builder().addColumnString("key").addColumnLong("time").build();
+
+        List<List<Writable>> allExamples = new ArrayList<>();
+        for (int i = 0; i < 7; i++) {
+            allExamples.add(Arrays.<Writable>asList(new Text("a"), new LongWritable(6 - i)));
+        }
+        allExamples.add(Arrays.<Writable>asList(new Text("b"), new LongWritable(0)));
+
+        TransformProcess tp = new TransformProcess.Builder(s)
+                        .convertToSequence(Collections.singletonList("key"), new NumericalColumnComparator("time"), 3)
+                        .build();
+
+        JavaRDD<List<Writable>> rdd = sc.parallelize(allExamples, 3);
+
+        List<List<List<Writable>>> out = SparkTransformExecutor.executeToSequence(rdd, tp).collect();
+
+        //"a": 7 steps -> sequences of length 3, 3 and 1, in order. "b": 1 step
+        assertEquals(4, out.size());
+        List<List<List<Writable>>> seqA = new ArrayList<>();
+        for (List<List<Writable>> seq : out) {
+            if (seq.get(0).get(0).toString().equals("a"))
+                seqA.add(seq);
+            else
+                assertEquals(1, seq.size());
+        }
+        assertEquals(3, seqA.size());
+        int expTime = 0;
+        for (int i = 0; i < 3; i++) {
+            assertEquals(i < 2 ? 3 : 1, seqA.get(i).size());
+            for (List<Writable> step : seqA.get(i)) {
+                assertEquals(expTime++, step.get(1).toLong());
+            }
+        }
+    }
+
     @Test
     public void testConvertToSequenceLength1(){
 